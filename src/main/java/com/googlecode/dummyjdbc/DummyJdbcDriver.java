@@ -1,35 +1,45 @@
 package com.googlecode.dummyjdbc;
 
 import com.googlecode.dummyjdbc.connection.impl.DummyConnection;
+import com.googlecode.dummyjdbc.query.PlanCache;
+import com.googlecode.dummyjdbc.table.LoadOptions;
+import com.googlecode.dummyjdbc.table.PersistenceOptions;
+import com.googlecode.dummyjdbc.table.TableCache;
+import com.googlecode.dummyjdbc.table.TableStore;
 import com.googlecode.dummyjdbc.utils.FilenameUtils;
 import com.googlecode.dummyjdbc.utils.StringUtils;
 
 import java.io.File;
 import java.io.FileFilter;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 /**
  * The {@link DummyJdbcDriver}. The {@link #connect(String, Properties)} method returns the {@link DummyConnection}.
  *
+ * <p>
+ * The registered CSV files are kept in concurrent maps, one per database. Registering a table and looking up a table
+ * take no lock, a connection sees tables which are registered for its database after it was opened.
+ * </p>
+ *
  * @author Kai Winter
  */
 public final class DummyJdbcDriver implements Driver {
 
 	private final static String DEFAULT_DATABASE = "any";
 
-	private static final Map<String, Map<String, File>> tableResources = Collections.synchronizedMap(
-		new HashMap<String, Map<String, File>>());
+	private static final ConcurrentMap<String, ConcurrentMap<String, File>> tableResources = new ConcurrentHashMap<>();
 
 	static {
 		try {
@@ -50,14 +60,68 @@ public final class DummyJdbcDriver implements Driver {
 	 *            A {@link File} object of a CSV file which should be parsed in order to return table data.
 	 */
 	public static void addTableResource(String tablename, File csvFile) {
-		Map<String, File> databaseMap;
-		if (tableResources.containsKey(DEFAULT_DATABASE)) {
-			databaseMap = tableResources.get(DEFAULT_DATABASE);
-		} else {
-			databaseMap = Collections.synchronizedMap(new HashMap<String, File>());
+		getDatabaseMap(DEFAULT_DATABASE).put(tablename.toLowerCase(), csvFile);
+	}
+
+	/**
+	 * Sets the maximum amount of heap the parsed CSV tables may occupy. Parsed tables are shared by all connections and
+	 * the least recently used tables are evicted if the limit is exceeded.
+	 *
+	 * @param maxSize
+	 *            the maximum size in bytes, 0 disables caching.
+	 */
+	public static void setTableCacheMaxSize(long maxSize) {
+		TableCache.getInstance().setMaxSize(maxSize);
+	}
+
+	/**
+	 * Sets the maximum number of statements whose parsed plans are cached. Plans are shared by all connections, a
+	 * cached statement is executed without parsing it again.
+	 *
+	 * @param maxSize
+	 *            the maximum number of plans, 0 disables caching.
+	 */
+	public static void setPlanCacheMaxSize(int maxSize) {
+		PlanCache.getInstance().setMaxSize(maxSize);
+	}
+
+	/**
+	 * Enables or disables the persistence of tables modified by INSERT, UPDATE and DELETE. If it is enabled, the
+	 * changes are logged next to the CSV files and are recovered when the tables are read again, e.g. after a restart.
+	 * The logs are compacted into the CSV files in the background. Persistence is disabled by default.
+	 *
+	 * @param options
+	 *            the {@link PersistenceOptions}, <code>null</code> disables persistence.
+	 */
+	public static void setPersistence(PersistenceOptions options) {
+		TableStore.getInstance().setPersistenceOptions(options);
+	}
+
+	/**
+	 * Removes the parsed data of a table from the cache, so the CSV file will be read again by the next query. Rows
+	 * inserted, updated or deleted by statements are discarded, unless they were persisted, see
+	 * {@link #setPersistence(PersistenceOptions)}.
+	 *
+	 * @param tablename
+	 *            The name of the database table like in the SQL statement (e.g. addresses).
+	 */
+	public static void invalidateTableResource(String tablename) {
+		for (Map<String, File> databaseMap : tableResources.values()) {
+			File csvFile = databaseMap.get(tablename.toLowerCase());
+			if (csvFile != null) {
+				TableCache.getInstance().invalidate(csvFile);
+				TableStore.getInstance().remove(csvFile);
+			}
 		}
-		databaseMap.put(tablename.toLowerCase(), csvFile);
-		tableResources.put(DEFAULT_DATABASE, databaseMap);
+	}
+
+	/**
+	 * Removes the parsed data of all tables from the cache and discards the modifications of all tables which were not
+	 * persisted.
+	 */
+	public static void invalidateTableCache() {
+		TableCache.getInstance().invalidateAll();
+		TableStore.getInstance().clear();
 	}
 
 	@Override
@@ -86,12 +150,32 @@ public final class DummyJdbcDriver implements Driver {
 
 		loadTableResources(database);
 
-		return new DummyConnection(tableResources.get(database));
+		LoadOptions loadOptions;
+		try {
+			loadOptions = LoadOptions.fromProperties(info);
+		} catch (IllegalArgumentException e) {
+			throw new SQLException("Invalid connection property: " + e.getMessage(), e);
+		}
+		return new DummyConnection(getDatabaseMap(database), loadOptions);
 	}
 
 	@Override
 	public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties props) throws SQLException {
-		return new DriverPropertyInfo[0];
+		DriverPropertyInfo parser = new DriverPropertyInfo(LoadOptions.PARSER, LoadOptions.PARSER_OPENCSV);
+		parser.description = "The parser for the CSV files";
+		parser.choices = new String[] { LoadOptions.PARSER_OPENCSV, LoadOptions.PARSER_FAST };
+
+		DriverPropertyInfo charset = new DriverPropertyInfo(LoadOptions.CHARSET, Charset.defaultCharset().name());
+		charset.description = "The encoding of the CSV files";
+
+		DriverPropertyInfo storage = new DriverPropertyInfo(LoadOptions.STORAGE, LoadOptions.STORAGE_HEAP);
+		storage.description = "Parse the CSV files onto the heap or map them into memory";
+		storage.choices = new String[] { LoadOptions.STORAGE_HEAP, LoadOptions.STORAGE_MAPPED };
+
+		DriverPropertyInfo parallelism = new DriverPropertyInfo(LoadOptions.PARALLELISM, "1");
+		parallelism.description = "Number of chunks a large CSV file is split into to parse it in parallel";
+
+		return new DriverPropertyInfo[] { parser, charset, storage, parallelism };
 	}
 
 	@Override
@@ -156,14 +240,30 @@ public final class DummyJdbcDriver implements Driver {
 		});
 
 		// registry table resources
+		Map<String, File> databaseMap = getDatabaseMap(database);
 		for (File file : files) {
-			Map<String, File> databaseMap = tableResources.get(database);
+			databaseMap.put(FilenameUtils.getBaseName(file.getName()), file);
+		}
+	}
+
+	/**
+	 * Returns the tables of a database, registering the database if it is not registered yet. Concurrent callers get
+	 * the same {@link Map}.
+	 *
+	 * @param database
+	 *            the name of the database.
+	 * @return {@link Map} of table name to CSV file
+	 */
+	private static Map<String, File> getDatabaseMap(String database) {
+		ConcurrentMap<String, File> databaseMap = tableResources.get(database);
+		if (databaseMap == null) {
+			ConcurrentMap<String, File> created = new ConcurrentHashMap<>();
+			databaseMap = tableResources.putIfAbsent(database, created);
 			if (databaseMap == null) {
-				databaseMap = Collections.synchronizedMap(new HashMap<String, File>());
-				tableResources.put(database, databaseMap);
+				databaseMap = created;
 			}
-			databaseMap.put(FilenameUtils.getBaseName(file.getName()), file);
 		}
+		return databaseMap;
 	}
 
 }
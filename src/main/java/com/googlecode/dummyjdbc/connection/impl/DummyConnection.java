@@ -1,8 +1,11 @@
 package com.googlecode.dummyjdbc.connection.impl;
 
 import java.io.File;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.Collections;
 import java.util.Map;
@@ -10,12 +13,37 @@ import java.util.Map;
 import com.googlecode.dummyjdbc.connection.ConnectionAdapter;
 import com.googlecode.dummyjdbc.statement.impl.CsvPreparedStatement;
 import com.googlecode.dummyjdbc.statement.impl.CsvStatement;
+import com.googlecode.dummyjdbc.statement.impl.Session;
+import com.googlecode.dummyjdbc.table.LoadOptions;
+import com.googlecode.dummyjdbc.table.TableStore;
 
 /**
  * Connection which implements the methods {@link #createStatement()} and {@link #prepareStatement(String)}. The
  * {@link DummyConnection} tries to open a CSV file in the directory <code>./table/</code> with the name
- * <code>&lt;tablename&gt;.csv</code> and returns the contained values. The query result will contain all values from
- * the file, it will not be narrowed by the query. The first line of the CSV file has to contain the column names.
+ * <code>&lt;tablename&gt;.csv</code> and returns the contained values. The first line of the CSV file has to contain
+ * the column names.
+ *
+ * <p>
+ * The result is narrowed by the query where the driver supports it: the WHERE clause filters the rows by comparisons,
+ * BETWEEN, IN, LIKE and IS NULL of columns and values, a select list of columns picks the returned columns, and ORDER
+ * BY, LIMIT and OFFSET sort and page the rows. Parts of a query which are not supported are ignored instead of failing
+ * the query: an unsupported WHERE clause returns all rows, an unsupported select list returns all columns and an
+ * unsupported ORDER BY returns the rows in file order. A query of a table without a CSV file returns a
+ * {@link com.googlecode.dummyjdbc.resultset.DummyResultSet}.
+ * </p>
+ *
+ * <p>
+ * If auto-commit mode is disabled, the statements of the connection see the tables as they were when the transaction
+ * began, together with their own modifications. A commit fails if a concurrent transaction modified one of the same
+ * tables first. Savepoints are not supported.
+ * </p>
+ *
+ * <p>
+ * With persistence enabled the compaction rewrites the CSV files, so a table which a transaction reads first after
+ * a compaction may already contain modifications committed after the transaction began. The connection therefore
+ * reports {@link Connection#TRANSACTION_READ_COMMITTED} instead of {@link Connection#TRANSACTION_REPEATABLE_READ} in
+ * this case.
+ * </p>
  *
  * @author Kai Winter
  */
@@ -23,21 +51,35 @@ public class DummyConnection extends ConnectionAdapter {
 
 	private Map<String, File> tableResources;
 
+	private final LoadOptions loadOptions;
+
+	private final Session session = new Session();
+
 	/**
 	 * Constructs a new {@link DummyConnection}.
 	 * @param tableResources {@link Map} of table name to CSV file.
 	 */
 	public DummyConnection(Map<String, File> tableResources) {
+		this(tableResources, LoadOptions.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new {@link DummyConnection}.
+	 * @param tableResources {@link Map} of table name to CSV file.
+	 * @param loadOptions the {@link LoadOptions} used to read the CSV files.
+	 */
+	public DummyConnection(Map<String, File> tableResources, LoadOptions loadOptions) {
 		if (tableResources == null) {
 			this.tableResources = Collections.emptyMap();
 		} else {
 			this.tableResources = tableResources;
 		}
+		this.loadOptions = loadOptions;
 	}
 
 	@Override
 	public Statement createStatement() throws SQLException {
-		return new CsvStatement(tableResources);
+		return new CsvStatement(tableResources, loadOptions, session);
 	}
 
 	@Override
@@ -52,7 +94,7 @@ public class DummyConnection extends ConnectionAdapter {
 
 	@Override
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
-		return new CsvPreparedStatement(tableResources, sql);
+		return new CsvPreparedStatement(tableResources, sql, loadOptions, session);
 	};
 
 	@Override
@@ -79,4 +121,57 @@ public class DummyConnection extends ConnectionAdapter {
 	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
 		return prepareStatement(sql);
 	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		session.setAutoCommit(autoCommit);
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		return session.getAutoCommit();
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		session.commit();
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		session.rollback();
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		throw new SQLFeatureNotSupportedException("Savepoints are not supported");
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Savepoints are not supported");
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Savepoints are not supported");
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Savepoints are not supported");
+	}
+
+	@Override
+	public void close() throws SQLException {
+		session.rollback();
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		if (TableStore.getInstance().getPersistenceOptions() != null) {
+			return Connection.TRANSACTION_READ_COMMITTED;
+		}
+		return Connection.TRANSACTION_REPEATABLE_READ;
+	}
 }
@@ -0,0 +1,56 @@
+package com.googlecode.dummyjdbc.csv;
+
+/**
+ * A {@link CsvRecord} whose fields are already available as {@link String}s.
+ *
+ * @author Kai Winter
+ */
+public final class ArrayCsvRecord implements CsvRecord {
+
+	private String[] fields;
+
+	/**
+	 * Constructs a new {@link ArrayCsvRecord}.
+	 *
+	 * @param fields
+	 *            the values of the fields.
+	 */
+	public ArrayCsvRecord(String[] fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * Replaces the fields, so the instance can be reused for the next record.
+	 *
+	 * @param fields
+	 *            the values of the fields.
+	 */
+	void setFields(String[] fields) {
+		this.fields = fields;
+	}
+
+	@Override
+	public int getFieldCount() {
+		return fields.length;
+	}
+
+	@Override
+	public String getField(int index) {
+		return fields[index].trim();
+	}
+
+	@Override
+	public boolean isEmpty(int index) {
+		return getField(index).isEmpty();
+	}
+
+	@Override
+	public int getLength(int index) {
+		return getField(index).length();
+	}
+
+	@Override
+	public int getInt(int index) {
+		return Integer.parseInt(getField(index));
+	}
+}
@@ -0,0 +1,196 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@link CsvRecord} which only knows the offsets of its fields in a {@link ByteBuffer}. A {@link String} is created
+ * when a field is requested, ints are parsed directly from the bytes.
+ *
+ * @author Kai Winter
+ */
+final class ByteBufferCsvRecord implements CsvRecord {
+
+	private static final char QUOTE = '"';
+	private static final char ESCAPE = '\\';
+
+	private final ByteBuffer buffer;
+	private final Charset charset;
+
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+
+	/** Fields containing quotes, escapes or line breaks, which need to be unescaped. */
+	private boolean[] special = new boolean[16];
+
+	private int fieldCount;
+
+	/** Used to decode fields of buffers which are not backed by an array. */
+	private byte[] scratch = new byte[64];
+
+	ByteBufferCsvRecord(ByteBuffer buffer, Charset charset) {
+		this.buffer = buffer;
+		this.charset = charset;
+	}
+
+	void clear() {
+		fieldCount = 0;
+	}
+
+	void addField(int start, int end, boolean needsUnescape) {
+		if (fieldCount == starts.length) {
+			starts = Arrays.copyOf(starts, fieldCount * 2);
+			ends = Arrays.copyOf(ends, fieldCount * 2);
+			special = Arrays.copyOf(special, fieldCount * 2);
+		}
+		starts[fieldCount] = start;
+		ends[fieldCount] = end;
+		special[fieldCount] = needsUnescape;
+		fieldCount++;
+	}
+
+	@Override
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	@Override
+	public String getField(int index) {
+		checkIndex(index);
+		if (special[index]) {
+			return unescape(decode(starts[index], ends[index])).trim();
+		}
+		int start = trimStart(index);
+		return decode(start, trimEnd(index, start));
+	}
+
+	@Override
+	public boolean isEmpty(int index) {
+		checkIndex(index);
+		if (special[index]) {
+			return getField(index).isEmpty();
+		}
+		return trimStart(index) == ends[index];
+	}
+
+	@Override
+	public int getLength(int index) {
+		checkIndex(index);
+		if (special[index]) {
+			return getField(index).length();
+		}
+		int start = trimStart(index);
+		int end = trimEnd(index, start);
+		for (int position = start; position < end; position++) {
+			if (buffer.get(position) < 0) {
+				// Not ASCII, the number of bytes is not the number of characters
+				return decode(start, end).length();
+			}
+		}
+		return end - start;
+	}
+
+	@Override
+	public int getInt(int index) {
+		checkIndex(index);
+		if (special[index]) {
+			return Integer.parseInt(getField(index));
+		}
+
+		int start = trimStart(index);
+		int end = trimEnd(index, start);
+		int position = start;
+		boolean negative = false;
+		if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+			negative = buffer.get(position) == '-';
+			position++;
+		}
+		// Up to 9 digits can't overflow, everything else is left to Integer.parseInt
+		if (position == end || end - position > 9) {
+			return Integer.parseInt(decode(start, end));
+		}
+		int value = 0;
+		for (; position < end; position++) {
+			int digit = buffer.get(position) - '0';
+			if (digit < 0 || digit > 9) {
+				return Integer.parseInt(decode(start, end));
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= fieldCount) {
+			throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+		}
+	}
+
+	private int trimStart(int index) {
+		int start = starts[index];
+		while (start < ends[index] && (buffer.get(start) & 0xFF) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	private int trimEnd(int index, int start) {
+		int end = ends[index];
+		while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	private String decode(int start, int end) {
+		int length = end - start;
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+		}
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			scratch[i] = buffer.get(start + i);
+		}
+		return new String(scratch, 0, length, charset);
+	}
+
+	/**
+	 * Resolves quotes and escapes the same way the opencsv CSVParser does: a quote toggles the quoted state, a doubled
+	 * quote inside quotes is a literal quote, a backslash inside quotes escapes a following quote or backslash and
+	 * other backslashes are dropped. Quotes in the middle of a field are kept. Line breaks are normalized to
+	 * <code>\n</code>.
+	 */
+	private static String unescape(String raw) {
+		String field = raw.indexOf('\r') == -1 ? raw : raw.replace("\r\n", "\n").replace('\r', '\n');
+		StringBuilder sb = new StringBuilder(field.length());
+		boolean inQuotes = false;
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			boolean hasNext = i + 1 < field.length();
+			if (c == ESCAPE) {
+				if (inQuotes && hasNext && (field.charAt(i + 1) == QUOTE || field.charAt(i + 1) == ESCAPE)) {
+					sb.append(field.charAt(++i));
+				}
+			} else if (c == QUOTE) {
+				if (inQuotes && hasNext && field.charAt(i + 1) == QUOTE) {
+					sb.append(field.charAt(++i));
+				} else {
+					inQuotes = !inQuotes;
+					if (i > 0 && hasNext) {
+						if (sb.length() > 0 && sb.toString().trim().isEmpty()) {
+							sb.setLength(0);
+						} else {
+							sb.append(c);
+						}
+					}
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,133 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Scans the records of a CSV file directly in a {@link ByteBuffer}. Only the offsets of the fields are recorded,
+ * nothing is copied or decoded until a field value is requested from the {@link CsvRecord}. The charset has to be
+ * ASCII compatible (like UTF-8 or ISO-8859-1), as separators, quotes and line breaks are matched byte-wise.
+ *
+ * @author Kai Winter
+ */
+public final class ByteBufferRecordReader implements CsvRecordReader {
+
+	private static final byte SEPARATOR = ',';
+	private static final byte QUOTE = '"';
+	private static final byte ESCAPE = '\\';
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final ByteBuffer buffer;
+	private final int end;
+	private final ByteBufferCsvRecord record;
+
+	private int position;
+
+	/**
+	 * Constructs a new {@link ByteBufferRecordReader} which reads the whole buffer, from index 0 to its limit.
+	 *
+	 * @param buffer
+	 *            the content of the CSV file.
+	 * @param charset
+	 *            the encoding of the file.
+	 */
+	public ByteBufferRecordReader(ByteBuffer buffer, Charset charset) {
+		this(buffer, 0, buffer.limit(), charset);
+	}
+
+	/**
+	 * Constructs a new {@link ByteBufferRecordReader} which reads a range of the buffer. The range has to start at the
+	 * beginning of a record.
+	 *
+	 * @param buffer
+	 *            the content of the CSV file.
+	 * @param start
+	 *            the index of the first byte to read.
+	 * @param end
+	 *            the index after the last byte to read.
+	 * @param charset
+	 *            the encoding of the file.
+	 */
+	public ByteBufferRecordReader(ByteBuffer buffer, int start, int end, Charset charset) {
+		this.buffer = buffer;
+		this.position = start;
+		this.end = end;
+		this.record = new ByteBufferCsvRecord(buffer, charset);
+	}
+
+	/**
+	 * @return the index of the first byte of the next record
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Moves the reader to another record.
+	 *
+	 * @param position
+	 *            the index of the first byte of a record, as returned by {@link #getPosition()}.
+	 */
+	public void seek(int position) {
+		this.position = position;
+	}
+
+	@Override
+	public CsvRecord next() throws IOException {
+		if (position >= end) {
+			return null;
+		}
+
+		record.clear();
+		int fieldStart = position;
+		boolean inQuotes = false;
+		boolean special = false;
+		int i = position;
+		while (i < end) {
+			byte b = buffer.get(i);
+			if (b == QUOTE) {
+				special = true;
+				if (inQuotes && i + 1 < end && buffer.get(i + 1) == QUOTE) {
+					i++;
+				} else {
+					inQuotes = !inQuotes;
+				}
+			} else if (b == ESCAPE) {
+				special = true;
+				if (inQuotes && i + 1 < end && (buffer.get(i + 1) == QUOTE || buffer.get(i + 1) == ESCAPE)) {
+					i++;
+				}
+			} else if (inQuotes) {
+				if (b == CR) {
+					special = true;
+				}
+			} else if (b == SEPARATOR) {
+				record.addField(fieldStart, i, special);
+				special = false;
+				fieldStart = i + 1;
+			} else if (b == LF || b == CR) {
+				record.addField(fieldStart, i, special);
+				if (b == CR && i + 1 < end && buffer.get(i + 1) == LF) {
+					i++;
+				}
+				position = i + 1;
+				return record;
+			}
+			i++;
+		}
+
+		if (inQuotes) {
+			throw new IOException("Un-terminated quoted field at end of CSV file");
+		}
+		record.addField(fieldStart, end, special);
+		position = end;
+		return record;
+	}
+
+	@Override
+	public void close() {
+		// Nothing to release, the buffer is owned by the caller
+	}
+}
@@ -0,0 +1,26 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Opens CSV files for reading. The implementation is selected by the <code>parser</code> connection property.
+ *
+ * @author Kai Winter
+ */
+public interface CsvParser {
+
+	/**
+	 * Opens a CSV file.
+	 *
+	 * @param file
+	 *            the CSV file.
+	 * @param charset
+	 *            the encoding of the file.
+	 * @return a {@link CsvRecordReader} positioned before the header line
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	CsvRecordReader open(File file, Charset charset) throws IOException;
+}
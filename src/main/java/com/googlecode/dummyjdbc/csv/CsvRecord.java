@@ -0,0 +1,47 @@
+package com.googlecode.dummyjdbc.csv;
+
+/**
+ * One record (line) of a CSV file. Implementations may reuse the same instance for all records of a file, so a record
+ * is only valid until the next record is read.
+ *
+ * @author Kai Winter
+ */
+public interface CsvRecord {
+
+	/**
+	 * @return the number of fields of this record
+	 */
+	int getFieldCount();
+
+	/**
+	 * @param index
+	 *            the field index, starting at 0.
+	 * @return the value of the field without leading and trailing whitespace
+	 */
+	String getField(int index);
+
+	/**
+	 * @param index
+	 *            the field index, starting at 0.
+	 * @return <code>true</code> if the field contains nothing but whitespace
+	 */
+	boolean isEmpty(int index);
+
+	/**
+	 * @param index
+	 *            the field index, starting at 0.
+	 * @return the number of characters of the field without leading and trailing whitespace
+	 */
+	int getLength(int index);
+
+	/**
+	 * Parses a field as int. Implementations may do this without creating a {@link String}.
+	 *
+	 * @param index
+	 *            the field index, starting at 0.
+	 * @return the value of the field as int
+	 * @throws NumberFormatException
+	 *             if the field does not contain an int
+	 */
+	int getInt(int index);
+}
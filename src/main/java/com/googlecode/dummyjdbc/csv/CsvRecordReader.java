@@ -0,0 +1,22 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of a CSV file one after another, the header line included.
+ *
+ * @author Kai Winter
+ */
+public interface CsvRecordReader extends Closeable {
+
+	/**
+	 * Reads the next record.
+	 *
+	 * @return the next {@link CsvRecord} or <code>null</code> if the end of the file is reached. The record is only
+	 *         valid until the next call of this method.
+	 * @throws IOException
+	 *             if the file cannot be read or contains invalid CSV
+	 */
+	CsvRecord next() throws IOException;
+}
@@ -0,0 +1,22 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+/**
+ * {@link CsvParser} which reads the whole file into a byte array and scans it with a {@link ByteBufferRecordReader}.
+ * In contrast to the {@link OpenCsvParser} no {@link String} is created for a line or a field which is never
+ * requested. Selected with the connection property <code>parser=fast</code>.
+ *
+ * @author Kai Winter
+ */
+public final class FastCsvParser implements CsvParser {
+
+	@Override
+	public CsvRecordReader open(File file, Charset charset) throws IOException {
+		return new ByteBufferRecordReader(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), charset);
+	}
+}
@@ -0,0 +1,48 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * {@link CsvParser} based on the opencsv {@link CSVReader}. This is the default parser.
+ *
+ * @author Kai Winter
+ */
+public final class OpenCsvParser implements CsvParser {
+
+	@Override
+	public CsvRecordReader open(File file, Charset charset) throws IOException {
+		final CSVReader csvReader = new CSVReader(new InputStreamReader(new FileInputStream(file), charset));
+
+		return new CsvRecordReader() {
+
+			private final ArrayCsvRecord record = new ArrayCsvRecord(new String[0]);
+
+			@Override
+			public CsvRecord next() throws IOException {
+				String[] fields;
+				try {
+					fields = csvReader.readNext();
+				} catch (CsvValidationException e) {
+					throw new IOException(e.getMessage(), e);
+				}
+				if (fields == null) {
+					return null;
+				}
+				record.setFields(fields);
+				return record;
+			}
+
+			@Override
+			public void close() throws IOException {
+				csvReader.close();
+			}
+		};
+	}
+}
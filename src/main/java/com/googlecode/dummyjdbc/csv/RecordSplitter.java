@@ -0,0 +1,96 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a range of a CSV file in a {@link ByteBuffer} into chunks which start and end at record boundaries, so each
+ * chunk can be parsed by its own {@link ByteBufferRecordReader}. Line breaks inside quoted fields are no record
+ * boundaries, the quote and escape rules are the same as in {@link ByteBufferRecordReader}.
+ *
+ * @author Kai Winter
+ */
+public final class RecordSplitter {
+
+	private static final byte QUOTE = '"';
+	private static final byte ESCAPE = '\\';
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	/**
+	 * Splits the range into chunks of about the same size. Only the quotes are tracked while scanning, no record is
+	 * parsed. The scan stops as soon as the last boundary is found.
+	 *
+	 * @param buffer
+	 *            the content of the CSV file.
+	 * @param start
+	 *            the index of the first byte of a record.
+	 * @param end
+	 *            the index after the last byte to split.
+	 * @param chunkCount
+	 *            the requested number of chunks.
+	 * @return the boundaries of the chunks: chunk <code>i</code> ranges from <code>boundaries[i]</code> to
+	 *         <code>boundaries[i + 1]</code>. Fewer chunks than requested are returned if the range contains fewer
+	 *         records.
+	 */
+	public static int[] split(ByteBuffer buffer, int start, int end, int chunkCount) {
+		int[] boundaries = new int[chunkCount + 1];
+		boundaries[0] = start;
+		int chunk = 1;
+		long chunkSize = (end - start) / Math.max(chunkCount, 1);
+
+		boolean inQuotes = false;
+		int i = start;
+		while (chunk < chunkCount && i < end) {
+			long target = start + chunkSize * chunk;
+			if (i < target && !inQuotes) {
+				// Nothing to split before the target, only the quotes matter
+				int next = skipToQuote(buffer, i, (int) target);
+				if (next > i) {
+					i = next;
+					continue;
+				}
+			}
+
+			byte b = buffer.get(i);
+			if (b == QUOTE) {
+				if (inQuotes && i + 1 < end && buffer.get(i + 1) == QUOTE) {
+					i++;
+				} else {
+					inQuotes = !inQuotes;
+				}
+			} else if (b == ESCAPE) {
+				if (inQuotes && i + 1 < end && (buffer.get(i + 1) == QUOTE || buffer.get(i + 1) == ESCAPE)) {
+					i++;
+				}
+			} else if (!inQuotes && (b == LF || b == CR)) {
+				if (b == CR && i + 1 < end && buffer.get(i + 1) == LF) {
+					i++;
+				}
+				if (i + 1 < end) {
+					boundaries[chunk++] = i + 1;
+				}
+			}
+			i++;
+		}
+
+		boundaries[chunk] = end;
+		return Arrays.copyOf(boundaries, chunk + 1);
+	}
+
+	/**
+	 * @return the index of the next quote or escape character before <code>limit</code>, or <code>limit</code>
+	 */
+	private static int skipToQuote(ByteBuffer buffer, int from, int limit) {
+		for (int i = from; i < limit; i++) {
+			byte b = buffer.get(i);
+			if (b == QUOTE || b == ESCAPE) {
+				return i;
+			}
+		}
+		return limit;
+	}
+
+	private RecordSplitter() {
+	}
+}
@@ -0,0 +1,93 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * The byte offsets of all records of a CSV file in a {@link ByteBuffer}, the header line being record 0. Built once per
+ * file by a single scan, afterwards every record can be read directly with
+ * {@link ByteBufferRecordReader#seek(int)}, e.g. to read a file in chunks or to access rows without parsing the whole
+ * file.
+ *
+ * @author Kai Winter
+ */
+public final class RowOffsetIndex {
+
+	/** Start offset of every record, followed by the end offset of the last record. */
+	private final int[] offsets;
+	private final int recordCount;
+
+	private RowOffsetIndex(int[] offsets, int recordCount) {
+		this.offsets = offsets;
+		this.recordCount = recordCount;
+	}
+
+	/**
+	 * Scans the buffer for record boundaries. Every record has to have the same number of fields as the header.
+	 *
+	 * @param buffer
+	 *            the content of the CSV file.
+	 * @param charset
+	 *            the encoding of the file.
+	 * @return the {@link RowOffsetIndex}
+	 * @throws IOException
+	 *             if the buffer contains invalid CSV
+	 */
+	public static RowOffsetIndex build(ByteBuffer buffer, Charset charset) throws IOException {
+		ByteBufferRecordReader reader = new ByteBufferRecordReader(buffer, charset);
+		int[] offsets = new int[1024];
+		int recordCount = 0;
+		int fieldCount = -1;
+		CsvRecord record;
+		while (true) {
+			if (recordCount == offsets.length) {
+				offsets = Arrays.copyOf(offsets, recordCount * 2);
+			}
+			offsets[recordCount] = reader.getPosition();
+			if ((record = reader.next()) == null) {
+				break;
+			}
+			if (fieldCount == -1) {
+				fieldCount = record.getFieldCount();
+			} else if (fieldCount != record.getFieldCount()) {
+				throw new IllegalArgumentException("Length of data does not fit header length.");
+			}
+			recordCount++;
+		}
+		return new RowOffsetIndex(Arrays.copyOf(offsets, recordCount + 1), recordCount);
+	}
+
+	/**
+	 * @return the number of records, including the header
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * @param record
+	 *            the record index, 0 is the header.
+	 * @return the offset of the first byte of the record
+	 */
+	public int getStart(int record) {
+		return offsets[record];
+	}
+
+	/**
+	 * @param record
+	 *            the record index, 0 is the header.
+	 * @return the offset after the last byte of the record, including its line break
+	 */
+	public int getEnd(int record) {
+		return offsets[record + 1];
+	}
+
+	/**
+	 * @return the approximate number of bytes this index occupies on the heap
+	 */
+	public long getEstimatedSize() {
+		return 16 + offsets.length * 4L;
+	}
+}
@@ -0,0 +1,394 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.sql.AllColumns;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.FunctionCall;
+import com.googlecode.dummyjdbc.sql.Literal;
+import com.googlecode.dummyjdbc.sql.OrderItem;
+import com.googlecode.dummyjdbc.sql.SelectItem;
+import com.googlecode.dummyjdbc.table.Column;
+import com.googlecode.dummyjdbc.table.SortKeys;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * The aggregate functions and the GROUP BY clause of a query, compiled against the schema of a table. The rows are
+ * grouped by a hash table of the primitive keys of the grouping columns, the aggregates are accumulated in primitive
+ * arrays indexed by group, so no value is boxed. The groups are returned in the order of their first row.
+ *
+ * <p>
+ * COUNT(*) and COUNT, SUM, AVG, MIN and MAX of columns are supported. COUNT and the SUM of INTEGER and BIGINT columns
+ * are BIGINT, AVG and the SUM of other columns are DOUBLE, MIN and MAX have the type of their column. Without GROUP BY
+ * the result is a single row, also if no row matches.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+final class Aggregation {
+
+	/**
+	 * The supported aggregate functions.
+	 */
+	private enum Function {
+		COUNT, SUM, AVG, MIN, MAX
+	}
+
+	private final int[] groupColumns;
+
+	/** For each column of the result: the aggregate function or <code>null</code> for a grouping column. */
+	private final Function[] functions;
+
+	/**
+	 * For each column of the result: the argument of the aggregate function, -1 for COUNT(*), or the grouping column.
+	 */
+	private final int[] arguments;
+
+	private final DummyResultSetMetaData metaData;
+	private final List<SelectItem> resultItems;
+
+	private Aggregation(int[] groupColumns, Function[] functions, int[] arguments, DummyResultSetMetaData metaData,
+			List<SelectItem> resultItems) {
+		this.groupColumns = groupColumns;
+		this.functions = functions;
+		this.arguments = arguments;
+		this.metaData = metaData;
+		this.resultItems = resultItems;
+	}
+
+	/**
+	 * @param items
+	 *            the items of a select list.
+	 * @param groupBy
+	 *            the expressions of the GROUP BY clause.
+	 * @return <code>true</code> if the query has a GROUP BY clause or an aggregate function in the select list
+	 */
+	static boolean isAggregate(List<SelectItem> items, List<Expression> groupBy) {
+		if (!groupBy.isEmpty()) {
+			return true;
+		}
+		for (SelectItem item : items) {
+			if (function(item.getExpression()) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param items
+	 *            the items of the select list of an aggregate query.
+	 * @param groupBy
+	 *            the expressions of the GROUP BY clause.
+	 * @return <code>true</code> if the GROUP BY clause only contains columns and the select list only contains columns
+	 *         and aggregate functions of a column or <code>*</code>
+	 */
+	static boolean isSupported(List<SelectItem> items, List<Expression> groupBy) {
+		for (Expression expression : groupBy) {
+			if (!(expression instanceof ColumnReference)) {
+				return false;
+			}
+		}
+		for (SelectItem item : items) {
+			Expression expression = item.getExpression();
+			if (expression instanceof ColumnReference) {
+				continue;
+			}
+			Function function = function(expression);
+			if (function == null) {
+				return false;
+			}
+			FunctionCall call = (FunctionCall) expression;
+			if (call.isDistinct() || call.getArguments().size() != 1) {
+				return false;
+			}
+			Expression argument = call.getArguments().get(0);
+			boolean countAll = function == Function.COUNT && argument instanceof AllColumns
+					&& ((AllColumns) argument).getQualifier() == null;
+			if (!countAll && !(argument instanceof ColumnReference)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the items of an ORDER BY clause which repeat an aggregate function of the select list by the position
+	 * of the function in the select list, e.g. <code>ORDER BY COUNT(*)</code>.
+	 *
+	 * @param orderBy
+	 *            the items of the ORDER BY clause.
+	 * @param items
+	 *            the items of the select list.
+	 * @return the items of the ORDER BY clause
+	 */
+	static List<OrderItem> resolveOrderBy(List<OrderItem> orderBy, List<SelectItem> items) {
+		List<OrderItem> resolved = new ArrayList<>(orderBy.size());
+		for (OrderItem item : orderBy) {
+			Expression expression = item.getExpression();
+			if (expression instanceof FunctionCall) {
+				for (int i = 0; i < items.size(); i++) {
+					if (expression.toString().equalsIgnoreCase(items.get(i).getExpression().toString())) {
+						expression = new Literal(Long.valueOf(i + 1));
+						break;
+					}
+				}
+			}
+			resolved.add(new OrderItem(expression, item.isDescending(), item.isNullsFirst()));
+		}
+		return resolved;
+	}
+
+	/**
+	 * Compiles the select list and the GROUP BY clause of an aggregate query.
+	 *
+	 * @param items
+	 *            the items of the select list, see {@link #isSupported(List, List)}.
+	 * @param groupBy
+	 *            the expressions of the GROUP BY clause.
+	 * @param tableName
+	 *            the name of the table, used in error messages.
+	 * @param tableMetaData
+	 *            the schema of the table.
+	 * @return the {@link Aggregation}
+	 * @throws SQLException
+	 *             if a column does not exist or a selected column is not part of the GROUP BY clause
+	 */
+	static Aggregation compile(List<SelectItem> items, List<Expression> groupBy, String tableName,
+			DummyResultSetMetaData tableMetaData) throws SQLException {
+		int[] columnTypes = tableMetaData.getColumnTypes();
+		int[] groupColumns = new int[groupBy.size()];
+		for (int i = 0; i < groupColumns.length; i++) {
+			groupColumns[i] = columnIndex((ColumnReference) groupBy.get(i), tableName, tableMetaData);
+		}
+
+		Function[] functions = new Function[items.size()];
+		int[] arguments = new int[items.size()];
+		String[] labels = new String[items.size()];
+		int[] sqlTypes = new int[items.size()];
+		List<SelectItem> resultItems = new ArrayList<>(items.size());
+		for (int i = 0; i < functions.length; i++) {
+			SelectItem item = items.get(i);
+			Expression expression = item.getExpression();
+			if (expression instanceof ColumnReference) {
+				String name = ((ColumnReference) expression).getName();
+				arguments[i] = columnIndex((ColumnReference) expression, tableName, tableMetaData);
+				if (indexOf(groupColumns, arguments[i]) < 0) {
+					throw new SQLException(MessageFormat.format(
+							"Column ''{0}'' must be part of the GROUP BY clause or of an aggregate function", name));
+				}
+				labels[i] = item.getAlias() == null ? name : item.getAlias();
+				sqlTypes[i] = columnTypes[arguments[i]];
+			} else {
+				functions[i] = function(expression);
+				Expression argument = ((FunctionCall) expression).getArguments().get(0);
+				arguments[i] = argument instanceof AllColumns ? -1 : columnIndex((ColumnReference) argument,
+						tableName, tableMetaData);
+				labels[i] = item.getAlias() == null ? expression.toString() : item.getAlias();
+				sqlTypes[i] = resultType(functions[i], arguments[i] < 0 ? Types.BIGINT : columnTypes[arguments[i]]);
+			}
+			resultItems.add(new SelectItem(new ColumnReference(null, labels[i]), null));
+		}
+		return new Aggregation(groupColumns, functions, arguments, tableMetaData.derive(labels, sqlTypes),
+				resultItems);
+	}
+
+	/**
+	 * @return the schema of the result
+	 */
+	DummyResultSetMetaData getMetaData() {
+		return metaData;
+	}
+
+	/**
+	 * @return the columns of the result as select list, for the positions and labels of an ORDER BY clause
+	 */
+	List<SelectItem> getResultItems() {
+		return resultItems;
+	}
+
+	/**
+	 * Groups the rows and computes the aggregates of each group.
+	 *
+	 * @param table
+	 *            the {@link Table}, with the schema this aggregation was compiled for.
+	 * @param rows
+	 *            the indexes of the aggregated rows in ascending order, <code>null</code> for all rows.
+	 * @return a {@link Table} with one row for each group
+	 * @throws SQLException
+	 *             if a value cannot be converted to a number
+	 */
+	Table apply(Table table, int[] rows) throws SQLException {
+		if (rows == null) {
+			rows = new int[table.getRowCount()];
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = row;
+			}
+		}
+		int[] groups = new int[rows.length];
+		int groupCount = groupColumns.length == 0 ? 1 : RowKeys.number(table, rows, groupColumns, groups);
+
+		// The values of the grouping columns are taken from the first row of each group
+		int[] firstRows = new int[groupCount];
+		Arrays.fill(firstRows, -1);
+		for (int i = 0; i < rows.length; i++) {
+			if (firstRows[groups[i]] < 0) {
+				firstRows[groups[i]] = rows[i];
+			}
+		}
+
+		Column[] columns = new Column[functions.length];
+		for (int i = 0; i < columns.length; i++) {
+			Column column = arguments[i] < 0 ? null : table.getColumn(arguments[i]);
+			try {
+				columns[i] = functions[i] == null ? column.gather(firstRows) : aggregate(functions[i], column, rows,
+						groups, groupCount);
+			} catch (NumberFormatException e) {
+				String message = MessageFormat.format("Cannot compute {0} of table file ''{1}'': {2}",
+						metaData.getColumnNames()[i], table.getName(), e.getMessage());
+				throw new SQLException(message, e);
+			}
+		}
+		return new Table(table.getName(), metaData, columns);
+	}
+
+	private static Column aggregate(Function function, Column column, int[] rows, int[] groups, int groupCount) {
+		switch (function) {
+		case COUNT:
+			long[] counts = new long[groupCount];
+			for (int i = 0; i < rows.length; i++) {
+				if (column == null || !column.isNull(rows[i])) {
+					counts[groups[i]]++;
+				}
+			}
+			return Column.ofLongs(counts, null);
+		case SUM:
+		case AVG:
+			return sum(function == Function.AVG, column, rows, groups, groupCount);
+		default:
+			boolean min = function == Function.MIN;
+			SortKeys keys = SortKeys.of(column);
+			int[] bestRows = new int[groupCount];
+			Arrays.fill(bestRows, -1);
+			for (int i = 0; i < rows.length; i++) {
+				int row = rows[i];
+				if (keys.isNull(row)) {
+					continue;
+				}
+				int best = bestRows[groups[i]];
+				if (best < 0 || (min ? keys.compare(row, best) < 0 : keys.compare(row, best) > 0)) {
+					bestRows[groups[i]] = row;
+				}
+			}
+			return column.gather(bestRows);
+		}
+	}
+
+	private static Column sum(boolean average, Column column, int[] rows, int[] groups, int groupCount) {
+		int[] counts = new int[groupCount];
+		if (!average && isIntegral(column.getSqlType())) {
+			long[] sums = new long[groupCount];
+			for (int i = 0; i < rows.length; i++) {
+				int row = rows[i];
+				if (!column.isNull(row)) {
+					sums[groups[i]] += column.getLong(row);
+					counts[groups[i]]++;
+				}
+			}
+			return Column.ofLongs(sums, emptyGroups(counts));
+		}
+
+		double[] sums = new double[groupCount];
+		for (int i = 0; i < rows.length; i++) {
+			int row = rows[i];
+			if (!column.isNull(row)) {
+				sums[groups[i]] += column.getDouble(row);
+				counts[groups[i]]++;
+			}
+		}
+		if (average) {
+			for (int group = 0; group < groupCount; group++) {
+				sums[group] /= counts[group];
+			}
+		}
+		return Column.ofDoubles(sums, emptyGroups(counts));
+	}
+
+	/**
+	 * @return the groups without a value, their SUM and AVG are null
+	 */
+	private static BitSet emptyGroups(int[] counts) {
+		BitSet nulls = null;
+		for (int group = 0; group < counts.length; group++) {
+			if (counts[group] == 0) {
+				if (nulls == null) {
+					nulls = new BitSet();
+				}
+				nulls.set(group);
+			}
+		}
+		return nulls;
+	}
+
+	private static int resultType(Function function, int argumentType) {
+		switch (function) {
+		case COUNT:
+			return Types.BIGINT;
+		case SUM:
+			return isIntegral(argumentType) ? Types.BIGINT : Types.DOUBLE;
+		case AVG:
+			return Types.DOUBLE;
+		default:
+			return argumentType;
+		}
+	}
+
+	private static boolean isIntegral(int sqlType) {
+		return sqlType == Types.INTEGER || sqlType == Types.BIGINT;
+	}
+
+	/**
+	 * @return the aggregate function of an expression or <code>null</code> if it is none
+	 */
+	private static Function function(Expression expression) {
+		if (!(expression instanceof FunctionCall)) {
+			return null;
+		}
+		String name = ((FunctionCall) expression).getName().toUpperCase();
+		for (Function function : Function.values()) {
+			if (function.name().equals(name)) {
+				return function;
+			}
+		}
+		return null;
+	}
+
+	private static int columnIndex(ColumnReference reference, String tableName, DummyResultSetMetaData metaData)
+			throws SQLException {
+		int columnIndex = metaData.indexOf(reference.getQualifier(), reference.getName());
+		if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+			String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+					reference.getName(), tableName);
+			throw new SQLException(message);
+		}
+		return columnIndex - 1;
+	}
+
+	private static int indexOf(int[] values, int value) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
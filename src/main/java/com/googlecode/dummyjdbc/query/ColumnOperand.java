@@ -0,0 +1,96 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.text.ParseException;
+
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * Reads the value of a column of the current row.
+ *
+ * @author Kai Winter
+ */
+final class ColumnOperand extends Operand {
+
+	private final int columnIndex;
+	private final int sqlType;
+	private final int kind;
+
+	/**
+	 * @param columnIndex
+	 *            the column index, starting at 0.
+	 * @param sqlType
+	 *            the {@link Types} of the column from the header of the CSV file.
+	 */
+	ColumnOperand(int columnIndex, int sqlType) {
+		this.columnIndex = columnIndex;
+		this.sqlType = sqlType;
+		switch (sqlType) {
+		case Types.INTEGER:
+		case Types.BIGINT:
+			kind = INTEGER;
+			break;
+		case Types.DOUBLE:
+			kind = DOUBLE;
+			break;
+		case Types.DATE:
+		case Types.TIME:
+		case Types.TIMESTAMP:
+			kind = TEMPORAL;
+			break;
+		default:
+			kind = STRING;
+		}
+	}
+
+	/**
+	 * @return the column index, starting at 0
+	 */
+	int getColumnIndex() {
+		return columnIndex;
+	}
+
+	@Override
+	int getKind() {
+		return kind;
+	}
+
+	@Override
+	int getTemporalType() {
+		return sqlType;
+	}
+
+	@Override
+	boolean isNull(Table table, int row) {
+		return table.getColumn(columnIndex).isNull(row);
+	}
+
+	@Override
+	String getString(Table table, int row) {
+		return table.getColumn(columnIndex).getString(row);
+	}
+
+	@Override
+	long getLong(Table table, int row) {
+		return table.getColumn(columnIndex).getLong(row);
+	}
+
+	@Override
+	double getDouble(Table table, int row) {
+		return table.getColumn(columnIndex).getDouble(row);
+	}
+
+	@Override
+	long getMillis(Table table, int row, int temporalType) throws SQLException {
+		try {
+			return table.getColumn(columnIndex).getMillis(row, temporalType);
+		} catch (ParseException e) {
+			String message = MessageFormat.format("Could not parse date: ''{0}'' using format ''{1}''",
+					getString(table, row), DateUtils.getPattern(temporalType));
+			throw new SQLException(message, e);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.googlecode.dummyjdbc.sql.Comparison;
+import com.googlecode.dummyjdbc.table.HashIndex;
+import com.googlecode.dummyjdbc.table.SortedIndex;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * Compares two operands. How the values are compared is decided once from the kinds of the operands: temporal values
+ * by their milliseconds, numbers numerically and everything else as text. A text value which is compared to a number
+ * is compared numerically if it is a number itself, otherwise as text.
+ *
+ * <p>
+ * A comparison of an indexed column and a constant is looked up in the index of the column, if the keys of the index
+ * are compared the same way: an equality in the hash index, equalities and ranges in the sorted index.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+final class ComparisonPredicate extends Predicate {
+
+	private static final int COMPARE_STRING = 0;
+	private static final int COMPARE_LONG = 1;
+	private static final int COMPARE_DOUBLE = 2;
+	private static final int COMPARE_MILLIS = 3;
+
+	private final Comparison.Operator operator;
+	private final Operand left;
+	private final Operand right;
+	private final int mode;
+	private final int temporalType;
+
+	/** The column of a comparison of a column and a constant, which may be looked up in an index. */
+	private final ColumnOperand indexedColumn;
+	private final Operand constant;
+	/** The operator of <code>column operator constant</code>. */
+	private final Comparison.Operator indexedOperator;
+
+	/**
+	 * @throws SQLException
+	 *             if a constant cannot be converted to the type of the other operand
+	 */
+	ComparisonPredicate(Comparison.Operator operator, Operand left, Operand right) throws SQLException {
+		this.operator = operator;
+		int leftKind = left.getKind();
+		int rightKind = right.getKind();
+
+		if (leftKind == Operand.TEMPORAL || rightKind == Operand.TEMPORAL) {
+			mode = COMPARE_MILLIS;
+			temporalType = leftKind == Operand.TEMPORAL ? left.getTemporalType() : right.getTemporalType();
+			// Parse a date literal once instead of for every row
+			left = isValue(left) ? ((ConstantOperand) left).toMillis(temporalType) : left;
+			right = isValue(right) ? ((ConstantOperand) right).toMillis(temporalType) : right;
+		} else if (leftKind == Operand.INTEGER && rightKind == Operand.INTEGER) {
+			mode = COMPARE_LONG;
+			temporalType = 0;
+		} else if (isNumeric(leftKind) || isNumeric(rightKind)) {
+			mode = COMPARE_DOUBLE;
+			temporalType = 0;
+		} else {
+			mode = COMPARE_STRING;
+			temporalType = 0;
+		}
+		this.left = left;
+		this.right = right;
+
+		if (left instanceof ColumnOperand && right.isConstant()) {
+			indexedColumn = (ColumnOperand) left;
+			constant = right;
+			indexedOperator = operator;
+		} else if (right instanceof ColumnOperand && left.isConstant()) {
+			indexedColumn = (ColumnOperand) right;
+			constant = left;
+			indexedOperator = swap(operator);
+		} else {
+			indexedColumn = null;
+			constant = null;
+			indexedOperator = null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the operand is a constant other than <code>NULL</code>
+	 */
+	private static boolean isValue(Operand operand) {
+		return operand instanceof ConstantOperand && operand.getKind() != Operand.NULL;
+	}
+
+	private static boolean isNumeric(int kind) {
+		return kind == Operand.INTEGER || kind == Operand.DOUBLE;
+	}
+
+	@Override
+	int test(Table table, int row) throws SQLException {
+		if (left.isNull(table, row) || right.isNull(table, row)) {
+			return UNKNOWN;
+		}
+
+		int compareResult;
+		switch (mode) {
+		case COMPARE_MILLIS:
+			compareResult = Long.compare(left.getMillis(table, row, temporalType),
+					right.getMillis(table, row, temporalType));
+			break;
+		case COMPARE_LONG:
+			try {
+				compareResult = Long.compare(left.getLong(table, row), right.getLong(table, row));
+			} catch (NumberFormatException e) {
+				// A typed column which fell back to text
+				compareResult = compareStrings(table, row);
+			}
+			break;
+		case COMPARE_DOUBLE:
+			try {
+				compareResult = Double.compare(left.getDouble(table, row), right.getDouble(table, row));
+			} catch (NumberFormatException e) {
+				compareResult = compareStrings(table, row);
+			}
+			break;
+		default:
+			compareResult = compareStrings(table, row);
+		}
+		return valueOf(operator.matches(compareResult));
+	}
+
+	@Override
+	int[] lookup(Table table) throws SQLException {
+		if (indexedColumn == null) {
+			return null;
+		}
+		if (operator == Comparison.Operator.EQUAL) {
+			HashIndex index = table.getHashIndex(indexedColumn.getColumnIndex());
+			if (index != null) {
+				if (constant.isNull(table, 0)) {
+					return new int[0];
+				}
+				Object key = indexKey(index.getSqlType());
+				if (key instanceof Long) {
+					return index.lookup(((Long) key).longValue());
+				}
+				if (key instanceof Double) {
+					return index.lookup(((Double) key).doubleValue());
+				}
+				if (key instanceof String) {
+					return index.lookup((String) key);
+				}
+			}
+		}
+		IndexRange range = range(table);
+		return range == null ? null : range.lookup(table);
+	}
+
+	/**
+	 * @param table
+	 *            the {@link Table}.
+	 * @return the range of the values of a column with a sorted index which satisfy this comparison with a constant,
+	 *         or <code>null</code> if the index cannot be used
+	 * @throws SQLException
+	 *             if the constant cannot be converted to the type of the index
+	 */
+	IndexRange range(Table table) throws SQLException {
+		if (indexedColumn == null || indexedOperator == Comparison.Operator.NOT_EQUAL) {
+			return null;
+		}
+		int column = indexedColumn.getColumnIndex();
+		SortedIndex index = table.getSortedIndex(column);
+		if (index == null || constant.isNull(table, 0)) {
+			return null;
+		}
+		Object key = indexKey(index.getSqlType());
+		if (key == null) {
+			return null;
+		}
+		switch (indexedOperator) {
+		case EQUAL:
+			return new IndexRange(column, key, true, key, true);
+		case LESS:
+			return new IndexRange(column, null, false, key, false);
+		case LESS_OR_EQUAL:
+			return new IndexRange(column, null, false, key, true);
+		case GREATER:
+			return new IndexRange(column, key, false, null, false);
+		default:
+			return new IndexRange(column, key, true, null, false);
+		}
+	}
+
+	/**
+	 * @param indexType
+	 *            the {@link Types} of the index, which determines the kind of its keys.
+	 * @return the constant as key of the index or <code>null</code> if the keys are not compared like this predicate
+	 *         compares the values
+	 */
+	private Object indexKey(int indexType) throws SQLException {
+		switch (mode) {
+		case COMPARE_MILLIS:
+			return indexType == temporalType ? Long.valueOf(constant.getMillis(null, 0, temporalType)) : null;
+		case COMPARE_LONG:
+			return indexType == Types.INTEGER || indexType == Types.BIGINT ? Long.valueOf(constant.getLong(null, 0))
+					: null;
+		case COMPARE_DOUBLE:
+			if (indexType != Types.DOUBLE) {
+				return null;
+			}
+			try {
+				return Double.valueOf(constant.getDouble(null, 0));
+			} catch (NumberFormatException e) {
+				// Compared as text
+				return null;
+			}
+		default:
+			return indexedColumn.getKind() == Operand.STRING ? constant.getString(null, 0) : null;
+		}
+	}
+
+	/**
+	 * @return the operator with swapped operands, <code>a &lt; b</code> is <code>b &gt; a</code>
+	 */
+	private static Comparison.Operator swap(Comparison.Operator operator) {
+		switch (operator) {
+		case LESS:
+			return Comparison.Operator.GREATER;
+		case LESS_OR_EQUAL:
+			return Comparison.Operator.GREATER_OR_EQUAL;
+		case GREATER:
+			return Comparison.Operator.LESS;
+		case GREATER_OR_EQUAL:
+			return Comparison.Operator.LESS_OR_EQUAL;
+		default:
+			return operator;
+		}
+	}
+
+	private int compareStrings(Table table, int row) {
+		return left.getString(table, row).compareTo(right.getString(table, row));
+	}
+}
@@ -0,0 +1,128 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.sql.Time;
+import java.sql.Types;
+import java.text.ParseException;
+import java.util.Date;
+
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * A value which is the same for every row: a literal of the statement or the value of a parameter.
+ *
+ * @author Kai Winter
+ */
+final class ConstantOperand extends Operand {
+
+	private final Object value;
+	private final int kind;
+	private final int temporalType;
+
+	/**
+	 * @param value
+	 *            a {@link String}, a {@link Number}, a {@link Date} or <code>null</code>.
+	 */
+	ConstantOperand(Object value) {
+		this.value = value;
+		if (value == null) {
+			kind = NULL;
+		} else if (value instanceof Long || value instanceof Integer) {
+			kind = INTEGER;
+		} else if (value instanceof Number) {
+			kind = DOUBLE;
+		} else if (value instanceof Date) {
+			kind = TEMPORAL;
+		} else {
+			kind = STRING;
+		}
+
+		if (value instanceof java.sql.Date) {
+			temporalType = Types.DATE;
+		} else if (value instanceof Time) {
+			temporalType = Types.TIME;
+		} else {
+			temporalType = Types.TIMESTAMP;
+		}
+	}
+
+	/**
+	 * Converts this constant to milliseconds once, instead of parsing it for every row.
+	 *
+	 * @param temporalType
+	 *            the {@link java.sql.Types} a text value is parsed as.
+	 * @return a constant holding the milliseconds
+	 * @throws SQLException
+	 *             if the value does not match the format of the type
+	 */
+	ConstantOperand toMillis(int temporalType) throws SQLException {
+		return new ConstantOperand(Long.valueOf(getMillis(null, 0, temporalType)));
+	}
+
+	Object getValue() {
+		return value;
+	}
+
+	@Override
+	int getKind() {
+		return kind;
+	}
+
+	@Override
+	int getTemporalType() {
+		return temporalType;
+	}
+
+	@Override
+	boolean isConstant() {
+		return true;
+	}
+
+	@Override
+	boolean isNull(Table table, int row) {
+		return value == null;
+	}
+
+	@Override
+	String getString(Table table, int row) {
+		if (value instanceof Date) {
+			return DateUtils.format(temporalType, ((Date) value).getTime());
+		}
+		return String.valueOf(value);
+	}
+
+	@Override
+	long getLong(Table table, int row) {
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		return Long.parseLong(getString(table, row));
+	}
+
+	@Override
+	double getDouble(Table table, int row) {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		return Double.parseDouble(getString(table, row));
+	}
+
+	@Override
+	long getMillis(Table table, int row, int temporalType) throws SQLException {
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		if (value instanceof Date) {
+			return ((Date) value).getTime();
+		}
+		try {
+			return DateUtils.parseLiteral(temporalType, getString(table, row));
+		} catch (ParseException e) {
+			String message = MessageFormat.format("Could not parse date: ''{0}'' using format ''{1}''", value,
+					DateUtils.getPattern(temporalType));
+			throw new SQLException(message, e);
+		}
+	}
+}
@@ -0,0 +1,493 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Comparison;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.Join;
+import com.googlecode.dummyjdbc.sql.Logical;
+import com.googlecode.dummyjdbc.sql.TableReference;
+import com.googlecode.dummyjdbc.table.Column;
+import com.googlecode.dummyjdbc.table.LongDictionary;
+import com.googlecode.dummyjdbc.table.SortKeys;
+import com.googlecode.dummyjdbc.table.StringDictionary;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * The joins of the FROM clause of a query, compiled against the schemas of the joined tables. INNER and LEFT joins
+ * whose ON condition compares columns of both tables for equality are supported. Each join is a hash join: the rows of
+ * the smaller input are put into a hash table by their join key, the rows of the other input look up their matching
+ * rows. The joined table shares the columns of its inputs, see {@link Column#gather(int[])}.
+ *
+ * <p>
+ * The other conditions of an ON clause, e.g. <code>c.rank &gt; 1</code>, are compiled into a {@link RowFilter} which
+ * tests the pairs of matching rows. A row of the left input of a LEFT join without a pair passing the filter is joined
+ * with nulls.
+ * </p>
+ *
+ * <p>
+ * The tables are joined from left to right. The joined rows are in the order of the rows of the left input, rows of
+ * the right input matching the same row are in their order. The columns of the joined table can be qualified with the
+ * alias of their table or, if it has none, with the last part of its name.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+final class HashJoin {
+
+	/** Join keys of the same type are compared by their sort keys. */
+	private static final int LONG_KEYS = 0;
+	/** Join keys of an integral and a DOUBLE column are compared as doubles. */
+	private static final int DOUBLE_KEYS = 1;
+	/** All other join keys are compared as text. */
+	private static final int TEXT_KEYS = 2;
+
+	private final DummyResultSetMetaData[] inputs;
+	private final boolean[] leftJoins;
+
+	/** For each join: the key columns of the tables joined so far and of the joined table. */
+	private final int[][] leftKeys;
+	private final int[][] rightKeys;
+
+	/** For each join: the schema of its result. */
+	private final DummyResultSetMetaData[] joinedMetaData;
+
+	/** For each join: the conditions of the ON clause other than the join keys, <code>null</code> if there are none. */
+	private final Expression[] conditions;
+	/** For each join: the compiled conditions, <code>null</code> if they contain parameter markers. */
+	private final RowFilter[] filters;
+
+	private HashJoin(DummyResultSetMetaData[] inputs, boolean[] leftJoins, int[][] leftKeys, int[][] rightKeys,
+			DummyResultSetMetaData[] joinedMetaData, Expression[] conditions, RowFilter[] filters) {
+		this.inputs = inputs;
+		this.leftJoins = leftJoins;
+		this.leftKeys = leftKeys;
+		this.rightKeys = rightKeys;
+		this.joinedMetaData = joinedMetaData;
+		this.conditions = conditions;
+		this.filters = filters;
+	}
+
+	/**
+	 * @param joins
+	 *            the joins of a FROM clause.
+	 * @return <code>true</code> if all joins are INNER or LEFT joins of named tables on equal columns, the other
+	 *         conditions of their ON clauses are supported by {@link RowFilter}
+	 */
+	static boolean isSupported(List<Join> joins) {
+		for (Join join : joins) {
+			if (join.getType() != Join.Type.INNER && join.getType() != Join.Type.LEFT) {
+				return false;
+			}
+			if (join.getTable().getName() == null) {
+				return false;
+			}
+			List<Expression> conjuncts = new ArrayList<>();
+			collectConjuncts(join.getCondition(), conjuncts);
+			boolean equality = false;
+			for (Expression conjunct : conjuncts) {
+				if (isEquality(conjunct)) {
+					equality = true;
+				} else if (!RowFilter.isSupported(conjunct)) {
+					return false;
+				}
+			}
+			if (!equality) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param table
+	 *            a table of the FROM clause.
+	 * @return the alias of the table or the last part of its name without quotes, the qualifier of its columns
+	 */
+	static String qualifier(TableReference table) {
+		if (table.getAlias() != null) {
+			return table.getAlias();
+		}
+		String name = table.getName();
+		return name.substring(name.lastIndexOf('.') + 1).replaceAll("[\\[\\]\"`]", "");
+	}
+
+	/**
+	 * Compiles the joins of a FROM clause.
+	 *
+	 * @param from
+	 *            the first table of the FROM clause.
+	 * @param joins
+	 *            the joins, see {@link #isSupported(List)}.
+	 * @param tables
+	 *            the table of the FROM clause followed by the joined tables.
+	 * @param parameterized
+	 *            <code>true</code> if the query has parameter markers, the conditions which are no join keys are
+	 *            compiled for each execution.
+	 * @return the {@link HashJoin}
+	 * @throws SQLException
+	 *             if a column of a join condition does not exist or is ambiguous, or no equality of an ON clause
+	 *             compares a column of each table
+	 */
+	static HashJoin compile(TableReference from, List<Join> joins, List<Table> tables, boolean parameterized)
+			throws SQLException {
+		DummyResultSetMetaData[] inputs = new DummyResultSetMetaData[tables.size()];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = tables.get(i).getMetaData();
+		}
+		boolean[] leftJoins = new boolean[joins.size()];
+		int[][] leftKeys = new int[joins.size()][];
+		int[][] rightKeys = new int[joins.size()][];
+		DummyResultSetMetaData[] joinedMetaData = new DummyResultSetMetaData[joins.size()];
+		Expression[] conditions = new Expression[joins.size()];
+		RowFilter[] filters = new RowFilter[joins.size()];
+
+		DummyResultSetMetaData left = inputs[0].qualify(qualifier(from));
+		for (int i = 0; i < joinedMetaData.length; i++) {
+			Join join = joins.get(i);
+			String tableName = tables.get(i + 1).getName();
+			DummyResultSetMetaData right = inputs[i + 1].qualify(qualifier(join.getTable()));
+			List<Expression> conjuncts = new ArrayList<>();
+			collectConjuncts(join.getCondition(), conjuncts);
+			int[] keys = new int[conjuncts.size() * 2];
+			int keyCount = 0;
+			for (Expression conjunct : conjuncts) {
+				if (isEquality(conjunct)) {
+					Comparison equality = (Comparison) conjunct;
+					int first = resolve((ColumnReference) equality.getLeft(), left, right, tableName);
+					int second = resolve((ColumnReference) equality.getRight(), left, right, tableName);
+					if ((first >= 0) != (second >= 0)) {
+						keys[keyCount++] = Math.max(first, second);
+						keys[keyCount++] = -1 - Math.min(first, second);
+						continue;
+					}
+				}
+				// Equalities of columns of the same table are tested like the other conditions
+				conditions[i] = conditions[i] == null ? conjunct : new Logical(true, conditions[i], conjunct);
+			}
+			if (keyCount == 0) {
+				throw new SQLException(MessageFormat.format(
+						"The join condition must compare a column of each table: {0}", join.getCondition()));
+			}
+			leftKeys[i] = new int[keyCount / 2];
+			rightKeys[i] = new int[keyCount / 2];
+			for (int key = 0; key < keyCount / 2; key++) {
+				leftKeys[i][key] = keys[key * 2];
+				rightKeys[i][key] = keys[key * 2 + 1];
+			}
+			leftJoins[i] = join.getType() == Join.Type.LEFT;
+			left = left.join(right);
+			joinedMetaData[i] = left;
+			if (conditions[i] != null && !parameterized) {
+				filters[i] = RowFilter.compile(conditions[i], tableName, left);
+			}
+		}
+		return new HashJoin(inputs, leftJoins, leftKeys, rightKeys, joinedMetaData, conditions, filters);
+	}
+
+	/**
+	 * @param tables
+	 *            the table of the FROM clause followed by the joined tables.
+	 * @return <code>true</code> if the join was compiled for the schemas of the tables
+	 */
+	boolean isCompiledFor(List<Table> tables) {
+		if (tables.size() != inputs.length) {
+			return false;
+		}
+		for (int i = 0; i < inputs.length; i++) {
+			if (tables.get(i).getMetaData() != inputs[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Joins the tables.
+	 *
+	 * @param tables
+	 *            the table of the FROM clause followed by the joined tables, with the schemas this join was compiled
+	 *            for.
+	 * @param parameters
+	 *            the values of the parameter markers, if the join was compiled for a query with parameter markers.
+	 * @return the joined {@link Table}, its schema is the same for each execution
+	 * @throws SQLException
+	 *             if a parameter has no value or a value cannot be converted for a comparison of an ON clause
+	 */
+	Table apply(List<Table> tables, Parameters parameters) throws SQLException {
+		Table left = tables.get(0);
+		for (int i = 0; i < joinedMetaData.length; i++) {
+			Table right = tables.get(i + 1);
+			RowFilter filter = filters[i];
+			if (filter == null && conditions[i] != null) {
+				filter = RowFilter.compile(conditions[i], right.getName(), joinedMetaData[i], parameters);
+			}
+			left = join(left, right, i, filter);
+		}
+		return left;
+	}
+
+	private Table join(Table left, Table right, int join, RowFilter filter) throws SQLException {
+		// With a filter the rows of a LEFT join without a matching row are added after filtering
+		boolean outer = leftJoins[join] && filter == null;
+		// The smaller input is put into the hash table
+		boolean buildLeft = left.getRowCount() < right.getRowCount();
+		Table build = buildLeft ? left : right;
+		Table probe = buildLeft ? right : left;
+		int[] buildIds = new int[build.getRowCount()];
+		int[] probeIds = new int[probe.getRowCount()];
+		int keyCount = encodeKeys(build, buildLeft ? leftKeys[join] : rightKeys[join], buildIds, probe,
+				buildLeft ? rightKeys[join] : leftKeys[join], probeIds);
+
+		// The build rows of key k are stored from keyStart[k] to keyStart[k + 1], in ascending order
+		int[] keyStart = new int[keyCount + 1];
+		for (int id : buildIds) {
+			if (id >= 0) {
+				keyStart[id + 1]++;
+			}
+		}
+		for (int key = 0; key < keyCount; key++) {
+			keyStart[key + 1] += keyStart[key];
+		}
+		int[] next = Arrays.copyOf(keyStart, keyCount);
+		int[] buildRows = new int[keyStart[keyCount]];
+		for (int row = 0; row < buildIds.length; row++) {
+			if (buildIds[row] >= 0) {
+				buildRows[next[buildIds[row]]++] = row;
+			}
+		}
+
+		boolean[] matched = outer && buildLeft ? new boolean[build.getRowCount()] : null;
+		RowPairs pairs = new RowPairs(Math.max(left.getRowCount(), 16));
+		for (int row = 0; row < probeIds.length; row++) {
+			int id = probeIds[row];
+			if (id < 0) {
+				if (outer && !buildLeft) {
+					pairs.add(row, -1);
+				}
+				continue;
+			}
+			for (int i = keyStart[id]; i < keyStart[id + 1]; i++) {
+				if (buildLeft) {
+					pairs.add(buildRows[i], row);
+					if (matched != null) {
+						matched[buildRows[i]] = true;
+					}
+				} else {
+					pairs.add(row, buildRows[i]);
+				}
+			}
+		}
+		if (matched != null) {
+			for (int row = 0; row < matched.length; row++) {
+				if (!matched[row]) {
+					pairs.add(row, -1);
+				}
+			}
+		}
+		if (buildLeft) {
+			pairs.sortByLeft(left.getRowCount());
+		}
+		if (filter == null) {
+			return gather(left, right, pairs, join);
+		}
+
+		int[] rows = filter.select(gather(left, right, pairs, join));
+		RowPairs filtered = new RowPairs(Math.max(rows.length, 16));
+		boolean[] joined = leftJoins[join] ? new boolean[left.getRowCount()] : null;
+		for (int row : rows) {
+			filtered.add(pairs.leftRows[row], pairs.rightRows[row]);
+			if (joined != null) {
+				joined[pairs.leftRows[row]] = true;
+			}
+		}
+		if (joined != null) {
+			for (int row = 0; row < joined.length; row++) {
+				if (!joined[row]) {
+					filtered.add(row, -1);
+				}
+			}
+			filtered.sortByLeft(left.getRowCount());
+		}
+		return gather(left, right, filtered, join);
+	}
+
+	private Table gather(Table left, Table right, RowPairs pairs, int join) {
+		int[] leftRows = Arrays.copyOf(pairs.leftRows, pairs.size);
+		int[] rightRows = Arrays.copyOf(pairs.rightRows, pairs.size);
+		Column[] columns = new Column[left.getColumnCount() + right.getColumnCount()];
+		for (int i = 0; i < left.getColumnCount(); i++) {
+			columns[i] = left.getColumn(i).gather(leftRows);
+		}
+		for (int i = 0; i < right.getColumnCount(); i++) {
+			columns[left.getColumnCount() + i] = right.getColumn(i).gather(rightRows);
+		}
+		return new Table(left.getName(), joinedMetaData[join], columns);
+	}
+
+	/**
+	 * Numbers the join keys of the build rows densely and looks up the keys of the probe rows. The key of a row is
+	 * built column by column: the number of the key of the previous columns is combined with the code of the value of
+	 * the next column. Rows with a null key or a key without build rows get -1.
+	 *
+	 * @return the number of distinct keys of the build rows
+	 */
+	private static int encodeKeys(Table build, int[] buildColumns, int[] buildIds, Table probe, int[] probeColumns,
+			int[] probeIds) {
+		LongDictionary keys = new LongDictionary();
+		for (int k = 0; k < buildColumns.length; k++) {
+			Column buildColumn = build.getColumn(buildColumns[k]);
+			Column probeColumn = probe.getColumn(probeColumns[k]);
+			SortKeys buildKeys = SortKeys.of(buildColumn);
+			SortKeys probeKeys = SortKeys.of(probeColumn);
+			int keyType = keyType(buildColumn.getSqlType(), buildKeys, probeColumn.getSqlType(), probeKeys);
+			LongDictionary longCodes = new LongDictionary();
+			StringDictionary textCodes = new StringDictionary();
+
+			keys = new LongDictionary();
+			for (int row = 0; row < buildIds.length; row++) {
+				if (buildIds[row] < 0) {
+					continue;
+				}
+				if (buildKeys.isNull(row)) {
+					buildIds[row] = -1;
+					continue;
+				}
+				int code = keyType == TEXT_KEYS ? textCodes.add(buildColumn.getString(row)) : longCodes.add(longKey(
+						keyType, buildColumn, buildKeys, row));
+				buildIds[row] = keys.add(((long) buildIds[row] << 32) | code);
+			}
+			for (int row = 0; row < probeIds.length; row++) {
+				if (probeIds[row] < 0) {
+					continue;
+				}
+				int code = -1;
+				if (!probeKeys.isNull(row)) {
+					code = keyType == TEXT_KEYS ? textCodes.indexOf(probeColumn.getString(row)) : longCodes
+							.indexOf(longKey(keyType, probeColumn, probeKeys, row));
+				}
+				probeIds[row] = code < 0 ? -1 : keys.indexOf(((long) probeIds[row] << 32) | code);
+			}
+		}
+		return keys.size();
+	}
+
+	private static int keyType(int sqlType, SortKeys keys, int otherSqlType, SortKeys otherKeys) {
+		if (!keys.isLongKeyed() || !otherKeys.isLongKeyed()) {
+			return TEXT_KEYS;
+		}
+		boolean integral = isIntegral(sqlType);
+		boolean otherIntegral = isIntegral(otherSqlType);
+		if (sqlType == otherSqlType || integral && otherIntegral) {
+			return LONG_KEYS;
+		}
+		if ((integral || sqlType == Types.DOUBLE) && (otherIntegral || otherSqlType == Types.DOUBLE)) {
+			return DOUBLE_KEYS;
+		}
+		return TEXT_KEYS;
+	}
+
+	private static long longKey(int keyType, Column column, SortKeys keys, int row) {
+		return keyType == DOUBLE_KEYS ? SortKeys.toLongKey(column.getDouble(row)) : keys.getLong(row);
+	}
+
+	private static boolean isIntegral(int sqlType) {
+		return sqlType == Types.INTEGER || sqlType == Types.BIGINT;
+	}
+
+	private static boolean isEquality(Expression condition) {
+		if (condition instanceof Comparison) {
+			Comparison comparison = (Comparison) condition;
+			return comparison.getOperator() == Comparison.Operator.EQUAL
+					&& comparison.getLeft() instanceof ColumnReference
+					&& comparison.getRight() instanceof ColumnReference;
+		}
+		return false;
+	}
+
+	/**
+	 * Collects the conditions combined with AND.
+	 */
+	private static void collectConjuncts(Expression condition, List<Expression> conjuncts) {
+		if (condition instanceof Logical && ((Logical) condition).isAnd()) {
+			collectConjuncts(((Logical) condition).getLeft(), conjuncts);
+			collectConjuncts(((Logical) condition).getRight(), conjuncts);
+		} else {
+			conjuncts.add(condition);
+		}
+	}
+
+	/**
+	 * @return the index of the column in the left table, or <code>-1 - index</code> for a column of the right table
+	 */
+	private static int resolve(ColumnReference reference, DummyResultSetMetaData left, DummyResultSetMetaData right,
+			String tableName) throws SQLException {
+		int leftIndex = left.indexOf(reference.getQualifier(), reference.getName());
+		int rightIndex = right.indexOf(reference.getQualifier(), reference.getName());
+		if (leftIndex != ColumnLabelIndex.NOT_FOUND && rightIndex != ColumnLabelIndex.NOT_FOUND) {
+			throw new SQLException(MessageFormat.format("Column ''{0}'' is ambiguous in the join of ''{1}''",
+					reference, tableName));
+		}
+		if (leftIndex != ColumnLabelIndex.NOT_FOUND) {
+			return leftIndex - 1;
+		}
+		if (rightIndex != ColumnLabelIndex.NOT_FOUND) {
+			return -rightIndex;
+		}
+		throw new SQLException(MessageFormat.format("Column ''{0}'' does not exist in the join of ''{1}''",
+				reference, tableName));
+	}
+
+	/**
+	 * The pairs of joined rows, -1 for the missing row of a LEFT join.
+	 */
+	private static final class RowPairs {
+		private int[] leftRows;
+		private int[] rightRows;
+		private int size;
+
+		RowPairs(int capacity) {
+			leftRows = new int[capacity];
+			rightRows = new int[capacity];
+		}
+
+		void add(int leftRow, int rightRow) {
+			if (size == leftRows.length) {
+				leftRows = Arrays.copyOf(leftRows, size * 2);
+				rightRows = Arrays.copyOf(rightRows, size * 2);
+			}
+			leftRows[size] = leftRow;
+			rightRows[size++] = rightRow;
+		}
+
+		/**
+		 * Orders the pairs by their left row, pairs of the same left row keep their order.
+		 */
+		void sortByLeft(int leftRowCount) {
+			int[] start = new int[leftRowCount + 1];
+			for (int i = 0; i < size; i++) {
+				start[leftRows[i] + 1]++;
+			}
+			for (int row = 0; row < leftRowCount; row++) {
+				start[row + 1] += start[row];
+			}
+			int[] sortedLeft = new int[size];
+			int[] sortedRight = new int[size];
+			for (int i = 0; i < size; i++) {
+				int position = start[leftRows[i]]++;
+				sortedLeft[position] = leftRows[i];
+				sortedRight[position] = rightRows[i];
+			}
+			leftRows = sortedLeft;
+			rightRows = sortedRight;
+		}
+	}
+}
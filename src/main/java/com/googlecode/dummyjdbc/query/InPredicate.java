@@ -0,0 +1,47 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.util.Set;
+
+import com.googlecode.dummyjdbc.table.HashIndex;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * <code>IN</code> with a list of text constants, tested with a single hash lookup per row. Other lists are compiled
+ * to an <code>OR</code> of comparisons.
+ *
+ * @author Kai Winter
+ */
+final class InPredicate extends Predicate {
+
+	private final Operand operand;
+	private final Set<String> values;
+
+	InPredicate(Operand operand, Set<String> values) {
+		this.operand = operand;
+		this.values = values;
+	}
+
+	@Override
+	int test(Table table, int row) {
+		if (operand.isNull(table, row)) {
+			return UNKNOWN;
+		}
+		return valueOf(values.contains(operand.getString(table, row)));
+	}
+
+	@Override
+	int[] lookup(Table table) {
+		if (!(operand instanceof ColumnOperand)) {
+			return null;
+		}
+		HashIndex index = table.getHashIndex(((ColumnOperand) operand).getColumnIndex());
+		if (index == null) {
+			return null;
+		}
+		int[] result = new int[0];
+		for (String value : values) {
+			result = union(result, index.lookup(value));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,89 @@
+package com.googlecode.dummyjdbc.query;
+
+import com.googlecode.dummyjdbc.table.SortedIndex;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * A range of values of a column with a {@link SortedIndex}. The bounds have the type of the keys of the index, see
+ * {@link SortedIndex#range(Object, boolean, Object, boolean)}.
+ *
+ * @author Kai Winter
+ */
+final class IndexRange {
+
+	private final int column;
+	private final Object low;
+	private final boolean lowInclusive;
+	private final Object high;
+	private final boolean highInclusive;
+
+	/**
+	 * @param column
+	 *            the column index, starting at 0.
+	 * @param low
+	 *            the lower bound, <code>null</code> if the range has none.
+	 * @param lowInclusive
+	 *            <code>true</code> if the lower bound is part of the range.
+	 * @param high
+	 *            the upper bound, <code>null</code> if the range has none.
+	 * @param highInclusive
+	 *            <code>true</code> if the upper bound is part of the range.
+	 */
+	IndexRange(int column, Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+		this.column = column;
+		this.low = low;
+		this.lowInclusive = lowInclusive;
+		this.high = high;
+		this.highInclusive = highInclusive;
+	}
+
+	int getColumn() {
+		return column;
+	}
+
+	/**
+	 * @param other
+	 *            a range of the same column.
+	 * @return the range of the values which are in both ranges
+	 */
+	IndexRange intersect(IndexRange other) {
+		Object newLow = low;
+		boolean newLowInclusive = lowInclusive;
+		int lowCompare = compare(other.low, low, true);
+		if (lowCompare > 0 || (lowCompare == 0 && !other.lowInclusive)) {
+			newLow = other.low;
+			newLowInclusive = other.lowInclusive;
+		}
+		Object newHigh = high;
+		boolean newHighInclusive = highInclusive;
+		int highCompare = compare(other.high, high, false);
+		if (highCompare < 0 || (highCompare == 0 && !other.highInclusive)) {
+			newHigh = other.high;
+			newHighInclusive = other.highInclusive;
+		}
+		return new IndexRange(column, newLow, newLowInclusive, newHigh, newHighInclusive);
+	}
+
+	/**
+	 * @param table
+	 *            the {@link Table} with the {@link SortedIndex} of the column.
+	 * @return the rows whose value is within the range, in ascending order
+	 */
+	int[] lookup(Table table) {
+		return table.getSortedIndex(column).range(low, lowInclusive, high, highInclusive);
+	}
+
+	/**
+	 * Compares two bounds, a missing bound is lower than all values if it is a lower bound and greater otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	private static int compare(Object bound, Object otherBound, boolean lower) {
+		if (bound == null || otherBound == null) {
+			if (bound == otherBound) {
+				return 0;
+			}
+			return (bound == null) == lower ? -1 : 1;
+		}
+		return ((Comparable<Object>) bound).compareTo(otherBound);
+	}
+}
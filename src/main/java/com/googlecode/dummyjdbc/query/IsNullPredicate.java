@@ -0,0 +1,24 @@
+package com.googlecode.dummyjdbc.query;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * <code>IS [NOT] NULL</code>. Empty values of typed columns are null, VARCHAR values never are.
+ *
+ * @author Kai Winter
+ */
+final class IsNullPredicate extends Predicate {
+
+	private final Operand operand;
+	private final boolean negated;
+
+	IsNullPredicate(Operand operand, boolean negated) {
+		this.operand = operand;
+		this.negated = negated;
+	}
+
+	@Override
+	int test(Table table, int row) {
+		return valueOf(operand.isNull(table, row) != negated);
+	}
+}
@@ -0,0 +1,131 @@
+package com.googlecode.dummyjdbc.query;
+
+/**
+ * A compiled <code>LIKE</code> pattern. Patterns without wildcards, prefix, suffix and infix patterns are matched with
+ * the corresponding {@link String} methods, other patterns with a backtracking matcher that never allocates.
+ *
+ * @author Kai Winter
+ */
+final class LikePattern {
+
+	private static final byte LITERAL = 0;
+	private static final byte ANY_CHAR = 1;
+	private static final byte ANY_CHARS = 2;
+
+	private static final int MATCH_GENERIC = 0;
+	private static final int MATCH_EQUALS = 1;
+	private static final int MATCH_PREFIX = 2;
+	private static final int MATCH_SUFFIX = 3;
+	private static final int MATCH_INFIX = 4;
+
+	private final char[] chars;
+	private final byte[] kinds;
+	private final int length;
+	private final int mode;
+	private final String literal;
+
+	/**
+	 * @param pattern
+	 *            the pattern.
+	 * @param escape
+	 *            the escape character, may be <code>null</code>.
+	 */
+	LikePattern(String pattern, Character escape) {
+		chars = new char[pattern.length()];
+		kinds = new byte[pattern.length()];
+		int n = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (escape != null && c == escape.charValue() && i + 1 < pattern.length()) {
+				chars[n] = pattern.charAt(++i);
+				kinds[n++] = LITERAL;
+			} else if (c == '%') {
+				// Consecutive % are the same as one
+				if (n == 0 || kinds[n - 1] != ANY_CHARS) {
+					kinds[n++] = ANY_CHARS;
+				}
+			} else if (c == '_') {
+				kinds[n++] = ANY_CHAR;
+			} else {
+				chars[n] = c;
+				kinds[n++] = LITERAL;
+			}
+		}
+		length = n;
+
+		int firstWildcard = indexOfWildcard(0, n);
+		if (firstWildcard == -1) {
+			mode = MATCH_EQUALS;
+			literal = new String(chars, 0, n);
+		} else if (kinds[firstWildcard] == ANY_CHARS && firstWildcard == n - 1) {
+			mode = MATCH_PREFIX;
+			literal = new String(chars, 0, firstWildcard);
+		} else if (firstWildcard == 0 && kinds[0] == ANY_CHARS && indexOfWildcard(1, n) == -1) {
+			mode = MATCH_SUFFIX;
+			literal = new String(chars, 1, n - 1);
+		} else if (firstWildcard == 0 && kinds[0] == ANY_CHARS && n > 1 && indexOfWildcard(1, n) == n - 1
+				&& kinds[n - 1] == ANY_CHARS) {
+			mode = MATCH_INFIX;
+			literal = new String(chars, 1, n - 2);
+		} else {
+			mode = MATCH_GENERIC;
+			literal = null;
+		}
+	}
+
+	private int indexOfWildcard(int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (kinds[i] != LITERAL) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param value
+	 *            the tested value.
+	 * @return <code>true</code> if the whole value matches the pattern
+	 */
+	boolean matches(String value) {
+		switch (mode) {
+		case MATCH_EQUALS:
+			return value.equals(literal);
+		case MATCH_PREFIX:
+			return value.startsWith(literal);
+		case MATCH_SUFFIX:
+			return value.endsWith(literal);
+		case MATCH_INFIX:
+			return value.contains(literal);
+		default:
+			return matchesGeneric(value);
+		}
+	}
+
+	private boolean matchesGeneric(String value) {
+		int v = 0;
+		int p = 0;
+		// Position after the last % and the value position it was tried at
+		int starP = -1;
+		int starV = 0;
+		while (v < value.length()) {
+			if (p < length && kinds[p] != ANY_CHARS && (kinds[p] == ANY_CHAR || chars[p] == value.charAt(v))) {
+				v++;
+				p++;
+			} else if (p < length && kinds[p] == ANY_CHARS) {
+				starP = ++p;
+				starV = v;
+			} else if (starP != -1) {
+				// Let the last % consume one more character
+				p = starP;
+				v = ++starV;
+			} else {
+				return false;
+			}
+		}
+		while (p < length && kinds[p] == ANY_CHARS) {
+			p++;
+		}
+		return p == length;
+	}
+}
@@ -0,0 +1,36 @@
+package com.googlecode.dummyjdbc.query;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * <code>[NOT] LIKE</code>. A constant pattern is compiled once, other patterns for every row.
+ *
+ * @author Kai Winter
+ */
+final class LikePredicate extends Predicate {
+
+	private final Operand operand;
+	private final Operand pattern;
+	private final Character escape;
+	private final boolean negated;
+	private final LikePattern constantPattern;
+
+	LikePredicate(Operand operand, Operand pattern, Character escape, boolean negated) {
+		this.operand = operand;
+		this.pattern = pattern;
+		this.escape = escape;
+		this.negated = negated;
+		this.constantPattern = pattern.isConstant() && !pattern.isNull(null, 0) ? new LikePattern(pattern.getString(
+				null, 0), escape) : null;
+	}
+
+	@Override
+	int test(Table table, int row) {
+		if (operand.isNull(table, row) || pattern.isNull(table, row)) {
+			return UNKNOWN;
+		}
+		LikePattern likePattern = constantPattern != null ? constantPattern : new LikePattern(pattern.getString(
+				table, row), escape);
+		return valueOf(likePattern.matches(operand.getString(table, row)) != negated);
+	}
+}
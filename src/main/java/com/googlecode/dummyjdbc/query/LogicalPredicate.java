@@ -0,0 +1,85 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * <code>AND</code> or <code>OR</code> of any number of predicates, evaluated from left to right until the result is
+ * known.
+ *
+ * @author Kai Winter
+ */
+final class LogicalPredicate extends Predicate {
+
+	private final boolean and;
+	private final Predicate[] predicates;
+
+	LogicalPredicate(boolean and, Predicate[] predicates) {
+		this.and = and;
+		this.predicates = predicates;
+	}
+
+	@Override
+	int test(Table table, int row) throws SQLException {
+		// FALSE decides an AND, TRUE decides an OR
+		int decisive = and ? FALSE : TRUE;
+		int result = and ? TRUE : FALSE;
+		for (Predicate predicate : predicates) {
+			int value = predicate.test(table, row);
+			if (value == decisive) {
+				return decisive;
+			}
+			if (value == UNKNOWN) {
+				result = UNKNOWN;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * An <code>AND</code> uses the smallest lookup of its predicates, comparisons of the same column with a sorted index
+	 * are combined to a single range first. An <code>OR</code> uses the union of the lookups if all of its predicates
+	 * have one.
+	 */
+	@Override
+	int[] lookup(Table table) throws SQLException {
+		if (!and) {
+			int[] result = null;
+			for (Predicate predicate : predicates) {
+				int[] rows = predicate.lookup(table);
+				if (rows == null) {
+					return null;
+				}
+				result = result == null ? rows : union(result, rows);
+			}
+			return result;
+		}
+
+		int[] result = null;
+		Map<Integer, IndexRange> ranges = new LinkedHashMap<>();
+		for (Predicate predicate : predicates) {
+			IndexRange range = predicate instanceof ComparisonPredicate ? ((ComparisonPredicate) predicate).range(table)
+					: null;
+			if (range != null) {
+				IndexRange other = ranges.get(range.getColumn());
+				ranges.put(range.getColumn(), other == null ? range : other.intersect(range));
+			} else {
+				result = smaller(result, predicate.lookup(table));
+			}
+		}
+		for (IndexRange range : ranges.values()) {
+			result = smaller(result, range.lookup(table));
+		}
+		return result;
+	}
+
+	private static int[] smaller(int[] rows, int[] otherRows) {
+		if (rows == null || (otherRows != null && otherRows.length < rows.length)) {
+			return otherRows;
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,442 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.sql.Arithmetic;
+import com.googlecode.dummyjdbc.sql.Assignment;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Delete;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.Insert;
+import com.googlecode.dummyjdbc.sql.Literal;
+import com.googlecode.dummyjdbc.sql.Parameter;
+import com.googlecode.dummyjdbc.sql.Update;
+import com.googlecode.dummyjdbc.table.Column;
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.table.TableChange;
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * An INSERT, UPDATE or DELETE of a table. Applying it creates a new version of the table, see
+ * {@link Table#append(List)}, {@link Table#update(int[], int[], List)} and {@link Table#delete(int[])}.
+ *
+ * <p>
+ * Inserted and assigned values are literals, parameters, columns of the updated row and arithmetic of them. They are
+ * converted to the text of the CSV file and parsed with the type of their column, a value which does not match the
+ * type is an error. A null value is stored as an empty value.
+ * </p>
+ *
+ * <p>
+ * A batch of INSERT ... VALUES is appended in one step. Parameters are copied from the {@link ParameterBatch} to the
+ * columns of the table without being converted to text, the other values are evaluated for each parameter set.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+final class Modification {
+
+	private enum Type {
+		INSERT, UPDATE, DELETE
+	}
+
+	private final Type type;
+	/** The columns of an INSERT, empty for all columns, or the assigned columns of an UPDATE. */
+	private final List<String> columns;
+	/** The rows of INSERT ... VALUES or the assigned values of an UPDATE as one row. */
+	private final List<List<Expression>> rows;
+	/** The query of INSERT ... SELECT. */
+	private final QueryPlan query;
+	private final Expression where;
+
+	private Modification(Type type, List<String> columns, List<List<Expression>> rows, QueryPlan query,
+			Expression where) {
+		this.type = type;
+		this.columns = columns;
+		this.rows = rows;
+		this.query = query;
+		this.where = where;
+	}
+
+	static Modification insert(Insert insert, QueryPlan query) {
+		return new Modification(Type.INSERT, insert.getColumns(), insert.getRows(), query, null);
+	}
+
+	static Modification update(Update update) {
+		List<String> columns = new ArrayList<>();
+		List<Expression> values = new ArrayList<>();
+		for (Assignment assignment : update.getAssignments()) {
+			columns.add(assignment.getColumn());
+			values.add(assignment.getValue());
+		}
+		return new Modification(Type.UPDATE, columns, Collections.singletonList(values), null, update.getWhere());
+	}
+
+	static Modification delete(Delete delete) {
+		return new Modification(Type.DELETE, Collections.<String> emptyList(), null, null, delete.getWhere());
+	}
+
+	/**
+	 * @return the plan of the query of INSERT ... SELECT, <code>null</code> for other statements
+	 */
+	QueryPlan getQuery() {
+		return query;
+	}
+
+	/**
+	 * Applies the modification.
+	 *
+	 * @param table
+	 *            the current version of the {@link Table}.
+	 * @param queryResult
+	 *            the result of the query of INSERT ... SELECT, see {@link QueryPlan#select(List, Parameters)}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return the new version of the table and the number of affected rows
+	 * @throws SQLException
+	 *             if a column does not exist, a parameter has no value or a value does not match the type of its
+	 *             column
+	 */
+	UpdateResult apply(Table table, Table queryResult, Parameters parameters) throws SQLException {
+		try {
+			switch (type) {
+			case INSERT:
+				return insert(table, queryResult, parameters);
+			case UPDATE:
+				return update(table, parameters);
+			default:
+				int[] deleted = select(table, parameters);
+				if (deleted.length == 0) {
+					return new UpdateResult(table, 0, null);
+				}
+				Table result = table.delete(deleted);
+				return new UpdateResult(result, deleted.length, TableChange.delete(result, deleted));
+			}
+		} catch (IllegalArgumentException e) {
+			throw new SQLException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Applies the modification once for each parameter set of a batch. The batch is applied completely or not at all.
+	 *
+	 * @param table
+	 *            the current version of the {@link Table}.
+	 * @param queryResults
+	 *            for each parameter set: the result of the query of INSERT ... SELECT, <code>null</code> for other
+	 *            statements.
+	 * @param batch
+	 *            the {@link ParameterBatch}.
+	 * @return the new version of the table and the number of affected rows of each parameter set
+	 * @throws SQLException
+	 *             if a column does not exist or a value does not match the type of its column
+	 */
+	UpdateResult applyBatch(Table table, List<Table> queryResults, ParameterBatch batch) throws SQLException {
+		if (type == Type.INSERT && query == null) {
+			try {
+				return insertBatch(table, batch);
+			} catch (IllegalArgumentException e) {
+				throw new SQLException(e.getMessage(), e);
+			}
+		}
+		int[] counts = new int[batch.size()];
+		List<TableChange> changes = new ArrayList<>();
+		Table current = table;
+		for (int set = 0; set < counts.length; set++) {
+			Table queryResult = queryResults == null ? null : queryResults.get(set);
+			UpdateResult result = apply(current, queryResult, batch.get(set));
+			current = result.getTable();
+			counts[set] = result.getUpdateCount();
+			changes.addAll(result.getChanges());
+		}
+		return new UpdateResult(current, counts, changes);
+	}
+
+	private UpdateResult insertBatch(Table table, ParameterBatch batch) throws SQLException {
+		int[] columnTypes = table.getMetaData().getColumnTypes();
+		int[] columnIndexes = columnIndexes(table);
+		// The inserted expression of each column of each row, null if the column gets no value
+		Expression[][] expressions = new Expression[rows.size()][columnTypes.length];
+		for (int i = 0; i < rows.size(); i++) {
+			List<Expression> row = rows.get(i);
+			checkValueCount(columnIndexes.length, row.size());
+			for (int j = 0; j < columnIndexes.length; j++) {
+				expressions[i][columnIndexes[j]] = row.get(j);
+			}
+		}
+
+		int[] counts = new int[batch.size()];
+		if (counts.length == 0 || rows.isEmpty()) {
+			return new UpdateResult(table, counts, Collections.<TableChange> emptyList());
+		}
+		Table.Appender appender = table.newAppender(counts.length * rows.size());
+		for (int set = 0; set < counts.length; set++) {
+			Parameters parameters = null;
+			for (Expression[] row : expressions) {
+				for (int column = 0; column < row.length; column++) {
+					Expression expression = row[column];
+					if (expression == null) {
+						appender.appendNull(column);
+					} else if (expression instanceof Parameter) {
+						int index = ((Parameter) expression).getIndex();
+						appendParameter(appender, column, columnTypes[column], batch, set, index);
+					} else {
+						if (parameters == null) {
+							parameters = batch.get(set);
+						}
+						Object value = evaluate(expression, null, -1, parameters);
+						appender.append(column, toText(value, columnTypes[column]));
+					}
+				}
+			}
+			counts[set] = rows.size();
+		}
+		Table result = appender.build();
+		return new UpdateResult(result, counts, Collections.singletonList(TableChange.insert(result,
+				table.getRowCount())));
+	}
+
+	private static void appendParameter(Table.Appender appender, int column, int sqlType, ParameterBatch batch,
+			int set, int index) {
+		switch (batch.getKind(set, index)) {
+		case ParameterBatch.LONG:
+			appender.append(column, batch.getLong(set, index));
+			break;
+		case ParameterBatch.DOUBLE:
+			appender.append(column, batch.getDouble(set, index));
+			break;
+		case ParameterBatch.OBJECT:
+			appender.append(column, toText(batch.getObject(set, index), sqlType));
+			break;
+		default:
+			appender.appendNull(column);
+		}
+	}
+
+	private UpdateResult insert(Table table, Table queryResult, Parameters parameters) throws SQLException {
+		DummyResultSetMetaData metaData = table.getMetaData();
+		int[] columnTypes = metaData.getColumnTypes();
+		int[] columnIndexes = columnIndexes(table);
+		List<String[]> values = new ArrayList<>();
+		if (queryResult != null) {
+			checkValueCount(columnIndexes.length, queryResult.getColumnCount());
+			for (int row = 0; row < queryResult.getRowCount(); row++) {
+				String[] data = emptyRow(columnTypes.length);
+				for (int i = 0; i < columnIndexes.length; i++) {
+					Column column = queryResult.getColumn(i);
+					Object value = column.isNull(row) ? null : column.getObject(row);
+					data[columnIndexes[i]] = toText(value, columnTypes[columnIndexes[i]]);
+				}
+				values.add(data);
+			}
+		} else {
+			for (List<Expression> row : rows) {
+				checkValueCount(columnIndexes.length, row.size());
+				String[] data = emptyRow(columnTypes.length);
+				for (int i = 0; i < columnIndexes.length; i++) {
+					Object value = evaluate(row.get(i), null, -1, parameters);
+					data[columnIndexes[i]] = toText(value, columnTypes[columnIndexes[i]]);
+				}
+				values.add(data);
+			}
+		}
+		if (values.isEmpty()) {
+			return new UpdateResult(table, 0, null);
+		}
+		Table result = table.append(values);
+		return new UpdateResult(result, values.size(), TableChange.insert(result, table.getRowCount()));
+	}
+
+	private UpdateResult update(Table table, Parameters parameters) throws SQLException {
+		int[] updated = select(table, parameters);
+		if (updated.length == 0) {
+			return new UpdateResult(table, 0, null);
+		}
+		int[] columnTypes = table.getMetaData().getColumnTypes();
+		int[] columnIndexes = columnIndexes(table);
+		List<Expression> assignedValues = rows.get(0);
+		List<String[]> values = new ArrayList<>(updated.length);
+		for (int row : updated) {
+			String[] data = new String[columnIndexes.length];
+			for (int i = 0; i < columnIndexes.length; i++) {
+				Object value = evaluate(assignedValues.get(i), table, row, parameters);
+				data[i] = toText(value, columnTypes[columnIndexes[i]]);
+			}
+			values.add(data);
+		}
+		Table result = table.update(updated, columnIndexes, values);
+		return new UpdateResult(result, updated.length, TableChange.update(result, updated, columnIndexes));
+	}
+
+	/**
+	 * @return the rows matching the WHERE clause in ascending order
+	 */
+	private int[] select(Table table, Parameters parameters) throws SQLException {
+		if (where != null) {
+			return RowFilter.compile(where, table.getName(), table.getMetaData(), parameters).select(table);
+		}
+		int[] rows = new int[table.getRowCount()];
+		for (int row = 0; row < rows.length; row++) {
+			rows[row] = row;
+		}
+		return rows;
+	}
+
+	/**
+	 * @return the indexes of the inserted or assigned columns, starting at 0
+	 */
+	private int[] columnIndexes(Table table) throws SQLException {
+		DummyResultSetMetaData metaData = table.getMetaData();
+		if (columns.isEmpty()) {
+			int[] all = new int[metaData.getColumnNames().length];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+		int[] indexes = new int[columns.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			int index = metaData.indexOf(null, columns.get(i));
+			if (index == ColumnLabelIndex.NOT_FOUND) {
+				String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+						columns.get(i), table.getName());
+				throw new SQLException(message);
+			}
+			indexes[i] = index - 1;
+		}
+		return indexes;
+	}
+
+	private static void checkValueCount(int columnCount, int valueCount) throws SQLException {
+		if (columnCount != valueCount) {
+			throw new SQLException(MessageFormat.format("INSERT has {0} columns but {1} values",
+					String.valueOf(columnCount), String.valueOf(valueCount)));
+		}
+	}
+
+	private static String[] emptyRow(int columnCount) {
+		String[] data = new String[columnCount];
+		Arrays.fill(data, "");
+		return data;
+	}
+
+	/**
+	 * @return the value of an inserted or assigned expression, <code>row</code> is -1 for INSERT
+	 */
+	private static Object evaluate(Expression expression, Table table, int row, Parameters parameters)
+			throws SQLException {
+		if (expression instanceof Literal) {
+			return ((Literal) expression).getValue();
+		}
+		if (expression instanceof Parameter) {
+			int index = ((Parameter) expression).getIndex();
+			if (parameters == null) {
+				throw new SQLException(MessageFormat.format("No value specified for parameter {0}",
+						String.valueOf(index)));
+			}
+			return parameters.get(index);
+		}
+		if (expression instanceof ColumnReference && table != null) {
+			ColumnReference reference = (ColumnReference) expression;
+			int index = table.getMetaData().indexOf(reference.getQualifier(), reference.getName());
+			if (index == ColumnLabelIndex.NOT_FOUND) {
+				String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+						reference.getName(), table.getName());
+				throw new SQLException(message);
+			}
+			Column column = table.getColumn(index - 1);
+			return column.isNull(row) ? null : column.getObject(row);
+		}
+		if (expression instanceof Arithmetic) {
+			Arithmetic arithmetic = (Arithmetic) expression;
+			Object left = evaluate(arithmetic.getLeft(), table, row, parameters);
+			Object right = evaluate(arithmetic.getRight(), table, row, parameters);
+			if (left == null || right == null) {
+				return null;
+			}
+			return compute(arithmetic, left, right);
+		}
+		throw new SQLException(MessageFormat.format("Not a value: {0}", expression));
+	}
+
+	private static Object compute(Arithmetic arithmetic, Object left, Object right) throws SQLException {
+		String operator = arithmetic.getOperator();
+		if ("||".equals(operator)) {
+			return String.valueOf(left) + right;
+		}
+		if (!(left instanceof Number) || !(right instanceof Number)) {
+			throw new SQLException(MessageFormat.format("Cannot compute {0}: {1} and {2} are no numbers", arithmetic,
+					left, right));
+		}
+		boolean integral = isIntegral(left) && isIntegral(right);
+		if (integral && !("/".equals(operator) || "%".equals(operator)) || integral
+				&& ((Number) right).longValue() != 0) {
+			long a = ((Number) left).longValue();
+			long b = ((Number) right).longValue();
+			switch (operator) {
+			case "+":
+				return a + b;
+			case "-":
+				return a - b;
+			case "*":
+				return a * b;
+			case "/":
+				return a / b;
+			default:
+				return a % b;
+			}
+		}
+		double a = ((Number) left).doubleValue();
+		double b = ((Number) right).doubleValue();
+		switch (operator) {
+		case "+":
+			return a + b;
+		case "-":
+			return a - b;
+		case "*":
+			return a * b;
+		case "/":
+			return a / b;
+		default:
+			return a % b;
+		}
+	}
+
+	private static boolean isIntegral(Object value) {
+		return value instanceof Long || value instanceof Integer;
+	}
+
+	/**
+	 * @return the value as it would be written in the CSV file for a column of the type
+	 */
+	private static String toText(Object value, int sqlType) {
+		if (value == null) {
+			return "";
+		}
+		if (value instanceof Date) {
+			if (sqlType == Types.DATE || sqlType == Types.TIME || sqlType == Types.TIMESTAMP) {
+				return DateUtils.format(sqlType, ((Date) value).getTime());
+			}
+			return DateUtils.format(Types.TIMESTAMP, ((Date) value).getTime());
+		}
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).toPlainString();
+		}
+		if (value instanceof Double && (sqlType == Types.INTEGER || sqlType == Types.BIGINT)) {
+			double number = (Double) value;
+			if (number == Math.rint(number) && !Double.isInfinite(number)) {
+				return String.valueOf((long) number);
+			}
+		}
+		return String.valueOf(value);
+	}
+}
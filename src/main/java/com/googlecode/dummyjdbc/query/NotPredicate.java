@@ -0,0 +1,24 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * Negates a predicate.
+ *
+ * @author Kai Winter
+ */
+final class NotPredicate extends Predicate {
+
+	private final Predicate predicate;
+
+	NotPredicate(Predicate predicate) {
+		this.predicate = predicate;
+	}
+
+	@Override
+	int test(Table table, int row) throws SQLException {
+		return not(predicate.test(table, row));
+	}
+}
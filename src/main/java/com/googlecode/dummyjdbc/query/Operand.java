@@ -0,0 +1,71 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * A value of a compiled predicate, read from a row of a {@link Table}.
+ *
+ * @author Kai Winter
+ */
+abstract class Operand {
+
+	/** Kind of text values. */
+	static final int STRING = 0;
+
+	/** Kind of integral values. */
+	static final int INTEGER = 1;
+
+	/** Kind of floating point values. */
+	static final int DOUBLE = 2;
+
+	/** Kind of DATE, TIME and TIMESTAMP values. */
+	static final int TEMPORAL = 3;
+
+	/** Kind of the <code>NULL</code> literal. */
+	static final int NULL = 4;
+
+	/**
+	 * @return the kind of the values, which determines how they are compared
+	 */
+	abstract int getKind();
+
+	/**
+	 * @return the {@link java.sql.Types} of a {@link #TEMPORAL} operand
+	 */
+	int getTemporalType() {
+		return 0;
+	}
+
+	/**
+	 * @return <code>true</code> if the value is the same for every row
+	 */
+	boolean isConstant() {
+		return false;
+	}
+
+	abstract boolean isNull(Table table, int row);
+
+	abstract String getString(Table table, int row);
+
+	/**
+	 * @throws NumberFormatException
+	 *             if a text value is no integral number
+	 */
+	abstract long getLong(Table table, int row);
+
+	/**
+	 * @throws NumberFormatException
+	 *             if a text value is no number
+	 */
+	abstract double getDouble(Table table, int row);
+
+	/**
+	 * @param temporalType
+	 *            the {@link java.sql.Types} a text value is parsed as.
+	 * @throws SQLException
+	 *             if a text value does not match the format of the type
+	 */
+	abstract long getMillis(Table table, int row, int temporalType) throws SQLException;
+}
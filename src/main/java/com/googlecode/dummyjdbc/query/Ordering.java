@@ -0,0 +1,217 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.sql.AllColumns;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.Literal;
+import com.googlecode.dummyjdbc.sql.OrderItem;
+import com.googlecode.dummyjdbc.sql.SelectItem;
+import com.googlecode.dummyjdbc.table.RowComparator;
+import com.googlecode.dummyjdbc.table.RowSorter;
+import com.googlecode.dummyjdbc.table.SortKeys;
+import com.googlecode.dummyjdbc.table.SortedIndex;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * The ORDER BY clause of a query, compiled against the schema of a table. Values are compared like the WHERE clause
+ * compares them, null values are ordered first in ascending and last in descending order and rows with equal values
+ * keep the order of the file.
+ *
+ * <p>
+ * If the rows are ordered by a single column with a sorted index, the index is iterated in its order and only the
+ * rows up to the requested limit are tested against the WHERE clause. Otherwise the matching rows are sorted, with a
+ * limit only the first <code>offset + limit</code> rows are kept in a bounded heap.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+final class Ordering {
+
+	private final int[] columns;
+	private final boolean[] descending;
+
+	private Ordering(int[] columns, boolean[] descending) {
+		this.columns = columns;
+		this.descending = descending;
+	}
+
+	/**
+	 * @param orderBy
+	 *            the items of an ORDER BY clause.
+	 * @return <code>true</code> if all items are columns or positions in the select list, with null values in the
+	 *         default position
+	 */
+	static boolean isSupported(List<OrderItem> orderBy) {
+		for (OrderItem item : orderBy) {
+			Expression expression = item.getExpression();
+			if (!(expression instanceof ColumnReference) && !isPosition(expression)
+					|| item.isNullsFirst() == item.isDescending()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compiles an ORDER BY clause.
+	 *
+	 * @param orderBy
+	 *            the items of the ORDER BY clause, see {@link #isSupported(List)}.
+	 * @param items
+	 *            the items of the select list, for aliases and positions.
+	 * @param tableName
+	 *            the name of the table, used in error messages.
+	 * @param metaData
+	 *            the schema of the table.
+	 * @return the {@link Ordering}
+	 * @throws SQLException
+	 *             if a column does not exist or a position does not refer to a column of the select list
+	 */
+	static Ordering compile(List<OrderItem> orderBy, List<SelectItem> items, String tableName,
+			DummyResultSetMetaData metaData) throws SQLException {
+		int[] columns = new int[orderBy.size()];
+		boolean[] descending = new boolean[orderBy.size()];
+		for (int i = 0; i < columns.length; i++) {
+			OrderItem item = orderBy.get(i);
+			columns[i] = columnIndex(item.getExpression(), items, tableName, metaData);
+			descending[i] = item.isDescending();
+		}
+		return new Ordering(columns, descending);
+	}
+
+	/**
+	 * Selects the rows matching a filter in this order.
+	 *
+	 * @param table
+	 *            the {@link Table}, with the schema this ordering was compiled for.
+	 * @param filter
+	 *            the {@link RowFilter}, may be <code>null</code>.
+	 * @param offset
+	 *            the number of matching rows to skip.
+	 * @param limit
+	 *            the maximum number of rows, -1 for all rows.
+	 * @return the indexes of the selected rows in this order
+	 * @throws SQLException
+	 *             if a value cannot be converted for a comparison
+	 */
+	int[] select(Table table, RowFilter filter, int offset, int limit) throws SQLException {
+		int[] candidates = filter == null ? null : filter.lookup(table);
+		SortedIndex index = columns.length == 1 ? table.getSortedIndex(columns[0]) : null;
+		if (index != null && candidates == null) {
+			return scan(table, index.getRows(descending[0]), filter, offset, limit);
+		}
+
+		int[] rows;
+		if (filter == null) {
+			rows = new int[table.getRowCount()];
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = row;
+			}
+		} else {
+			rows = filter.select(table, candidates);
+		}
+		if (limit >= 0 && (long) offset + limit < rows.length) {
+			rows = RowSorter.top(rows, offset + limit, comparator(table));
+		} else {
+			RowSorter.sort(rows, comparator(table));
+		}
+		int from = Math.min(offset, rows.length);
+		int to = limit < 0 ? rows.length : (int) Math.min((long) from + limit, rows.length);
+		return from == 0 && to == rows.length ? rows : Arrays.copyOfRange(rows, from, to);
+	}
+
+	/**
+	 * Iterates rows which are already in order until enough rows match the filter.
+	 */
+	private static int[] scan(Table table, int[] order, RowFilter filter, int offset, int limit)
+			throws SQLException {
+		long end = limit < 0 ? Long.MAX_VALUE : (long) offset + limit;
+		int[] rows = new int[(int) Math.min(Math.min(end - offset, order.length), 64)];
+		int count = 0;
+		long matched = 0;
+		for (int i = 0; i < order.length && matched < end; i++) {
+			int row = order[i];
+			if (filter == null || filter.matches(table, row)) {
+				if (matched >= offset) {
+					if (count == rows.length) {
+						rows = Arrays.copyOf(rows, Math.min(count * 2, order.length));
+					}
+					rows[count++] = row;
+				}
+				matched++;
+			}
+		}
+		return count == rows.length ? rows : Arrays.copyOf(rows, count);
+	}
+
+	private RowComparator comparator(Table table) {
+		final SortKeys[] keys = new SortKeys[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			keys[i] = SortKeys.of(table.getColumn(columns[i]));
+		}
+		return new RowComparator() {
+			@Override
+			public int compare(int row, int otherRow) {
+				for (int i = 0; i < keys.length; i++) {
+					int compareResult = keys[i].compare(row, otherRow);
+					if (compareResult != 0) {
+						return descending[i] ? -compareResult : compareResult;
+					}
+				}
+				return 0;
+			}
+		};
+	}
+
+	/**
+	 * @return the index of the table column an item of the ORDER BY clause refers to, starting at 0
+	 */
+	private static int columnIndex(Expression expression, List<SelectItem> items, String tableName,
+			DummyResultSetMetaData metaData) throws SQLException {
+		ColumnReference reference = null;
+		if (isPosition(expression)) {
+			long position = (Long) ((Literal) expression).getValue();
+			if (items.size() == 1 && items.get(0).getExpression() instanceof AllColumns) {
+				if (position >= 1 && position <= metaData.getColumnNames().length) {
+					return (int) position - 1;
+				}
+			} else if (position >= 1 && position <= items.size()
+					&& items.get((int) position - 1).getExpression() instanceof ColumnReference) {
+				reference = (ColumnReference) items.get((int) position - 1).getExpression();
+			}
+			if (reference == null) {
+				throw new SQLException(MessageFormat.format(
+						"ORDER BY position {0} is not a column of the select list", String.valueOf(position)));
+			}
+		} else {
+			reference = (ColumnReference) expression;
+			// An alias of the select list takes precedence over a column of the same name
+			for (SelectItem item : items) {
+				if (reference.getName().equalsIgnoreCase(item.getAlias())
+						&& item.getExpression() instanceof ColumnReference) {
+					reference = (ColumnReference) item.getExpression();
+					break;
+				}
+			}
+		}
+
+		int columnIndex = metaData.indexOf(reference.getQualifier(), reference.getName());
+		if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+			String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+					reference.getName(), tableName);
+			throw new SQLException(message);
+		}
+		return columnIndex - 1;
+	}
+
+	private static boolean isPosition(Expression expression) {
+		return expression instanceof Literal && ((Literal) expression).getValue() instanceof Long;
+	}
+}
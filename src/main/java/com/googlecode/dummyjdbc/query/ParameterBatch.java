@@ -0,0 +1,152 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * The parameter sets added to the batch of a prepared statement. The values are stored parameter by parameter:
+ * integral and floating point numbers in a primitive array, other values in an object array which is only created
+ * when a parameter gets such a value. A batch of INSERT ... VALUES is appended to the table without boxing or
+ * formatting the numbers, see {@link Table.Appender}.
+ *
+ * @author Kai Winter
+ */
+public final class ParameterBatch {
+
+	static final byte NULL = 0;
+	static final byte LONG = 1;
+	static final byte DOUBLE = 2;
+	static final byte OBJECT = 3;
+
+	private final int parameterCount;
+	/** For each parameter and parameter set: the kind of the value. */
+	private final byte[][] kinds;
+	/** For each parameter and parameter set: a long value or the bits of a double value. */
+	private final long[][] numbers;
+	/** For each parameter and parameter set: another value, <code>null</code> until a parameter gets one. */
+	private final Object[][] objects;
+	private int size;
+
+	/**
+	 * Constructs a new, empty {@link ParameterBatch}.
+	 *
+	 * @param parameterCount
+	 *            the number of parameter markers of the statement.
+	 */
+	public ParameterBatch(int parameterCount) {
+		this.parameterCount = parameterCount;
+		this.kinds = new byte[parameterCount][16];
+		this.numbers = new long[parameterCount][16];
+		this.objects = new Object[parameterCount][];
+	}
+
+	/**
+	 * Adds the current values of the parameters as a new parameter set.
+	 *
+	 * @param parameters
+	 *            the {@link Parameters} of the statement.
+	 * @throws SQLException
+	 *             if a parameter has no value
+	 */
+	public void add(Parameters parameters) throws SQLException {
+		// Read all values first, so a missing value does not leave a partial parameter set
+		Object[] values = new Object[parameterCount];
+		for (int i = 0; i < parameterCount; i++) {
+			values[i] = parameters.get(i + 1);
+		}
+		for (int i = 0; i < parameterCount; i++) {
+			if (size == kinds[i].length) {
+				kinds[i] = Arrays.copyOf(kinds[i], size * 2);
+				numbers[i] = Arrays.copyOf(numbers[i], size * 2);
+				if (objects[i] != null) {
+					objects[i] = Arrays.copyOf(objects[i], size * 2);
+				}
+			}
+			Object value = values[i];
+			if (value == null) {
+				kinds[i][size] = NULL;
+			} else if (value instanceof Long) {
+				kinds[i][size] = LONG;
+				numbers[i][size] = (Long) value;
+			} else if (value instanceof Double) {
+				kinds[i][size] = DOUBLE;
+				numbers[i][size] = Double.doubleToRawLongBits((Double) value);
+			} else {
+				if (objects[i] == null) {
+					objects[i] = new Object[kinds[i].length];
+				}
+				kinds[i][size] = OBJECT;
+				objects[i][size] = value;
+			}
+		}
+		size++;
+	}
+
+	/**
+	 * @return the number of parameter sets
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all parameter sets.
+	 */
+	public void clear() {
+		for (int i = 0; i < parameterCount; i++) {
+			if (objects[i] != null) {
+				Arrays.fill(objects[i], 0, size, null);
+			}
+		}
+		size = 0;
+	}
+
+	/**
+	 * @return the kind of the value of a parameter in a parameter set, one of {@link #NULL}, {@link #LONG},
+	 *         {@link #DOUBLE} and {@link #OBJECT}
+	 */
+	byte getKind(int row, int index) {
+		return kinds[index - 1][row];
+	}
+
+	long getLong(int row, int index) {
+		return numbers[index - 1][row];
+	}
+
+	double getDouble(int row, int index) {
+		return Double.longBitsToDouble(numbers[index - 1][row]);
+	}
+
+	Object getObject(int row, int index) {
+		return objects[index - 1][row];
+	}
+
+	/**
+	 * @param row
+	 *            the index of the parameter set, starting at 0.
+	 * @return the values of the parameter set
+	 * @throws SQLException
+	 *             never, the values were validated when the parameter set was added
+	 */
+	public Parameters get(int row) throws SQLException {
+		Parameters parameters = new Parameters(parameterCount);
+		for (int index = 1; index <= parameterCount; index++) {
+			switch (getKind(row, index)) {
+			case LONG:
+				parameters.set(index, Long.valueOf(getLong(row, index)));
+				break;
+			case DOUBLE:
+				parameters.set(index, Double.valueOf(getDouble(row, index)));
+				break;
+			case OBJECT:
+				parameters.set(index, getObject(row, index));
+				break;
+			default:
+				parameters.set(index, null);
+			}
+		}
+		return parameters;
+	}
+}
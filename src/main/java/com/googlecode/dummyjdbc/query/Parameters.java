@@ -0,0 +1,104 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * The values bound to the parameter markers of a prepared statement. Values are normalized when they are set: integral
+ * numbers to {@link Long}, other numbers to {@link Double}, dates stay {@link Date}s and everything else is stored as
+ * {@link String}.
+ *
+ * @author Kai Winter
+ */
+public final class Parameters {
+
+	/** Marks a parameter without a value, <code>null</code> is a valid value. */
+	private static final Object UNSET = new Object();
+
+	private final Object[] values;
+
+	/**
+	 * Constructs a new {@link Parameters} without values.
+	 *
+	 * @param count
+	 *            the number of parameter markers.
+	 */
+	public Parameters(int count) {
+		values = new Object[count];
+		clear();
+	}
+
+	/**
+	 * Sets the value of a parameter.
+	 *
+	 * @param index
+	 *            the index of the parameter, starting at 1.
+	 * @param value
+	 *            the value, may be <code>null</code>.
+	 * @throws SQLException
+	 *             if there is no parameter with the index
+	 */
+	public void set(int index, Object value) throws SQLException {
+		if (index < 1 || index > values.length) {
+			String message = MessageFormat.format("Parameter index {0} is out of range, the statement has {1}",
+					String.valueOf(index), String.valueOf(values.length));
+			throw new SQLException(message);
+		}
+		values[index - 1] = normalize(value);
+	}
+
+	/**
+	 * @param index
+	 *            the index of the parameter, starting at 1.
+	 * @return the normalized value of the parameter
+	 * @throws SQLException
+	 *             if no value was set for the parameter
+	 */
+	public Object get(int index) throws SQLException {
+		Object value = values[index - 1];
+		if (value == UNSET) {
+			throw new SQLException(MessageFormat.format("No value specified for parameter {0}",
+					String.valueOf(index)));
+		}
+		return value;
+	}
+
+	/**
+	 * @return the number of parameter markers
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Removes the values of all parameters.
+	 */
+	public void clear() {
+		Arrays.fill(values, UNSET);
+	}
+
+	private static Object normalize(Object value) {
+		if (value == null || value instanceof String || value instanceof Long || value instanceof Double
+				|| value instanceof Date) {
+			return value;
+		}
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return Long.valueOf(((Number) value).longValue());
+		}
+		if (value instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) value;
+			try {
+				return Long.valueOf(decimal.longValueExact());
+			} catch (ArithmeticException e) {
+				return Double.valueOf(decimal.doubleValue());
+			}
+		}
+		if (value instanceof Number) {
+			return Double.valueOf(((Number) value).doubleValue());
+		}
+		return value.toString();
+	}
+}
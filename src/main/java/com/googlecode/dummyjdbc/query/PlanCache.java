@@ -0,0 +1,106 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Driver wide cache of {@link QueryPlan}s keyed by the SQL text, shared by all connections. A statement which was
+ * executed before is not parsed again. Lookups do not lock, if the cache is full arbitrary plans are evicted.
+ *
+ * @author Kai Winter
+ */
+public final class PlanCache {
+
+	/** Default maximum number of cached plans. */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private static final PlanCache INSTANCE = new PlanCache(DEFAULT_MAX_SIZE);
+
+	private final ConcurrentMap<String, QueryPlan> plans = new ConcurrentHashMap<>();
+
+	private volatile int maxSize;
+
+	/**
+	 * Constructs a new {@link PlanCache}.
+	 *
+	 * @param maxSize
+	 *            the maximum number of cached plans, 0 disables the cache.
+	 */
+	public PlanCache(int maxSize) {
+		setMaxSize(maxSize);
+	}
+
+	/**
+	 * @return the {@link PlanCache} which is shared by all connections of the driver
+	 */
+	public static PlanCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the plan of a statement, the statement is only parsed if its plan is not cached.
+	 *
+	 * @param sql
+	 *            the SQL statement.
+	 * @return the {@link QueryPlan}
+	 * @throws SQLException
+	 *             a {@link SQLSyntaxErrorException} if the statement is invalid, a
+	 *             {@link SQLFeatureNotSupportedException} if the query of an INSERT ... SELECT is not supported
+	 */
+	public QueryPlan get(String sql) throws SQLException {
+		QueryPlan plan = plans.get(sql);
+		if (plan != null) {
+			return plan;
+		}
+
+		plan = QueryPlan.create(sql);
+		if (maxSize > 0) {
+			evict(maxSize - 1);
+			QueryPlan existing = plans.putIfAbsent(sql, plan);
+			if (existing != null) {
+				return existing;
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Sets the maximum number of cached plans, plans are evicted if the cache is larger.
+	 *
+	 * @param maxSize
+	 *            the maximum number of cached plans, 0 disables the cache.
+	 */
+	public void setMaxSize(int maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		evict(maxSize);
+	}
+
+	/**
+	 * @return the number of cached plans
+	 */
+	public int size() {
+		return plans.size();
+	}
+
+	/**
+	 * Removes all plans from the cache.
+	 */
+	public void clear() {
+		plans.clear();
+	}
+
+	private void evict(int targetSize) {
+		Iterator<QueryPlan> iterator = plans.values().iterator();
+		while (plans.size() > targetSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * A compiled condition, tested against the rows of a {@link Table}. Conditions have three truth values: comparisons
+ * with <code>NULL</code> are {@link #UNKNOWN}, only rows for which the condition is {@link #TRUE} are selected.
+ *
+ * @author Kai Winter
+ */
+abstract class Predicate {
+
+	static final int FALSE = 0;
+	static final int TRUE = 1;
+	static final int UNKNOWN = 2;
+
+	/**
+	 * @param table
+	 *            the {@link Table}.
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}
+	 * @throws SQLException
+	 *             if a value cannot be converted for the comparison
+	 */
+	abstract int test(Table table, int row) throws SQLException;
+
+	/**
+	 * Finds the rows which can match with the hash indexes of the table, so only these rows have to be tested.
+	 *
+	 * @param table
+	 *            the {@link Table}.
+	 * @return the candidate rows in ascending order or <code>null</code> if no index can be used
+	 * @throws SQLException
+	 *             if a constant cannot be converted to the type of the index
+	 */
+	int[] lookup(Table table) throws SQLException {
+		return null;
+	}
+
+	static int valueOf(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	/**
+	 * Negation in three valued logic, {@link #UNKNOWN} stays {@link #UNKNOWN}.
+	 */
+	static int not(int value) {
+		return value == UNKNOWN ? UNKNOWN : TRUE - value;
+	}
+
+	/**
+	 * @return the distinct rows of both arrays in ascending order, both arrays have to be in ascending order
+	 */
+	static int[] union(int[] first, int[] second) {
+		int[] result = new int[first.length + second.length];
+		int i = 0;
+		int j = 0;
+		int count = 0;
+		while (i < first.length || j < second.length) {
+			int row;
+			if (j == second.length || (i < first.length && first[i] < second[j])) {
+				row = first[i++];
+			} else if (i == first.length || second[j] < first[i]) {
+				row = second[j++];
+			} else {
+				row = first[i++];
+				j++;
+			}
+			result[count++] = row;
+		}
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+}
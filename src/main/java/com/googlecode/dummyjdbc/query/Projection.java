@@ -0,0 +1,124 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.sql.AllColumns;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.SelectItem;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * The select list of a query, compiled against the schema of a table: the indexes of the selected columns and the
+ * schema of the result. Applying a projection shares the selected columns, no values are copied.
+ *
+ * @author Kai Winter
+ */
+public final class Projection {
+
+	private final int[] columns;
+	private final DummyResultSetMetaData metaData;
+
+	private Projection(int[] columns, DummyResultSetMetaData metaData) {
+		this.columns = columns;
+		this.metaData = metaData;
+	}
+
+	/**
+	 * Compiles a select list.
+	 *
+	 * @param items
+	 *            the items of the select list, columns or <code>*</code>.
+	 * @param tableName
+	 *            the name of the table, used in error messages.
+	 * @param tableMetaData
+	 *            the schema of the table.
+	 * @return the {@link Projection}
+	 * @throws SQLException
+	 *             if a column does not exist or an item is no column
+	 */
+	public static Projection compile(List<SelectItem> items, String tableName, DummyResultSetMetaData tableMetaData)
+			throws SQLException {
+		int columnCount = tableMetaData.getColumnNames().length;
+		int[] columns = new int[items.size()];
+		String[] labels = new String[items.size()];
+		int count = 0;
+		for (SelectItem item : items) {
+			Expression expression = item.getExpression();
+			if (expression instanceof AllColumns) {
+				String qualifier = ((AllColumns) expression).getQualifier();
+				columns = Arrays.copyOf(columns, columns.length + columnCount - 1);
+				labels = Arrays.copyOf(labels, columns.length);
+				int first = count;
+				for (int column = 0; column < columnCount; column++) {
+					if (tableMetaData.isQualifiedBy(column, qualifier)) {
+						columns[count++] = column;
+					}
+				}
+				if (count == first) {
+					throw new SQLException(MessageFormat.format("Cannot select {0}, no table is named ''{1}''",
+							expression, qualifier));
+				}
+			} else if (expression instanceof ColumnReference) {
+				ColumnReference reference = (ColumnReference) expression;
+				String name = reference.getName();
+				int columnIndex = tableMetaData.indexOf(reference.getQualifier(), name);
+				if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+					String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+							name, tableName);
+					throw new SQLException(message);
+				}
+				labels[count] = item.getAlias();
+				columns[count++] = columnIndex - 1;
+			} else {
+				throw new SQLException(MessageFormat.format("Cannot select {0}", expression));
+			}
+		}
+		columns = Arrays.copyOf(columns, count);
+		labels = Arrays.copyOf(labels, count);
+		return new Projection(columns, tableMetaData.project(columns, labels));
+	}
+
+	/**
+	 * @param items
+	 *            the items of a select list.
+	 * @return <code>true</code> if all items are columns or <code>*</code>, so the select list can be compiled
+	 */
+	public static boolean isColumnList(List<SelectItem> items) {
+		for (SelectItem item : items) {
+			Expression expression = item.getExpression();
+			if (!(expression instanceof AllColumns) && !(expression instanceof ColumnReference)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the indexes of the selected columns of the table, starting at 0
+	 */
+	public int[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the schema of the result
+	 */
+	public DummyResultSetMetaData getMetaData() {
+		return metaData;
+	}
+
+	/**
+	 * @param table
+	 *            the {@link Table}, with the schema this projection was compiled for.
+	 * @return a {@link Table} containing only the selected columns
+	 */
+	public Table apply(Table table) {
+		return table.project(metaData, columns);
+	}
+}
@@ -0,0 +1,933 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.resultset.impl.StreamingResultSet;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Delete;
+import com.googlecode.dummyjdbc.sql.Execute;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.Insert;
+import com.googlecode.dummyjdbc.sql.Join;
+import com.googlecode.dummyjdbc.sql.Literal;
+import com.googlecode.dummyjdbc.sql.OrderItem;
+import com.googlecode.dummyjdbc.sql.Parameter;
+import com.googlecode.dummyjdbc.sql.Select;
+import com.googlecode.dummyjdbc.sql.SelectItem;
+import com.googlecode.dummyjdbc.sql.SqlParser;
+import com.googlecode.dummyjdbc.sql.SqlStatement;
+import com.googlecode.dummyjdbc.sql.TableReference;
+import com.googlecode.dummyjdbc.sql.Union;
+import com.googlecode.dummyjdbc.sql.Update;
+import com.googlecode.dummyjdbc.table.Column;
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.table.TableStream;
+
+/**
+ * The plan of a query: the parsed statement reduced to what is executed, the queried table, the joined tables, the
+ * select list, the WHERE clause, the GROUP BY clause, the ORDER BY clause and the LIMIT and OFFSET. Plans do not
+ * depend on a connection and are shared by all threads, see {@link PlanCache}.
+ *
+ * <p>
+ * The joins are compiled against the schemas of the joined tables, see {@link HashJoin}. The select list, the WHERE,
+ * the GROUP BY and the ORDER BY clause are compiled against the schema of the queried table, or of the joined table, on
+ * the first execution. The compiled {@link RowFilter}, {@link Projection}, {@link Aggregation} and
+ * {@link Ordering} are kept as long as the tables are not reloaded. Duplicate rows of a SELECT DISTINCT are removed
+ * before the rows are sorted, see {@link RowKeys}. The ORDER BY clause of an aggregate query sorts the
+ * groups. A WHERE clause with parameter markers is compiled for every execution, with the values of
+ * the parameters as constants.
+ * </p>
+ *
+ * <p>
+ * Each SELECT of a UNION, EXCEPT or INTERSECT has its own plan. Their results are combined from left to right, for
+ * operators without ALL the duplicate rows are removed, then the ORDER BY, LIMIT and OFFSET of the union are applied.
+ * An INTERSECT following another operator binds more strongly and is not supported.
+ * </p>
+ *
+ * <p>
+ * A complete SELECT which the {@link SqlParser} cannot parse, e.g. because of vendor specific syntax, returns all rows
+ * of the table following its first FROM.
+ * </p>
+ *
+ * <p>
+ * INSERT, UPDATE and DELETE create a new version of the table, see {@link #executeUpdate(Table, Table, Parameters)}.
+ * The query of INSERT ... SELECT has its own plan, see {@link #getInsertQuery()}.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class QueryPlan {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(QueryPlan.class);
+
+	/**
+	 * The ways a statement is executed.
+	 */
+	public enum Kind {
+		/** A query of a table or a stored procedure, the data is read from the CSV file of the table. */
+		TABLE,
+		/** A SELECT without a FROM clause. */
+		PURE_SELECT,
+		/** SELECTs of tables combined with UNION, EXCEPT or INTERSECT, see {@link QueryPlan#getUnionBranches()}. */
+		UNION,
+		/** An INSERT, UPDATE or DELETE of a table, see {@link QueryPlan#executeUpdate(Table, Table, Parameters)}. */
+		MODIFICATION,
+		/** A statement which returns an empty result. */
+		EMPTY
+	}
+
+	private final Kind kind;
+	private final String tableName;
+	private final String tableKey;
+	private final TableReference from;
+	private final List<Join> joins;
+	private final boolean distinct;
+	private final List<SelectItem> selectList;
+	private final Expression where;
+	private final List<SelectItem> items;
+	/** The GROUP BY clause of an aggregate query, <code>null</code> if the rows are not aggregated. */
+	private final List<Expression> groupBy;
+	private final List<OrderItem> orderBy;
+	private final Expression limit;
+	private final Expression offset;
+	private final int parameterCount;
+
+	/** The plans of the SELECTs of a UNION, <code>null</code> for other statements. */
+	private final List<QueryPlan> branches;
+	/** For each SELECT of a UNION but the first: the operator combining it with the SELECTs before it. */
+	private final Union.Operator[] operators;
+	/** For each SELECT of a UNION but the first: <code>true</code> if the operator is followed by ALL. */
+	private final boolean[] unionAll;
+
+	/** The INSERT, UPDATE or DELETE, <code>null</code> for other statements. */
+	private final Modification modification;
+
+	/** The filter and the projection of the last executed table. */
+	private volatile Compiled compiled;
+
+	/** The joins compiled against the schemas of the last executed tables. */
+	private volatile HashJoin hashJoin;
+
+	private QueryPlan(Kind kind, String tableName, int parameterCount) {
+		this(kind, tableName == null ? null : new TableReference(tableName, null), Collections.<Join> emptyList(),
+				false, null, null, null, null, Collections.<OrderItem> emptyList(), null, null, parameterCount);
+	}
+
+	private QueryPlan(Kind kind, TableReference from, List<Join> joins, boolean distinct, List<SelectItem> selectList,
+			Expression where, List<SelectItem> items, List<Expression> groupBy, List<OrderItem> orderBy,
+			Expression limit, Expression offset, int parameterCount) {
+		this.kind = kind;
+		this.tableName = from == null ? null : from.getName();
+		this.tableKey = tableName == null ? null : tableName.toLowerCase();
+		this.from = from;
+		this.joins = joins;
+		this.distinct = distinct;
+		this.selectList = selectList;
+		this.where = where;
+		this.items = items;
+		this.groupBy = groupBy;
+		this.orderBy = orderBy;
+		this.limit = limit;
+		this.offset = offset;
+		this.parameterCount = parameterCount;
+		this.branches = null;
+		this.operators = null;
+		this.unionAll = null;
+		this.modification = null;
+	}
+
+	private QueryPlan(List<QueryPlan> branches, Union.Operator[] operators, boolean[] unionAll,
+			List<OrderItem> orderBy, Expression limit, Expression offset, int parameterCount) {
+		this.kind = Kind.UNION;
+		this.tableName = null;
+		this.tableKey = null;
+		this.from = null;
+		this.joins = Collections.emptyList();
+		this.distinct = false;
+		this.selectList = null;
+		this.where = null;
+		this.items = null;
+		this.groupBy = null;
+		this.orderBy = orderBy;
+		this.limit = limit;
+		this.offset = offset;
+		this.parameterCount = parameterCount;
+		this.branches = branches;
+		this.operators = operators;
+		this.unionAll = unionAll;
+		this.modification = null;
+	}
+
+	private QueryPlan(String tableName, Modification modification, int parameterCount) {
+		this.kind = Kind.MODIFICATION;
+		this.tableName = tableName;
+		this.tableKey = tableName.toLowerCase();
+		this.from = new TableReference(tableName, null);
+		this.joins = Collections.emptyList();
+		this.distinct = false;
+		this.selectList = null;
+		this.where = null;
+		this.items = null;
+		this.groupBy = null;
+		this.orderBy = Collections.emptyList();
+		this.limit = null;
+		this.offset = null;
+		this.parameterCount = parameterCount;
+		this.branches = null;
+		this.operators = null;
+		this.unionAll = null;
+		this.modification = modification;
+	}
+
+	/**
+	 * Parses a statement and creates its plan.
+	 *
+	 * @param sql
+	 *            the SQL statement.
+	 * @return the {@link QueryPlan}
+	 * @throws SQLException
+	 *             a {@link SQLSyntaxErrorException} if the statement is incomplete or is no SELECT and contains
+	 *             unknown syntax, a {@link SQLFeatureNotSupportedException} if the query of an INSERT ... SELECT is
+	 *             not supported
+	 */
+	public static QueryPlan create(String sql) throws SQLException {
+		SqlParser parser = new SqlParser(sql);
+		SqlStatement statement;
+		try {
+			statement = parser.parseStatement();
+		} catch (SQLSyntaxErrorException e) {
+			if (!parser.isRecoverable()) {
+				throw e;
+			}
+			// Like queries with unsupported clauses, a query with unknown syntax returns the rows of its table
+			String tableName = parser.recoverTableName();
+			LOGGER.info(MessageFormat.format("{0}, the query is run as SELECT * FROM {1}.", e.getMessage(),
+					tableName == null ? "DummyResultSet" : tableName));
+			return new QueryPlan(tableName == null ? Kind.EMPTY : Kind.TABLE, tableName, parser.getParameterCount());
+		}
+		int parameterCount = parser.getParameterCount();
+		if (statement instanceof Execute) {
+			return new QueryPlan(Kind.TABLE, ((Execute) statement).getProcedureName(), parameterCount);
+		}
+		if (statement instanceof Union) {
+			return createUnion((Union) statement, parameterCount);
+		}
+		if (statement instanceof Insert) {
+			return createInsert((Insert) statement, parameterCount);
+		}
+		if (statement instanceof Update) {
+			Update update = (Update) statement;
+			return new QueryPlan(update.getTable().getName(), Modification.update(update), parameterCount);
+		}
+		if (statement instanceof Delete) {
+			Delete delete = (Delete) statement;
+			return new QueryPlan(delete.getTable().getName(), Modification.delete(delete), parameterCount);
+		}
+		if (!(statement instanceof Select)) {
+			return new QueryPlan(Kind.EMPTY, null, parameterCount);
+		}
+		return createSelect((Select) statement, parameterCount);
+	}
+
+	/**
+	 * The query of an INSERT ... SELECT does not fall back like other queries, the inserted rows would differ from the
+	 * ones of a database.
+	 */
+	private static QueryPlan createInsert(Insert insert, int parameterCount) throws SQLFeatureNotSupportedException {
+		QueryPlan query = null;
+		if (insert.getQuery() != null) {
+			if (!(insert.getQuery() instanceof Select)) {
+				throw new SQLFeatureNotSupportedException(MessageFormat.format(
+						"Only SELECTs of tables are supported in INSERT ... SELECT: {0}", insert.getQuery()));
+			}
+			Select select = (Select) insert.getQuery();
+			if (!RowFilter.isSupported(select.getWhere())) {
+				throw new SQLFeatureNotSupportedException(MessageFormat.format(
+						"Only comparisons, BETWEEN, IN, LIKE and IS NULL of columns and values are supported in the "
+								+ "WHERE clause of INSERT ... SELECT: {0}", select.getWhere()));
+			}
+			query = createSelect(select, parameterCount);
+			if (query.getKind() != Kind.TABLE) {
+				throw new SQLFeatureNotSupportedException(MessageFormat.format(
+						"Only SELECTs of tables are supported in INSERT ... SELECT: {0}", insert.getQuery()));
+			}
+			if (query.selectList == null && query.groupBy == null) {
+				// The select list would be replaced by all columns of the table
+				throw new SQLFeatureNotSupportedException(MessageFormat.format(
+						"Only columns and aggregates are supported in the select list of INSERT ... SELECT: {0}",
+						insert.getQuery()));
+			}
+		}
+		return new QueryPlan(insert.getTableName(), Modification.insert(insert, query), parameterCount);
+	}
+
+	private static QueryPlan createUnion(Union union, int parameterCount) throws SQLFeatureNotSupportedException {
+		List<QueryPlan> branches = new ArrayList<>(union.getSelects().size());
+		Union.Operator[] operators = new Union.Operator[union.getSelects().size() - 1];
+		boolean[] unionAll = new boolean[operators.length];
+		for (int i = 1; i < union.getSelects().size(); i++) {
+			operators[i - 1] = union.getOperator(i);
+			unionAll[i - 1] = union.isAll(i);
+			// The SELECTs are combined from left to right, which is wrong for an INTERSECT following another operator
+			if (operators[i - 1] == Union.Operator.INTERSECT && i > 1
+					&& operators[i - 2] != Union.Operator.INTERSECT) {
+				throw new SQLFeatureNotSupportedException(MessageFormat.format(
+						"INTERSECT following UNION or EXCEPT is not supported: {0}", union));
+			}
+		}
+		for (int i = 0; i < union.getSelects().size(); i++) {
+			// The parameter markers are numbered across all SELECTs
+			QueryPlan branch = createSelect(union.getSelects().get(i), parameterCount);
+			if (branch.getKind() != Kind.TABLE) {
+				LOGGER.info("Only SELECTs of tables are supported in a UNION, using DummyResultSet.");
+				return new QueryPlan(Kind.EMPTY, null, parameterCount);
+			}
+			branches.add(branch);
+		}
+		List<OrderItem> orderBy = union.getOrderBy();
+		if (!Ordering.isSupported(orderBy)) {
+			LOGGER.info("Only columns with null values first in ascending order are supported in ORDER BY, the rows "
+					+ "are returned in file order.");
+			orderBy = Collections.emptyList();
+		}
+		return new QueryPlan(branches, operators, unionAll, orderBy, union.getLimit(), union.getOffset(),
+				parameterCount);
+	}
+
+	private static QueryPlan createSelect(Select select, int parameterCount) {
+		TableReference from = select.getFrom();
+		if (from == null) {
+			return new QueryPlan(Kind.PURE_SELECT, null, parameterCount);
+		}
+		if (from.getName() == null) {
+			LOGGER.info("Subqueries in the FROM clause are not supported, using DummyResultSet.");
+			return new QueryPlan(Kind.EMPTY, null, parameterCount);
+		}
+		if (!HashJoin.isSupported(select.getJoins())) {
+			// Like the driver without joins, all rows of the first table are returned
+			LOGGER.info("Only INNER and LEFT joins of tables on equal columns are supported, the rows of the first "
+					+ "table are returned.");
+			return new QueryPlan(Kind.TABLE, from.getName(), parameterCount);
+		}
+
+		// Select lists with other expressions than columns return all columns
+		List<SelectItem> selectList = Projection.isColumnList(select.getItems()) ? select.getItems() : null;
+		List<OrderItem> orderBy = select.getOrderBy();
+		List<Expression> groupBy = null;
+		if (Aggregation.isAggregate(select.getItems(), select.getGroupBy())) {
+			if (select.getHaving() == null && Aggregation.isSupported(select.getItems(), select.getGroupBy())) {
+				selectList = null;
+				groupBy = select.getGroupBy();
+				orderBy = Aggregation.resolveOrderBy(orderBy, select.getItems());
+			} else {
+				LOGGER.info("Only columns and COUNT, SUM, AVG, MIN and MAX of columns without HAVING are supported "
+						+ "in aggregate queries, the rows are not aggregated.");
+			}
+		}
+		if (!Ordering.isSupported(orderBy)) {
+			LOGGER.info("Only columns with null values first in ascending order are supported in ORDER BY, the rows "
+					+ "are returned in file order.");
+			orderBy = Collections.emptyList();
+		}
+		Expression where = select.getWhere();
+		if (!RowFilter.isSupported(where)) {
+			LOGGER.info("Only comparisons, BETWEEN, IN, LIKE and IS NULL of columns and values are supported in the "
+					+ "WHERE clause, the rows are not filtered.");
+			where = null;
+		}
+		return new QueryPlan(Kind.TABLE, from, select.getJoins(), select.isDistinct(), selectList, where,
+				select.getItems(), groupBy, orderBy, select.getLimit(), select.getOffset(), parameterCount);
+	}
+
+	/**
+	 * @return the {@link Kind} of the plan
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return the name of the queried table as written in the statement or <code>null</code>
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @return the name of the queried table in lower case, as used to register table files, or <code>null</code>
+	 */
+	public String getTableKey() {
+		return tableKey;
+	}
+
+	/**
+	 * @return the plans of the SELECTs of a UNION, each of {@link Kind#TABLE}, or <code>null</code> if the plan is no
+	 *         UNION
+	 */
+	public List<QueryPlan> getUnionBranches() {
+		return branches;
+	}
+
+	/**
+	 * @return the plan of the query of INSERT ... SELECT, of {@link Kind#TABLE}, or <code>null</code> if the plan is
+	 *         no INSERT ... SELECT
+	 */
+	public QueryPlan getInsertQuery() {
+		return modification == null ? null : modification.getQuery();
+	}
+
+	/**
+	 * @return the names of the joined tables as written in the statement, empty if the query has no joins
+	 */
+	public List<String> getJoinedTableNames() {
+		List<String> names = new ArrayList<>(joins.size());
+		for (Join join : joins) {
+			names.add(join.getTable().getName());
+		}
+		return names;
+	}
+
+	/**
+	 * @return the names of the joined tables in lower case, as used to register table files
+	 */
+	public List<String> getJoinedTableKeys() {
+		List<String> keys = new ArrayList<>(joins.size());
+		for (Join join : joins) {
+			keys.add(join.getTable().getName().toLowerCase());
+		}
+		return keys;
+	}
+
+	/**
+	 * @return the number of parameter markers in the statement
+	 */
+	public int getParameterCount() {
+		return parameterCount;
+	}
+
+	/**
+	 * @return <code>true</code> if the plan can be executed on a table which is read while the result is iterated, see
+	 *         {@link #execute(TableStream, int, Parameters, int)}. Queries with joins, DISTINCT, ORDER BY or
+	 *         aggregates need the whole table.
+	 */
+	public boolean isStreamable() {
+		return joins.isEmpty() && !distinct && orderBy.isEmpty() && groupBy == null;
+	}
+
+	/**
+	 * Executes the plan on a loaded table.
+	 *
+	 * @param table
+	 *            the queried {@link Table}.
+	 * @return the selected rows and columns of the table
+	 * @throws SQLException
+	 *             if the select list or the WHERE clause does not match the table
+	 */
+	public ResultSet execute(Table table) throws SQLException {
+		return execute(table, null);
+	}
+
+	/**
+	 * Executes the plan on a loaded table.
+	 *
+	 * @param table
+	 *            the queried {@link Table}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return the selected rows and columns of the table
+	 * @throws SQLException
+	 *             if the select list or the WHERE clause does not match the table or a parameter has no value
+	 */
+	public ResultSet execute(Table table, Parameters parameters) throws SQLException {
+		return execute(table, parameters, 0);
+	}
+
+	/**
+	 * Executes the plan on a loaded table.
+	 *
+	 * @param table
+	 *            the queried {@link Table}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @param maxRows
+	 *            the maximum number of rows of the result, 0 for no limit, see {@link java.sql.Statement#setMaxRows}.
+	 * @return the selected rows and columns of the table
+	 * @throws SQLException
+	 *             if the select list or the WHERE clause does not match the table, a parameter has no value or the
+	 *             LIMIT or OFFSET is invalid
+	 */
+	public ResultSet execute(Table table, Parameters parameters, int maxRows) throws SQLException {
+		return execute(Collections.singletonList(table), parameters, maxRows);
+	}
+
+	/**
+	 * Executes the plan on the loaded tables of the FROM clause.
+	 *
+	 * @param tables
+	 *            the queried {@link Table} followed by the joined tables, in the order of
+	 *            {@link #getJoinedTableNames()}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @param maxRows
+	 *            the maximum number of rows of the result, 0 for no limit, see {@link java.sql.Statement#setMaxRows}.
+	 * @return the selected rows and columns of the joined tables
+	 * @throws SQLException
+	 *             if the join conditions, the select list or the WHERE clause do not match the tables, a parameter has
+	 *             no value or the LIMIT or OFFSET is invalid
+	 */
+	public ResultSet execute(List<Table> tables, Parameters parameters, int maxRows) throws SQLException {
+		return select(tables, parameters, maxRows).newResultSet();
+	}
+
+	/**
+	 * Executes the plan of a SELECT of a UNION, see {@link #executeUnion(List, Parameters, int)}.
+	 *
+	 * @param tables
+	 *            the queried {@link Table} followed by the joined tables, in the order of
+	 *            {@link #getJoinedTableNames()}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return a {@link Table} of the selected rows and columns, sharing the values of the queried tables
+	 * @throws SQLException
+	 *             if the join conditions, the select list or the WHERE clause do not match the tables, a parameter has
+	 *             no value or the LIMIT or OFFSET is invalid
+	 */
+	public Table select(List<Table> tables, Parameters parameters) throws SQLException {
+		return select(tables, parameters, 0);
+	}
+
+	/**
+	 * Combines the results of the SELECTs of a UNION.
+	 *
+	 * @param results
+	 *            the results of the SELECTs, in the order of {@link #getUnionBranches()}, see
+	 *            {@link #select(List, Parameters)}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @param maxRows
+	 *            the maximum number of rows of the result, 0 for no limit, see {@link java.sql.Statement#setMaxRows}.
+	 * @return the combined rows of the SELECTs, the column labels are those of the first SELECT
+	 * @throws SQLException
+	 *             if the SELECTs have different numbers of columns, the ORDER BY clause does not match the result or
+	 *             the LIMIT or OFFSET is invalid
+	 */
+	public ResultSet executeUnion(List<Table> results, Parameters parameters, int maxRows) throws SQLException {
+		int rowOffset = evaluateCount(offset, "OFFSET", parameters, 0);
+		int rowLimit = rowLimit(parameters, maxRows);
+		Table table = concat(results);
+		int[] combined = combine(table, results);
+		if (combined.length < table.getRowCount()) {
+			table = table.gather(combined);
+		}
+
+		int[] rows;
+		if (!orderBy.isEmpty()) {
+			List<SelectItem> resultItems = new ArrayList<>();
+			for (String label : table.getMetaData().getColumnNames()) {
+				resultItems.add(new SelectItem(new ColumnReference(null, label), null));
+			}
+			Ordering ordering = Ordering.compile(orderBy, resultItems, table.getName(), table.getMetaData());
+			rows = ordering.select(table, null, rowOffset, rowLimit);
+		} else {
+			int from = Math.min(rowOffset, table.getRowCount());
+			int to = rowLimit < 0 ? table.getRowCount() : (int) Math.min((long) from + rowLimit, table.getRowCount());
+			rows = from == 0 && to == table.getRowCount() ? null : range(from, to);
+		}
+		return table.newResultSet(rows);
+	}
+
+	/**
+	 * Executes an INSERT, UPDATE or DELETE. The table is not changed, the modified rows are in the returned version.
+	 *
+	 * @param table
+	 *            the current version of the modified {@link Table}.
+	 * @param queryResult
+	 *            the result of the query of INSERT ... SELECT, see {@link #getInsertQuery()} and
+	 *            {@link #select(List, Parameters)}, <code>null</code> for other statements.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return the new version of the table and the number of affected rows
+	 * @throws SQLException
+	 *             if a column does not exist, a parameter has no value or a value does not match the type of its
+	 *             column
+	 */
+	public UpdateResult executeUpdate(Table table, Table queryResult, Parameters parameters) throws SQLException {
+		return modification.apply(table, queryResult, parameters);
+	}
+
+	/**
+	 * Executes an INSERT, UPDATE or DELETE once for each parameter set of a batch. The table is not changed, the
+	 * modified rows of all parameter sets are in the returned version.
+	 *
+	 * @param table
+	 *            the current version of the modified {@link Table}.
+	 * @param queryResults
+	 *            for each parameter set: the result of the query of INSERT ... SELECT, <code>null</code> for other
+	 *            statements.
+	 * @param batch
+	 *            the {@link ParameterBatch}.
+	 * @return the new version of the table and the number of affected rows of each parameter set
+	 * @throws SQLException
+	 *             if a column does not exist or a value does not match the type of its column, in this case no
+	 *             parameter set is applied
+	 */
+	public UpdateResult executeBatch(Table table, List<Table> queryResults, ParameterBatch batch) throws SQLException {
+		return modification.applyBatch(table, queryResults, batch);
+	}
+
+	private Table select(List<Table> tables, Parameters parameters, int maxRows) throws SQLException {
+		Table table = tables.get(0);
+		if (!joins.isEmpty()) {
+			HashJoin join = hashJoin;
+			if (join == null || !join.isCompiledFor(tables)) {
+				join = HashJoin.compile(from, joins, tables, parameterCount > 0);
+				hashJoin = join;
+			}
+			table = join.apply(tables, parameters);
+		}
+		Compiled current = compile(table.getName(), table.getMetaData());
+		RowFilter filter = current.filter;
+		if (where != null && parameterCount > 0) {
+			filter = RowFilter.compile(where, table.getName(), table.getMetaData(), parameters);
+		}
+		int rowOffset = evaluateCount(offset, "OFFSET", parameters, 0);
+		int rowLimit = rowLimit(parameters, maxRows);
+
+		Table source = table;
+		if (current.aggregation != null) {
+			source = current.aggregation.apply(table, filter == null ? null : filter.select(table));
+			filter = null;
+		}
+		if (distinct) {
+			int[] distinctRows = RowKeys.distinct(source, filter == null ? null : filter.select(source),
+					current.projection == null ? null : current.projection.getColumns());
+			source = source.gather(distinctRows);
+			filter = null;
+		}
+		int[] rows;
+		if (current.ordering != null) {
+			rows = current.ordering.select(source, filter, rowOffset, rowLimit);
+		} else {
+			rows = filter == null ? null : filter.select(source);
+			if (rowOffset > 0 || rowLimit >= 0) {
+				int count = rows == null ? source.getRowCount() : rows.length;
+				int from = Math.min(rowOffset, count);
+				int to = rowLimit < 0 ? count : (int) Math.min((long) from + rowLimit, count);
+				rows = rows == null ? range(from, to) : Arrays.copyOfRange(rows, from, to);
+			}
+		}
+		Table result = current.projection == null ? source : current.projection.apply(source);
+		return rows == null ? result : result.gather(rows);
+	}
+
+	/**
+	 * Executes the plan on a table which is read while the result is iterated. Only the selected columns and the
+	 * columns of the WHERE clause are converted while reading. The plan has to be {@link #isStreamable()}.
+	 *
+	 * @param stream
+	 *            the opened {@link TableStream}, it is closed if the plan does not match the table.
+	 * @param fetchSize
+	 *            the number of rows to read at once.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return the selected rows and columns of the table
+	 * @throws SQLException
+	 *             if the select list or the WHERE clause does not match the table or a parameter has no value
+	 */
+	public ResultSet execute(TableStream stream, int fetchSize, Parameters parameters) throws SQLException {
+		return execute(stream, fetchSize, parameters, 0);
+	}
+
+	/**
+	 * Executes the plan on a table which is read while the result is iterated. Only the selected columns and the
+	 * columns of the WHERE clause are converted while reading, reading stops when the LIMIT is reached. The plan has
+	 * to be {@link #isStreamable()}.
+	 *
+	 * @param stream
+	 *            the opened {@link TableStream}, it is closed if the plan does not match the table.
+	 * @param fetchSize
+	 *            the number of rows to read at once.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @param maxRows
+	 *            the maximum number of rows of the result, 0 for no limit, see {@link java.sql.Statement#setMaxRows}.
+	 * @return the selected rows and columns of the table
+	 * @throws SQLException
+	 *             if the select list or the WHERE clause does not match the table, a parameter has no value or the
+	 *             LIMIT or OFFSET is invalid
+	 */
+	public ResultSet execute(TableStream stream, int fetchSize, Parameters parameters, int maxRows)
+			throws SQLException {
+		try {
+			int rowOffset = evaluateCount(offset, "OFFSET", parameters, 0);
+			int rowLimit = rowLimit(parameters, maxRows);
+			String name = stream.getTableName();
+			RowFilter filter = where == null ? null : RowFilter.compile(where, name, stream.getMetaData(),
+					parameters);
+			Projection projection = null;
+			if (selectList != null) {
+				projection = Projection.compile(selectList, name, stream.getMetaData());
+				stream.selectColumns(union(projection.getColumns(), filter == null ? new int[0] : filter.getColumns(),
+						stream.getMetaData().getColumnNames().length));
+
+				// Compile again against the schema of the read columns
+				if (filter != null) {
+					filter = RowFilter.compile(where, name, stream.getMetaData(), parameters);
+				}
+				projection = Projection.compile(selectList, name, stream.getMetaData());
+			}
+			return new StreamingResultSet(stream, fetchSize, filter, projection, rowOffset, rowLimit);
+		} catch (SQLException | RuntimeException e) {
+			try {
+				stream.close();
+			} catch (IOException closeException) {
+				// ignore
+			}
+			throw e;
+		}
+	}
+
+	private Compiled compile(String name, DummyResultSetMetaData metaData) throws SQLException {
+		Compiled current = compiled;
+		if (current == null || current.metaData != metaData) {
+			RowFilter filter = where == null || parameterCount > 0 ? null : RowFilter.compile(where, name, metaData);
+			Projection projection = selectList == null ? null : Projection.compile(selectList, name, metaData);
+			Aggregation aggregation = groupBy == null ? null : Aggregation.compile(items, groupBy, name, metaData);
+			Ordering ordering = null;
+			if (aggregation != null && !orderBy.isEmpty()) {
+				ordering = Ordering.compile(orderBy, aggregation.getResultItems(), name, aggregation.getMetaData());
+			} else if (!orderBy.isEmpty()) {
+				ordering = Ordering.compile(orderBy, items, name, metaData);
+			}
+			current = new Compiled(metaData, filter, projection, aggregation, ordering);
+			compiled = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Combines the results of the SELECTs from left to right. Rows are compared by the keys of all their columns, see
+	 * {@link RowKeys#number(Table, int[], int[], int[])}.
+	 *
+	 * @param table
+	 *            the results of the SELECTs one after another, see {@link #concat(List)}.
+	 * @return the indexes of the rows of the result, a row of the first SELECT comes before the rows of the later ones
+	 */
+	private int[] combine(Table table, List<Table> results) {
+		int[] rows = range(0, results.get(0).getRowCount());
+		int[] keys = null;
+		int keyCount = 0;
+		int start = rows.length;
+		for (int i = 0; i < operators.length; i++) {
+			int end = start + results.get(i + 1).getRowCount();
+			if (operators[i] == Union.Operator.UNION && unionAll[i]) {
+				rows = Arrays.copyOf(rows, rows.length + end - start);
+				System.arraycopy(range(start, end), 0, rows, rows.length - (end - start), end - start);
+				start = end;
+				continue;
+			}
+			if (keys == null) {
+				keys = new int[table.getRowCount()];
+				keyCount = RowKeys.number(table, range(0, keys.length), range(0, table.getColumnCount()), keys);
+			}
+			int[] selected = new int[rows.length + (operators[i] == Union.Operator.UNION ? end - start : 0)];
+			int count = 0;
+			if (operators[i] == Union.Operator.UNION) {
+				boolean[] seen = new boolean[keyCount];
+				for (int row : rows) {
+					if (!seen[keys[row]]) {
+						seen[keys[row]] = true;
+						selected[count++] = row;
+					}
+				}
+				for (int row = start; row < end; row++) {
+					if (!seen[keys[row]]) {
+						seen[keys[row]] = true;
+						selected[count++] = row;
+					}
+				}
+			} else {
+				// How often each key is in the right SELECT, ALL removes or keeps one row of the left per occurrence
+				int[] rightCount = new int[keyCount];
+				for (int row = start; row < end; row++) {
+					rightCount[keys[row]]++;
+				}
+				boolean intersect = operators[i] == Union.Operator.INTERSECT;
+				boolean[] seen = unionAll[i] ? null : new boolean[keyCount];
+				for (int row : rows) {
+					int key = keys[row];
+					if (seen != null) {
+						if (!seen[key] && rightCount[key] > 0 == intersect) {
+							selected[count++] = row;
+						}
+						seen[key] = true;
+					} else if (rightCount[key] > 0) {
+						rightCount[key]--;
+						if (intersect) {
+							selected[count++] = row;
+						}
+					} else if (!intersect) {
+						selected[count++] = row;
+					}
+				}
+			}
+			rows = Arrays.copyOf(selected, count);
+			start = end;
+		}
+		return rows;
+	}
+
+	/**
+	 * @return the results of the SELECTs of a UNION one after another
+	 */
+	private static Table concat(List<Table> results) throws SQLException {
+		DummyResultSetMetaData first = results.get(0).getMetaData();
+		int columnCount = first.getColumnNames().length;
+		int[] sqlTypes = first.getColumnTypes();
+		for (Table result : results) {
+			int[] resultTypes = result.getMetaData().getColumnTypes();
+			if (resultTypes.length != columnCount) {
+				throw new SQLException(MessageFormat.format(
+						"The SELECTs of a UNION must have the same number of columns: {0} and {1}",
+						String.valueOf(columnCount), String.valueOf(resultTypes.length)));
+			}
+			for (int i = 0; i < columnCount; i++) {
+				sqlTypes[i] = unionType(sqlTypes[i], resultTypes[i]);
+			}
+		}
+		Column[] columns = new Column[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			Column[] parts = new Column[results.size()];
+			for (int branch = 0; branch < parts.length; branch++) {
+				parts[branch] = results.get(branch).getColumn(i);
+			}
+			columns[i] = Column.concat(sqlTypes[i], parts);
+		}
+		return new Table(results.get(0).getName(), first.derive(first.getColumnNames(), sqlTypes), columns);
+	}
+
+	/**
+	 * @return the type of a column of a UNION: the type of both columns if it is the same, BIGINT or DOUBLE for
+	 *         numbers, otherwise VARCHAR
+	 */
+	private static int unionType(int sqlType, int otherSqlType) {
+		if (sqlType == otherSqlType) {
+			return sqlType;
+		}
+		boolean integral = sqlType == Types.INTEGER || sqlType == Types.BIGINT;
+		boolean otherIntegral = otherSqlType == Types.INTEGER || otherSqlType == Types.BIGINT;
+		if (integral && otherIntegral) {
+			return Types.BIGINT;
+		}
+		if ((integral || sqlType == Types.DOUBLE) && (otherIntegral || otherSqlType == Types.DOUBLE)) {
+			return Types.DOUBLE;
+		}
+		return Types.VARCHAR;
+	}
+
+	/**
+	 * @return the smaller of the LIMIT and the maximum number of rows of the statement, -1 if there is neither
+	 */
+	private int rowLimit(Parameters parameters, int maxRows) throws SQLException {
+		int rowLimit = evaluateCount(limit, "LIMIT", parameters, -1);
+		if (maxRows > 0 && (rowLimit < 0 || maxRows < rowLimit)) {
+			return maxRows;
+		}
+		return rowLimit;
+	}
+
+	/**
+	 * @return the value of a LIMIT or OFFSET, or the default value if there is none
+	 */
+	private static int evaluateCount(Expression expression, String clause, Parameters parameters, int defaultValue)
+			throws SQLException {
+		if (expression == null) {
+			return defaultValue;
+		}
+		Object value;
+		if (expression instanceof Literal) {
+			value = ((Literal) expression).getValue();
+		} else if (expression instanceof Parameter) {
+			int index = ((Parameter) expression).getIndex();
+			if (parameters == null) {
+				throw new SQLException(MessageFormat.format("No value specified for parameter {0}",
+						String.valueOf(index)));
+			}
+			value = parameters.get(index);
+		} else {
+			throw new SQLException(MessageFormat.format("{0} must be a number or a parameter: {1}", clause,
+					expression));
+		}
+		if (!(value instanceof Long) || (Long) value < 0) {
+			throw new SQLException(MessageFormat.format("{0} must be a non-negative integer: {1}", clause, value));
+		}
+		return (int) Math.min((Long) value, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the rows from <code>from</code> (inclusive) to <code>to</code> (exclusive)
+	 */
+	private static int[] range(int from, int to) {
+		int[] rows = new int[to - from];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = from + i;
+		}
+		return rows;
+	}
+
+	/**
+	 * @return the distinct indexes of both arrays in ascending order
+	 */
+	private static int[] union(int[] first, int[] second, int columnCount) {
+		boolean[] used = new boolean[columnCount];
+		for (int column : first) {
+			used[column] = true;
+		}
+		for (int column : second) {
+			used[column] = true;
+		}
+		int count = 0;
+		int[] result = new int[columnCount];
+		for (int column = 0; column < columnCount; column++) {
+			if (used[column]) {
+				result[count++] = column;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * The filter, unless it depends on parameters, the projection, the aggregation and the ordering compiled against the
+	 * schema of a table.
+	 */
+	private static final class Compiled {
+		private final DummyResultSetMetaData metaData;
+		private final RowFilter filter;
+		private final Projection projection;
+		private final Aggregation aggregation;
+		private final Ordering ordering;
+
+		Compiled(DummyResultSetMetaData metaData, RowFilter filter, Projection projection, Aggregation aggregation,
+				Ordering ordering) {
+			this.metaData = metaData;
+			this.filter = filter;
+			this.projection = projection;
+			this.aggregation = aggregation;
+			this.ordering = ordering;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.sql.Between;
+import com.googlecode.dummyjdbc.sql.ColumnReference;
+import com.googlecode.dummyjdbc.sql.Comparison;
+import com.googlecode.dummyjdbc.sql.Expression;
+import com.googlecode.dummyjdbc.sql.InList;
+import com.googlecode.dummyjdbc.sql.IsNull;
+import com.googlecode.dummyjdbc.sql.Like;
+import com.googlecode.dummyjdbc.sql.Literal;
+import com.googlecode.dummyjdbc.sql.Logical;
+import com.googlecode.dummyjdbc.sql.Not;
+import com.googlecode.dummyjdbc.sql.Parameter;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * The condition of a WHERE clause, compiled against the schema of a table. Column names are resolved and the way
+ * values are compared is decided once, testing a row only reads the typed column values.
+ *
+ * @author Kai Winter
+ */
+public final class RowFilter {
+
+	private final Predicate predicate;
+	private final int[] columns;
+
+	private RowFilter(Predicate predicate, int[] columns) {
+		this.predicate = predicate;
+		this.columns = columns;
+	}
+
+	/**
+	 * @param condition
+	 *            the parsed condition, may be <code>null</code>.
+	 * @return <code>true</code> if the condition can be compiled: comparisons, BETWEEN, IN lists, LIKE and IS NULL of
+	 *         columns, literals and parameters, combined with AND, OR and NOT
+	 */
+	static boolean isSupported(Expression condition) {
+		if (condition == null) {
+			return true;
+		}
+		if (condition instanceof Logical) {
+			Logical logical = (Logical) condition;
+			return isSupported(logical.getLeft()) && isSupported(logical.getRight());
+		}
+		if (condition instanceof Not) {
+			return isSupported(((Not) condition).getOperand());
+		}
+		if (condition instanceof Comparison) {
+			Comparison comparison = (Comparison) condition;
+			return isValue(comparison.getLeft()) && isValue(comparison.getRight());
+		}
+		if (condition instanceof Between) {
+			Between between = (Between) condition;
+			return isValue(between.getOperand()) && isValue(between.getLow()) && isValue(between.getHigh());
+		}
+		if (condition instanceof InList) {
+			InList inList = (InList) condition;
+			for (Expression value : inList.getValues()) {
+				if (!isValue(value)) {
+					return false;
+				}
+			}
+			return isValue(inList.getOperand());
+		}
+		if (condition instanceof Like) {
+			Like like = (Like) condition;
+			return isValue(like.getOperand()) && isValue(like.getPattern());
+		}
+		if (condition instanceof IsNull) {
+			return isValue(((IsNull) condition).getOperand());
+		}
+		return false;
+	}
+
+	private static boolean isValue(Expression expression) {
+		return expression instanceof Literal || expression instanceof Parameter
+				|| expression instanceof ColumnReference;
+	}
+
+	/**
+	 * Compiles a condition.
+	 *
+	 * @param condition
+	 *            the parsed condition.
+	 * @param tableName
+	 *            the name of the table, used in error messages.
+	 * @param metaData
+	 *            the schema of the table.
+	 * @return the {@link RowFilter}
+	 * @throws SQLException
+	 *             if a column does not exist or the expression is no condition
+	 */
+	public static RowFilter compile(Expression condition, String tableName, DummyResultSetMetaData metaData)
+			throws SQLException {
+		return compile(condition, tableName, metaData, null);
+	}
+
+	/**
+	 * Compiles a condition containing parameter markers, the values of the parameters become constants of the filter.
+	 *
+	 * @param condition
+	 *            the parsed condition.
+	 * @param tableName
+	 *            the name of the table, used in error messages.
+	 * @param metaData
+	 *            the schema of the table.
+	 * @param parameters
+	 *            the values of the parameters, may be <code>null</code> if the condition has no parameter markers.
+	 * @return the {@link RowFilter}
+	 * @throws SQLException
+	 *             if a column does not exist, the expression is no condition or a parameter has no value
+	 */
+	public static RowFilter compile(Expression condition, String tableName, DummyResultSetMetaData metaData,
+			Parameters parameters) throws SQLException {
+		Compiler compiler = new Compiler(tableName, metaData, parameters);
+		Predicate predicate = compiler.compilePredicate(condition);
+		return new RowFilter(predicate, compiler.getColumns());
+	}
+
+	/**
+	 * @return the indexes of the columns the condition reads, starting at 0, in ascending order
+	 */
+	public int[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @param table
+	 *            the {@link Table}, with the schema this filter was compiled for.
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return <code>true</code> if the condition is true for the row
+	 * @throws SQLException
+	 *             if a value cannot be converted for a comparison
+	 */
+	public boolean matches(Table table, int row) throws SQLException {
+		return predicate.test(table, row) == Predicate.TRUE;
+	}
+
+	/**
+	 * Selects the matching rows. If the condition compares a column with an index to a constant, only the rows found
+	 * in the index are tested.
+	 *
+	 * @param table
+	 *            the {@link Table}, with the schema this filter was compiled for.
+	 * @return the indexes of all rows for which the condition is true, in ascending order
+	 * @throws SQLException
+	 *             if a value cannot be converted for a comparison
+	 */
+	public int[] select(Table table) throws SQLException {
+		return select(table, lookup(table));
+	}
+
+	/**
+	 * @param table
+	 *            the {@link Table}, with the schema this filter was compiled for.
+	 * @return the rows which can match according to the indexes of the table, in ascending order, or <code>null</code>
+	 *         if no index can be used
+	 * @throws SQLException
+	 *             if a constant cannot be converted to the type of an index
+	 */
+	int[] lookup(Table table) throws SQLException {
+		return predicate.lookup(table);
+	}
+
+	/**
+	 * @param table
+	 *            the {@link Table}, with the schema this filter was compiled for.
+	 * @param candidates
+	 *            the result of {@link #lookup(Table)}, only these rows are tested.
+	 * @return the indexes of all rows for which the condition is true, in ascending order
+	 * @throws SQLException
+	 *             if a value cannot be converted for a comparison
+	 */
+	int[] select(Table table, int[] candidates) throws SQLException {
+		if (candidates != null) {
+			int count = 0;
+			for (int row : candidates) {
+				if (predicate.test(table, row) == Predicate.TRUE) {
+					candidates[count++] = row;
+				}
+			}
+			return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+		}
+
+		int[] rows = new int[Math.min(table.getRowCount(), 64)];
+		int count = 0;
+		for (int row = 0; row < table.getRowCount(); row++) {
+			if (predicate.test(table, row) == Predicate.TRUE) {
+				if (count == rows.length) {
+					rows = Arrays.copyOf(rows, Math.min(count * 2, table.getRowCount()));
+				}
+				rows[count++] = row;
+			}
+		}
+		return count == rows.length ? rows : Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Translates the parsed expressions into {@link Predicate}s and {@link Operand}s.
+	 */
+	private static final class Compiler {
+		private final String tableName;
+		private final DummyResultSetMetaData metaData;
+		private final int[] columnTypes;
+		private final Parameters parameters;
+		private final SortedSet<Integer> columns = new TreeSet<>();
+
+		Compiler(String tableName, DummyResultSetMetaData metaData, Parameters parameters) {
+			this.tableName = tableName;
+			this.metaData = metaData;
+			this.columnTypes = metaData.getColumnTypes();
+			this.parameters = parameters;
+		}
+
+		int[] getColumns() {
+			int[] result = new int[columns.size()];
+			int i = 0;
+			for (Integer column : columns) {
+				result[i++] = column;
+			}
+			return result;
+		}
+
+		Predicate compilePredicate(Expression expression) throws SQLException {
+			if (expression instanceof Logical) {
+				Logical logical = (Logical) expression;
+				return new LogicalPredicate(logical.isAnd(), new Predicate[] { compilePredicate(logical.getLeft()),
+						compilePredicate(logical.getRight()) });
+			}
+			if (expression instanceof Not) {
+				return new NotPredicate(compilePredicate(((Not) expression).getOperand()));
+			}
+			if (expression instanceof Comparison) {
+				Comparison comparison = (Comparison) expression;
+				return new ComparisonPredicate(comparison.getOperator(), compileOperand(comparison.getLeft()),
+						compileOperand(comparison.getRight()));
+			}
+			if (expression instanceof Between) {
+				Between between = (Between) expression;
+				Operand operand = compileOperand(between.getOperand());
+				Predicate range = new LogicalPredicate(true, new Predicate[] {
+						new ComparisonPredicate(Comparison.Operator.GREATER_OR_EQUAL, operand,
+								compileOperand(between.getLow())),
+						new ComparisonPredicate(Comparison.Operator.LESS_OR_EQUAL, operand,
+								compileOperand(between.getHigh())) });
+				return between.isNegated() ? new NotPredicate(range) : range;
+			}
+			if (expression instanceof InList) {
+				InList inList = (InList) expression;
+				Predicate in = compileIn(compileOperand(inList.getOperand()), inList.getValues());
+				return inList.isNegated() ? new NotPredicate(in) : in;
+			}
+			if (expression instanceof Like) {
+				Like like = (Like) expression;
+				return new LikePredicate(compileOperand(like.getOperand()), compileOperand(like.getPattern()),
+						like.getEscape(), like.isNegated());
+			}
+			if (expression instanceof IsNull) {
+				IsNull isNull = (IsNull) expression;
+				return new IsNullPredicate(compileOperand(isNull.getOperand()), isNull.isNegated());
+			}
+			throw new SQLException(MessageFormat.format("Not a condition: {0}", expression));
+		}
+
+		private Predicate compileIn(Operand operand, List<Expression> values) throws SQLException {
+			Operand[] operands = new Operand[values.size()];
+			boolean allText = operand.getKind() == Operand.STRING;
+			for (int i = 0; i < operands.length; i++) {
+				operands[i] = compileOperand(values.get(i));
+				allText &= operands[i].getKind() == Operand.STRING && operands[i].isConstant();
+			}
+
+			if (allText) {
+				Set<String> set = new HashSet<>();
+				for (Operand value : operands) {
+					set.add(value.getString(null, 0));
+				}
+				return new InPredicate(operand, set);
+			}
+
+			Predicate[] comparisons = new Predicate[operands.length];
+			for (int i = 0; i < operands.length; i++) {
+				comparisons[i] = new ComparisonPredicate(Comparison.Operator.EQUAL, operand, operands[i]);
+			}
+			return new LogicalPredicate(false, comparisons);
+		}
+
+		Operand compileOperand(Expression expression) throws SQLException {
+			if (expression instanceof Literal) {
+				return new ConstantOperand(((Literal) expression).getValue());
+			}
+			if (expression instanceof Parameter) {
+				int index = ((Parameter) expression).getIndex();
+				if (parameters == null) {
+					throw new SQLException(MessageFormat.format("No value specified for parameter {0}",
+							String.valueOf(index)));
+				}
+				return new ConstantOperand(parameters.get(index));
+			}
+			if (expression instanceof ColumnReference) {
+				ColumnReference reference = (ColumnReference) expression;
+				String name = reference.getName();
+				int columnIndex = metaData.indexOf(reference.getQualifier(), name);
+				if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+					String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+							name, tableName);
+					throw new SQLException(message);
+				}
+				columns.add(columnIndex - 1);
+				return new ColumnOperand(columnIndex - 1, columnTypes[columnIndex - 1]);
+			}
+			throw new SQLException(MessageFormat.format("Not a value: {0}", expression));
+		}
+	}
+}
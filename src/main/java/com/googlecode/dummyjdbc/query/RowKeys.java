@@ -0,0 +1,102 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.util.Arrays;
+
+import com.googlecode.dummyjdbc.table.LongDictionary;
+import com.googlecode.dummyjdbc.table.SortKeys;
+import com.googlecode.dummyjdbc.table.StringDictionary;
+import com.googlecode.dummyjdbc.table.Table;
+
+/**
+ * Numbers the rows of a table by the values of some of their columns, for GROUP BY, DISTINCT and UNION. Values are
+ * compared like the query engine compares them, see {@link SortKeys}: typed columns by their primitive keys, other
+ * columns as text, null values are equal to each other. The key of a row is never built as a {@link String}, each
+ * column is dictionary encoded and the codes are combined in a {@link LongDictionary}.
+ *
+ * @author Kai Winter
+ */
+final class RowKeys {
+
+	private RowKeys() {
+		// Utility class
+	}
+
+	/**
+	 * Assigns each row the dense index of its key, in the order of the first row of each key. The key is built column
+	 * by column: the index of the key of the previous columns is combined with the code of the value of the next
+	 * column.
+	 *
+	 * @param table
+	 *            the {@link Table}.
+	 * @param rows
+	 *            the indexes of the numbered rows.
+	 * @param columns
+	 *            the indexes of the key columns, at least one.
+	 * @param keys
+	 *            receives the index of the key of each row, all 0 on input.
+	 * @return the number of distinct keys
+	 */
+	static int number(Table table, int[] rows, int[] columns, int[] keys) {
+		LongDictionary keyIds = null;
+		for (int column : columns) {
+			SortKeys sortKeys = SortKeys.of(table.getColumn(column));
+			LongDictionary longCodes = sortKeys.isLongKeyed() ? new LongDictionary() : null;
+			StringDictionary textCodes = sortKeys.isLongKeyed() ? null : new StringDictionary();
+			keyIds = new LongDictionary();
+			for (int i = 0; i < rows.length; i++) {
+				int row = rows[i];
+				long code;
+				if (sortKeys.isNull(row)) {
+					code = 0;
+				} else if (longCodes != null) {
+					code = longCodes.add(sortKeys.getLong(row)) + 1;
+				} else {
+					code = textCodes.add(sortKeys.getString(row)) + 1;
+				}
+				keys[i] = keyIds.add(((long) keys[i] << 32) | code);
+			}
+		}
+		return keyIds.size();
+	}
+
+	/**
+	 * Removes rows with the same values as a previous row.
+	 *
+	 * @param table
+	 *            the {@link Table}.
+	 * @param rows
+	 *            the indexes of the rows, <code>null</code> for all rows.
+	 * @param columns
+	 *            the indexes of the compared columns, <code>null</code> for all columns.
+	 * @return the indexes of the first row of each distinct key, in the order of <code>rows</code>
+	 */
+	static int[] distinct(Table table, int[] rows, int[] columns) {
+		if (rows == null) {
+			rows = new int[table.getRowCount()];
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = row;
+			}
+		}
+		if (columns == null) {
+			columns = new int[table.getColumnCount()];
+			for (int column = 0; column < columns.length; column++) {
+				columns[column] = column;
+			}
+		}
+		if (columns.length == 0 || rows.length == 0) {
+			return rows;
+		}
+		int[] keys = new int[rows.length];
+		number(table, rows, columns, keys);
+
+		// The keys are numbered in the order of their first row, so a row with a new key has the next index
+		int count = 0;
+		int[] distinctRows = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			if (keys[i] == count) {
+				distinctRows[count++] = rows[i];
+			}
+		}
+		return count == rows.length ? rows : Arrays.copyOf(distinctRows, count);
+	}
+}
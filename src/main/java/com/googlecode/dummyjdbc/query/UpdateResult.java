@@ -0,0 +1,65 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.table.TableChange;
+
+/**
+ * The result of an INSERT, UPDATE or DELETE: the new version of the modified table and the number of affected rows,
+ * for a batch the number of affected rows of each parameter set. The {@link TableChange}s describe how the new version
+ * was created.
+ *
+ * @author Kai Winter
+ */
+public final class UpdateResult {
+
+	private final Table table;
+	private final int[] updateCounts;
+	private final List<TableChange> changes;
+
+	UpdateResult(Table table, int updateCount, TableChange change) {
+		this(table, new int[] { updateCount }, change == null ? Collections.<TableChange> emptyList()
+				: Collections.singletonList(change));
+	}
+
+	UpdateResult(Table table, int[] updateCounts, List<TableChange> changes) {
+		this.table = table;
+		this.updateCounts = updateCounts;
+		this.changes = changes;
+	}
+
+	/**
+	 * @return the new version of the table, the same instance if no row was affected
+	 */
+	public Table getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the number of inserted, updated or deleted rows, of all parameter sets of a batch
+	 */
+	public int getUpdateCount() {
+		int updateCount = 0;
+		for (int count : updateCounts) {
+			updateCount += count;
+		}
+		return updateCount;
+	}
+
+	/**
+	 * @return the changes which create the new version of the table from the previous one, empty if no row was
+	 *         affected
+	 */
+	public List<TableChange> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * @return for each parameter set of a batch: the number of inserted, updated or deleted rows
+	 */
+	public int[] getUpdateCounts() {
+		return updateCounts.clone();
+	}
+}
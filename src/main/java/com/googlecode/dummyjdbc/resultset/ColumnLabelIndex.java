@@ -0,0 +1,98 @@
+package com.googlecode.dummyjdbc.resultset;
+
+import java.util.Arrays;
+
+/**
+ * Maps column labels case-insensitively to column indexes. The index is built once for a set of column names, a lookup
+ * neither allocates nor changes the case of the label. Frameworks usually pass the same (interned) label instances for
+ * every row, so the most recently resolved label instances are additionally remembered by identity.
+ *
+ * <p>
+ * Instances are safe for use by multiple threads.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class ColumnLabelIndex {
+
+	/** Returned by {@link #indexOf(String)} if there is no column with the label. */
+	public static final int NOT_FOUND = -1;
+
+	private static final int IDENTITY_CACHE_SIZE = 16;
+
+	private final String[] columnNames;
+	private final int[] slots;
+	private final IdentityEntry[] identityCache = new IdentityEntry[IDENTITY_CACHE_SIZE];
+
+	/**
+	 * Constructs a new {@link ColumnLabelIndex}.
+	 *
+	 * @param columnNames
+	 *            the column names, the first one gets index 1. If a name occurs more than once, the first occurrence
+	 *            wins.
+	 */
+	public ColumnLabelIndex(String[] columnNames) {
+		this.columnNames = columnNames;
+		int capacity = Integer.highestOneBit(Math.max(columnNames.length, 1) * 4 - 1) << 1;
+		slots = new int[capacity];
+		Arrays.fill(slots, NOT_FOUND);
+		for (int i = 0; i < columnNames.length; i++) {
+			int slot = findSlot(columnNames[i]);
+			if (slots[slot] == NOT_FOUND) {
+				slots[slot] = i;
+			}
+		}
+	}
+
+	/**
+	 * @param columnLabel
+	 *            the column label, case-insensitive.
+	 * @return the 1-based index of the column or {@link #NOT_FOUND}
+	 */
+	public int indexOf(String columnLabel) {
+		if (columnLabel == null) {
+			return NOT_FOUND;
+		}
+
+		int cacheSlot = System.identityHashCode(columnLabel) & (IDENTITY_CACHE_SIZE - 1);
+		IdentityEntry cached = identityCache[cacheSlot];
+		if (cached != null && cached.label == columnLabel) {
+			return cached.index;
+		}
+
+		int index = slots[findSlot(columnLabel)];
+		if (index != NOT_FOUND) {
+			index++;
+			identityCache[cacheSlot] = new IdentityEntry(columnLabel, index);
+		}
+		return index;
+	}
+
+	private int findSlot(String label) {
+		int mask = slots.length - 1;
+		int slot = hashIgnoreCase(label) & mask;
+		while (slots[slot] != NOT_FOUND && !columnNames[slots[slot]].equalsIgnoreCase(label)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static int hashIgnoreCase(String label) {
+		int hash = 0;
+		for (int i = 0; i < label.length(); i++) {
+			hash = 31 * hash + Character.toUpperCase(label.charAt(i));
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	/** Immutable, so it can be published to other threads by a plain array store. */
+	private static final class IdentityEntry {
+		private final String label;
+		private final int index;
+
+		IdentityEntry(String label, int index) {
+			this.label = label;
+			this.index = index;
+		}
+	}
+}
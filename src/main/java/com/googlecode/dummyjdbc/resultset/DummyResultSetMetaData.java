@@ -3,9 +3,12 @@ package com.googlecode.dummyjdbc.resultset;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Implementation of {@link ResultSetMetaData} which returns default values.
@@ -17,6 +20,7 @@ public class DummyResultSetMetaData implements ResultSetMetaData {
     private enum DataType {
         VARCHAR(Types.VARCHAR, String.class),
         INTEGER(Types.INTEGER, Integer.class),
+        BIGINT(Types.BIGINT, Long.class),
         DOUBLE(Types.DOUBLE, Double.class),
         DATE(Types.DATE, Date.class),
         TIME(Types.TIME, Date.class),
@@ -33,15 +37,43 @@ public class DummyResultSetMetaData implements ResultSetMetaData {
         public static DataType fromString(String spec) {
             return valueOf(spec.toUpperCase());
         }
+
+        public static DataType fromSqlType(int sqlType) {
+            for (DataType dataType : values()) {
+                if (dataType.sqlType == sqlType) {
+                    return dataType;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported SQL type: " + sqlType);
+        }
     }
 
     private static final int DEFAULT_COLUMN_PRECISION = 60;
     private static final int DEFAULT_COLUMN_SCALE = 0;
     private final String tableName;
     private final String[] columnNames;
-    private final LinkedHashMap<String, DataType> columnTypes = new LinkedHashMap<>();
-
+    private final DataType[] dataTypes;
+    private final boolean[] hashIndexes;
+    private final boolean[] sortedIndexes;
+    /** The table name or alias each column can be qualified with, <code>null</code> if the qualifier is ignored. */
+    private final String[] qualifiers;
+    private final ColumnLabelIndex columnLabelIndex;
+
+    /**
+     * Parses the column specs of a CSV header. A spec is the column name, optionally followed by the type and
+     * indexes: <code>NAME</code>, <code>AMOUNT|DOUBLE</code>, <code>ID|INTEGER|PK</code> or
+     * <code>CREATED|TIMESTAMP|INDEX|SORTED</code>. <code>PK</code> and <code>INDEX</code> build a hash index of the
+     * column when the table is loaded, uniqueness is not checked. <code>SORTED</code> builds a sorted index.
+     *
+     * @param tableName
+     *            the name of the table.
+     * @param columnSpecs
+     *            the column specs of the header.
+     */
     public DummyResultSetMetaData(String tableName, String[] columnSpecs) {
+        LinkedHashMap<String, DataType> columnTypes = new LinkedHashMap<>();
+        Set<String> hashIndexedColumns = new HashSet<>();
+        Set<String> sortedColumns = new HashSet<>();
         for (String columnSpec : columnSpecs) {
             String[] specElems = Objects.requireNonNull(columnSpec.trim().toUpperCase(), "Header must be specified").split("\\s*\\|\\s*");
             DataType dt;
@@ -53,17 +85,151 @@ public class DummyResultSetMetaData implements ResultSetMetaData {
                     dt = DataType.fromString(specElems[1]);
                     break;
                 default:
-                    throw new IllegalArgumentException("Unknown column spec: " + columnSpec);
+                    dt = DataType.fromString(specElems[1]);
+                    for (int i = 2; i < specElems.length; i++) {
+                        if ("PK".equals(specElems[i]) || "INDEX".equals(specElems[i])) {
+                            hashIndexedColumns.add(specElems[0]);
+                        } else if ("SORTED".equals(specElems[i])) {
+                            sortedColumns.add(specElems[0]);
+                        } else {
+                            throw new IllegalArgumentException("Unknown column spec: " + columnSpec);
+                        }
+                    }
             }
             columnTypes.put(specElems[0], dt);
         }
         columnNames = columnTypes.keySet().toArray(new String[0]);
+        dataTypes = columnTypes.values().toArray(new DataType[0]);
+        hashIndexes = new boolean[columnNames.length];
+        sortedIndexes = new boolean[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            hashIndexes[i] = hashIndexedColumns.contains(columnNames[i]);
+            sortedIndexes[i] = sortedColumns.contains(columnNames[i]);
+        }
+        columnLabelIndex = new ColumnLabelIndex(columnNames);
+        qualifiers = null;
+        this.tableName = tableName;
+    }
+
+    private DummyResultSetMetaData(String tableName, String[] columnNames, DataType[] dataTypes,
+            String[] qualifiers) {
         this.tableName = tableName;
+        this.columnNames = columnNames;
+        this.dataTypes = dataTypes;
+        this.hashIndexes = new boolean[columnNames.length];
+        this.sortedIndexes = new boolean[columnNames.length];
+        this.qualifiers = qualifiers;
+        this.columnLabelIndex = new ColumnLabelIndex(columnNames);
+    }
+
+    /**
+     * Creates the metadata of a subset of the columns, e.g. for the select list of a query. The same column may be
+     * selected more than once.
+     *
+     * @param columns
+     *            the indexes of the selected columns, starting at 0.
+     * @param labels
+     *            the labels of the selected columns, <code>null</code> entries keep the column name.
+     * @return the {@link DummyResultSetMetaData} of the selected columns, without indexes
+     */
+    public DummyResultSetMetaData project(int[] columns, String[] labels) {
+        String[] names = new String[columns.length];
+        DataType[] types = new DataType[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = labels[i] == null ? columnNames[columns[i]] : labels[i].toUpperCase();
+            types[i] = dataTypes[columns[i]];
+        }
+        return new DummyResultSetMetaData(tableName, names, types, null);
+    }
+
+    /**
+     * Creates the metadata of computed columns, e.g. of the result of an aggregate query.
+     *
+     * @param labels
+     *            the labels of the columns.
+     * @param sqlTypes
+     *            the {@link Types} of the columns, one of the types which can be declared in a CSV header.
+     * @return the {@link DummyResultSetMetaData} of the columns, without indexes
+     */
+    public DummyResultSetMetaData derive(String[] labels, int[] sqlTypes) {
+        String[] names = new String[labels.length];
+        DataType[] types = new DataType[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            names[i] = labels[i].toUpperCase();
+            types[i] = DataType.fromSqlType(sqlTypes[i]);
+        }
+        return new DummyResultSetMetaData(tableName, names, types, null);
+    }
+
+    /**
+     * Creates the metadata of this table as part of a join, whose columns are qualified with the name or alias of
+     * their table, see {@link #indexOf(String, String)}.
+     *
+     * @param qualifier
+     *            the name or alias of the table.
+     * @return the {@link DummyResultSetMetaData} of the qualified columns, without indexes
+     */
+    public DummyResultSetMetaData qualify(String qualifier) {
+        String[] columnQualifiers = new String[columnNames.length];
+        Arrays.fill(columnQualifiers, qualifier);
+        return new DummyResultSetMetaData(tableName, columnNames, dataTypes, columnQualifiers);
+    }
+
+    /**
+     * Creates the metadata of a join: the columns of this table followed by the columns of the other table. Both
+     * tables have to be {@link #qualify(String) qualified}.
+     *
+     * @param other
+     *            the metadata of the joined table.
+     * @return the {@link DummyResultSetMetaData} of the joined columns, without indexes
+     */
+    public DummyResultSetMetaData join(DummyResultSetMetaData other) {
+        int count = columnNames.length + other.columnNames.length;
+        String[] names = Arrays.copyOf(columnNames, count);
+        DataType[] types = Arrays.copyOf(dataTypes, count);
+        String[] columnQualifiers = Arrays.copyOf(qualifiers, count);
+        System.arraycopy(other.columnNames, 0, names, columnNames.length, other.columnNames.length);
+        System.arraycopy(other.dataTypes, 0, types, columnNames.length, other.columnNames.length);
+        System.arraycopy(other.qualifiers, 0, columnQualifiers, columnNames.length, other.columnNames.length);
+        return new DummyResultSetMetaData(tableName, names, types, columnQualifiers);
+    }
+
+    /**
+     * Looks up a column reference of a query. Unless the columns are {@link #qualify(String) qualified}, the qualifier
+     * is ignored. If an unqualified name occurs more than once, the first column wins.
+     *
+     * @param qualifier
+     *            the table name or alias the column is qualified with, may be <code>null</code>.
+     * @param name
+     *            the column name, case-insensitive.
+     * @return the 1-based index of the column or {@link ColumnLabelIndex#NOT_FOUND}
+     */
+    public int indexOf(String qualifier, String name) {
+        if (qualifier == null || qualifiers == null) {
+            return columnLabelIndex.indexOf(name);
+        }
+        for (int i = 0; i < columnNames.length; i++) {
+            if (qualifiers[i].equalsIgnoreCase(qualifier) && columnNames[i].equalsIgnoreCase(name)) {
+                return i + 1;
+            }
+        }
+        return ColumnLabelIndex.NOT_FOUND;
+    }
+
+    /**
+     * @param columnIndex
+     *            the column index, starting at 0.
+     * @param qualifier
+     *            the table name or alias of a qualified <code>*</code>, may be <code>null</code>.
+     * @return <code>true</code> if the column belongs to the qualified table or the qualifier is ignored
+     */
+    public boolean isQualifiedBy(int columnIndex, String qualifier) {
+        return qualifier == null || qualifiers == null || qualifiers[columnIndex].equalsIgnoreCase(qualifier);
     }
 
     @Override
     public int getColumnCount() throws SQLException {
-        return columnTypes.size();
+        return columnNames.length;
     }
 
     @Override
@@ -149,12 +315,12 @@ public class DummyResultSetMetaData implements ResultSetMetaData {
 
     @Override
     public int getColumnType(int column) throws SQLException {
-        return columnTypes.get(columnNames[column - 1]).sqlType;
+        return dataTypes[column - 1].sqlType;
     }
 
     @Override
     public String getColumnTypeName(int column) throws SQLException {
-        return columnTypes.get(columnNames[column - 1]).name();
+        return dataTypes[column - 1].name();
     }
 
     @Override
@@ -175,7 +341,7 @@ public class DummyResultSetMetaData implements ResultSetMetaData {
 
     @Override
     public String getColumnClassName(int column) throws SQLException {
-        return columnTypes.get(columnNames[column - 1]).clazz.getName();
+        return dataTypes[column - 1].clazz.getName();
     }
 
     @Override
@@ -193,4 +359,40 @@ public class DummyResultSetMetaData implements ResultSetMetaData {
     public String[] getColumnNames() {
         return columnNames;
     }
+
+    /**
+     * @return the {@link ColumnLabelIndex} of the column names
+     */
+    public ColumnLabelIndex getColumnLabelIndex() {
+        return columnLabelIndex;
+    }
+
+    /**
+     * @return the {@link Types} of all columns, in the order of {@link #getColumnNames()}
+     */
+    public int[] getColumnTypes() {
+        int[] sqlTypes = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            sqlTypes[i] = dataTypes[i].sqlType;
+        }
+        return sqlTypes;
+    }
+
+    /**
+     * @param columnIndex
+     *            the column index, starting at 0.
+     * @return <code>true</code> if the column spec declares a hash index
+     */
+    public boolean hasHashIndex(int columnIndex) {
+        return hashIndexes[columnIndex];
+    }
+
+    /**
+     * @param columnIndex
+     *            the column index, starting at 0.
+     * @return <code>true</code> if the column spec declares a sorted index
+     */
+    public boolean hasSortedIndex(int columnIndex) {
+        return sortedIndexes[columnIndex];
+    }
 }
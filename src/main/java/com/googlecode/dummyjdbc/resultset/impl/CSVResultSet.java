@@ -8,10 +8,12 @@ import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
 import com.googlecode.dummyjdbc.resultset.DummyResultSet;
 import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
 
@@ -37,14 +39,17 @@ public class CSVResultSet extends DummyResultSet {
 	/** Table schema */
     private DummyResultSetMetaData metaData;
 
-	/** Column name 2 column value. */
-	private Collection<LinkedHashMap<String, String>> dummyData;
+	/** The column names, shared by all rows. */
+	private final String[] columnNames;
 
-	/** Iterator of dummyData. */
-	private Iterator<LinkedHashMap<String, String>> resultIterator;
+	/** Resolves column labels to indexes, built once for {@link #columnNames}. */
+	private final ColumnLabelIndex columnLabelIndex;
+
+	/** Iterator of the rows, each row holds the values in the order of {@link #columnNames}. */
+	private Iterator<String[]> resultIterator;
 
 	/** The current value of the iterator. */
-	private LinkedHashMap<String, String> currentEntry;
+	private String[] currentEntry;
 
 	private final String tableName;
 
@@ -56,15 +61,36 @@ public class CSVResultSet extends DummyResultSet {
 	 *
      * @param metaData
      *            the table schema.
+	 *
+	 * @param columnNames
+	 *            the column names, shared by all rows.
+	 *
+	 * @param rows
+	 *            Collection of rows from the CSV file. Each row holds the values in the order of <code>columnNames</code>.
+	 */
+	public CSVResultSet(String tableName, DummyResultSetMetaData metaData, String[] columnNames,
+			Collection<String[]> rows) {
+		this.tableName = tableName;
+		this.metaData = metaData;
+		this.columnNames = columnNames;
+		this.columnLabelIndex = new ColumnLabelIndex(columnNames);
+		this.resultIterator = rows.iterator();
+	}
+
+	/**
+	 * Constructs a new {@link CSVResultSet}.
+	 *
+	 * @param tableName
+	 *            the name of the table this {@link CSVResultSet} stands for.
+	 *
+	 * @param metaData
+	 *            the table schema.
 	 *
 	 * @param entries
 	 *            Collection of entries from the CSV file. Each {@link LinkedHashMap} maps column name to column value.
 	 */
 	public CSVResultSet(String tableName, DummyResultSetMetaData metaData, Collection<LinkedHashMap<String, String>> entries) {
-		this.tableName = tableName;
-		this.metaData = metaData;
-		this.dummyData = entries;
-		this.resultIterator = dummyData.iterator();
+		this(tableName, metaData, getColumnNames(entries), toRows(entries));
 	}
 
 	@Override
@@ -82,6 +108,17 @@ public class CSVResultSet extends DummyResultSet {
 		return this.metaData;
 	}
 
+	@Override
+	public int findColumn(String columnLabel) throws SQLException {
+		int columnIndex = columnLabelIndex.indexOf(columnLabel);
+		if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+			String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+					columnLabel, tableName);
+			throw new SQLException(message);
+		}
+		return columnIndex;
+	}
+
 	@Override
 	public String getString(int columnIndex) throws SQLException {
 		String value = getValueForColumnIndex(columnIndex, String.class);
@@ -173,28 +210,40 @@ public class CSVResultSet extends DummyResultSet {
 	}
 
 	private String getValueForColumnIndex(int columnIndex, Class<?> clazz) throws SQLException {
-		String[] columns = currentEntry.keySet().toArray(new String[0]);
-
-		if (columnIndex > columns.length) {
+		if (columnIndex < 1 || columnIndex > columnNames.length) {
 			String message = MessageFormat.format(
 					"Column index {0} does not exist in table file ''{1}'' (type ''{2}'')", columnIndex, tableName,
 					clazz);
 			throw new SQLException(message);
 		}
 
-		String key = columns[columnIndex - 1];
-		String value = currentEntry.get(key);
-		return value;
+		return currentEntry[columnIndex - 1];
 	}
 
 	private String getValueForColumnLabel(String columnLabel, Class<?> clazz) throws SQLException {
-		if (!currentEntry.containsKey(columnLabel.toUpperCase())) {
+		int columnIndex = columnLabelIndex.indexOf(columnLabel);
+		if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
 			String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}'' (type ''{2}'')",
 					columnLabel, tableName, clazz);
 			throw new SQLException(message);
 		}
 
-		return currentEntry.get(columnLabel.toUpperCase());
+		return currentEntry[columnIndex - 1];
+	}
+
+	private static String[] getColumnNames(Collection<LinkedHashMap<String, String>> entries) {
+		if (entries.isEmpty()) {
+			return new String[0];
+		}
+		return entries.iterator().next().keySet().toArray(new String[0]);
+	}
+
+	private static Collection<String[]> toRows(Collection<LinkedHashMap<String, String>> entries) {
+		Collection<String[]> rows = new ArrayList<String[]>(entries.size());
+		for (LinkedHashMap<String, String> entry : entries) {
+			rows.add(entry.values().toArray(new String[entry.size()]));
+		}
+		return rows;
 	}
 
 }
@@ -0,0 +1,327 @@
+package com.googlecode.dummyjdbc.resultset.impl;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.text.ParseException;
+
+import com.googlecode.dummyjdbc.resultset.ColumnLabelIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSet;
+import com.googlecode.dummyjdbc.table.Column;
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * A {@link DummyResultSet} which iterates over the columns of a {@link Table}, e.g. a table read from a CSV file or the
+ * result of a join or an aggregation. The values are read directly from the primitive arrays of the columns, nothing
+ * is copied per row. If only some rows are selected, e.g. by a WHERE clause, the result set iterates over their
+ * indexes. {@link #getString(int)} returns the values as they are written in the CSV file, see
+ * {@link Column#getText(int)}. Empty values are returned as 0 by the numeric getters.
+ *
+ * @author Kai Winter
+ */
+public class ColumnarResultSet extends DummyResultSet {
+
+	/** The table or, if the rows are fetched in chunks, the current chunk. */
+	private Table table;
+	private final int columnCount;
+	private final ColumnLabelIndex columnLabelIndex;
+
+	/** The indexes of the selected rows of the table, <code>null</code> if all rows are selected. */
+	private int[] rows;
+
+	/** Position in the selected rows, -1 before the first row. */
+	private int position = -1;
+
+	/** Index of the current row in the table. */
+	private int currentRow = -1;
+
+	private boolean wasNull;
+
+	/**
+	 * Constructs a new {@link ColumnarResultSet}.
+	 *
+	 * @param table
+	 *            the {@link Table} to iterate.
+	 */
+	public ColumnarResultSet(Table table) {
+		this(table, null);
+	}
+
+	/**
+	 * Constructs a new {@link ColumnarResultSet} which iterates over some rows of a table.
+	 *
+	 * @param table
+	 *            the {@link Table} to iterate.
+	 * @param rows
+	 *            the indexes of the rows to iterate, <code>null</code> for all rows.
+	 */
+	public ColumnarResultSet(Table table, int[] rows) {
+		this.table = table;
+		this.rows = rows;
+		this.columnCount = table.getColumnCount();
+		this.columnLabelIndex = table.getMetaData().getColumnLabelIndex();
+	}
+
+	@Override
+	public boolean next() throws SQLException {
+		while (true) {
+			int size = rows == null ? table.getRowCount() : rows.length;
+			if (position + 1 < size) {
+				position++;
+				currentRow = rows == null ? position : rows[position];
+				return true;
+			}
+			Table nextChunk = fetchNextChunk();
+			if (nextChunk == null) {
+				position = size;
+				currentRow = table.getRowCount();
+				return false;
+			}
+			table = nextChunk;
+			rows = selectRows(nextChunk);
+			position = -1;
+		}
+	}
+
+	/**
+	 * Called for every chunk returned by {@link #fetchNextChunk()}.
+	 *
+	 * @param chunk
+	 *            the chunk of rows.
+	 * @return the indexes of the rows of the chunk to iterate, <code>null</code> for all rows
+	 * @throws SQLException
+	 *             if the rows cannot be selected
+	 */
+	protected int[] selectRows(Table chunk) throws SQLException {
+		return null;
+	}
+
+	/**
+	 * Called by {@link #next()} when the last row of the current table has been passed. Sub classes which read the rows
+	 * in chunks return the next chunk here.
+	 *
+	 * @return the next chunk of rows, with the same schema and at least one row, or <code>null</code> if there are no
+	 *         more rows
+	 * @throws SQLException
+	 *             if the next chunk cannot be read
+	 */
+	protected Table fetchNextChunk() throws SQLException {
+		return null;
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return table.getMetaData();
+	}
+
+	@Override
+	public int findColumn(String columnLabel) throws SQLException {
+		int columnIndex = columnLabelIndex.indexOf(columnLabel);
+		if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+			String message = MessageFormat.format("Column ''{0}'' does not exist in table file ''{1}''",
+					columnLabel, table.getName());
+			throw new SQLException(message);
+		}
+		return columnIndex;
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException {
+		return wasNull;
+	}
+
+	@Override
+	public String getString(int columnIndex) throws SQLException {
+		return getColumnForIndex(columnIndex, String.class).getText(currentRow);
+	}
+
+	@Override
+	public String getString(String columnLabel) throws SQLException {
+		return getColumnForLabel(columnLabel, String.class).getText(currentRow);
+	}
+
+	@Override
+	public boolean getBoolean(int columnIndex) throws SQLException {
+		return Boolean.valueOf(getColumnForIndex(columnIndex, Boolean.class).getString(currentRow));
+	}
+
+	@Override
+	public boolean getBoolean(String columnLabel) throws SQLException {
+		return Boolean.valueOf(getColumnForLabel(columnLabel, Boolean.class).getString(currentRow));
+	}
+
+	@Override
+	public int getInt(int columnIndex) throws SQLException {
+		Column column = getNumericColumn(getColumnForIndex(columnIndex, Integer.class));
+		try {
+			return wasNull ? 0 : column.getInt(currentRow);
+		} catch (NumberFormatException e) {
+			throw notANumber(column, e);
+		}
+	}
+
+	@Override
+	public int getInt(String columnLabel) throws SQLException {
+		Column column = getNumericColumn(getColumnForLabel(columnLabel, Integer.class));
+		try {
+			return wasNull ? 0 : column.getInt(currentRow);
+		} catch (NumberFormatException e) {
+			throw notANumber(column, e);
+		}
+	}
+
+	@Override
+	public long getLong(int columnIndex) throws SQLException {
+		Column column = getNumericColumn(getColumnForIndex(columnIndex, Long.class));
+		try {
+			return wasNull ? 0 : column.getLong(currentRow);
+		} catch (NumberFormatException e) {
+			throw notANumber(column, e);
+		}
+	}
+
+	@Override
+	public long getLong(String columnLabel) throws SQLException {
+		Column column = getNumericColumn(getColumnForLabel(columnLabel, Long.class));
+		try {
+			return wasNull ? 0 : column.getLong(currentRow);
+		} catch (NumberFormatException e) {
+			throw notANumber(column, e);
+		}
+	}
+
+	@Override
+	public double getDouble(int columnIndex) throws SQLException {
+		Column column = getNumericColumn(getColumnForIndex(columnIndex, Double.class));
+		try {
+			return wasNull ? 0 : column.getDouble(currentRow);
+		} catch (NumberFormatException e) {
+			throw notANumber(column, e);
+		}
+	}
+
+	@Override
+	public double getDouble(String columnLabel) throws SQLException {
+		Column column = getNumericColumn(getColumnForLabel(columnLabel, Double.class));
+		try {
+			return wasNull ? 0 : column.getDouble(currentRow);
+		} catch (NumberFormatException e) {
+			throw notANumber(column, e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+		return getColumnForIndex(columnIndex, BigDecimal.class).getBigDecimal(currentRow);
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+		return getColumnForLabel(columnLabel, BigDecimal.class).getBigDecimal(currentRow);
+	}
+
+	@Override
+	public Date getDate(int columnIndex) throws SQLException {
+		Column column = getColumnForIndex(columnIndex, Date.class);
+		return wasNull ? null : new Date(getMillis(column, Types.DATE));
+	}
+
+	@Override
+	public Date getDate(String columnLabel) throws SQLException {
+		Column column = getColumnForLabel(columnLabel, Date.class);
+		return wasNull ? null : new Date(getMillis(column, Types.DATE));
+	}
+
+	@Override
+	public Time getTime(int columnIndex) throws SQLException {
+		Column column = getColumnForIndex(columnIndex, Time.class);
+		return wasNull ? null : new Time(getMillis(column, Types.TIME));
+	}
+
+	@Override
+	public Time getTime(String columnLabel) throws SQLException {
+		Column column = getColumnForLabel(columnLabel, Time.class);
+		return wasNull ? null : new Time(getMillis(column, Types.TIME));
+	}
+
+	@Override
+	public Timestamp getTimestamp(int columnIndex) throws SQLException {
+		Column column = getColumnForIndex(columnIndex, Timestamp.class);
+		return wasNull ? null : new Timestamp(getMillis(column, Types.TIMESTAMP));
+	}
+
+	@Override
+	public Timestamp getTimestamp(String columnLabel) throws SQLException {
+		Column column = getColumnForLabel(columnLabel, Timestamp.class);
+		return wasNull ? null : new Timestamp(getMillis(column, Types.TIMESTAMP));
+	}
+
+	@Override
+	public Object getObject(int columnIndex) throws SQLException {
+		return getColumnForIndex(columnIndex, Object.class).getObject(currentRow);
+	}
+
+	@Override
+	public Object getObject(String columnLabel) throws SQLException {
+		return getColumnForLabel(columnLabel, Object.class).getObject(currentRow);
+	}
+
+	private long getMillis(Column column, int temporalType) throws SQLException {
+		try {
+			return column.getMillis(currentRow, temporalType);
+		} catch (ParseException e) {
+			String message = MessageFormat.format("Could not parse date: ''{0}'' using format ''{1}''",
+					column.getString(currentRow), DateUtils.getPattern(temporalType));
+			throw new SQLException(message, e);
+		}
+	}
+
+	/**
+	 * An empty value of a VARCHAR column is returned as 0 by the numeric getters, like an empty value of a typed
+	 * column, and {@link #wasNull()} returns <code>true</code>.
+	 */
+	private Column getNumericColumn(Column column) {
+		if (!wasNull && column.getSqlType() == Types.VARCHAR) {
+			wasNull = column.isEmpty(currentRow);
+		}
+		return column;
+	}
+
+	private SQLException notANumber(Column column, NumberFormatException e) {
+		String message = MessageFormat.format("Not a number: ''{0}''", column.getString(currentRow));
+		return new SQLException(message, e);
+	}
+
+	private Column getColumnForIndex(int columnIndex, Class<?> clazz) throws SQLException {
+		if (columnIndex < 1 || columnIndex > columnCount) {
+			String message = MessageFormat.format(
+					"Column index {0} does not exist in table file ''{1}'' (type ''{2}'')", columnIndex,
+					table.getName(), clazz);
+			throw new SQLException(message);
+		}
+
+		Column column = table.getColumn(columnIndex - 1);
+		wasNull = column.isNull(currentRow);
+		return column;
+	}
+
+	private Column getColumnForLabel(String columnLabel, Class<?> clazz) throws SQLException {
+		int columnIndex = columnLabelIndex.indexOf(columnLabel);
+		if (columnIndex == ColumnLabelIndex.NOT_FOUND) {
+			String message = MessageFormat.format(
+					"Column ''{0}'' does not exist in table file ''{1}'' (type ''{2}'')", columnLabel,
+					table.getName(), clazz);
+			throw new SQLException(message);
+		}
+
+		Column column = table.getColumn(columnIndex - 1);
+		wasNull = column.isNull(currentRow);
+		return column;
+	}
+}
@@ -0,0 +1,208 @@
+package com.googlecode.dummyjdbc.resultset.impl;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import com.googlecode.dummyjdbc.query.Projection;
+import com.googlecode.dummyjdbc.query.RowFilter;
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.table.TableBuilder;
+import com.googlecode.dummyjdbc.table.TableStream;
+
+/**
+ * A forward only {@link ColumnarResultSet} which parses the CSV file while it is iterated. Only the current chunk of
+ * fetch size rows is kept in memory. The file is closed when the last row was read or when the result set is closed.
+ *
+ * <p>
+ * If a value of a typed column cannot be parsed, only the chunk containing the value falls back to {@link String}
+ * values.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public class StreamingResultSet extends ColumnarResultSet {
+
+	/** The number of rows read at once if no fetch size is given. */
+	public static final int DEFAULT_FETCH_SIZE = 100;
+
+	private final TableStream stream;
+	private final RowFilter filter;
+	private final Projection projection;
+
+	/** The number of matching rows which are still to be skipped. */
+	private int remainingOffset;
+	/** The number of rows which are still to be returned, -1 for all. */
+	private int remainingRows;
+
+	/** The rows of the current chunk matching the filter, <code>null</code> for all. */
+	private int[] chunkRows;
+	private int fetchSize;
+	private boolean closed;
+
+	/**
+	 * Constructs a new {@link StreamingResultSet}.
+	 *
+	 * @param stream
+	 *            the opened {@link TableStream}, it is closed by this result set.
+	 * @param fetchSize
+	 *            the number of rows to read at once, 0 for {@link #DEFAULT_FETCH_SIZE}.
+	 */
+	public StreamingResultSet(TableStream stream, int fetchSize) {
+		this(stream, fetchSize, null);
+	}
+
+	/**
+	 * Constructs a new {@link StreamingResultSet} which only returns the rows matching a filter.
+	 *
+	 * @param stream
+	 *            the opened {@link TableStream}, it is closed by this result set.
+	 * @param fetchSize
+	 *            the number of rows to read at once, 0 for {@link #DEFAULT_FETCH_SIZE}.
+	 * @param filter
+	 *            the {@link RowFilter} of the WHERE clause, may be <code>null</code>.
+	 */
+	public StreamingResultSet(TableStream stream, int fetchSize, RowFilter filter) {
+		this(stream, fetchSize, filter, null);
+	}
+
+	/**
+	 * Constructs a new {@link StreamingResultSet} which only returns the rows matching a filter and the selected
+	 * columns.
+	 *
+	 * @param stream
+	 *            the opened {@link TableStream}, it is closed by this result set.
+	 * @param fetchSize
+	 *            the number of rows to read at once, 0 for {@link #DEFAULT_FETCH_SIZE}.
+	 * @param filter
+	 *            the {@link RowFilter} of the WHERE clause, may be <code>null</code>.
+	 * @param projection
+	 *            the {@link Projection} of the select list, may be <code>null</code>. Both the filter and the
+	 *            projection are compiled against the schema of the stream.
+	 */
+	public StreamingResultSet(TableStream stream, int fetchSize, RowFilter filter, Projection projection) {
+		this(stream, fetchSize, filter, projection, 0, -1);
+	}
+
+	/**
+	 * Constructs a new {@link StreamingResultSet} which returns a range of the rows matching a filter and the selected
+	 * columns. The file is closed as soon as the last row of the range was read.
+	 *
+	 * @param stream
+	 *            the opened {@link TableStream}, it is closed by this result set.
+	 * @param fetchSize
+	 *            the number of rows to read at once, 0 for {@link #DEFAULT_FETCH_SIZE}.
+	 * @param filter
+	 *            the {@link RowFilter} of the WHERE clause, may be <code>null</code>.
+	 * @param projection
+	 *            the {@link Projection} of the select list, may be <code>null</code>. Both the filter and the
+	 *            projection are compiled against the schema of the stream.
+	 * @param offset
+	 *            the number of matching rows to skip.
+	 * @param limit
+	 *            the maximum number of rows to return, -1 for all rows.
+	 */
+	public StreamingResultSet(TableStream stream, int fetchSize, RowFilter filter, Projection projection, int offset,
+			int limit) {
+		super(new TableBuilder(stream.getTableName(), projection == null ? stream.getMetaData()
+				: projection.getMetaData(), 0).build());
+		this.stream = stream;
+		this.fetchSize = fetchSize;
+		this.filter = filter;
+		this.projection = projection;
+		this.remainingOffset = offset;
+		this.remainingRows = limit;
+	}
+
+	@Override
+	protected Table fetchNextChunk() throws SQLException {
+		if (closed) {
+			throw new SQLException("ResultSet is closed");
+		}
+		Table chunk;
+		try {
+			if (remainingRows == 0) {
+				stream.close();
+				return null;
+			}
+			chunk = stream.nextChunk(fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+		} catch (IOException | IllegalArgumentException e) {
+			String message = MessageFormat.format("Error while reading data of table ''{0}''",
+					stream.getTableName());
+			throw new SQLException(message, e);
+		}
+		if (chunk == null) {
+			return null;
+		}
+
+		// The filter reads the columns of the stream, so it is applied before the projection
+		chunkRows = filter == null ? null : filter.select(chunk);
+		if (remainingOffset > 0 || remainingRows >= 0) {
+			chunkRows = range(chunkRows, chunk.getRowCount());
+		}
+		return projection == null ? chunk : projection.apply(chunk);
+	}
+
+	/**
+	 * Skips the rows of the offset and cuts the rows at the limit.
+	 *
+	 * @return the rows of the current chunk within the range
+	 */
+	private int[] range(int[] rows, int rowCount) {
+		int count = rows == null ? rowCount : rows.length;
+		int from = Math.min(remainingOffset, count);
+		int to = remainingRows < 0 ? count : Math.min(from + remainingRows, count);
+		remainingOffset -= from;
+		if (remainingRows >= 0) {
+			remainingRows -= to - from;
+		}
+		if (rows != null) {
+			return Arrays.copyOfRange(rows, from, to);
+		}
+		int[] range = new int[to - from];
+		for (int i = 0; i < range.length; i++) {
+			range[i] = from + i;
+		}
+		return range;
+	}
+
+	@Override
+	protected int[] selectRows(Table chunk) throws SQLException {
+		return chunkRows;
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		if (rows < 0) {
+			throw new SQLException("Fetch size must not be negative: " + rows);
+		}
+		fetchSize = rows;
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return fetchSize;
+	}
+
+	@Override
+	public int getType() throws SQLException {
+		return ResultSet.TYPE_FORWARD_ONLY;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		closed = true;
+		try {
+			stream.close();
+		} catch (IOException e) {
+			throw new SQLException("Error while closing table file", e);
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed;
+	}
+}
@@ -0,0 +1,33 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * All columns in a select list: <code>*</code> or <code>t.*</code>.
+ *
+ * @author Kai Winter
+ */
+public final class AllColumns extends Expression {
+
+	private final String qualifier;
+
+	/**
+	 * Constructs a new {@link AllColumns}.
+	 *
+	 * @param qualifier
+	 *            the table name or alias, may be <code>null</code>.
+	 */
+	public AllColumns(String qualifier) {
+		this.qualifier = qualifier;
+	}
+
+	/**
+	 * @return the table name or alias, <code>null</code> for all columns of all tables
+	 */
+	public String getQualifier() {
+		return qualifier;
+	}
+
+	@Override
+	public String toString() {
+		return qualifier == null ? "*" : qualifier + ".*";
+	}
+}
@@ -0,0 +1,56 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * An arithmetic operation or a string concatenation: <code>a + b</code>, <code>a - b</code>, <code>a * b</code>,
+ * <code>a / b</code>, <code>a % b</code> or <code>a || b</code>.
+ *
+ * @author Kai Winter
+ */
+public final class Arithmetic extends Expression {
+
+	private final String operator;
+	private final Expression left;
+	private final Expression right;
+
+	/**
+	 * Constructs a new {@link Arithmetic}.
+	 *
+	 * @param operator
+	 *            the operator symbol.
+	 * @param left
+	 *            the left operand.
+	 * @param right
+	 *            the right operand.
+	 */
+	public Arithmetic(String operator, Expression left, Expression right) {
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	/**
+	 * @return the operator symbol
+	 */
+	public String getOperator() {
+		return operator;
+	}
+
+	/**
+	 * @return the left operand
+	 */
+	public Expression getLeft() {
+		return left;
+	}
+
+	/**
+	 * @return the right operand
+	 */
+	public Expression getRight() {
+		return right;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + left + " " + operator + " " + right + ")";
+	}
+}
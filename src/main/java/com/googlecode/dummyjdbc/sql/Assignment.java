@@ -0,0 +1,44 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * An assignment of the SET clause of an {@link Update}: <code>column = value</code>.
+ *
+ * @author Kai Winter
+ */
+public final class Assignment {
+
+	private final String column;
+	private final Expression value;
+
+	/**
+	 * Constructs a new {@link Assignment}.
+	 *
+	 * @param column
+	 *            the name of the assigned column.
+	 * @param value
+	 *            the assigned value.
+	 */
+	public Assignment(String column, Expression value) {
+		this.column = column;
+		this.value = value;
+	}
+
+	/**
+	 * @return the name of the assigned column
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	/**
+	 * @return the assigned value
+	 */
+	public Expression getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return column + " = " + value;
+	}
+}
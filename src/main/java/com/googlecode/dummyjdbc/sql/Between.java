@@ -0,0 +1,66 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A range condition: <code>a [NOT] BETWEEN low AND high</code>, both bounds are inclusive.
+ *
+ * @author Kai Winter
+ */
+public final class Between extends Expression {
+
+	private final Expression operand;
+	private final Expression low;
+	private final Expression high;
+	private final boolean negated;
+
+	/**
+	 * Constructs a new {@link Between}.
+	 *
+	 * @param operand
+	 *            the tested expression.
+	 * @param low
+	 *            the lower bound.
+	 * @param high
+	 *            the upper bound.
+	 * @param negated
+	 *            <code>true</code> for <code>NOT BETWEEN</code>.
+	 */
+	public Between(Expression operand, Expression low, Expression high, boolean negated) {
+		this.operand = operand;
+		this.low = low;
+		this.high = high;
+		this.negated = negated;
+	}
+
+	/**
+	 * @return the tested expression
+	 */
+	public Expression getOperand() {
+		return operand;
+	}
+
+	/**
+	 * @return the lower bound
+	 */
+	public Expression getLow() {
+		return low;
+	}
+
+	/**
+	 * @return the upper bound
+	 */
+	public Expression getHigh() {
+		return high;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>NOT BETWEEN</code>
+	 */
+	public boolean isNegated() {
+		return negated;
+	}
+
+	@Override
+	public String toString() {
+		return operand + (negated ? " NOT" : "") + " BETWEEN " + low + " AND " + high;
+	}
+}
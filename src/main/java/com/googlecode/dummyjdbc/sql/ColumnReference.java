@@ -0,0 +1,45 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A reference to a column, optionally qualified by a table name or alias: <code>name</code> or
+ * <code>t.name</code>.
+ *
+ * @author Kai Winter
+ */
+public final class ColumnReference extends Expression {
+
+	private final String qualifier;
+	private final String name;
+
+	/**
+	 * Constructs a new {@link ColumnReference}.
+	 *
+	 * @param qualifier
+	 *            the table name or alias, may be <code>null</code>.
+	 * @param name
+	 *            the column name.
+	 */
+	public ColumnReference(String qualifier, String name) {
+		this.qualifier = qualifier;
+		this.name = name;
+	}
+
+	/**
+	 * @return the table name or alias, <code>null</code> if the column is not qualified
+	 */
+	public String getQualifier() {
+		return qualifier;
+	}
+
+	/**
+	 * @return the column name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return qualifier == null ? name : qualifier + "." + name;
+	}
+}
@@ -0,0 +1,123 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A comparison of two expressions: <code>a = b</code>, <code>a &lt;&gt; b</code>, <code>a &lt; b</code> etc.
+ *
+ * @author Kai Winter
+ */
+public final class Comparison extends Expression {
+
+	/**
+	 * The comparison operators.
+	 */
+	public enum Operator {
+		/** <code>=</code> */
+		EQUAL("="),
+		/** <code>&lt;&gt;</code> or <code>!=</code> */
+		NOT_EQUAL("<>"),
+		/** <code>&lt;</code> */
+		LESS("<"),
+		/** <code>&lt;=</code> */
+		LESS_OR_EQUAL("<="),
+		/** <code>&gt;</code> */
+		GREATER(">"),
+		/** <code>&gt;=</code> */
+		GREATER_OR_EQUAL(">=");
+
+		private final String symbol;
+
+		private Operator(String symbol) {
+			this.symbol = symbol;
+		}
+
+		/**
+		 * @param compareResult
+		 *            the result of comparing the left to the right value, like {@link Comparable#compareTo(Object)}.
+		 * @return <code>true</code> if the comparison result satisfies this operator
+		 */
+		public boolean matches(int compareResult) {
+			switch (this) {
+			case EQUAL:
+				return compareResult == 0;
+			case NOT_EQUAL:
+				return compareResult != 0;
+			case LESS:
+				return compareResult < 0;
+			case LESS_OR_EQUAL:
+				return compareResult <= 0;
+			case GREATER:
+				return compareResult > 0;
+			default:
+				return compareResult >= 0;
+			}
+		}
+
+		/**
+		 * @param symbol
+		 *            the symbol as written in SQL.
+		 * @return the {@link Operator} or <code>null</code> if the symbol is no comparison operator
+		 */
+		public static Operator fromSymbol(String symbol) {
+			if ("!=".equals(symbol)) {
+				return NOT_EQUAL;
+			}
+			for (Operator operator : values()) {
+				if (operator.symbol.equals(symbol)) {
+					return operator;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return symbol;
+		}
+	}
+
+	private final Operator operator;
+	private final Expression left;
+	private final Expression right;
+
+	/**
+	 * Constructs a new {@link Comparison}.
+	 *
+	 * @param operator
+	 *            the {@link Operator}.
+	 * @param left
+	 *            the left operand.
+	 * @param right
+	 *            the right operand.
+	 */
+	public Comparison(Operator operator, Expression left, Expression right) {
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	/**
+	 * @return the {@link Operator}
+	 */
+	public Operator getOperator() {
+		return operator;
+	}
+
+	/**
+	 * @return the left operand
+	 */
+	public Expression getLeft() {
+		return left;
+	}
+
+	/**
+	 * @return the right operand
+	 */
+	public Expression getRight() {
+		return right;
+	}
+
+	@Override
+	public String toString() {
+		return left + " " + operator + " " + right;
+	}
+}
@@ -0,0 +1,44 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A DELETE statement.
+ *
+ * @author Kai Winter
+ */
+public final class Delete extends SqlStatement {
+
+	private final TableReference table;
+	private final Expression where;
+
+	/**
+	 * Constructs a new {@link Delete}.
+	 *
+	 * @param table
+	 *            the table to delete from.
+	 * @param where
+	 *            the condition of the WHERE clause, may be <code>null</code>.
+	 */
+	public Delete(TableReference table, Expression where) {
+		this.table = table;
+		this.where = where;
+	}
+
+	/**
+	 * @return the table to delete from
+	 */
+	public TableReference getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the condition of the WHERE clause or <code>null</code>
+	 */
+	public Expression getWhere() {
+		return where;
+	}
+
+	@Override
+	public String toString() {
+		return "DELETE FROM " + table + (where == null ? "" : " WHERE " + where);
+	}
+}
@@ -0,0 +1,33 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A call of a stored procedure: <code>EXEC[UTE] name ...</code>. The arguments are not part of the tree.
+ *
+ * @author Kai Winter
+ */
+public final class Execute extends SqlStatement {
+
+	private final String procedureName;
+
+	/**
+	 * Constructs a new {@link Execute}.
+	 *
+	 * @param procedureName
+	 *            the name of the stored procedure as written in the statement.
+	 */
+	public Execute(String procedureName) {
+		this.procedureName = procedureName;
+	}
+
+	/**
+	 * @return the name of the stored procedure as written in the statement
+	 */
+	public String getProcedureName() {
+		return procedureName;
+	}
+
+	@Override
+	public String toString() {
+		return "EXEC " + procedureName;
+	}
+}
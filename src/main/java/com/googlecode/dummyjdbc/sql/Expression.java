@@ -0,0 +1,13 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A node of a parsed SQL expression, e.g. a column reference, a literal or a condition. Expressions are immutable, so
+ * a parsed statement can be shared by all threads.
+ *
+ * @author Kai Winter
+ */
+public abstract class Expression {
+
+	Expression() {
+	}
+}
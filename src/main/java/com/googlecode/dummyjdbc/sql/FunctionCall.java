@@ -0,0 +1,66 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A call of a function, e.g. <code>UPPER(name)</code> or <code>COUNT(DISTINCT id)</code>. The argument of
+ * <code>COUNT(*)</code> is {@link AllColumns}.
+ *
+ * @author Kai Winter
+ */
+public final class FunctionCall extends Expression {
+
+	private final String name;
+	private final List<Expression> arguments;
+	private final boolean distinct;
+
+	/**
+	 * Constructs a new {@link FunctionCall}.
+	 *
+	 * @param name
+	 *            the name of the function.
+	 * @param arguments
+	 *            the arguments.
+	 * @param distinct
+	 *            <code>true</code> if the arguments are preceded by <code>DISTINCT</code>.
+	 */
+	public FunctionCall(String name, List<Expression> arguments, boolean distinct) {
+		this.name = name;
+		this.arguments = Collections.unmodifiableList(arguments);
+		this.distinct = distinct;
+	}
+
+	/**
+	 * @return the name of the function
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the arguments
+	 */
+	public List<Expression> getArguments() {
+		return arguments;
+	}
+
+	/**
+	 * @return <code>true</code> if the arguments are preceded by <code>DISTINCT</code>
+	 */
+	public boolean isDistinct() {
+		return distinct;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(name).append('(');
+		if (distinct) {
+			builder.append("DISTINCT ");
+		}
+		for (int i = 0; i < arguments.size(); i++) {
+			builder.append(i == 0 ? "" : ", ").append(arguments.get(i));
+		}
+		return builder.append(')').toString();
+	}
+}
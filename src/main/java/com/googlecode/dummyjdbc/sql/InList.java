@@ -0,0 +1,58 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list membership condition: <code>a [NOT] IN (b, c, ...)</code>.
+ *
+ * @author Kai Winter
+ */
+public final class InList extends Expression {
+
+	private final Expression operand;
+	private final List<Expression> values;
+	private final boolean negated;
+
+	/**
+	 * Constructs a new {@link InList}.
+	 *
+	 * @param operand
+	 *            the tested expression.
+	 * @param values
+	 *            the values of the list.
+	 * @param negated
+	 *            <code>true</code> for <code>NOT IN</code>.
+	 */
+	public InList(Expression operand, List<Expression> values, boolean negated) {
+		this.operand = operand;
+		this.values = Collections.unmodifiableList(values);
+		this.negated = negated;
+	}
+
+	/**
+	 * @return the tested expression
+	 */
+	public Expression getOperand() {
+		return operand;
+	}
+
+	/**
+	 * @return the values of the list
+	 */
+	public List<Expression> getValues() {
+		return values;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>NOT IN</code>
+	 */
+	public boolean isNegated() {
+		return negated;
+	}
+
+	@Override
+	public String toString() {
+		return operand + (negated ? " NOT" : "") + " IN " + values;
+	}
+}
@@ -0,0 +1,70 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An INSERT statement, either with a VALUES clause or with a query.
+ *
+ * @author Kai Winter
+ */
+public final class Insert extends SqlStatement {
+
+	private final String tableName;
+	private final List<String> columns;
+	private final List<List<Expression>> rows;
+	private final SqlStatement query;
+
+	/**
+	 * Constructs a new {@link Insert}.
+	 *
+	 * @param tableName
+	 *            the name of the table as written in the statement.
+	 * @param columns
+	 *            the names of the listed columns, empty if no columns are listed.
+	 * @param rows
+	 *            the rows of the VALUES clause, <code>null</code> if a query is inserted.
+	 * @param query
+	 *            the inserted query, a {@link Select} or a {@link Union}, <code>null</code> if there is a VALUES clause.
+	 */
+	public Insert(String tableName, List<String> columns, List<List<Expression>> rows, SqlStatement query) {
+		this.tableName = tableName;
+		this.columns = Collections.unmodifiableList(columns);
+		this.rows = rows == null ? null : Collections.unmodifiableList(rows);
+		this.query = query;
+	}
+
+	/**
+	 * @return the name of the table as written in the statement
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @return the names of the listed columns, empty if no columns are listed
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the rows of the VALUES clause or <code>null</code> if a query is inserted
+	 */
+	public List<List<Expression>> getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the inserted query, a {@link Select} or a {@link Union}, or <code>null</code>
+	 */
+	public SqlStatement getQuery() {
+		return query;
+	}
+
+	@Override
+	public String toString() {
+		String target = "INSERT INTO " + tableName + (columns.isEmpty() ? "" : " " + columns);
+		return query == null ? target + " VALUES " + rows : target + " " + query;
+	}
+}
@@ -0,0 +1,44 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A null test: <code>a IS [NOT] NULL</code>.
+ *
+ * @author Kai Winter
+ */
+public final class IsNull extends Expression {
+
+	private final Expression operand;
+	private final boolean negated;
+
+	/**
+	 * Constructs a new {@link IsNull}.
+	 *
+	 * @param operand
+	 *            the tested expression.
+	 * @param negated
+	 *            <code>true</code> for <code>IS NOT NULL</code>.
+	 */
+	public IsNull(Expression operand, boolean negated) {
+		this.operand = operand;
+		this.negated = negated;
+	}
+
+	/**
+	 * @return the tested expression
+	 */
+	public Expression getOperand() {
+		return operand;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>IS NOT NULL</code>
+	 */
+	public boolean isNegated() {
+		return negated;
+	}
+
+	@Override
+	public String toString() {
+		return operand + (negated ? " IS NOT NULL" : " IS NULL");
+	}
+}
@@ -0,0 +1,62 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A table joined to the FROM clause of a {@link Select}. A comma separated table is a {@link Type#CROSS} join.
+ *
+ * @author Kai Winter
+ */
+public final class Join {
+
+	/**
+	 * The kinds of joins.
+	 */
+	public enum Type {
+		INNER, LEFT, RIGHT, FULL, CROSS
+	}
+
+	private final Type type;
+	private final TableReference table;
+	private final Expression condition;
+
+	/**
+	 * Constructs a new {@link Join}.
+	 *
+	 * @param type
+	 *            the {@link Type} of the join.
+	 * @param table
+	 *            the joined table.
+	 * @param condition
+	 *            the ON condition, <code>null</code> for a cross join.
+	 */
+	public Join(Type type, TableReference table, Expression condition) {
+		this.type = type;
+		this.table = table;
+		this.condition = condition;
+	}
+
+	/**
+	 * @return the {@link Type} of the join
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the joined table
+	 */
+	public TableReference getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the ON condition or <code>null</code>
+	 */
+	public Expression getCondition() {
+		return condition;
+	}
+
+	@Override
+	public String toString() {
+		return type + " JOIN " + table + (condition == null ? "" : " ON " + condition);
+	}
+}
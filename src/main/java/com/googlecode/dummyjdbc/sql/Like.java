@@ -0,0 +1,67 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A pattern match: <code>a [NOT] LIKE pattern [ESCAPE c]</code>. <code>%</code> matches any number of characters,
+ * <code>_</code> matches a single character.
+ *
+ * @author Kai Winter
+ */
+public final class Like extends Expression {
+
+	private final Expression operand;
+	private final Expression pattern;
+	private final Character escape;
+	private final boolean negated;
+
+	/**
+	 * Constructs a new {@link Like}.
+	 *
+	 * @param operand
+	 *            the tested expression.
+	 * @param pattern
+	 *            the pattern.
+	 * @param escape
+	 *            the escape character, may be <code>null</code>.
+	 * @param negated
+	 *            <code>true</code> for <code>NOT LIKE</code>.
+	 */
+	public Like(Expression operand, Expression pattern, Character escape, boolean negated) {
+		this.operand = operand;
+		this.pattern = pattern;
+		this.escape = escape;
+		this.negated = negated;
+	}
+
+	/**
+	 * @return the tested expression
+	 */
+	public Expression getOperand() {
+		return operand;
+	}
+
+	/**
+	 * @return the pattern
+	 */
+	public Expression getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return the escape character or <code>null</code>
+	 */
+	public Character getEscape() {
+		return escape;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>NOT LIKE</code>
+	 */
+	public boolean isNegated() {
+		return negated;
+	}
+
+	@Override
+	public String toString() {
+		return operand + (negated ? " NOT" : "") + " LIKE " + pattern;
+	}
+}
@@ -0,0 +1,39 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A constant value: a string, a number or <code>NULL</code>.
+ *
+ * @author Kai Winter
+ */
+public final class Literal extends Expression {
+
+	/** The <code>NULL</code> literal. */
+	public static final Literal NULL = new Literal(null);
+
+	private final Object value;
+
+	/**
+	 * Constructs a new {@link Literal}.
+	 *
+	 * @param value
+	 *            a {@link String}, a {@link Long}, a {@link Double} or <code>null</code>.
+	 */
+	public Literal(Object value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return the value: a {@link String}, a {@link Long}, a {@link Double} or <code>null</code>
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		if (value == null) {
+			return "NULL";
+		}
+		return value instanceof String ? "'" + value + "'" : String.valueOf(value);
+	}
+}
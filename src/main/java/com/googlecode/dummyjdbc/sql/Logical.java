@@ -0,0 +1,55 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A conjunction or disjunction of two conditions: <code>a AND b</code>, <code>a OR b</code>.
+ *
+ * @author Kai Winter
+ */
+public final class Logical extends Expression {
+
+	private final boolean and;
+	private final Expression left;
+	private final Expression right;
+
+	/**
+	 * Constructs a new {@link Logical}.
+	 *
+	 * @param and
+	 *            <code>true</code> for <code>AND</code>, <code>false</code> for <code>OR</code>.
+	 * @param left
+	 *            the left condition.
+	 * @param right
+	 *            the right condition.
+	 */
+	public Logical(boolean and, Expression left, Expression right) {
+		this.and = and;
+		this.left = left;
+		this.right = right;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>AND</code>, <code>false</code> for <code>OR</code>
+	 */
+	public boolean isAnd() {
+		return and;
+	}
+
+	/**
+	 * @return the left condition
+	 */
+	public Expression getLeft() {
+		return left;
+	}
+
+	/**
+	 * @return the right condition
+	 */
+	public Expression getRight() {
+		return right;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + left + (and ? " AND " : " OR ") + right + ")";
+	}
+}
@@ -0,0 +1,33 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A negated condition: <code>NOT a</code>.
+ *
+ * @author Kai Winter
+ */
+public final class Not extends Expression {
+
+	private final Expression operand;
+
+	/**
+	 * Constructs a new {@link Not}.
+	 *
+	 * @param operand
+	 *            the negated condition.
+	 */
+	public Not(Expression operand) {
+		this.operand = operand;
+	}
+
+	/**
+	 * @return the negated condition
+	 */
+	public Expression getOperand() {
+		return operand;
+	}
+
+	@Override
+	public String toString() {
+		return "NOT " + operand;
+	}
+}
@@ -0,0 +1,71 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * An entry of an ORDER BY clause: an expression, the direction and the position of null values.
+ *
+ * @author Kai Winter
+ */
+public final class OrderItem {
+
+	private final Expression expression;
+	private final boolean descending;
+	private final boolean nullsFirst;
+
+	/**
+	 * Constructs a new {@link OrderItem} with null values first in ascending and last in descending order.
+	 *
+	 * @param expression
+	 *            the expression the rows are ordered by.
+	 * @param descending
+	 *            <code>true</code> for <code>DESC</code>.
+	 */
+	public OrderItem(Expression expression, boolean descending) {
+		this(expression, descending, !descending);
+	}
+
+	/**
+	 * Constructs a new {@link OrderItem}.
+	 *
+	 * @param expression
+	 *            the expression the rows are ordered by.
+	 * @param descending
+	 *            <code>true</code> for <code>DESC</code>.
+	 * @param nullsFirst
+	 *            <code>true</code> for <code>NULLS FIRST</code>.
+	 */
+	public OrderItem(Expression expression, boolean descending, boolean nullsFirst) {
+		this.expression = expression;
+		this.descending = descending;
+		this.nullsFirst = nullsFirst;
+	}
+
+	/**
+	 * @return the expression the rows are ordered by
+	 */
+	public Expression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>DESC</code>
+	 */
+	public boolean isDescending() {
+		return descending;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>NULLS FIRST</code>
+	 */
+	public boolean isNullsFirst() {
+		return nullsFirst;
+	}
+
+	@Override
+	public String toString() {
+		String text = descending ? expression + " DESC" : expression.toString();
+		if (nullsFirst == descending) {
+			text += nullsFirst ? " NULLS FIRST" : " NULLS LAST";
+		}
+		return text;
+	}
+}
@@ -0,0 +1,33 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A parameter marker <code>?</code> of a prepared statement.
+ *
+ * @author Kai Winter
+ */
+public final class Parameter extends Expression {
+
+	private final int index;
+
+	/**
+	 * Constructs a new {@link Parameter}.
+	 *
+	 * @param index
+	 *            the index of the parameter in the statement, starting at 1.
+	 */
+	public Parameter(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * @return the index of the parameter in the statement, starting at 1
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return "?" + index;
+	}
+}
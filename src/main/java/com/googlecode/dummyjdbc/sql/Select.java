@@ -0,0 +1,168 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A SELECT statement. Of the clauses following the WHERE clause only GROUP BY, HAVING, ORDER BY, LIMIT and OFFSET are
+ * part of the tree, <code>FETCH FIRST n ROWS ONLY</code> is a LIMIT.
+ *
+ * @author Kai Winter
+ */
+public final class Select extends SqlStatement {
+
+	private final boolean distinct;
+	private final List<SelectItem> items;
+	private final TableReference from;
+	private final List<Join> joins;
+	private final Expression where;
+	private final List<Expression> groupBy;
+	private final Expression having;
+	private final List<OrderItem> orderBy;
+	private final Expression limit;
+	private final Expression offset;
+
+	/**
+	 * Constructs a new {@link Select}.
+	 *
+	 * @param distinct
+	 *            <code>true</code> for <code>SELECT DISTINCT</code>.
+	 * @param items
+	 *            the items of the select list.
+	 * @param from
+	 *            the first table of the FROM clause, <code>null</code> if there is no FROM clause.
+	 * @param joins
+	 *            the other tables of the FROM clause.
+	 * @param where
+	 *            the condition of the WHERE clause, may be <code>null</code>.
+	 * @param groupBy
+	 *            the expressions of the GROUP BY clause, empty if there is none.
+	 * @param having
+	 *            the condition of the HAVING clause, may be <code>null</code>.
+	 * @param orderBy
+	 *            the items of the ORDER BY clause, empty if there is none.
+	 * @param limit
+	 *            the maximum number of rows, may be <code>null</code>.
+	 * @param offset
+	 *            the number of rows to skip, may be <code>null</code>.
+	 */
+	public Select(boolean distinct, List<SelectItem> items, TableReference from, List<Join> joins, Expression where,
+			List<Expression> groupBy, Expression having, List<OrderItem> orderBy, Expression limit, Expression offset) {
+		this.distinct = distinct;
+		this.items = Collections.unmodifiableList(items);
+		this.from = from;
+		this.joins = Collections.unmodifiableList(joins);
+		this.where = where;
+		this.groupBy = Collections.unmodifiableList(groupBy);
+		this.having = having;
+		this.orderBy = Collections.unmodifiableList(orderBy);
+		this.limit = limit;
+		this.offset = offset;
+	}
+
+	/**
+	 * @return <code>true</code> for <code>SELECT DISTINCT</code>
+	 */
+	public boolean isDistinct() {
+		return distinct;
+	}
+
+	/**
+	 * @return the items of the select list
+	 */
+	public List<SelectItem> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return the first table of the FROM clause or <code>null</code> if there is no FROM clause
+	 */
+	public TableReference getFrom() {
+		return from;
+	}
+
+	/**
+	 * @return the other tables of the FROM clause
+	 */
+	public List<Join> getJoins() {
+		return joins;
+	}
+
+	/**
+	 * @return the condition of the WHERE clause or <code>null</code>
+	 */
+	public Expression getWhere() {
+		return where;
+	}
+
+	/**
+	 * @return the expressions of the GROUP BY clause, empty if there is none
+	 */
+	public List<Expression> getGroupBy() {
+		return groupBy;
+	}
+
+	/**
+	 * @return the condition of the HAVING clause or <code>null</code>
+	 */
+	public Expression getHaving() {
+		return having;
+	}
+
+	/**
+	 * @return the items of the ORDER BY clause, empty if there is none
+	 */
+	public List<OrderItem> getOrderBy() {
+		return orderBy;
+	}
+
+	/**
+	 * @return the maximum number of rows or <code>null</code>
+	 */
+	public Expression getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the number of rows to skip or <code>null</code>
+	 */
+	public Expression getOffset() {
+		return offset;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("SELECT ");
+		if (distinct) {
+			builder.append("DISTINCT ");
+		}
+		for (int i = 0; i < items.size(); i++) {
+			builder.append(i == 0 ? "" : ", ").append(items.get(i));
+		}
+		if (from != null) {
+			builder.append(" FROM ").append(from);
+		}
+		for (Join join : joins) {
+			builder.append(' ').append(join);
+		}
+		if (where != null) {
+			builder.append(" WHERE ").append(where);
+		}
+		for (int i = 0; i < groupBy.size(); i++) {
+			builder.append(i == 0 ? " GROUP BY " : ", ").append(groupBy.get(i));
+		}
+		if (having != null) {
+			builder.append(" HAVING ").append(having);
+		}
+		for (int i = 0; i < orderBy.size(); i++) {
+			builder.append(i == 0 ? " ORDER BY " : ", ").append(orderBy.get(i));
+		}
+		if (limit != null) {
+			builder.append(" LIMIT ").append(limit);
+		}
+		if (offset != null) {
+			builder.append(" OFFSET ").append(offset);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,44 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * An entry of a select list: an expression with an optional alias.
+ *
+ * @author Kai Winter
+ */
+public final class SelectItem {
+
+	private final Expression expression;
+	private final String alias;
+
+	/**
+	 * Constructs a new {@link SelectItem}.
+	 *
+	 * @param expression
+	 *            the selected expression.
+	 * @param alias
+	 *            the alias, may be <code>null</code>.
+	 */
+	public SelectItem(Expression expression, String alias) {
+		this.expression = expression;
+		this.alias = alias;
+	}
+
+	/**
+	 * @return the selected expression
+	 */
+	public Expression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * @return the alias or <code>null</code>
+	 */
+	public String getAlias() {
+		return alias;
+	}
+
+	@Override
+	public String toString() {
+		return alias == null ? expression.toString() : expression + " AS " + alias;
+	}
+}
@@ -0,0 +1,951 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.sql.SQLSyntaxErrorException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A recursive descent parser for SQL. Each token is looked at a constant number of times, so parsing takes linear time
+ * in the length of the statement.
+ *
+ * <p>
+ * SELECT, EXEC, INSERT, UPDATE and DELETE statements are parsed into a tree of {@link SqlStatement}s and
+ * {@link Expression}s, parameter markers <code>?</code> become {@link Parameter}s. Of the clauses of a SELECT
+ * following the WHERE clause GROUP BY, HAVING, ORDER BY, LIMIT, OFFSET and FETCH FIRST are parsed, the others (FOR
+ * UPDATE, ...) are skipped. SELECTs combined with UNION, EXCEPT or INTERSECT are parsed into a {@link Union}, unless
+ * they are nested in an expression or a FROM clause. <code>TOP n</code> is parsed as a LIMIT.
+ * </p>
+ *
+ * <p>
+ * The JDBC escapes <code>{d '...'}</code>, <code>{t '...'}</code>, <code>{ts '...'}</code>, <code>{fn ...}</code>,
+ * <code>{oj ...}</code> and <code>{escape '...'}</code> are parsed like the SQL they stand for, typed literals like
+ * <code>DATE '...'</code> become string literals. Table hints (<code>WITH (NOLOCK)</code>), MySQL modifiers of the
+ * SELECT (<code>SQL_CALC_FOUND_ROWS</code>, ...) and locking clauses (<code>FOR UPDATE</code>,
+ * <code>LOCK IN SHARE MODE</code>) are skipped.
+ * </p>
+ *
+ * <p>
+ * <code>CASE</code>, <code>EXISTS</code>, window functions and function calls with arguments other than values, e.g.
+ * <code>CAST(a AS VARCHAR(10))</code>, are skipped up to their balanced end and parsed into an {@link Unparsed}. So
+ * are <code>::</code> casts, <code>COLLATE</code>, <code>ILIKE</code> and the columns of <code>JOIN ... USING</code>.
+ * Statements with other syntax fail to parse, a query can still be run on the table of its FROM clause, see
+ * {@link #isRecoverable()} and {@link #recoverTableName()}.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class SqlParser {
+
+	/** Keywords which cannot be used as unquoted names or aliases. */
+	private static final Set<String> RESERVED = new HashSet<>(Arrays.asList("AND", "OR", "NOT", "NULL", "IS", "IN",
+			"LIKE", "BETWEEN", "ESCAPE", "SELECT", "DISTINCT", "ALL", "AS", "FROM", "JOIN", "INNER", "LEFT", "RIGHT",
+			"FULL", "OUTER", "CROSS", "ON", "WHERE", "GROUP", "HAVING", "ORDER", "LIMIT", "OFFSET", "FETCH", "UNION",
+			"EXCEPT", "INTERSECT", "FOR", "INTO", "VALUES", "SET", "USING"));
+
+	/** Keywords which may follow a WHERE clause. */
+	private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList("GROUP", "HAVING", "ORDER",
+			"LIMIT", "OFFSET", "FETCH", "UNION", "EXCEPT", "INTERSECT", "FOR", "LOCK"));
+
+	/** MySQL modifiers following SELECT which do not change the result. */
+	private static final Set<String> SELECT_MODIFIERS = new HashSet<>(Arrays.asList("HIGH_PRIORITY", "STRAIGHT_JOIN",
+			"SQL_SMALL_RESULT", "SQL_BIG_RESULT", "SQL_BUFFER_RESULT", "SQL_CACHE", "SQL_NO_CACHE",
+			"SQL_CALC_FOUND_ROWS"));
+
+	private final String sql;
+	private final List<Token> tokens;
+	private int position;
+	private int parameterCount;
+	/** The token a syntax error was reported for, <code>null</code> if there was none. */
+	private Token errorToken;
+
+	/**
+	 * Constructs a new {@link SqlParser}.
+	 *
+	 * @param sql
+	 *            the SQL statement.
+	 * @throws SQLSyntaxErrorException
+	 *             if the statement cannot be tokenized
+	 */
+	public SqlParser(String sql) throws SQLSyntaxErrorException {
+		this.sql = sql;
+		this.tokens = SqlTokenizer.tokenize(sql);
+	}
+
+	/**
+	 * Parses a statement.
+	 *
+	 * @param sql
+	 *            the SQL statement.
+	 * @return the parsed statement or <code>null</code> if it is no SELECT, EXEC, INSERT, UPDATE or DELETE
+	 * @throws SQLSyntaxErrorException
+	 *             if the statement is invalid
+	 */
+	public static SqlStatement parse(String sql) throws SQLSyntaxErrorException {
+		return new SqlParser(sql).parseStatement();
+	}
+
+	/**
+	 * Parses the statement. The parameter markers are numbered in the order of their occurrence, see
+	 * {@link #getParameterCount()}.
+	 *
+	 * @return the parsed statement or <code>null</code> if it is no SELECT, EXEC, INSERT, UPDATE or DELETE
+	 * @throws SQLSyntaxErrorException
+	 *             if the statement is invalid
+	 */
+	public SqlStatement parseStatement() throws SQLSyntaxErrorException {
+		SqlStatement statement = parseStatementKind();
+		if (statement != null) {
+			acceptSymbol(";");
+			if (peek().getType() != Token.Type.EOF) {
+				throw unexpected(peek());
+			}
+		}
+		return statement;
+	}
+
+	/**
+	 * @return the number of parameter markers parsed so far
+	 */
+	public int getParameterCount() {
+		return parameterCount;
+	}
+
+	/**
+	 * @return <code>true</code> if {@link #parseStatement()} failed on a SELECT which is complete, but contains syntax
+	 *         this parser does not know. Statements which end unexpectedly and other statements cannot be recovered.
+	 */
+	public boolean isRecoverable() {
+		return errorToken != null && errorToken.getType() != Token.Type.EOF && tokens.get(0).isKeyword("SELECT");
+	}
+
+	/**
+	 * Recovers the table of a query which could not be parsed: the name following the first FROM outside of
+	 * parentheses. All parameter markers of the statement are counted, see {@link #getParameterCount()}.
+	 *
+	 * @return the name of the table as written in the statement or <code>null</code> if there is none
+	 */
+	public String recoverTableName() {
+		String tableName = null;
+		int depth = 0;
+		parameterCount = 0;
+		for (int i = 0; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			if (token.isSymbol("?")) {
+				parameterCount++;
+			} else if (token.isSymbol("(")) {
+				depth++;
+			} else if (token.isSymbol(")")) {
+				depth--;
+			} else if (tableName == null && depth == 0 && token.isKeyword("FROM") && isName(tokens.get(i + 1))) {
+				int last = i + 1;
+				while (tokens.get(last + 1).isSymbol(".") && isName(tokens.get(last + 2))) {
+					last += 2;
+				}
+				tableName = sql.substring(tokens.get(i + 1).getPosition(), tokens.get(last).getEnd());
+			}
+		}
+		return tableName;
+	}
+
+	private SqlStatement parseStatementKind() throws SQLSyntaxErrorException {
+		Token token = peek();
+		if (token.isKeyword("SELECT")) {
+			return parseQuery();
+		}
+		if (token.isKeyword("EXEC") || token.isKeyword("EXECUTE")) {
+			next();
+			String procedureName = parseQualifiedName();
+			// The arguments are not evaluated
+			position = tokens.size() - 1;
+			return new Execute(procedureName);
+		}
+		if (token.isKeyword("INSERT")) {
+			return parseInsert();
+		}
+		if (token.isKeyword("UPDATE")) {
+			return parseUpdate();
+		}
+		if (token.isKeyword("DELETE")) {
+			return parseDelete();
+		}
+		return null;
+	}
+
+	/**
+	 * @return a {@link Select} or, if SELECTs are combined with UNION, EXCEPT or INTERSECT, a {@link Union}
+	 */
+	private SqlStatement parseQuery() throws SQLSyntaxErrorException {
+		Select select = parseSelect();
+		if (!isSetOperator(peek())) {
+			return select;
+		}
+		List<Select> selects = new ArrayList<>();
+		List<Union.Operator> operators = new ArrayList<>();
+		List<Boolean> all = new ArrayList<>();
+		selects.add(select);
+		while (isSetOperator(peek())) {
+			operators.add(Union.Operator.valueOf(next().getText().toUpperCase()));
+			boolean unionAll = accept("ALL");
+			if (!unionAll) {
+				accept("DISTINCT");
+			}
+			all.add(unionAll);
+			select = parseSelect();
+			selects.add(select);
+		}
+
+		// The ORDER BY, LIMIT and OFFSET of the last SELECT belong to the union
+		selects.set(selects.size() - 1, new Select(select.isDistinct(), select.getItems(), select.getFrom(),
+				select.getJoins(), select.getWhere(), select.getGroupBy(), select.getHaving(),
+				new ArrayList<OrderItem>(), null, null));
+		skipClauses(true);
+		return new Union(selects, operators, all, select.getOrderBy(), select.getLimit(), select.getOffset());
+	}
+
+	/**
+	 * Parses a SELECT nested in another statement. SELECTs combined with it are skipped.
+	 */
+	private Select parseNestedSelect() throws SQLSyntaxErrorException {
+		Select select = parseSelect();
+		skipClauses(true);
+		return select;
+	}
+
+	private Select parseSelect() throws SQLSyntaxErrorException {
+		expect("SELECT");
+		boolean distinct = accept("DISTINCT");
+		if (!distinct) {
+			accept("ALL");
+		}
+		while (isSelectModifier(peek()) && !peek(1).isKeyword("FROM") && !peek(1).isSymbol(",")
+				&& !peek(1).isSymbol(".") && peek(1).getType() != Token.Type.EOF) {
+			next();
+		}
+		Expression top = null;
+		if (peek().isKeyword("TOP")
+				&& (peek(1).getType() == Token.Type.NUMBER || peek(1).isSymbol("(") || peek(1).isSymbol("?"))) {
+			next();
+			top = parsePrimary();
+			boolean percent = accept("PERCENT");
+			boolean ties = accept("WITH");
+			if (ties) {
+				expect("TIES");
+			}
+			if (percent || ties) {
+				// The rows are not limited
+				top = null;
+			}
+		}
+		List<SelectItem> items = new ArrayList<>();
+		do {
+			items.add(parseSelectItem());
+		} while (acceptSymbol(","));
+
+		TableReference from = null;
+		List<Join> joins = new ArrayList<>();
+		if (accept("FROM")) {
+			// {oj ...} encloses a table with outer joins
+			boolean escape = peek().isSymbol("{") && peek(1).isKeyword("OJ");
+			if (escape) {
+				next();
+				next();
+			}
+			from = parseTableReference();
+			Join join;
+			while ((join = parseJoin()) != null) {
+				joins.add(join);
+			}
+			if (escape) {
+				expectSymbol("}");
+			}
+		}
+		Expression where = accept("WHERE") ? parseCondition() : null;
+
+		List<Expression> groupBy = new ArrayList<>();
+		if (accept("GROUP")) {
+			expect("BY");
+			do {
+				groupBy.add(parseOperand());
+			} while (acceptSymbol(","));
+		}
+		Expression having = accept("HAVING") ? parseCondition() : null;
+
+		List<OrderItem> orderBy = new ArrayList<>();
+		if (accept("ORDER")) {
+			expect("BY");
+			do {
+				Expression expression = parseOperand();
+				boolean descending = accept("DESC");
+				if (!descending) {
+					accept("ASC");
+				}
+				boolean nullsFirst = !descending;
+				if (accept("NULLS")) {
+					nullsFirst = accept("FIRST");
+					if (!nullsFirst) {
+						expect("LAST");
+					}
+				}
+				orderBy.add(new OrderItem(expression, descending, nullsFirst));
+			} while (acceptSymbol(","));
+		}
+		Expression limit = null;
+		Expression offset = null;
+		if (accept("LIMIT")) {
+			limit = parseOperand();
+			if (acceptSymbol(",")) {
+				// LIMIT offset, count
+				offset = limit;
+				limit = parseOperand();
+			} else if (accept("OFFSET")) {
+				offset = parseOperand();
+			}
+		} else if (accept("OFFSET")) {
+			offset = parseOperand();
+			if (!accept("ROWS")) {
+				accept("ROW");
+			}
+		}
+		if (limit == null && accept("FETCH")) {
+			// FETCH FIRST | NEXT [n] ROW | ROWS ONLY
+			if (!accept("FIRST")) {
+				expect("NEXT");
+			}
+			limit = peek().isKeyword("ROW") || peek().isKeyword("ROWS") ? new Literal(Long.valueOf(1))
+					: parseOperand();
+			if (!accept("ROWS")) {
+				expect("ROW");
+			}
+			expect("ONLY");
+		}
+		if (limit == null) {
+			limit = top;
+		}
+		skipClauses(false);
+		return new Select(distinct, items, from, joins, where, groupBy, having, orderBy, limit, offset);
+	}
+
+	private SelectItem parseSelectItem() throws SQLSyntaxErrorException {
+		if (acceptSymbol("*")) {
+			return new SelectItem(new AllColumns(null), null);
+		}
+		if (isName(peek()) && peek(1).isSymbol(".") && peek(2).isSymbol("*")) {
+			String qualifier = next().getText();
+			next();
+			next();
+			return new SelectItem(new AllColumns(qualifier), null);
+		}
+		return new SelectItem(parseOperand(), parseAlias());
+	}
+
+	private TableReference parseTableReference() throws SQLSyntaxErrorException {
+		if (acceptSymbol("(")) {
+			Select subquery = parseNestedSelect();
+			expectSymbol(")");
+			return new TableReference(subquery, parseAlias());
+		}
+		String name = parseQualifiedName();
+		String alias = skipTableHints() ? null : parseAlias();
+		skipTableHints();
+		return new TableReference(name, alias);
+	}
+
+	/**
+	 * Skips table hints like <code>WITH (NOLOCK)</code>.
+	 *
+	 * @return <code>true</code> if there were hints
+	 */
+	private boolean skipTableHints() throws SQLSyntaxErrorException {
+		if (!peek().isKeyword("WITH") || !peek(1).isSymbol("(")) {
+			return false;
+		}
+		next();
+		next();
+		skipToClosingParenthesis();
+		return true;
+	}
+
+	/**
+	 * @return the next table of the FROM clause or <code>null</code> if there is none
+	 */
+	private Join parseJoin() throws SQLSyntaxErrorException {
+		if (acceptSymbol(",")) {
+			return new Join(Join.Type.CROSS, parseTableReference(), null);
+		}
+
+		Join.Type type;
+		if (accept("JOIN")) {
+			type = Join.Type.INNER;
+		} else if (accept("INNER")) {
+			type = Join.Type.INNER;
+			expect("JOIN");
+		} else if (accept("CROSS")) {
+			type = Join.Type.CROSS;
+			expect("JOIN");
+		} else if (peek().isKeyword("LEFT") || peek().isKeyword("RIGHT") || peek().isKeyword("FULL")) {
+			type = Join.Type.valueOf(next().getText().toUpperCase());
+			accept("OUTER");
+			expect("JOIN");
+		} else {
+			return null;
+		}
+
+		TableReference table = parseTableReference();
+		if (type == Join.Type.CROSS) {
+			return new Join(type, table, null);
+		}
+		if (peek().isKeyword("USING")) {
+			Token first = next();
+			expectSymbol("(");
+			skipToClosingParenthesis();
+			return new Join(type, table, unparsed(first));
+		}
+		expect("ON");
+		return new Join(type, table, parseCondition());
+	}
+
+	/**
+	 * Skips the clauses following a WHERE clause up to the end of the statement or of the enclosing parentheses.
+	 *
+	 * @param union
+	 *            <code>false</code> to stop at a UNION, EXCEPT or INTERSECT.
+	 */
+	private void skipClauses(boolean union) {
+		if (!isClauseKeyword(peek()) || !union && isSetOperator(peek())) {
+			return;
+		}
+		int depth = 0;
+		while (peek().getType() != Token.Type.EOF) {
+			Token token = peek();
+			if (token.isSymbol("(")) {
+				depth++;
+			} else if (token.isSymbol(")")) {
+				if (depth == 0) {
+					return;
+				}
+				depth--;
+			} else if (depth == 0 && token.isSymbol(";")) {
+				return;
+			}
+			next();
+		}
+	}
+
+	private Insert parseInsert() throws SQLSyntaxErrorException {
+		expect("INSERT");
+		expect("INTO");
+		String tableName = parseQualifiedName();
+
+		List<String> columns = new ArrayList<>();
+		if (peek().isSymbol("(") && !peek(1).isKeyword("SELECT")) {
+			next();
+			do {
+				columns.add(parseName());
+			} while (acceptSymbol(","));
+			expectSymbol(")");
+		}
+
+		if (peek().isKeyword("SELECT")) {
+			return new Insert(tableName, columns, null, parseQuery());
+		}
+		expect("VALUES");
+		List<List<Expression>> rows = new ArrayList<>();
+		do {
+			expectSymbol("(");
+			List<Expression> values = new ArrayList<>();
+			do {
+				values.add(parseOperand());
+			} while (acceptSymbol(","));
+			expectSymbol(")");
+			rows.add(values);
+		} while (acceptSymbol(","));
+		return new Insert(tableName, columns, rows, null);
+	}
+
+	private Update parseUpdate() throws SQLSyntaxErrorException {
+		expect("UPDATE");
+		TableReference table = new TableReference(parseQualifiedName(), parseAlias());
+		expect("SET");
+		List<Assignment> assignments = new ArrayList<>();
+		do {
+			String column = parseName();
+			if (acceptSymbol(".")) {
+				column = parseName();
+			}
+			expectSymbol("=");
+			assignments.add(new Assignment(column, parseOperand()));
+		} while (acceptSymbol(","));
+		Expression where = accept("WHERE") ? parseCondition() : null;
+		return new Update(table, assignments, where);
+	}
+
+	private Delete parseDelete() throws SQLSyntaxErrorException {
+		expect("DELETE");
+		accept("FROM");
+		TableReference table = new TableReference(parseQualifiedName(), parseAlias());
+		Expression where = accept("WHERE") ? parseCondition() : null;
+		return new Delete(table, where);
+	}
+
+	/**
+	 * @return the alias following <code>AS</code> or a name, <code>null</code> if there is none
+	 */
+	private String parseAlias() throws SQLSyntaxErrorException {
+		if (accept("AS")) {
+			return parseName();
+		}
+		return isName(peek()) && !isClauseKeyword(peek()) ? next().getText() : null;
+	}
+
+	/**
+	 * @return a name, e.g. of a column
+	 */
+	private String parseName() throws SQLSyntaxErrorException {
+		Token token = next();
+		if (!isName(token)) {
+			throw unexpected(token);
+		}
+		return token.getText();
+	}
+
+	/**
+	 * @return a name with optional qualifiers, e.g. <code>schema.table</code>, as written in the statement
+	 */
+	private String parseQualifiedName() throws SQLSyntaxErrorException {
+		Token first = peek();
+		Token last = first;
+		parseName();
+		while (acceptSymbol(".")) {
+			last = peek();
+			parseName();
+		}
+		return sql.substring(first.getPosition(), last.getEnd());
+	}
+
+	private static boolean isName(Token token) {
+		return token.getType() == Token.Type.QUOTED_IDENTIFIER
+				|| (token.getType() == Token.Type.IDENTIFIER && !RESERVED.contains(token.getText().toUpperCase()));
+	}
+
+	/**
+	 * Parses a condition: predicates combined with <code>AND</code>, <code>OR</code> and <code>NOT</code>.
+	 *
+	 * @return the condition
+	 * @throws SQLSyntaxErrorException
+	 *             if the tokens at the current position are no valid condition
+	 */
+	public Expression parseCondition() throws SQLSyntaxErrorException {
+		Expression left = parseAnd();
+		while (peek().isKeyword("OR")) {
+			next();
+			left = new Logical(false, left, parseAnd());
+		}
+		return left;
+	}
+
+	private Expression parseAnd() throws SQLSyntaxErrorException {
+		Expression left = parseNot();
+		while (peek().isKeyword("AND")) {
+			next();
+			left = new Logical(true, left, parseNot());
+		}
+		return left;
+	}
+
+	private Expression parseNot() throws SQLSyntaxErrorException {
+		if (peek().isKeyword("NOT")) {
+			next();
+			return new Not(parseNot());
+		}
+		return parsePredicate();
+	}
+
+	private Expression parsePredicate() throws SQLSyntaxErrorException {
+		Token first = peek();
+		Expression operand = parseOperand();
+
+		Token token = peek();
+		Comparison.Operator operator = token.getType() == Token.Type.SYMBOL ? Comparison.Operator
+				.fromSymbol(token.getText()) : null;
+		if (operator != null) {
+			next();
+			return new Comparison(operator, operand, parseOperand());
+		}
+
+		if (token.isKeyword("IS")) {
+			next();
+			boolean negated = accept("NOT");
+			expect("NULL");
+			return new IsNull(operand, negated);
+		}
+
+		boolean negated = false;
+		if (token.isKeyword("NOT")) {
+			next();
+			negated = true;
+			token = peek();
+		}
+		if (token.isKeyword("BETWEEN")) {
+			next();
+			Expression low = parseOperand();
+			expect("AND");
+			return new Between(operand, low, parseOperand(), negated);
+		}
+		if (token.isKeyword("IN")) {
+			next();
+			expectSymbol("(");
+			List<Expression> values = new ArrayList<>();
+			if (peek().isKeyword("SELECT")) {
+				values.add(new SubQuery(parseNestedSelect()));
+			} else {
+				do {
+					values.add(parseOperand());
+				} while (acceptSymbol(","));
+			}
+			expectSymbol(")");
+			return new InList(operand, values, negated);
+		}
+		if (token.isKeyword("LIKE")) {
+			next();
+			Expression pattern = parseOperand();
+			Character escape = null;
+			// {escape '...'} is the JDBC escape of the ESCAPE clause
+			boolean braces = peek().isSymbol("{") && peek(1).isKeyword("ESCAPE");
+			if (braces) {
+				next();
+			}
+			if (accept("ESCAPE")) {
+				Token escapeToken = next();
+				if (escapeToken.getType() != Token.Type.STRING || escapeToken.getText().length() != 1) {
+					throw unexpected(escapeToken);
+				}
+				escape = escapeToken.getText().charAt(0);
+			}
+			if (braces) {
+				expectSymbol("}");
+			}
+			return new Like(operand, pattern, escape, negated);
+		}
+		if (token.isKeyword("ILIKE")) {
+			next();
+			parseOperand();
+			return unparsed(first);
+		}
+		if (negated) {
+			throw unexpected(token);
+		}
+		return operand;
+	}
+
+	/**
+	 * Parses a value: column references, literals, parameters, function calls, subqueries and parenthesized conditions,
+	 * combined with <code>+</code>, <code>-</code>, <code>*</code>, <code>/</code>, <code>%</code> and <code>||</code>.
+	 *
+	 * @return the operand
+	 * @throws SQLSyntaxErrorException
+	 *             if the tokens at the current position are no valid operand
+	 */
+	public Expression parseOperand() throws SQLSyntaxErrorException {
+		Expression left = parseTerm();
+		while (peek().isSymbol("+") || peek().isSymbol("-") || peek().isSymbol("||")) {
+			String operator = next().getText();
+			left = new Arithmetic(operator, left, parseTerm());
+		}
+		return left;
+	}
+
+	private Expression parseTerm() throws SQLSyntaxErrorException {
+		Expression left = parsePostfix();
+		while (peek().isSymbol("*") || peek().isSymbol("/") || peek().isSymbol("%")) {
+			String operator = next().getText();
+			left = new Arithmetic(operator, left, parsePostfix());
+		}
+		return left;
+	}
+
+	/**
+	 * Parses a primary expression, followed by <code>::</code> casts and <code>COLLATE</code> which are skipped.
+	 */
+	private Expression parsePostfix() throws SQLSyntaxErrorException {
+		Token first = peek();
+		Expression expression = parsePrimary();
+		boolean skipped = false;
+		while (true) {
+			if (acceptSymbol("::")) {
+				parseQualifiedName();
+				if (acceptSymbol("(")) {
+					skipToClosingParenthesis();
+				}
+			} else if (accept("COLLATE")) {
+				parseQualifiedName();
+			} else {
+				return skipped ? unparsed(first) : expression;
+			}
+			skipped = true;
+		}
+	}
+
+	private Expression parsePrimary() throws SQLSyntaxErrorException {
+		Token token = next();
+		switch (token.getType()) {
+		case STRING:
+			return new Literal(token.getText());
+		case NUMBER:
+			return new Literal(parseNumber(token.getText(), false));
+		case QUOTED_IDENTIFIER:
+			return parseColumnReference(token);
+		case IDENTIFIER:
+			if (token.isKeyword("NULL")) {
+				return Literal.NULL;
+			}
+			if (RESERVED.contains(token.getText().toUpperCase())) {
+				throw unexpected(token);
+			}
+			if (token.isKeyword("CASE")) {
+				return parseCase(token);
+			}
+			if ((token.isKeyword("DATE") || token.isKeyword("TIME") || token.isKeyword("TIMESTAMP"))
+					&& peek().getType() == Token.Type.STRING) {
+				// A typed literal, the value is converted like a string
+				return new Literal(next().getText());
+			}
+			if (token.isKeyword("EXISTS") && acceptSymbol("(")) {
+				skipToClosingParenthesis();
+				return unparsed(token);
+			}
+			if (acceptSymbol("(")) {
+				return parseFunctionCall(token);
+			}
+			return parseColumnReference(token);
+		case SYMBOL:
+			if (token.isSymbol("(")) {
+				Expression expression = peek().isKeyword("SELECT") ? new SubQuery(parseNestedSelect())
+						: parseCondition();
+				expectSymbol(")");
+				return expression;
+			}
+			if (token.isSymbol("?")) {
+				return new Parameter(++parameterCount);
+			}
+			if (token.isSymbol("{")) {
+				return parseEscape();
+			}
+			if (token.isSymbol("-") && peek().getType() == Token.Type.NUMBER) {
+				return new Literal(parseNumber(next().getText(), true));
+			}
+			throw unexpected(token);
+		default:
+			throw unexpected(token);
+		}
+	}
+
+	/**
+	 * Parses the arguments of a function call, the opening parenthesis is already consumed. Calls with other arguments
+	 * than values, e.g. <code>CAST(a AS INT)</code>, and window functions are skipped.
+	 */
+	private Expression parseFunctionCall(Token name) throws SQLSyntaxErrorException {
+		boolean distinct = accept("DISTINCT");
+		List<Expression> arguments = new ArrayList<>();
+		if (acceptSymbol("*")) {
+			arguments.add(new AllColumns(null));
+		} else if (!peek().isSymbol(")")) {
+			do {
+				arguments.add(parseOperand());
+			} while (acceptSymbol(","));
+		}
+		if (!acceptSymbol(")")) {
+			skipToClosingParenthesis();
+			return unparsed(name);
+		}
+		if (peek().isKeyword("OVER") && peek(1).isSymbol("(")) {
+			next();
+			next();
+			skipToClosingParenthesis();
+			return unparsed(name);
+		}
+		return new FunctionCall(name.getText(), arguments, distinct);
+	}
+
+	/**
+	 * Parses the JDBC escape of a value, the opening brace is already consumed: <code>{d '...'}</code>,
+	 * <code>{t '...'}</code> and <code>{ts '...'}</code> become string literals, <code>{fn ...}</code> the function
+	 * call.
+	 */
+	private Expression parseEscape() throws SQLSyntaxErrorException {
+		Expression expression;
+		if (accept("FN")) {
+			expression = parsePrimary();
+		} else if ((peek().isKeyword("D") || peek().isKeyword("T") || peek().isKeyword("TS"))
+				&& peek(1).getType() == Token.Type.STRING) {
+			next();
+			expression = new Literal(next().getText());
+		} else {
+			throw unexpected(peek());
+		}
+		expectSymbol("}");
+		return expression;
+	}
+
+	/**
+	 * Skips a <code>CASE</code> expression up to its <code>END</code>, <code>CASE</code> is already consumed.
+	 */
+	private Expression parseCase(Token first) throws SQLSyntaxErrorException {
+		int depth = 0;
+		while (true) {
+			Token token = skip();
+			if (token.isKeyword("CASE")) {
+				depth++;
+			} else if (token.isKeyword("END")) {
+				if (depth == 0) {
+					return unparsed(first);
+				}
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Skips the tokens up to the closing parenthesis, which is consumed. The opening parenthesis is already consumed.
+	 */
+	private void skipToClosingParenthesis() throws SQLSyntaxErrorException {
+		int depth = 0;
+		while (true) {
+			Token token = skip();
+			if (token.isSymbol("(")) {
+				depth++;
+			} else if (token.isSymbol(")")) {
+				if (depth == 0) {
+					return;
+				}
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Consumes a skipped token. Parameter markers are counted, so the following ones keep their numbers.
+	 */
+	private Token skip() throws SQLSyntaxErrorException {
+		Token token = next();
+		if (token.getType() == Token.Type.EOF) {
+			throw unexpected(token);
+		}
+		if (token.isSymbol("?")) {
+			parameterCount++;
+		}
+		return token;
+	}
+
+	/**
+	 * @return the skipped expression from <code>first</code> up to the last consumed token
+	 */
+	private Unparsed unparsed(Token first) {
+		return new Unparsed(sql.substring(first.getPosition(), tokens.get(position - 1).getEnd()));
+	}
+
+	private Expression parseColumnReference(Token first) throws SQLSyntaxErrorException {
+		if (acceptSymbol(".")) {
+			Token name = next();
+			if (name.getType() != Token.Type.IDENTIFIER && name.getType() != Token.Type.QUOTED_IDENTIFIER) {
+				throw unexpected(name);
+			}
+			return new ColumnReference(first.getText(), name.getText());
+		}
+		return new ColumnReference(null, first.getText());
+	}
+
+	private static Object parseNumber(String text, boolean negative) {
+		String value = negative ? "-" + text : text;
+		if (text.indexOf('.') == -1 && text.indexOf('e') == -1 && text.indexOf('E') == -1) {
+			try {
+				return Long.valueOf(value);
+			} catch (NumberFormatException e) {
+				// Too large for a long
+			}
+		}
+		return Double.valueOf(value);
+	}
+
+	private static boolean isSetOperator(Token token) {
+		return token.isKeyword("UNION") || token.isKeyword("EXCEPT") || token.isKeyword("INTERSECT");
+	}
+
+	private static boolean isSelectModifier(Token token) {
+		return token.getType() == Token.Type.IDENTIFIER && SELECT_MODIFIERS.contains(token.getText().toUpperCase());
+	}
+
+	private static boolean isClauseKeyword(Token token) {
+		return token.getType() == Token.Type.IDENTIFIER && CLAUSE_KEYWORDS.contains(token.getText().toUpperCase());
+	}
+
+	/**
+	 * @return the current token, without consuming it
+	 */
+	Token peek() {
+		return tokens.get(position);
+	}
+
+	/**
+	 * @return the token <code>offset</code> positions after the current one, without consuming it
+	 */
+	private Token peek(int offset) {
+		return tokens.get(Math.min(position + offset, tokens.size() - 1));
+	}
+
+	/**
+	 * @return the current token, which is consumed. The last token (EOF) is never consumed.
+	 */
+	Token next() {
+		Token token = tokens.get(position);
+		if (token.getType() != Token.Type.EOF) {
+			position++;
+		}
+		return token;
+	}
+
+	private boolean accept(String keyword) {
+		if (peek().isKeyword(keyword)) {
+			next();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean acceptSymbol(String symbol) {
+		if (peek().isSymbol(symbol)) {
+			next();
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(String keyword) throws SQLSyntaxErrorException {
+		if (!accept(keyword)) {
+			throw unexpected(peek(), keyword);
+		}
+	}
+
+	private void expectSymbol(String symbol) throws SQLSyntaxErrorException {
+		if (!acceptSymbol(symbol)) {
+			throw unexpected(peek(), "'" + symbol + "'");
+		}
+	}
+
+	private SQLSyntaxErrorException unexpected(Token token) {
+		errorToken = token;
+		String message = MessageFormat.format("Unexpected {0} at position {1}", token,
+				String.valueOf(token.getPosition()));
+		return new SQLSyntaxErrorException(message);
+	}
+
+	private SQLSyntaxErrorException unexpected(Token token, String expected) {
+		errorToken = token;
+		String message = MessageFormat.format("Expected {0} but found {1} at position {2}", expected, token,
+				String.valueOf(token.getPosition()));
+		return new SQLSyntaxErrorException(message);
+	}
+}
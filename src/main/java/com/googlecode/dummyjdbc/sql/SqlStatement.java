@@ -0,0 +1,13 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A parsed SQL statement, created by {@link SqlParser#parse(String)}. Statements are immutable like
+ * {@link Expression}s.
+ *
+ * @author Kai Winter
+ */
+public abstract class SqlStatement {
+
+	SqlStatement() {
+	}
+}
@@ -0,0 +1,159 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.sql.SQLSyntaxErrorException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an SQL statement into {@link Token}s in a single pass over the characters. Whitespace and comments
+ * (<code>-- ...</code> and <code>/* ... *&#47;</code>) are skipped.
+ *
+ * @author Kai Winter
+ */
+public final class SqlTokenizer {
+
+	/** Symbols of two characters, they are matched before single characters. */
+	private static final String[] TWO_CHAR_SYMBOLS = { "<>", "<=", ">=", "!=", "||", "::" };
+
+	/**
+	 * Tokenizes the given statement.
+	 *
+	 * @param sql
+	 *            the SQL statement.
+	 * @return the tokens, the last one being of type {@link Token.Type#EOF}
+	 * @throws SQLSyntaxErrorException
+	 *             if the statement contains an unterminated literal or comment
+	 */
+	public static List<Token> tokenize(String sql) throws SQLSyntaxErrorException {
+		List<Token> tokens = new ArrayList<>();
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				i = skipLine(sql, i);
+			} else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				i = skipComment(sql, i);
+			} else if (c == '\'') {
+				i = readString(sql, i, tokens);
+			} else if (c == '"' || c == '`') {
+				i = readQuotedIdentifier(sql, i, c, tokens);
+			} else if (c == '[') {
+				i = readQuotedIdentifier(sql, i, ']', tokens);
+			} else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+				i = readNumber(sql, i, tokens);
+			} else if (Character.isLetter(c) || c == '_' || c == '$' || c == '@' || c == '#') {
+				int start = i;
+				while (i < length && isIdentifierPart(sql.charAt(i))) {
+					i++;
+				}
+				tokens.add(new Token(Token.Type.IDENTIFIER, sql.substring(start, i), start, i));
+			} else {
+				i = readSymbol(sql, i, tokens);
+			}
+		}
+		tokens.add(new Token(Token.Type.EOF, "", length, length));
+		return tokens;
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@' || c == '#';
+	}
+
+	private static int skipLine(String sql, int start) {
+		int end = sql.indexOf('\n', start);
+		return end == -1 ? sql.length() : end + 1;
+	}
+
+	private static int skipComment(String sql, int start) throws SQLSyntaxErrorException {
+		int end = sql.indexOf("*/", start + 2);
+		if (end == -1) {
+			throw syntaxError("Unterminated comment", start);
+		}
+		return end + 2;
+	}
+
+	private static int readString(String sql, int start, List<Token> tokens) throws SQLSyntaxErrorException {
+		StringBuilder value = new StringBuilder();
+		int i = start + 1;
+		while (i < sql.length()) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+					value.append('\'');
+					i += 2;
+					continue;
+				}
+				tokens.add(new Token(Token.Type.STRING, value.toString(), start, i + 1));
+				return i + 1;
+			}
+			value.append(c);
+			i++;
+		}
+		throw syntaxError("Unterminated string literal", start);
+	}
+
+	private static int readQuotedIdentifier(String sql, int start, char closingQuote, List<Token> tokens)
+			throws SQLSyntaxErrorException {
+		int end = sql.indexOf(closingQuote, start + 1);
+		if (end == -1) {
+			throw syntaxError("Unterminated quoted identifier", start);
+		}
+		tokens.add(new Token(Token.Type.QUOTED_IDENTIFIER, sql.substring(start + 1, end), start, end + 1));
+		return end + 1;
+	}
+
+	private static int readNumber(String sql, int start, List<Token> tokens) {
+		int length = sql.length();
+		int i = start;
+		while (i < length && Character.isDigit(sql.charAt(i))) {
+			i++;
+		}
+		if (i < length && sql.charAt(i) == '.') {
+			i++;
+			while (i < length && Character.isDigit(sql.charAt(i))) {
+				i++;
+			}
+		}
+		if (i + 1 < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+			int exponent = i + 1;
+			if (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-') {
+				exponent++;
+			}
+			if (exponent < length && Character.isDigit(sql.charAt(exponent))) {
+				i = exponent;
+				while (i < length && Character.isDigit(sql.charAt(i))) {
+					i++;
+				}
+			}
+		}
+		tokens.add(new Token(Token.Type.NUMBER, sql.substring(start, i), start, i));
+		return i;
+	}
+
+	/** Any other character is a symbol of its own, the parser reports it if it is not expected. */
+	private static int readSymbol(String sql, int start, List<Token> tokens) {
+		if (start + 1 < sql.length()) {
+			String twoChars = sql.substring(start, start + 2);
+			for (String symbol : TWO_CHAR_SYMBOLS) {
+				if (symbol.equals(twoChars)) {
+					tokens.add(new Token(Token.Type.SYMBOL, symbol, start, start + 2));
+					return start + 2;
+				}
+			}
+		}
+		tokens.add(new Token(Token.Type.SYMBOL, String.valueOf(sql.charAt(start)), start, start + 1));
+		return start + 1;
+	}
+
+	private static SQLSyntaxErrorException syntaxError(String message, int position) {
+		String text = MessageFormat.format("{0} at position {1}", message, String.valueOf(position));
+		return new SQLSyntaxErrorException(text);
+	}
+
+	private SqlTokenizer() {
+	}
+}
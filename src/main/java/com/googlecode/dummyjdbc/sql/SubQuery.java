@@ -0,0 +1,33 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A {@link Select} in parentheses used as a value, e.g. in a select list or an IN list.
+ *
+ * @author Kai Winter
+ */
+public final class SubQuery extends Expression {
+
+	private final Select select;
+
+	/**
+	 * Constructs a new {@link SubQuery}.
+	 *
+	 * @param select
+	 *            the query.
+	 */
+	public SubQuery(Select select) {
+		this.select = select;
+	}
+
+	/**
+	 * @return the query
+	 */
+	public Select getSelect() {
+		return select;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + select + ")";
+	}
+}
@@ -0,0 +1,70 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A table in a FROM clause: a table name or a subquery in parentheses, with an optional alias.
+ *
+ * @author Kai Winter
+ */
+public final class TableReference {
+
+	private final String name;
+	private final Select subquery;
+	private final String alias;
+
+	/**
+	 * Constructs a new {@link TableReference} to a named table.
+	 *
+	 * @param name
+	 *            the name of the table as written in the statement, including schema and quotes.
+	 * @param alias
+	 *            the alias, may be <code>null</code>.
+	 */
+	public TableReference(String name, String alias) {
+		this(name, null, alias);
+	}
+
+	/**
+	 * Constructs a new {@link TableReference} to a subquery.
+	 *
+	 * @param subquery
+	 *            the {@link Select} in parentheses.
+	 * @param alias
+	 *            the alias, may be <code>null</code>.
+	 */
+	public TableReference(Select subquery, String alias) {
+		this(null, subquery, alias);
+	}
+
+	private TableReference(String name, Select subquery, String alias) {
+		this.name = name;
+		this.subquery = subquery;
+		this.alias = alias;
+	}
+
+	/**
+	 * @return the name of the table as written in the statement or <code>null</code> for a subquery
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the subquery or <code>null</code> for a named table
+	 */
+	public Select getSubquery() {
+		return subquery;
+	}
+
+	/**
+	 * @return the alias or <code>null</code>
+	 */
+	public String getAlias() {
+		return alias;
+	}
+
+	@Override
+	public String toString() {
+		String table = name == null ? "(" + subquery + ")" : name;
+		return alias == null ? table : table + " " + alias;
+	}
+}
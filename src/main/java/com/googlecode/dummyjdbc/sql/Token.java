@@ -0,0 +1,102 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * A token of an SQL statement, created by the {@link SqlTokenizer}.
+ *
+ * @author Kai Winter
+ */
+public final class Token {
+
+	/**
+	 * The kinds of tokens.
+	 */
+	public enum Type {
+		/** A name or a keyword, keywords are not distinguished by the tokenizer. */
+		IDENTIFIER,
+		/** A name in double quotes, back ticks or square brackets, never a keyword. */
+		QUOTED_IDENTIFIER,
+		/** A string literal in single quotes, the text is unescaped. */
+		STRING,
+		/** A numeric literal. */
+		NUMBER,
+		/** An operator or a punctuation character. */
+		SYMBOL,
+		/** The end of the statement. */
+		EOF
+	}
+
+	private final Type type;
+	private final String text;
+	private final int position;
+	private final int end;
+
+	/**
+	 * Constructs a new {@link Token}.
+	 *
+	 * @param type
+	 *            the {@link Type} of the token.
+	 * @param text
+	 *            the text of the token, without quotes.
+	 * @param position
+	 *            the index of the first character of the token in the statement.
+	 * @param end
+	 *            the index after the last character of the token in the statement.
+	 */
+	public Token(Type type, String text, int position, int end) {
+		this.type = type;
+		this.text = text;
+		this.position = position;
+		this.end = end;
+	}
+
+	/**
+	 * @return the {@link Type} of the token
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the text of the token, without quotes
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return the index of the first character of the token in the statement
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the index after the last character of the token in the statement
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @param keyword
+	 *            the keyword in upper case.
+	 * @return <code>true</code> if this is an unquoted identifier matching the keyword case-insensitively
+	 */
+	public boolean isKeyword(String keyword) {
+		return type == Type.IDENTIFIER && text.equalsIgnoreCase(keyword);
+	}
+
+	/**
+	 * @param symbol
+	 *            the symbol.
+	 * @return <code>true</code> if this is the given symbol
+	 */
+	public boolean isSymbol(String symbol) {
+		return type == Type.SYMBOL && text.equals(symbol);
+	}
+
+	@Override
+	public String toString() {
+		return type == Type.EOF ? "end of statement" : "'" + text + "'";
+	}
+}
@@ -0,0 +1,127 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SELECT statements combined with <code>UNION</code>, <code>EXCEPT</code> or <code>INTERSECT</code>, each optionally
+ * with <code>ALL</code>. The ORDER BY, LIMIT and OFFSET following the last SELECT belong to the union, not to the last
+ * SELECT.
+ *
+ * @author Kai Winter
+ */
+public final class Union extends SqlStatement {
+
+	/**
+	 * The operators combining two SELECTs.
+	 */
+	public enum Operator {
+		/** The rows of both SELECTs. */
+		UNION,
+		/** The rows of the first SELECT which are not in the second. */
+		EXCEPT,
+		/** The rows of the first SELECT which are also in the second. */
+		INTERSECT
+	}
+
+	private final List<Select> selects;
+	private final List<Operator> operators;
+	private final List<Boolean> all;
+	private final List<OrderItem> orderBy;
+	private final Expression limit;
+	private final Expression offset;
+
+	/**
+	 * Constructs a new {@link Union}.
+	 *
+	 * @param selects
+	 *            the combined SELECT statements, at least two.
+	 * @param operators
+	 *            for each SELECT but the first: the operator combining it with the SELECTs before it.
+	 * @param all
+	 *            for each SELECT but the first: <code>true</code> if the operator is followed by <code>ALL</code>.
+	 * @param orderBy
+	 *            the items of the ORDER BY clause, empty if there is none.
+	 * @param limit
+	 *            the maximum number of rows, may be <code>null</code>.
+	 * @param offset
+	 *            the number of rows to skip, may be <code>null</code>.
+	 */
+	public Union(List<Select> selects, List<Operator> operators, List<Boolean> all, List<OrderItem> orderBy,
+			Expression limit, Expression offset) {
+		this.selects = Collections.unmodifiableList(new ArrayList<>(selects));
+		this.operators = Collections.unmodifiableList(new ArrayList<>(operators));
+		this.all = Collections.unmodifiableList(new ArrayList<>(all));
+		this.orderBy = Collections.unmodifiableList(orderBy);
+		this.limit = limit;
+		this.offset = offset;
+	}
+
+	/**
+	 * @return the combined SELECT statements
+	 */
+	public List<Select> getSelects() {
+		return selects;
+	}
+
+	/**
+	 * @param index
+	 *            the index of a SELECT, starting at 1.
+	 * @return the operator combining the SELECT with the SELECTs before it
+	 */
+	public Operator getOperator(int index) {
+		return operators.get(index - 1);
+	}
+
+	/**
+	 * @param index
+	 *            the index of a SELECT, starting at 1.
+	 * @return <code>true</code> if the SELECT is combined with <code>ALL</code>, e.g. <code>UNION ALL</code>
+	 */
+	public boolean isAll(int index) {
+		return all.get(index - 1);
+	}
+
+	/**
+	 * @return the items of the ORDER BY clause, empty if there is none
+	 */
+	public List<OrderItem> getOrderBy() {
+		return orderBy;
+	}
+
+	/**
+	 * @return the maximum number of rows or <code>null</code>
+	 */
+	public Expression getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the number of rows to skip or <code>null</code>
+	 */
+	public Expression getOffset() {
+		return offset;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < selects.size(); i++) {
+			if (i > 0) {
+				builder.append(' ').append(getOperator(i)).append(isAll(i) ? " ALL " : " ");
+			}
+			builder.append(selects.get(i));
+		}
+		for (int i = 0; i < orderBy.size(); i++) {
+			builder.append(i == 0 ? " ORDER BY " : ", ").append(orderBy.get(i));
+		}
+		if (limit != null) {
+			builder.append(" LIMIT ").append(limit);
+		}
+		if (offset != null) {
+			builder.append(" OFFSET ").append(offset);
+		}
+		return builder.toString();
+	}
+}
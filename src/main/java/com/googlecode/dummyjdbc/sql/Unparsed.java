@@ -0,0 +1,35 @@
+package com.googlecode.dummyjdbc.sql;
+
+/**
+ * An expression which is skipped by the parser, e.g. <code>CASE</code>, <code>CAST(a AS VARCHAR(10))</code> or
+ * <code>EXISTS (SELECT ...)</code>. It is kept as written in the statement, queries using it are executed like queries
+ * with other unsupported expressions.
+ *
+ * @author Kai Winter
+ */
+public final class Unparsed extends Expression {
+
+	private final String text;
+
+	/**
+	 * Constructs a new {@link Unparsed}.
+	 *
+	 * @param text
+	 *            the expression as written in the statement.
+	 */
+	public Unparsed(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * @return the expression as written in the statement
+	 */
+	public String getText() {
+		return text;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
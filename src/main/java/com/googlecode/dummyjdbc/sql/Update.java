@@ -0,0 +1,58 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An UPDATE statement.
+ *
+ * @author Kai Winter
+ */
+public final class Update extends SqlStatement {
+
+	private final TableReference table;
+	private final List<Assignment> assignments;
+	private final Expression where;
+
+	/**
+	 * Constructs a new {@link Update}.
+	 *
+	 * @param table
+	 *            the updated table.
+	 * @param assignments
+	 *            the assignments of the SET clause.
+	 * @param where
+	 *            the condition of the WHERE clause, may be <code>null</code>.
+	 */
+	public Update(TableReference table, List<Assignment> assignments, Expression where) {
+		this.table = table;
+		this.assignments = Collections.unmodifiableList(assignments);
+		this.where = where;
+	}
+
+	/**
+	 * @return the updated table
+	 */
+	public TableReference getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the assignments of the SET clause
+	 */
+	public List<Assignment> getAssignments() {
+		return assignments;
+	}
+
+	/**
+	 * @return the condition of the WHERE clause or <code>null</code>
+	 */
+	public Expression getWhere() {
+		return where;
+	}
+
+	@Override
+	public String toString() {
+		return "UPDATE " + table + " SET " + assignments + (where == null ? "" : " WHERE " + where);
+	}
+}
@@ -1,14 +1,27 @@
 package com.googlecode.dummyjdbc.statement.impl;
 
 import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
 import java.util.Map;
 
+import com.googlecode.dummyjdbc.query.ParameterBatch;
+import com.googlecode.dummyjdbc.query.Parameters;
+import com.googlecode.dummyjdbc.query.PlanCache;
+import com.googlecode.dummyjdbc.query.QueryPlan;
 import com.googlecode.dummyjdbc.statement.PreparedStatementAdapter;
+import com.googlecode.dummyjdbc.table.LoadOptions;
 
 /**
- * Wraps the {@link CsvStatement} as a prepared statement.
+ * Wraps the {@link CsvStatement} as a prepared statement. The statement is parsed once when it is prepared, executing
+ * it only executes its {@link QueryPlan} with the values of the parameters. A statement constructed without a
+ * {@link Session} is parsed when it is first used. The parameter sets of a batch are
+ * collected in a {@link ParameterBatch} and applied to the table at once.
  *
  * @author Kai Winter
  */
@@ -16,24 +29,88 @@ public class CsvPreparedStatement extends PreparedStatementAdapter {
 
 	private final CsvStatement statement;
 	private final String sql;
+	private QueryPlan plan;
+	private Parameters parameters;
+	private ParameterBatch batch;
 
 	private ResultSet currentResultSet;
 
+	private int updateCount = -1;
+
 	/**
 	 * Constructs a new {@link CsvPreparedStatement}.
 	 *
 	 * @param tableResources {@link Map} of table name to CSV file.
 	 * @param sql
-	 *            the SQL statement.
+	 *            the SQL statement, it is parsed when the statement is first used.
 	 */
 	public CsvPreparedStatement(Map<String, File> tableResources, String sql) {
-		this.statement = new CsvStatement(tableResources);
+		this.statement = new CsvStatement(tableResources, LoadOptions.DEFAULT, new Session());
+		this.sql = sql;
+	}
+
+	/**
+	 * Constructs a new {@link CsvPreparedStatement}.
+	 *
+	 * @param tableResources {@link Map} of table name to CSV file.
+	 * @param sql
+	 *            the SQL statement.
+	 * @param loadOptions
+	 *            the {@link LoadOptions} used to read the CSV files.
+	 * @throws SQLException
+	 *             if the statement is invalid
+	 */
+	public CsvPreparedStatement(Map<String, File> tableResources, String sql, LoadOptions loadOptions)
+			throws SQLException {
+		this(tableResources, sql, loadOptions, new Session());
+	}
+
+	/**
+	 * Constructs a new {@link CsvPreparedStatement}.
+	 *
+	 * @param tableResources {@link Map} of table name to CSV file.
+	 * @param sql
+	 *            the SQL statement.
+	 * @param loadOptions
+	 *            the {@link LoadOptions} used to read the CSV files.
+	 * @param session
+	 *            the {@link Session} of the connection.
+	 * @throws SQLException
+	 *             if the statement is invalid
+	 */
+	public CsvPreparedStatement(Map<String, File> tableResources, String sql, LoadOptions loadOptions,
+			Session session) throws SQLException {
+		this.statement = new CsvStatement(tableResources, loadOptions, session);
 		this.sql = sql;
+		getPlan();
+	}
+
+	/**
+	 * @return the {@link QueryPlan} of the statement, which is parsed on the first call
+	 */
+	private QueryPlan getPlan() throws SQLException {
+		if (plan == null) {
+			QueryPlan prepared = PlanCache.getInstance().get(sql);
+			parameters = new Parameters(prepared.getParameterCount());
+			batch = new ParameterBatch(prepared.getParameterCount());
+			plan = prepared;
+		}
+		return plan;
+	}
+
+	private Parameters getParameters() throws SQLException {
+		getPlan();
+		return parameters;
+	}
+
+	private ParameterBatch getBatch() throws SQLException {
+		getPlan();
+		return batch;
 	}
 
 	@Override
 	public ResultSet executeQuery() throws SQLException {
-		return (currentResultSet = statement.executeQuery(sql));
+		return (currentResultSet = statement.executeQuery(getPlan(), getParameters()));
 	}
 
 	@Override
@@ -41,16 +118,36 @@ public class CsvPreparedStatement extends PreparedStatementAdapter {
 		return (currentResultSet = statement.executeQuery(sql));
 	}
 
+	@Override
+	public int executeUpdate() throws SQLException {
+		currentResultSet = null;
+		return statement.executeUpdate(getPlan(), getParameters());
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		currentResultSet = null;
+		return statement.executeUpdate(sql);
+	}
+
 	@Override
 	public boolean execute() throws SQLException {
-		currentResultSet = statement.executeQuery(sql);
+		if (getPlan().getKind() == QueryPlan.Kind.MODIFICATION) {
+			currentResultSet = null;
+			updateCount = statement.executeUpdate(getPlan(), getParameters());
+			return false;
+		}
+		currentResultSet = statement.executeQuery(getPlan(), getParameters());
+		updateCount = -1;
 		return true;
 	}
 
 	@Override
 	public boolean execute(String sql) throws SQLException {
-		currentResultSet = statement.executeQuery(sql);
-		return true;
+		boolean result = statement.execute(sql);
+		currentResultSet = statement.getResultSet();
+		updateCount = statement.getUpdateCount();
+		return result;
 	}
 
 	@Override
@@ -68,8 +165,162 @@ public class CsvPreparedStatement extends PreparedStatementAdapter {
 		return execute(sql);
 	}
 
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		getParameters().set(parameterIndex, null);
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		getParameters().set(parameterIndex, Boolean.valueOf(x));
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		getParameters().set(parameterIndex, Long.valueOf(x));
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		getParameters().set(parameterIndex, Long.valueOf(x));
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		getParameters().set(parameterIndex, Long.valueOf(x));
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		getParameters().set(parameterIndex, Long.valueOf(x));
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		getParameters().set(parameterIndex, Double.valueOf(x));
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		getParameters().set(parameterIndex, Double.valueOf(x));
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		getParameters().set(parameterIndex, x);
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		getParameters().set(parameterIndex, x);
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) throws SQLException {
+		getParameters().set(parameterIndex, value);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x) throws SQLException {
+		getParameters().set(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x) throws SQLException {
+		getParameters().set(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+		getParameters().set(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		getParameters().set(parameterIndex, x);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		setNull(parameterIndex, sqlType);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+		setDate(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+		setTime(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+		setTimestamp(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		setObject(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		setObject(parameterIndex, x);
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		getParameters().clear();
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		getBatch().add(getParameters());
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		getBatch().clear();
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		try {
+			return statement.executeBatch(getPlan(), getBatch());
+		} finally {
+			getBatch().clear();
+		}
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		statement.setFetchSize(rows);
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return statement.getFetchSize();
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		statement.setMaxRows(max);
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		return statement.getMaxRows();
+	}
+
 	@Override
 	public ResultSet getResultSet() throws SQLException {
 		return currentResultSet;
 	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return updateCount;
+	}
 }
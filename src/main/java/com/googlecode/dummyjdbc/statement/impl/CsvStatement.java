@@ -1,37 +1,57 @@
 package com.googlecode.dummyjdbc.statement.impl;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.security.CodeSource;
+import java.sql.BatchUpdateException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.googlecode.dummyjdbc.query.ParameterBatch;
+import com.googlecode.dummyjdbc.query.Parameters;
+import com.googlecode.dummyjdbc.query.PlanCache;
+import com.googlecode.dummyjdbc.query.QueryPlan;
+import com.googlecode.dummyjdbc.query.UpdateResult;
 import com.googlecode.dummyjdbc.resultset.DummyResultSet;
 import com.googlecode.dummyjdbc.resultset.impl.CSVResultSet;
 import com.googlecode.dummyjdbc.statement.StatementAdapter;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
-import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.table.CsvTableLoader;
+import com.googlecode.dummyjdbc.table.LoadOptions;
+import com.googlecode.dummyjdbc.table.Table;
+import com.googlecode.dummyjdbc.table.TableCache;
+import com.googlecode.dummyjdbc.table.TableStore;
+import com.googlecode.dummyjdbc.table.TableStream;
+import com.googlecode.dummyjdbc.table.Transaction;
 
 /**
- * This class does the actual work of the Generic... classes. It tries to open a CSV file for the table name in the
- * query and parses the contained data.
+ * This class does the actual work of the Generic... classes. It looks up the plan of the statement in the
+ * {@link PlanCache}, tries to open a CSV file for the table name in the query and parses the contained data. Only the
+ * rows matching the WHERE clause and the selected columns are returned. If a fetch size is set and the table is not
+ * cached, the file is parsed while the {@link ResultSet} is iterated. The CSV files of joined tables and of the
+ * SELECTs of a UNION are looked up the same way and loaded completely.
+ *
+ * <p>
+ * INSERT, UPDATE and DELETE modify the table in memory, the CSV file is not changed. Each modification replaces the
+ * table in the {@link TableStore} with a new version, queries which are executed meanwhile keep reading the version
+ * they started with. Modifications of the same table are serialized. A batch creates a single new version. If
+ * persistence is enabled, the modifications are logged next to the CSV file, see
+ * {@link com.googlecode.dummyjdbc.table.PersistenceOptions}.
+ * </p>
+ *
+ * <p>
+ * If the {@link Session} of the statement is not in auto-commit mode, queries read the tables of its
+ * {@link Transaction} and modifications are kept in the transaction until it is committed.
+ * </p>
  *
  * @author Kai Winter
  */
@@ -39,16 +59,19 @@ public final class CsvStatement extends StatementAdapter {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(CsvStatement.class);
 
-	/** Pattern to get table name from an SQL statement. */
-	private static final Pattern TABLENAME_PATTERN = Pattern.compile(".*from (\\S*)\\s?.*", Pattern.CASE_INSENSITIVE);
+    private final Map<String, File> tableResources;
 
-	/** Pattern to get the name of a stored procedure from an SQL statement. */
-	private static final Pattern STORED_PROCEDURE_PATTERN = Pattern.compile(".*(EXEC|EXECUTE) (\\S*)\\s?.*",
-			Pattern.CASE_INSENSITIVE);
+	private final LoadOptions loadOptions;
 
-	private static final Pattern PURE_SELECT_PATTERN = Pattern.compile("select .*", Pattern.CASE_INSENSITIVE);
+	private final Session session;
 
-    private final Map<String, File> tableResources;
+	private int fetchSize;
+
+	private int maxRows;
+
+	private ResultSet currentResultSet;
+
+	private int updateCount = -1;
 
 	/**
 	 * Constructs a new {@link CsvStatement}.
@@ -57,143 +80,397 @@ public final class CsvStatement extends StatementAdapter {
 	 *            {@link Map} of table name to CSV file.
 	 */
 	public CsvStatement(Map<String, File> tableResources) {
+		this(tableResources, LoadOptions.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new {@link CsvStatement}.
+	 *
+	 * @param tableResources
+	 *            {@link Map} of table name to CSV file.
+	 * @param loadOptions
+	 *            the {@link LoadOptions} used to read the CSV files.
+	 */
+	public CsvStatement(Map<String, File> tableResources, LoadOptions loadOptions) {
+		this(tableResources, loadOptions, new Session());
+	}
+
+	/**
+	 * Constructs a new {@link CsvStatement}.
+	 *
+	 * @param tableResources
+	 *            {@link Map} of table name to CSV file.
+	 * @param loadOptions
+	 *            the {@link LoadOptions} used to read the CSV files.
+	 * @param session
+	 *            the {@link Session} of the connection.
+	 */
+	public CsvStatement(Map<String, File> tableResources, LoadOptions loadOptions, Session session) {
 		this.tableResources = tableResources;
+		this.loadOptions = loadOptions;
+		this.session = session;
 	}
 
 	@Override
 	public ResultSet executeQuery(String sql) throws SQLException {
+		return executeQuery(PlanCache.getInstance().get(sql), null);
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		return executeUpdate(PlanCache.getInstance().get(sql), null);
+	}
 
-		// Try to interpret SQL as a SELECT on a table
-		Matcher tableMatcher = TABLENAME_PATTERN.matcher(sql);
-		if (tableMatcher.matches()) {
-			String tableName = tableMatcher.group(1);
-			return createResultSet(tableName);
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		QueryPlan plan = PlanCache.getInstance().get(sql);
+		if (plan.getKind() == QueryPlan.Kind.MODIFICATION) {
+			currentResultSet = null;
+			updateCount = executeUpdate(plan, null);
+			return false;
+		}
+		currentResultSet = executeQuery(plan, null);
+		updateCount = -1;
+		return true;
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		return currentResultSet;
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return updateCount;
+	}
+
+	/**
+	 * Executes the plan of a statement.
+	 *
+	 * @param plan
+	 *            the {@link QueryPlan}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return the {@link ResultSet}
+	 * @throws SQLException
+	 *             if the query does not match the table or a parameter has no value
+	 */
+	ResultSet executeQuery(QueryPlan plan, Parameters parameters) throws SQLException {
+		switch (plan.getKind()) {
+		case TABLE:
+			return createResultSet(plan, parameters);
+		case UNION:
+			return createUnionResultSet(plan, parameters);
+		case PURE_SELECT:
+			return createPureResultSet();
+		case MODIFICATION:
+			executeUpdate(plan, parameters);
+			return new DummyResultSet();
+		default:
+			return new DummyResultSet();
 		}
+	}
 
-		// Try to interpret SQL as call of a stored procedure
-		Matcher storedProcedureMatcher = STORED_PROCEDURE_PATTERN.matcher(sql);
-		if (storedProcedureMatcher.matches()) {
-			String storedProcedureName = storedProcedureMatcher.group(2);
-			return createResultSet(storedProcedureName);
+	/**
+	 * Executes the plan of an INSERT, UPDATE or DELETE. Other statements are executed as queries and return 0.
+	 *
+	 * @param plan
+	 *            the {@link QueryPlan}.
+	 * @param parameters
+	 *            the values of the parameter markers, may be <code>null</code> if the statement has none.
+	 * @return the number of inserted, updated or deleted rows
+	 * @throws SQLException
+	 *             if the statement does not match the table, a parameter has no value or a value does not match the
+	 *             type of its column
+	 */
+	int executeUpdate(final QueryPlan plan, final Parameters parameters) throws SQLException {
+		if (plan.getKind() != QueryPlan.Kind.MODIFICATION) {
+			executeQuery(plan, parameters);
+			return 0;
+		}
+		File resource = findResource(plan.getTableKey(), plan.getTableName());
+		if (resource == null) {
+			return 0;
+		}
+		try {
+			Table queryResult = null;
+			QueryPlan query = plan.getInsertQuery();
+			if (query != null) {
+				List<Table> tables = loadTables(query);
+				if (tables == null) {
+					return 0;
+				}
+				queryResult = query.select(tables, parameters);
+			}
+			final Table selected = queryResult;
+			return modify(plan.getTableName(), resource, new Change() {
+				@Override
+				public UpdateResult apply(Table table) throws SQLException {
+					return plan.executeUpdate(table, selected, parameters);
+				}
+			}).getUpdateCount();
+		} catch (FileNotFoundException e) {
+			LOGGER.info("No table definition found: {}, the statement has no effect.", e.getMessage());
+		} catch (IOException e) {
+			LOGGER.error("Error while reading data from CSV", e);
 		}
+		return 0;
+	}
 
-        //  Try  to  interpret  SQL  as  a  pure  select
-		Matcher  pureSelectMatcher  =  PURE_SELECT_PATTERN.matcher(sql);
-		if  (pureSelectMatcher.matches())  {
-			return  createPureResultSet();
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		if (rows < 0) {
+			throw new SQLException("Fetch size must not be negative: " + rows);
 		}
+		fetchSize = rows;
+	}
 
-        return new DummyResultSet();
+	@Override
+	public int getFetchSize() throws SQLException {
+		return fetchSize;
 	}
 
-	private ResultSet createResultSet(String tableName) {
-		// Does a text file for the dummy table exist?
-		File resource = tableResources.get(tableName.toLowerCase());
-		if (resource == null) {
-			// Try to load a file from the ./tables/ directory
-			CodeSource src = CsvStatement.class.getProtectionDomain().getCodeSource();
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		if (max < 0) {
+			throw new SQLException("Max rows must not be negative: " + max);
+		}
+		maxRows = max;
+	}
 
-			String path = src.getLocation().getPath();
-			path = path.substring(0, path.lastIndexOf("/"));
-			try {
-				URL url = CsvStatement.class.getResource("/tables/" + tableName.toLowerCase() + ".csv");
-				if (url == null) {
-					LOGGER.info("No table definition found for '{}', using DummyResultSet.", tableName);
-					return new DummyResultSet();
-				} else {
-					resource = new File(url.toURI());
+	@Override
+	public int getMaxRows() throws SQLException {
+		return maxRows;
+	}
+
+	/**
+	 * Executes the plan of an INSERT, UPDATE or DELETE once for each parameter set of a batch. The batch is applied
+	 * completely or not at all.
+	 *
+	 * @param plan
+	 *            the {@link QueryPlan}.
+	 * @param batch
+	 *            the {@link ParameterBatch}.
+	 * @return for each parameter set: the number of inserted, updated or deleted rows
+	 * @throws BatchUpdateException
+	 *             if the statement is a query, does not match the table or a value does not match the type of its
+	 *             column
+	 */
+	int[] executeBatch(final QueryPlan plan, final ParameterBatch batch) throws BatchUpdateException {
+		switch (plan.getKind()) {
+		case MODIFICATION:
+			break;
+		case EMPTY:
+			return new int[batch.size()];
+		default:
+			throw new BatchUpdateException("Queries cannot be executed in a batch", new int[0]);
+		}
+		File resource = findResource(plan.getTableKey(), plan.getTableName());
+		if (resource == null) {
+			return new int[batch.size()];
+		}
+		try {
+			List<Table> queryResults = null;
+			QueryPlan query = plan.getInsertQuery();
+			if (query != null) {
+				List<Table> tables = loadTables(query);
+				if (tables == null) {
+					return new int[batch.size()];
+				}
+				queryResults = new ArrayList<Table>(batch.size());
+				for (int i = 0; i < batch.size(); i++) {
+					queryResults.add(query.select(tables, batch.get(i)));
 				}
-			} catch (URISyntaxException e) {
-				LOGGER.error("Error creating URI for table file: {}", e.getMessage(), e);
 			}
+			final List<Table> selected = queryResults;
+			return modify(plan.getTableName(), resource, new Change() {
+				@Override
+				public UpdateResult apply(Table table) throws SQLException {
+					return plan.executeBatch(table, selected, batch);
+				}
+			}).getUpdateCounts();
+		} catch (FileNotFoundException e) {
+			LOGGER.info("No table definition found: {}, the statement has no effect.", e.getMessage());
+		} catch (IOException e) {
+			LOGGER.error("Error while reading data from CSV", e);
+		} catch (SQLException e) {
+			throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), new int[0], e);
 		}
+		return new int[batch.size()];
+	}
 
-		FileInputStream dummyTableDataStream = null;
+	private ResultSet createResultSet(QueryPlan plan, Parameters parameters) throws SQLException {
+		String tableName = plan.getTableName();
 		try {
-			dummyTableDataStream = new FileInputStream(resource);
-			return createGenericResultSet(tableName, dummyTableDataStream);
+			if (fetchSize > 0 && !loadOptions.isMapped() && plan.isStreamable()) {
+				File resource = findResource(plan.getTableKey(), tableName);
+				if (resource == null) {
+					return new DummyResultSet();
+				}
+				if (canStream(resource)) {
+					TableStream stream = CsvTableLoader.openStream(tableName, resource, loadOptions);
+					return plan.execute(stream, fetchSize, parameters, maxRows);
+				}
+			}
+			List<Table> tables = loadTables(plan);
+			if (tables == null) {
+				return new DummyResultSet();
+			}
+			return plan.execute(tables, parameters, maxRows);
 		} catch (FileNotFoundException e) {
 			LOGGER.info("No table definition found for '{}', using DummyResultSet.", tableName);
-		} finally {
-			if (dummyTableDataStream != null) {
-				try {
-					dummyTableDataStream.close();
-				} catch (IOException e) {
-					// ignore
+		} catch (IOException e) {
+			LOGGER.error("Error while reading data from CSV", e);
+		}
+
+		return new DummyResultSet();
+	}
+
+	private ResultSet createUnionResultSet(QueryPlan plan, Parameters parameters) throws SQLException {
+		try {
+			List<Table> results = new ArrayList<Table>();
+			for (QueryPlan branch : plan.getUnionBranches()) {
+				List<Table> tables = loadTables(branch);
+				if (tables == null) {
+					return new DummyResultSet();
 				}
+				results.add(branch.select(tables, parameters));
 			}
+			return plan.executeUnion(results, parameters, maxRows);
+		} catch (FileNotFoundException e) {
+			LOGGER.info("No table definition found: {}, using DummyResultSet.", e.getMessage());
+		} catch (IOException e) {
+			LOGGER.error("Error while reading data from CSV", e);
 		}
 
 		return new DummyResultSet();
 	}
 
-	private ResultSet createGenericResultSet(String tableName, InputStream dummyTableDataStream) {
-
-		// Maps table columns to a number of available values.
-		Collection<LinkedHashMap<String, String>> entries = new ArrayList<LinkedHashMap<String, String>>();
+	/**
+	 * @return <code>true</code> if the CSV file is the version of the table this statement reads and the table is not
+	 *         cached, so the file can be parsed while the {@link ResultSet} is iterated
+	 */
+	private boolean canStream(File resource) {
+		Transaction transaction = session.getTransaction();
+		return TableStore.getInstance().isFileCurrent(resource)
+				&& (transaction == null || transaction.get(resource) == null)
+				&& TableCache.getInstance().getIfPresent(resource, loadOptions) == null;
+	}
 
-		CSVReader dummyTableReader = null;
-		try {
+	/**
+	 * @return the queried table of a plan followed by its joined tables, <code>null</code> if a CSV file is missing
+	 */
+	private List<Table> loadTables(QueryPlan plan) throws IOException {
+		List<String> names = new ArrayList<String>();
+		List<String> keys = new ArrayList<String>();
+		names.add(plan.getTableName());
+		keys.add(plan.getTableKey());
+		names.addAll(plan.getJoinedTableNames());
+		keys.addAll(plan.getJoinedTableKeys());
+
+		List<File> resources = new ArrayList<File>(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			File resource = findResource(keys.get(i), names.get(i));
+			if (resource == null) {
+				return null;
+			}
+			resources.add(resource);
+		}
+		Transaction transaction = session.getTransaction();
+		List<Table> tables = new ArrayList<Table>(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			tables.add(loadTable(names.get(i), resources.get(i), transaction));
+		}
+		return tables;
+	}
 
-			dummyTableReader = new CSVReader(new InputStreamReader(dummyTableDataStream));
-
-			// Read header
-			String[] header = dummyTableReader.readNext();
-			if (header != null) {
-
-				String[] data;
-				// Read data
-				while ((data = dummyTableReader.readNext()) != null) {
-					if (header.length == data.length) {
-						LinkedHashMap<String, String> map = new LinkedHashMap<String, String>();
-						for (int i = 0; i < header.length; i++) {
-                            final String headerName = resolveHeaderName(header[i]);
-							if (map.containsKey(headerName)) {
-								String message = MessageFormat.format("Duplicate column in file ''{0}.txt: {1}",
-										tableName, header[i]);
-								throw new IllegalArgumentException(message);
-							}
-							map.put(headerName, data[i].trim());
-
-						}
-						entries.add(map);
-					} else {
-						throw new IllegalArgumentException("Length of data does not fit header length.");
-					}
+	/**
+	 * @return the version of a table visible to the transaction, if there is none the modified version of the table
+	 *         from the {@link TableStore} or the table as read from its CSV file
+	 */
+	private Table loadTable(String tableName, File resource, Transaction transaction) throws IOException {
+		TableStore store = TableStore.getInstance();
+		Table table = transaction == null ? store.get(resource) : transaction.get(resource);
+		if (table != null) {
+			return table;
+		}
+		table = TableCache.getInstance().get(tableName, resource, loadOptions);
+		if (transaction == null) {
+			return store.recover(resource, table);
+		}
+		// The table was not modified when the transaction began, later versions must not be visible
+		return transaction.pin(resource, store.recoverSnapshot(resource, table));
+	}
 
+	/**
+	 * Applies a modification to the current version of a table. In auto-commit mode the new version is published at
+	 * once, otherwise it is kept in the transaction.
+	 */
+	private UpdateResult modify(String tableName, File resource, Change change) throws IOException, SQLException {
+		Transaction transaction = session.getTransaction();
+		Object lock = transaction == null ? TableStore.getInstance().getWriteLock(resource) : transaction;
+		synchronized (lock) {
+			Table table = loadTable(tableName, resource, transaction);
+			UpdateResult result = change.apply(table);
+			if (result.getTable() != table) {
+				if (transaction == null) {
+					publish(resource, result);
+				} else {
+					transaction.put(resource, result.getTable(), result.getChanges(), loadOptions.getCharset());
 				}
 			}
-			return new CSVResultSet(tableName, new DummyResultSetMetaData(tableName, header), entries);
+			return result;
+		}
+	}
 
-		} catch (IOException | CsvValidationException e) {
-			LOGGER.error("Error while reading data from CSV", e);
-		} finally {
-			if (dummyTableReader != null) {
-				try {
-					dummyTableReader.close();
-				} catch (IOException e) {
-					// ignore
+	/**
+	 * Publishes the new version of a modified table, the caller holds the write lock of the table.
+	 */
+	private void publish(File resource, UpdateResult result) throws SQLException {
+		try {
+			TableStore.getInstance().put(resource, result.getTable(), result.getChanges(), loadOptions.getCharset());
+		} catch (IOException e) {
+			throw new SQLException("Error while writing the write-ahead log of " + resource, e);
+		}
+	}
+
+	/**
+	 * @return the CSV file of a table, <code>null</code> if there is none
+	 */
+	private File findResource(String tableKey, String tableName) {
+		// Does a text file for the dummy table exist?
+		File resource = tableResources.get(tableKey);
+		if (resource == null) {
+			// Try to load a file from the ./tables/ directory
+			CodeSource src = CsvStatement.class.getProtectionDomain().getCodeSource();
+
+			String path = src.getLocation().getPath();
+			path = path.substring(0, path.lastIndexOf("/"));
+			try {
+				URL url = CsvStatement.class.getResource("/tables/" + tableKey + ".csv");
+				if (url == null) {
+					LOGGER.info("No table definition found for '{}', using DummyResultSet.", tableName);
+				} else {
+					resource = new File(url.toURI());
 				}
+			} catch (URISyntaxException e) {
+				LOGGER.error("Error creating URI for table file: {}", e.getMessage(), e);
 			}
 		}
-
-		return new DummyResultSet();
+		return resource;
 	}
 
 	private DummyResultSet createPureResultSet() {
+		Collection<String[]> rows = new ArrayList<String[]>();
+		rows.add(new String[] { "1" });
 
-        // Maps table columns to a number of available values.
-		Collection<LinkedHashMap<String, String>> entries = new ArrayList<LinkedHashMap<String, String>>();
-
-		LinkedHashMap<String, String> map = new LinkedHashMap<String, String>();
-		map.put("1", "1");
-
-		entries.add(map);
-
-		return new CSVResultSet(null, null, entries);
+		return new CSVResultSet(null, null, new String[] { "1" }, rows);
 	}
 
-	private String resolveHeaderName(String str) {
-	    return str.trim().toUpperCase();
-    }
+	/**
+	 * Creates the new version of a table.
+	 */
+	private interface Change {
+		UpdateResult apply(Table table) throws SQLException;
+	}
 }
@@ -0,0 +1,89 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import com.googlecode.dummyjdbc.table.TableStore;
+import com.googlecode.dummyjdbc.table.Transaction;
+
+/**
+ * The transaction state of a connection, shared by its statements. In auto-commit mode each modification is published
+ * on its own. Otherwise the first statement begins a {@link Transaction}, which lasts until {@link #commit()} or
+ * {@link #rollback()}.
+ *
+ * @author Kai Winter
+ */
+public final class Session {
+
+	/** SQLState of a transaction which cannot be committed because of a concurrent modification. */
+	static final String SERIALIZATION_FAILURE = "40001";
+
+	private boolean autoCommit = true;
+
+	private Transaction transaction;
+
+	/**
+	 * @return the current {@link Transaction}, begun if there is none, <code>null</code> in auto-commit mode
+	 */
+	public synchronized Transaction getTransaction() {
+		if (autoCommit) {
+			return null;
+		}
+		if (transaction == null) {
+			transaction = TableStore.getInstance().begin();
+		}
+		return transaction;
+	}
+
+	/**
+	 * Enables or disables auto-commit mode, enabling it commits the current transaction.
+	 *
+	 * @param autoCommit
+	 *            <code>true</code> to enable auto-commit mode.
+	 * @throws SQLException
+	 *             if the current transaction cannot be committed
+	 */
+	public synchronized void setAutoCommit(boolean autoCommit) throws SQLException {
+		if (autoCommit && !this.autoCommit) {
+			commit();
+		}
+		this.autoCommit = autoCommit;
+	}
+
+	/**
+	 * @return <code>true</code> if auto-commit mode is enabled
+	 */
+	public synchronized boolean getAutoCommit() {
+		return autoCommit;
+	}
+
+	/**
+	 * Publishes the modifications of the current transaction. The next statement begins a new transaction.
+	 *
+	 * @throws SQLException
+	 *             if another transaction modified a table after this transaction read it, the modifications are
+	 *             discarded in this case
+	 */
+	public synchronized void commit() throws SQLException {
+		Transaction committed = transaction;
+		transaction = null;
+		if (committed == null || committed.isReadOnly()) {
+			return;
+		}
+		try {
+			if (!TableStore.getInstance().commit(committed)) {
+				throw new SQLException("Transaction rolled back, a table was modified by a concurrent transaction",
+						SERIALIZATION_FAILURE);
+			}
+		} catch (IOException e) {
+			throw new SQLException("Error while writing the write-ahead log", e);
+		}
+	}
+
+	/**
+	 * Discards the modifications of the current transaction.
+	 */
+	public synchronized void rollback() {
+		transaction = null;
+	}
+}
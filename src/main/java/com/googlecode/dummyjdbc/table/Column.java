@@ -0,0 +1,231 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.text.ParseException;
+import java.util.BitSet;
+
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * One column of a {@link Table}. The values are stored in primitive arrays, the implementations of this class convert
+ * them on access. The default implementations of the accessors parse the {@link String} representation of the value,
+ * which is what typed columns fall back to if the requested type does not match the stored type. A typed column
+ * returns the text of a value as it was written in the CSV file, e.g. <code>20.00</code> rather than
+ * <code>20.0</code>.
+ *
+ * @author Kai Winter
+ */
+public abstract class Column {
+
+	/** Rough per-object overhead of the JVM, used for the size estimation. */
+	static final int OBJECT_OVERHEAD = 16;
+
+	private final int sqlType;
+
+	/**
+	 * Constructs a new {@link Column}.
+	 *
+	 * @param sqlType
+	 *            the {@link java.sql.Types} of the column.
+	 */
+	protected Column(int sqlType) {
+		this.sqlType = sqlType;
+	}
+
+	/**
+	 * Creates a BIGINT column of computed values, e.g. of the counts of an aggregate query.
+	 *
+	 * @param values
+	 *            the values, the array is not copied.
+	 * @param nulls
+	 *            the rows whose value is null, may be <code>null</code> if there are none.
+	 * @return the {@link Column}
+	 */
+	public static Column ofLongs(long[] values, BitSet nulls) {
+		return new LongColumn(Types.BIGINT, values, nulls, null, values.length, true);
+	}
+
+	/**
+	 * Creates a DOUBLE column of computed values, e.g. of the averages of an aggregate query.
+	 *
+	 * @param values
+	 *            the values, the array is not copied.
+	 * @param nulls
+	 *            the rows whose value is null, may be <code>null</code> if there are none.
+	 * @return the {@link Column}
+	 */
+	public static Column ofDoubles(double[] values, BitSet nulls) {
+		return new DoubleColumn(Types.DOUBLE, values, nulls, null, values.length, true);
+	}
+
+	/**
+	 * @return the {@link java.sql.Types} of the column as declared in the header of the CSV file
+	 */
+	public final int getSqlType() {
+		return sqlType;
+	}
+
+	/**
+	 * Creates a column containing the values of some rows of this column, e.g. one row of each group of an aggregate
+	 * query. The values are not copied.
+	 *
+	 * @param rows
+	 *            the row indexes, -1 for a null value.
+	 * @return the {@link Column} of the rows
+	 */
+	public Column gather(int[] rows) {
+		return new GatheredColumn(this, rows);
+	}
+
+	/**
+	 * Creates a column containing the values of other columns one after another, e.g. of the SELECTs of a UNION. The
+	 * values are not copied.
+	 *
+	 * @param sqlType
+	 *            the {@link java.sql.Types} of the concatenated column, the values of columns of other types are
+	 *            converted.
+	 * @param columns
+	 *            the columns.
+	 * @return the concatenated {@link Column}
+	 */
+	public static Column concat(int sqlType, Column[] columns) {
+		return new ConcatenatedColumn(sqlType, columns);
+	}
+
+	/**
+	 * @return the number of values in this column
+	 */
+	public abstract int size();
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return <code>true</code> if the value of a typed column was empty in the CSV file
+	 */
+	public abstract boolean isNull(int row);
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as {@link String}, <code>null</code> if the value is null
+	 */
+	public abstract String getString(int row);
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return <code>true</code> if the value is null or empty, the numeric getters return 0 in this case
+	 */
+	public boolean isEmpty(int row) {
+		return isNull(row) || isEmpty(getString(row));
+	}
+
+	/**
+	 * Returns the value as text like in the CSV file. Unlike {@link #getString(int)}, an empty value of a typed column
+	 * is returned as empty {@link String}.
+	 *
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as {@link String}, <code>null</code> if the value is null and not stored in a table, e.g. a
+	 *         missing row of an outer join or the sum of no values
+	 */
+	public String getText(int row) {
+		return getString(row);
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as {@link Object} of the type of the column
+	 */
+	public abstract Object getObject(int row);
+
+	/**
+	 * @return the approximate number of bytes this column occupies on the heap
+	 */
+	public abstract long getEstimatedSize();
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as int, an empty value is returned as 0
+	 */
+	public int getInt(int row) {
+		String value = getString(row);
+		return isEmpty(value) ? 0 : Integer.parseInt(value.trim());
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as long, an empty value is returned as 0
+	 */
+	public long getLong(int row) {
+		String value = getString(row);
+		return isEmpty(value) ? 0 : Long.parseLong(value.trim());
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as double, an empty value is returned as 0
+	 */
+	public double getDouble(int row) {
+		String value = getString(row);
+		return isEmpty(value) ? 0 : Double.parseDouble(value);
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the value as {@link BigDecimal}, an empty value is returned as 0
+	 */
+	public BigDecimal getBigDecimal(int row) {
+		String value = getString(row);
+		if (isEmpty(value)) {
+			return BigDecimal.valueOf(0);
+		}
+		return new BigDecimal(value.trim());
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @param temporalType
+	 *            the requested {@link java.sql.Types}, determines the format a {@link String} is parsed with.
+	 * @return the value as milliseconds since the epoch
+	 * @throws ParseException
+	 *             if the value does not match the format of the requested type
+	 */
+	public long getMillis(int row, int temporalType) throws ParseException {
+		return DateUtils.parse(temporalType, getString(row));
+	}
+
+	/**
+	 * @param value
+	 *            a value as {@link String}, may be <code>null</code>.
+	 * @return <code>true</code> if the value is null or empty, as an empty value of an untyped column
+	 */
+	private static boolean isEmpty(String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
+	/**
+	 * @param texts
+	 *            the texts a typed column keeps, may be <code>null</code>.
+	 * @return the approximate number of bytes the texts occupy on the heap
+	 */
+	static long getEstimatedSize(String[] texts) {
+		if (texts == null) {
+			return 0;
+		}
+		long size = OBJECT_OVERHEAD + texts.length * 4L;
+		for (String text : texts) {
+			if (text != null) {
+				size += OBJECT_OVERHEAD * 2 + text.length() * 2L;
+			}
+		}
+		return size;
+	}
+}
@@ -0,0 +1,241 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.googlecode.dummyjdbc.csv.CsvRecord;
+
+/**
+ * Collects the values of a {@link Column} while a CSV file is parsed. Builders of typed columns keep the text of a
+ * value only if it differs from the text the column creates from the parsed value, e.g. for <code>007</code> or
+ * <code>20.00</code>.
+ *
+ * @author Kai Winter
+ */
+abstract class ColumnBuilder {
+
+	private final int sqlType;
+
+	ColumnBuilder(int sqlType) {
+		this.sqlType = sqlType;
+	}
+
+	/**
+	 * Creates a builder for a column of the given type.
+	 *
+	 * @param sqlType
+	 *            the {@link Types} of the column.
+	 * @param expectedSize
+	 *            the expected number of rows, used for the initial capacity.
+	 * @return the {@link ColumnBuilder}
+	 */
+	static ColumnBuilder create(int sqlType, int expectedSize) {
+		switch (sqlType) {
+		case Types.INTEGER:
+			return new IntColumn.Builder(sqlType, expectedSize);
+		case Types.DOUBLE:
+			return new DoubleColumn.Builder(sqlType, expectedSize);
+		case Types.BIGINT:
+		case Types.DATE:
+		case Types.TIME:
+		case Types.TIMESTAMP:
+			return new LongColumn.Builder(sqlType, expectedSize);
+		default:
+			return new StringColumn.Builder(sqlType, expectedSize);
+		}
+	}
+
+	final int getSqlType() {
+		return sqlType;
+	}
+
+	/**
+	 * Appends a value.
+	 *
+	 * @param value
+	 *            the trimmed value from the CSV file.
+	 * @return <code>false</code> if the value cannot be represented by the type of this builder, in this case nothing
+	 *         was appended
+	 */
+	abstract boolean append(String value);
+
+	/**
+	 * Appends the value of a field. Builders override this if they can convert the field without creating a
+	 * {@link String}.
+	 *
+	 * @param record
+	 *            the {@link CsvRecord} of the row.
+	 * @param field
+	 *            the index of the field.
+	 * @return <code>false</code> if the value cannot be represented by the type of this builder, in this case nothing
+	 *         was appended
+	 */
+	boolean append(CsvRecord record, int field) {
+		return append(record.getField(field));
+	}
+
+	/**
+	 * Appends an integral value. Builders override this if they can store the value without creating a {@link String}.
+	 *
+	 * @param value
+	 *            the value.
+	 * @return <code>false</code> if the value cannot be represented by the type of this builder, in this case nothing
+	 *         was appended
+	 */
+	boolean append(long value) {
+		return append(String.valueOf(value));
+	}
+
+	/**
+	 * Appends a floating point value. Builders override this if they can store the value without creating a
+	 * {@link String}.
+	 *
+	 * @param value
+	 *            the value.
+	 * @return <code>false</code> if the value cannot be represented by the type of this builder, in this case nothing
+	 *         was appended
+	 */
+	boolean append(double value) {
+		return append(String.valueOf(value));
+	}
+
+	/**
+	 * Appends all values of a column of the same type, e.g. a column parsed from another chunk of the file.
+	 *
+	 * @param column
+	 *            the {@link Column} to append.
+	 * @return <code>false</code> if the values cannot be represented by the type of this builder, in this case nothing
+	 *         was appended
+	 */
+	abstract boolean appendColumn(Column column);
+
+	/**
+	 * @return the number of appended values
+	 */
+	abstract int size();
+
+	/**
+	 * @return the {@link Column} containing all appended values
+	 */
+	abstract Column build();
+
+	/**
+	 * Converts this builder into a builder for a dictionary encoded {@link StringColumn}, containing all values appended
+	 * so far. Used if a value of a typed column cannot be parsed.
+	 *
+	 * @return the {@link StringColumn.Builder}
+	 */
+	abstract ColumnBuilder toStringBuilder();
+
+	/**
+	 * Appends the null flags of a column to the null flags of this builder.
+	 *
+	 * @param nulls
+	 *            the null flags of this builder, may be <code>null</code>.
+	 * @param otherNulls
+	 *            the null flags of the appended column, may be <code>null</code>.
+	 * @param offset
+	 *            the number of values in this builder before the column is appended.
+	 * @return the combined null flags
+	 */
+	static BitSet appendNulls(BitSet nulls, BitSet otherNulls, int offset) {
+		if (otherNulls == null || otherNulls.isEmpty()) {
+			return nulls;
+		}
+		BitSet result = nulls == null ? new BitSet() : nulls;
+		for (int i = otherNulls.nextSetBit(0); i >= 0; i = otherNulls.nextSetBit(i + 1)) {
+			result.set(offset + i);
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the text of a value.
+	 *
+	 * @param texts
+	 *            the texts kept so far, may be <code>null</code>.
+	 * @param row
+	 *            the row of the value.
+	 * @param capacity
+	 *            the capacity of the values of the builder.
+	 * @param text
+	 *            the text of the value.
+	 * @return the texts, grown to the capacity if necessary
+	 */
+	static String[] keepText(String[] texts, int row, int capacity, String text) {
+		String[] result = texts;
+		if (result == null) {
+			result = new String[capacity];
+		} else if (result.length <= row) {
+			result = Arrays.copyOf(result, capacity);
+		}
+		result[row] = text;
+		return result;
+	}
+
+	/**
+	 * Appends the texts of a column to the texts of this builder.
+	 *
+	 * @param texts
+	 *            the texts of this builder, may be <code>null</code>.
+	 * @param otherTexts
+	 *            the texts of the appended column, may be <code>null</code>.
+	 * @param offset
+	 *            the number of values in this builder before the column is appended.
+	 * @param capacity
+	 *            the capacity of the values of the builder.
+	 * @return the combined texts
+	 */
+	static String[] appendTexts(String[] texts, String[] otherTexts, int offset, int capacity) {
+		if (otherTexts == null) {
+			return texts;
+		}
+		String[] result = texts == null ? new String[capacity] : Arrays.copyOf(texts, capacity);
+		System.arraycopy(otherTexts, 0, result, offset, otherTexts.length);
+		return result;
+	}
+
+	/**
+	 * @param texts
+	 *            the texts of the builder, may be <code>null</code>.
+	 * @param size
+	 *            the number of values.
+	 * @return the texts of the built column
+	 */
+	static String[] buildTexts(String[] texts, int size) {
+		return texts == null ? null : Arrays.copyOf(texts, size);
+	}
+
+	/**
+	 * @param text
+	 *            the text of a value which was parsed as integral number.
+	 * @return <code>true</code> if the text is the one {@link Long#toString(long)} creates from the value, i.e. it has
+	 *         no plus sign and no leading zeros
+	 */
+	static boolean isCanonicalInteger(String text) {
+		int start = text.charAt(0) == '-' ? 1 : 0;
+		if (text.charAt(0) == '+' || text.charAt(start) == '0' && (start == 1 || text.length() > 1)) {
+			return false;
+		}
+		for (int i = start; i < text.length(); i++) {
+			if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param value
+	 *            an integral value.
+	 * @return the number of characters of the text {@link Long#toString(long)} creates from the value
+	 */
+	static int getTextLength(long value) {
+		int length = value < 0 ? 2 : 1;
+		for (long rest = value / 10; rest != 0; rest /= 10) {
+			length++;
+		}
+		return length;
+	}
+}
@@ -0,0 +1,206 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * A {@link Column} containing the rows of other columns one after another, see {@link Column#concat(int, Column[])}.
+ * Accessors find the column of the row and delegate. If a column is of another type than this column, its values are
+ * converted by {@link #getObject(int)}: integral values of a BIGINT column are returned as {@link Long}s, numbers of a
+ * DOUBLE column as {@link Double}s, the values of a VARCHAR column as {@link String}s.
+ *
+ * <p>
+ * The rows inserted into a table are appended as new columns, see {@link #append(Column, Column)}. To keep the number
+ * of columns logarithmic in the number of inserts, the last two columns are merged as long as the last but one is not
+ * larger than the last, like the digits of a binary counter. The first column, the column of the loaded table, is
+ * never copied.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+final class ConcatenatedColumn extends Column {
+
+	private final Column[] columns;
+
+	/** The index of the first row of each column, followed by the number of rows. */
+	private final int[] starts;
+
+	ConcatenatedColumn(int sqlType, Column[] columns) {
+		super(sqlType);
+		this.columns = columns;
+		this.starts = new int[columns.length + 1];
+		for (int i = 0; i < columns.length; i++) {
+			starts[i + 1] = starts[i] + columns[i].size();
+		}
+	}
+
+	@Override
+	public int size() {
+		return starts[columns.length];
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		int i = part(row);
+		return columns[i].isNull(row - starts[i]);
+	}
+
+	@Override
+	public String getString(int row) {
+		int i = part(row);
+		return columns[i].getString(row - starts[i]);
+	}
+
+	@Override
+	public String getText(int row) {
+		int i = part(row);
+		return columns[i].getText(row - starts[i]);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		int i = part(row);
+		Column column = columns[i];
+		row -= starts[i];
+		if (column.getSqlType() == getSqlType() || column.isNull(row)) {
+			return column.getObject(row);
+		}
+		switch (getSqlType()) {
+		case Types.BIGINT:
+			return Long.valueOf(column.getLong(row));
+		case Types.DOUBLE:
+			return Double.valueOf(column.getDouble(row));
+		default:
+			return column.getString(row);
+		}
+	}
+
+	@Override
+	public int getInt(int row) {
+		int i = part(row);
+		return columns[i].getInt(row - starts[i]);
+	}
+
+	@Override
+	public long getLong(int row) {
+		int i = part(row);
+		return columns[i].getLong(row - starts[i]);
+	}
+
+	@Override
+	public double getDouble(int row) {
+		int i = part(row);
+		return columns[i].getDouble(row - starts[i]);
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int row) {
+		int i = part(row);
+		return columns[i].getBigDecimal(row - starts[i]);
+	}
+
+	@Override
+	public long getMillis(int row, int temporalType) throws ParseException {
+		int i = part(row);
+		return columns[i].getMillis(row - starts[i], temporalType);
+	}
+
+	@Override
+	public Column gather(int[] rows) {
+		for (int i = 1; i < rows.length; i++) {
+			if (rows[i] <= rows[i - 1]) {
+				return super.gather(rows);
+			}
+		}
+		if (rows.length > 0 && rows[0] < 0) {
+			return super.gather(rows);
+		}
+
+		// Ascending rows, e.g. the rows remaining after a DELETE, are gathered from each column, so the result stays
+		// a concatenation and later inserts do not nest it
+		Column[] gathered = new Column[columns.length];
+		int from = 0;
+		for (int i = 0; i < columns.length; i++) {
+			int to = from;
+			while (to < rows.length && rows[to] < starts[i + 1]) {
+				to++;
+			}
+			int[] partRows = new int[to - from];
+			for (int j = from; j < to; j++) {
+				partRows[j - from] = rows[j] - starts[i];
+			}
+			gathered[i] = columns[i].gather(partRows);
+			from = to;
+		}
+		return new ConcatenatedColumn(getSqlType(), gathered);
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		// The values are shared with the concatenated columns
+		return OBJECT_OVERHEAD + starts.length * 4L;
+	}
+
+	/**
+	 * Appends rows to a column.
+	 *
+	 * @param column
+	 *            the {@link Column}.
+	 * @param rows
+	 *            the appended values, of the type of the column.
+	 * @return a {@link ConcatenatedColumn} sharing the values of both columns
+	 */
+	static Column append(Column column, Column rows) {
+		Column[] parts;
+		if (column instanceof ConcatenatedColumn) {
+			Column[] columns = ((ConcatenatedColumn) column).columns;
+			parts = Arrays.copyOf(columns, columns.length + 1);
+		} else {
+			parts = new Column[] { column, null };
+		}
+		int count = parts.length;
+		parts[count - 1] = rows;
+		while (count > 2 && parts[count - 2].size() <= parts[count - 1].size()) {
+			parts[count - 2] = merge(column.getSqlType(), parts[count - 2], parts[count - 1]);
+			count--;
+		}
+		return new ConcatenatedColumn(column.getSqlType(), Arrays.copyOf(parts, count));
+	}
+
+	/**
+	 * @return a column containing the values of both columns
+	 */
+	private static Column merge(int sqlType, Column first, Column second) {
+		ColumnBuilder builder = ColumnBuilder.create(sqlType, first.size() + second.size());
+		for (Column column : new Column[] { first, second }) {
+			if (!builder.appendColumn(column)) {
+				// The column is a view or fell back to text, its values are appended one by one
+				for (int row = 0; row < column.size(); row++) {
+					String value = column.isNull(row) ? "" : column.getString(row);
+					if (!builder.append(value)) {
+						builder = builder.toStringBuilder();
+						builder.append(value);
+					}
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return the index of the column containing the row
+	 */
+	private int part(int row) {
+		int i = Arrays.binarySearch(starts, row);
+		if (i < 0) {
+			return -i - 2;
+		}
+		// Skips empty columns
+		while (starts[i + 1] == row) {
+			i++;
+		}
+		return i;
+	}
+}
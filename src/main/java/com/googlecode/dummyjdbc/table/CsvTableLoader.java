@@ -0,0 +1,246 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.googlecode.dummyjdbc.csv.ByteBufferRecordReader;
+import com.googlecode.dummyjdbc.csv.CsvRecord;
+import com.googlecode.dummyjdbc.csv.CsvRecordReader;
+import com.googlecode.dummyjdbc.csv.RecordSplitter;
+import com.googlecode.dummyjdbc.csv.RowOffsetIndex;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+
+/**
+ * Reads a CSV table file into a {@link Table} using the {@link com.googlecode.dummyjdbc.csv.CsvParser} of the
+ * {@link LoadOptions}. The first line of the file has to contain the column specs. The indexes declared in the column
+ * specs are built once the file has been read.
+ *
+ * @author Kai Winter
+ */
+public final class CsvTableLoader {
+
+	/** Parses the chunks of files which are loaded in parallel, created on first use. */
+	private static ForkJoinPool pool;
+
+	/**
+	 * Parses the given CSV file.
+	 *
+	 * @param tableName
+	 *            the name of the table the file stands for.
+	 * @param file
+	 *            the CSV file.
+	 * @param options
+	 *            the {@link LoadOptions} controlling how the file is read.
+	 * @return the parsed {@link Table}
+	 * @throws IOException
+	 *             if the file cannot be read or contains invalid CSV
+	 */
+	public static Table load(String tableName, File file, LoadOptions options) throws IOException {
+		return read(tableName, file, options).withIndexes();
+	}
+
+	private static Table read(String tableName, File file, LoadOptions options) throws IOException {
+		if (options.isMapped()) {
+			return loadMapped(tableName, file, options);
+		}
+		int chunkCount = (int) Math.min(options.getParallelism(), file.length() / LoadOptions.MIN_CHUNK_SIZE);
+		if (chunkCount > 1) {
+			return loadParallel(tableName, file, options, chunkCount);
+		}
+
+		CsvRecordReader reader = options.getParser().open(file, options.getCharset());
+		try {
+			// Read header
+			DummyResultSetMetaData metaData = readHeader(tableName, file, reader.next());
+
+			TableBuilder tableBuilder = new TableBuilder(tableName, metaData, 0);
+			CsvRecord record;
+			// Read data
+			while ((record = reader.next()) != null) {
+				tableBuilder.addRecord(record);
+			}
+			return tableBuilder.build();
+
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Opens the given CSV file for reading it in chunks. Only the header is read by this method.
+	 *
+	 * @param tableName
+	 *            the name of the table the file stands for.
+	 * @param file
+	 *            the CSV file.
+	 * @param options
+	 *            the {@link LoadOptions} controlling how the file is read, the storage and parallelism are ignored.
+	 * @return the {@link TableStream}, which has to be closed if it is not read to the end
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static TableStream openStream(String tableName, File file, LoadOptions options) throws IOException {
+		CsvRecordReader reader = options.getParser().open(file, options.getCharset());
+		try {
+			DummyResultSetMetaData metaData = readHeader(tableName, file, reader.next());
+			return new TableStream(tableName, metaData, reader);
+		} catch (IOException | RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Maps the file into memory instead of parsing it onto the heap. Only the offsets of the rows are kept, the values
+	 * are parsed from the mapped file on access. The mapped pages are shared with the page cache of the operating
+	 * system, so all connections use the same memory.
+	 */
+	private static Table loadMapped(String tableName, File file, LoadOptions options) throws IOException {
+		ByteBuffer buffer = map(file);
+		RowOffsetIndex rowOffsetIndex = RowOffsetIndex.build(buffer, options.getCharset());
+
+		ByteBufferRecordReader reader = new ByteBufferRecordReader(buffer, options.getCharset());
+		DummyResultSetMetaData metaData = readHeader(tableName, file, reader.next());
+
+		MappedRows rows = new MappedRows(buffer, rowOffsetIndex, options.getCharset());
+		int[] columnTypes = metaData.getColumnTypes();
+		Column[] columns = new Column[columnTypes.length];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new MappedColumn(columnTypes[i], rows, i);
+		}
+		return new Table(tableName, metaData, columns, rows.getEstimatedSize());
+	}
+
+	/**
+	 * Splits the file into chunks at record boundaries and parses each chunk into its own {@link Table} on a
+	 * {@link ForkJoinPool}. The chunk tables are appended in the order of the file, so the rows keep their order.
+	 */
+	private static Table loadParallel(String tableName, File file, LoadOptions options, int chunkCount)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		ByteBufferRecordReader headerReader = new ByteBufferRecordReader(buffer, options.getCharset());
+		DummyResultSetMetaData metaData = readHeader(tableName, file, headerReader.next());
+
+		int[] boundaries = RecordSplitter.split(buffer, headerReader.getPosition(), buffer.limit(), chunkCount);
+		List<Callable<Table>> tasks = new ArrayList<>(boundaries.length - 1);
+		for (int i = 0; i < boundaries.length - 1; i++) {
+			tasks.add(new ChunkTask(tableName, metaData, buffer, boundaries[i], boundaries[i + 1],
+					options.getCharset()));
+		}
+
+		List<Table> chunks = new ArrayList<>(tasks.size());
+		int rowCount = 0;
+		try {
+			for (Future<Table> future : getPool().invokeAll(tasks)) {
+				Table chunk = future.get();
+				chunks.add(chunk);
+				rowCount += chunk.getRowCount();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading " + file.getName());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+
+		TableBuilder tableBuilder = new TableBuilder(tableName, metaData, rowCount);
+		for (Table chunk : chunks) {
+			tableBuilder.addTable(chunk);
+		}
+		return tableBuilder.build();
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+		return pool;
+	}
+
+	private static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File too large to be mapped: " + file.getName());
+			}
+			// The mapping stays valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private static DummyResultSetMetaData readHeader(String tableName, File file, CsvRecord headerRecord) {
+		String[] header = new String[headerRecord == null ? 0 : headerRecord.getFieldCount()];
+		for (int i = 0; i < header.length; i++) {
+			header[i] = headerRecord.getField(i);
+		}
+		DummyResultSetMetaData metaData = new DummyResultSetMetaData(tableName, header);
+		if (metaData.getColumnNames().length != header.length) {
+			String message = MessageFormat.format("Duplicate column in file ''{0}''", file.getName());
+			throw new IllegalArgumentException(message);
+		}
+		return metaData;
+	}
+
+	private CsvTableLoader() {
+	}
+
+	/**
+	 * Parses the records of one chunk of a file.
+	 */
+	private static final class ChunkTask implements Callable<Table> {
+		private final String tableName;
+		private final DummyResultSetMetaData metaData;
+		private final ByteBuffer buffer;
+		private final int start;
+		private final int end;
+		private final Charset charset;
+
+		ChunkTask(String tableName, DummyResultSetMetaData metaData, ByteBuffer buffer, int start, int end,
+				Charset charset) {
+			this.tableName = tableName;
+			this.metaData = metaData;
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+			this.charset = charset;
+		}
+
+		@Override
+		public Table call() throws IOException {
+			ByteBufferRecordReader reader = new ByteBufferRecordReader(buffer, start, end, charset);
+			TableBuilder tableBuilder = new TableBuilder(tableName, metaData, 0);
+			CsvRecord record;
+			while ((record = reader.next()) != null) {
+				tableBuilder.addRecord(record);
+			}
+			return tableBuilder.build();
+		}
+	}
+}
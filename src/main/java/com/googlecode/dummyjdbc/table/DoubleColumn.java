@@ -0,0 +1,172 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A DOUBLE {@link Column} backed by a <code>double[]</code>. Empty values are null. The texts of values which are not
+ * written like {@link Double#toString(double)} writes them are kept, see {@link ColumnBuilder}.
+ *
+ * @author Kai Winter
+ */
+final class DoubleColumn extends Column {
+
+	private final double[] values;
+	private final BitSet nulls;
+	private final String[] texts;
+	private final int size;
+
+	/** <code>true</code> if the values were computed, e.g. by an aggregate function, rather than read from a file. */
+	private final boolean computed;
+
+	DoubleColumn(int sqlType, double[] values, BitSet nulls, String[] texts, int size, boolean computed) {
+		super(sqlType);
+		this.values = values;
+		this.nulls = nulls;
+		this.texts = texts;
+		this.size = size;
+		this.computed = computed;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return nulls != null && nulls.get(row);
+	}
+
+	@Override
+	public String getString(int row) {
+		if (isNull(row)) {
+			return null;
+		}
+		return texts != null && texts[row] != null ? texts[row] : String.valueOf(values[row]);
+	}
+
+	@Override
+	public String getText(int row) {
+		return isNull(row) && !computed ? "" : getString(row);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		return isNull(row) ? null : Double.valueOf(values[row]);
+	}
+
+	@Override
+	public int getInt(int row) {
+		return (int) values[row];
+	}
+
+	@Override
+	public long getLong(int row) {
+		return (long) values[row];
+	}
+
+	@Override
+	public double getDouble(int row) {
+		return values[row];
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int row) {
+		return isNull(row) ? null : BigDecimal.valueOf(values[row]);
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		return OBJECT_OVERHEAD * 2 + values.length * 8L + (nulls == null ? 0 : nulls.size() / 8)
+				+ getEstimatedSize(texts);
+	}
+
+	/**
+	 * Builds a {@link DoubleColumn}.
+	 */
+	static final class Builder extends ColumnBuilder {
+
+		private double[] values;
+		private BitSet nulls;
+		private String[] texts;
+		private int size;
+
+		Builder(int sqlType, int expectedSize) {
+			super(sqlType);
+			values = new double[Math.max(expectedSize, 16)];
+		}
+
+		@Override
+		boolean append(String value) {
+			double parsed = 0;
+			if (value.isEmpty()) {
+				if (nulls == null) {
+					nulls = new BitSet();
+				}
+				nulls.set(size);
+			} else {
+				try {
+					parsed = Double.parseDouble(value);
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			if (!value.isEmpty() && !String.valueOf(parsed).equals(value)) {
+				texts = keepText(texts, size, values.length, value);
+			}
+			values[size++] = parsed;
+			return true;
+		}
+
+		@Override
+		boolean append(long value) {
+			return append((double) value);
+		}
+
+		@Override
+		boolean append(double value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+			return true;
+		}
+
+		@Override
+		boolean appendColumn(Column column) {
+			if (!(column instanceof DoubleColumn)) {
+				return false;
+			}
+			DoubleColumn other = (DoubleColumn) column;
+			if (size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			nulls = appendNulls(nulls, other.nulls, size);
+			texts = appendTexts(texts, other.texts, size, values.length);
+			size += other.size;
+			return true;
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+
+		@Override
+		Column build() {
+			return new DoubleColumn(getSqlType(), Arrays.copyOf(values, size), nulls, buildTexts(texts, size), size,
+					false);
+		}
+
+		@Override
+		ColumnBuilder toStringBuilder() {
+			return StringColumn.Builder.copyOf(build());
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+
+/**
+ * A {@link Column} containing some rows of another column, see {@link Column#gather(int[])}. Accessors map the row
+ * index and delegate, a row index of -1 is a null value.
+ *
+ * @author Kai Winter
+ */
+final class GatheredColumn extends Column {
+
+	private final Column column;
+	private final int[] rows;
+
+	GatheredColumn(Column column, int[] rows) {
+		super(column.getSqlType());
+		this.column = column;
+		this.rows = rows;
+	}
+
+	@Override
+	public int size() {
+		return rows.length;
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return rows[row] < 0 || column.isNull(rows[row]);
+	}
+
+	@Override
+	public String getString(int row) {
+		return rows[row] < 0 ? null : column.getString(rows[row]);
+	}
+
+	@Override
+	public String getText(int row) {
+		return rows[row] < 0 ? null : column.getText(rows[row]);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		return rows[row] < 0 ? null : column.getObject(rows[row]);
+	}
+
+	@Override
+	public int getInt(int row) {
+		return column.getInt(rows[row]);
+	}
+
+	@Override
+	public long getLong(int row) {
+		return column.getLong(rows[row]);
+	}
+
+	@Override
+	public double getDouble(int row) {
+		return column.getDouble(rows[row]);
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int row) {
+		return rows[row] < 0 ? null : column.getBigDecimal(rows[row]);
+	}
+
+	@Override
+	public long getMillis(int row, int temporalType) throws ParseException {
+		return column.getMillis(rows[row], temporalType);
+	}
+
+	@Override
+	public Column gather(int[] gatheredRows) {
+		// Gathers directly from the underlying column, so joining more tables does not nest the lookups
+		int[] composed = new int[gatheredRows.length];
+		for (int i = 0; i < composed.length; i++) {
+			composed[i] = gatheredRows[i] < 0 ? -1 : rows[gatheredRows[i]];
+		}
+		return new GatheredColumn(column, composed);
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		// The values are shared with the gathered column
+		return OBJECT_OVERHEAD + rows.length * 4L;
+	}
+}
@@ -0,0 +1,224 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.sql.Types;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * A hash index of a {@link Column}: maps each distinct value to the rows containing it, so an equality lookup takes
+ * constant time. Null values are not indexed.
+ *
+ * <p>
+ * The keys are the values the query engine compares: integral columns are keyed by their long value, DOUBLE columns by
+ * the bits of their double value, DATE, TIME and TIMESTAMP columns by their milliseconds and all other columns by
+ * their text. The rows of all keys are stored in a single array, grouped by key and in ascending order within a key.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class HashIndex {
+
+	private static final int NO_GROUP = -1;
+
+	private static final int[] NO_ROWS = new int[0];
+
+	private final int sqlType;
+
+	/** Open addressing table of the long keys, <code>null</code> for text keys. */
+	private final long[] slotKeys;
+	private final int[] slotGroups;
+
+	/** The codes of the text keys are their groups, <code>null</code> for long keys. */
+	private final StringDictionary textKeys;
+
+	/** The rows of group <code>g</code> are stored from <code>groupStart[g]</code> to <code>groupStart[g + 1]</code>. */
+	private final int[] groupStart;
+	private final int[] rows;
+
+	private HashIndex(int sqlType, long[] slotKeys, int[] slotGroups, StringDictionary textKeys, int[] groupStart,
+			int[] rows) {
+		this.sqlType = sqlType;
+		this.slotKeys = slotKeys;
+		this.slotGroups = slotGroups;
+		this.textKeys = textKeys;
+		this.groupStart = groupStart;
+		this.rows = rows;
+	}
+
+	/**
+	 * Builds the index of a column.
+	 *
+	 * @param column
+	 *            the indexed {@link Column}.
+	 * @return the {@link HashIndex} or <code>null</code> if a value of a typed column cannot be converted to its type,
+	 *         in that case the query engine compares the values as text and the index could not be used
+	 */
+	public static HashIndex build(Column column) {
+		int sqlType = column.getSqlType();
+		int size = column.size();
+		int[] groupOfRow = new int[size];
+		int groupCount;
+
+		long[] slotKeys = null;
+		int[] slotGroups = null;
+		StringDictionary textKeys = null;
+		try {
+			if (SortKeys.isLongKeyed(sqlType)) {
+				slotKeys = new long[16];
+				slotGroups = new int[16];
+				Arrays.fill(slotGroups, NO_GROUP);
+				groupCount = 0;
+				for (int row = 0; row < size; row++) {
+					if (column.isNull(row)) {
+						groupOfRow[row] = NO_GROUP;
+						continue;
+					}
+					long key = longKey(column, row, sqlType);
+					int slot = findSlot(slotKeys, slotGroups, key);
+					if (slotGroups[slot] == NO_GROUP) {
+						slotKeys[slot] = key;
+						slotGroups[slot] = groupCount++;
+						if (groupCount * 2 > slotKeys.length) {
+							long[] newKeys = new long[slotKeys.length * 2];
+							int[] newGroups = new int[slotKeys.length * 2];
+							rehash(slotKeys, slotGroups, newKeys, newGroups);
+							slotKeys = newKeys;
+							slotGroups = newGroups;
+						}
+						groupOfRow[row] = groupCount - 1;
+					} else {
+						groupOfRow[row] = slotGroups[slot];
+					}
+				}
+			} else {
+				textKeys = new StringDictionary();
+				for (int row = 0; row < size; row++) {
+					groupOfRow[row] = column.isNull(row) ? NO_GROUP : textKeys.add(column.getString(row));
+				}
+				groupCount = textKeys.size();
+			}
+		} catch (NumberFormatException | ParseException e) {
+			return null;
+		}
+
+		// Count the rows of each group, then place them
+		int[] groupStart = new int[groupCount + 1];
+		for (int group : groupOfRow) {
+			if (group != NO_GROUP) {
+				groupStart[group + 1]++;
+			}
+		}
+		for (int group = 0; group < groupCount; group++) {
+			groupStart[group + 1] += groupStart[group];
+		}
+		int[] next = Arrays.copyOf(groupStart, groupCount);
+		int[] rows = new int[groupStart[groupCount]];
+		for (int row = 0; row < size; row++) {
+			if (groupOfRow[row] != NO_GROUP) {
+				rows[next[groupOfRow[row]]++] = row;
+			}
+		}
+		return new HashIndex(sqlType, slotKeys, slotGroups, textKeys, groupStart, rows);
+	}
+
+	/**
+	 * @return the {@link Types} of the indexed column, which determines the kind of the keys
+	 */
+	public int getSqlType() {
+		return sqlType;
+	}
+
+	/**
+	 * @param key
+	 *            the value of an INTEGER or BIGINT column or the milliseconds of a DATE, TIME or TIMESTAMP column.
+	 * @return the rows containing the value in ascending order
+	 */
+	public int[] lookup(long key) {
+		if (slotKeys == null) {
+			return NO_ROWS;
+		}
+		return rowsOf(slotGroups[findSlot(slotKeys, slotGroups, key)]);
+	}
+
+	/**
+	 * @param key
+	 *            the value of a DOUBLE column.
+	 * @return the rows containing the value in ascending order
+	 */
+	public int[] lookup(double key) {
+		return lookup(Double.doubleToLongBits(key));
+	}
+
+	/**
+	 * @param key
+	 *            the text of a value.
+	 * @return the rows containing the value in ascending order
+	 */
+	public int[] lookup(String key) {
+		if (textKeys == null) {
+			return NO_ROWS;
+		}
+		int code = textKeys.indexOf(key);
+		return code < 0 ? NO_ROWS : rowsOf(code);
+	}
+
+	/**
+	 * @return the approximate number of bytes this index occupies on the heap
+	 */
+	public long getEstimatedSize() {
+		long size = Column.OBJECT_OVERHEAD * 3 + groupStart.length * 4L + rows.length * 4L;
+		if (slotKeys != null) {
+			size += slotKeys.length * 12L;
+		} else {
+			size += textKeys.getEstimatedSize();
+		}
+		return size;
+	}
+
+	private int[] rowsOf(int group) {
+		if (group == NO_GROUP) {
+			return NO_ROWS;
+		}
+		return Arrays.copyOfRange(rows, groupStart[group], groupStart[group + 1]);
+	}
+
+	private static long longKey(Column column, int row, int sqlType) throws ParseException {
+		switch (sqlType) {
+		case Types.INTEGER:
+		case Types.BIGINT:
+			return column.getLong(row);
+		case Types.DOUBLE:
+			return Double.doubleToLongBits(column.getDouble(row));
+		default:
+			return column.getMillis(row, sqlType);
+		}
+	}
+
+	/**
+	 * @return the slot of the key or the empty slot where it would be inserted
+	 */
+	private static int findSlot(long[] slotKeys, int[] slotGroups, long key) {
+		int mask = slotKeys.length - 1;
+		int slot = mix(key) & mask;
+		while (slotGroups[slot] != NO_GROUP && slotKeys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static void rehash(long[] oldKeys, int[] oldGroups, long[] newKeys, int[] newGroups) {
+		Arrays.fill(newGroups, NO_GROUP);
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldGroups[slot] != NO_GROUP) {
+				int newSlot = findSlot(newKeys, newGroups, oldKeys[slot]);
+				newKeys[newSlot] = oldKeys[slot];
+				newGroups[newSlot] = oldGroups[slot];
+			}
+		}
+	}
+
+	private static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,194 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.googlecode.dummyjdbc.csv.CsvRecord;
+
+/**
+ * An INTEGER {@link Column} backed by an <code>int[]</code>. Empty values are null. The texts of values which are not
+ * written like {@link Integer#toString(int)} writes them are kept, see {@link ColumnBuilder}.
+ *
+ * @author Kai Winter
+ */
+final class IntColumn extends Column {
+
+	private final int[] values;
+	private final BitSet nulls;
+	private final String[] texts;
+	private final int size;
+
+	IntColumn(int sqlType, int[] values, BitSet nulls, String[] texts, int size) {
+		super(sqlType);
+		this.values = values;
+		this.nulls = nulls;
+		this.texts = texts;
+		this.size = size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return nulls != null && nulls.get(row);
+	}
+
+	@Override
+	public String getString(int row) {
+		if (isNull(row)) {
+			return null;
+		}
+		return texts != null && texts[row] != null ? texts[row] : String.valueOf(values[row]);
+	}
+
+	@Override
+	public String getText(int row) {
+		return isNull(row) ? "" : getString(row);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		return isNull(row) ? null : Integer.valueOf(values[row]);
+	}
+
+	@Override
+	public int getInt(int row) {
+		return values[row];
+	}
+
+	@Override
+	public long getLong(int row) {
+		return values[row];
+	}
+
+	@Override
+	public double getDouble(int row) {
+		return values[row];
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int row) {
+		return isNull(row) ? null : BigDecimal.valueOf(values[row]);
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		return OBJECT_OVERHEAD * 2 + values.length * 4L + (nulls == null ? 0 : nulls.size() / 8)
+				+ getEstimatedSize(texts);
+	}
+
+	/**
+	 * Builds an {@link IntColumn}.
+	 */
+	static final class Builder extends ColumnBuilder {
+
+		private int[] values;
+		private BitSet nulls;
+		private String[] texts;
+		private int size;
+
+		Builder(int sqlType, int expectedSize) {
+			super(sqlType);
+			values = new int[Math.max(expectedSize, 16)];
+		}
+
+		@Override
+		boolean append(String value) {
+			int parsed = 0;
+			if (value.isEmpty()) {
+				if (nulls == null) {
+					nulls = new BitSet();
+				}
+				nulls.set(size);
+			} else {
+				try {
+					parsed = Integer.parseInt(value);
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			if (!value.isEmpty() && !isCanonicalInteger(value)) {
+				texts = keepText(texts, size, values.length, value);
+			}
+			values[size++] = parsed;
+			return true;
+		}
+
+		@Override
+		boolean append(long value) {
+			if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+				return false;
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = (int) value;
+			return true;
+		}
+
+		@Override
+		boolean append(double value) {
+			return value == Math.rint(value) && (long) value == value && append((long) value);
+		}
+
+		@Override
+		boolean append(CsvRecord record, int field) {
+			if (record.isEmpty(field)) {
+				return append("");
+			}
+			int parsed;
+			try {
+				parsed = record.getInt(field);
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			if (record.getLength(field) != getTextLength(parsed)) {
+				// A plus sign or leading zeros
+				texts = keepText(texts, size, values.length, record.getField(field));
+			}
+			values[size++] = parsed;
+			return true;
+		}
+
+		@Override
+		boolean appendColumn(Column column) {
+			if (!(column instanceof IntColumn)) {
+				return false;
+			}
+			IntColumn other = (IntColumn) column;
+			if (size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			nulls = appendNulls(nulls, other.nulls, size);
+			texts = appendTexts(texts, other.texts, size, values.length);
+			size += other.size;
+			return true;
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+
+		@Override
+		Column build() {
+			return new IntColumn(getSqlType(), Arrays.copyOf(values, size), nulls, buildTexts(texts, size), size);
+		}
+
+		@Override
+		ColumnBuilder toStringBuilder() {
+			return StringColumn.Builder.copyOf(build());
+		}
+	}
+}
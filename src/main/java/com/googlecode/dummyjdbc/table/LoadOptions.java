@@ -0,0 +1,166 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.nio.charset.Charset;
+import java.util.Properties;
+
+import com.googlecode.dummyjdbc.csv.CsvParser;
+import com.googlecode.dummyjdbc.csv.FastCsvParser;
+import com.googlecode.dummyjdbc.csv.OpenCsvParser;
+
+/**
+ * Controls how CSV table files are read. Created from the properties passed to
+ * {@link java.sql.DriverManager#getConnection(String, Properties)}.
+ *
+ * @author Kai Winter
+ */
+public final class LoadOptions {
+
+	/** Connection property selecting the {@link CsvParser}: <code>opencsv</code> (default) or <code>fast</code>. */
+	public static final String PARSER = "parser";
+
+	/** Connection property for the encoding of the CSV files, defaults to the platform encoding. */
+	public static final String CHARSET = "charset";
+
+	/**
+	 * Connection property selecting where table data is kept: <code>heap</code> (default) parses the files into
+	 * columns on the heap, <code>mapped</code> maps the files into memory and parses values on access.
+	 */
+	public static final String STORAGE = "storage";
+
+	/**
+	 * Connection property for the number of chunks a file is split into to parse it in parallel, defaults to 1. Files
+	 * are only split if each chunk gets at least {@link #MIN_CHUNK_SIZE} bytes. Parallel loading scans the file bytes
+	 * like the <code>fast</code> parser, it does not apply to <code>mapped</code> storage.
+	 */
+	public static final String PARALLELISM = "parallelism";
+
+	/** The minimum number of bytes of a chunk which is parsed in parallel. */
+	public static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+	/** Value of {@link #STORAGE} for tables parsed onto the heap. */
+	public static final String STORAGE_HEAP = "heap";
+
+	/** Value of {@link #STORAGE} for memory mapped tables. */
+	public static final String STORAGE_MAPPED = "mapped";
+
+	/** Value of {@link #PARSER} for the {@link OpenCsvParser}. */
+	public static final String PARSER_OPENCSV = "opencsv";
+
+	/** Value of {@link #PARSER} for the {@link FastCsvParser}. */
+	public static final String PARSER_FAST = "fast";
+
+	/** The options used if no connection properties are given. */
+	public static final LoadOptions DEFAULT = new LoadOptions(new OpenCsvParser(), Charset.defaultCharset(), false);
+
+	private final CsvParser parser;
+	private final Charset charset;
+	private final boolean mapped;
+	private final int parallelism;
+
+	/**
+	 * Constructs new {@link LoadOptions}.
+	 *
+	 * @param parser
+	 *            the {@link CsvParser} to read the files with.
+	 * @param charset
+	 *            the encoding of the files.
+	 * @param mapped
+	 *            <code>true</code> to map the files into memory instead of parsing them onto the heap.
+	 */
+	public LoadOptions(CsvParser parser, Charset charset, boolean mapped) {
+		this(parser, charset, mapped, 1);
+	}
+
+	/**
+	 * Constructs new {@link LoadOptions}.
+	 *
+	 * @param parser
+	 *            the {@link CsvParser} to read the files with.
+	 * @param charset
+	 *            the encoding of the files.
+	 * @param mapped
+	 *            <code>true</code> to map the files into memory instead of parsing them onto the heap.
+	 * @param parallelism
+	 *            the number of chunks a large file is split into to parse it in parallel, 1 parses it sequentially.
+	 */
+	public LoadOptions(CsvParser parser, Charset charset, boolean mapped, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+		}
+		this.parser = parser;
+		this.charset = charset;
+		this.mapped = mapped;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Creates the options from connection properties.
+	 *
+	 * @param info
+	 *            the connection properties, may be <code>null</code>.
+	 * @return the {@link LoadOptions}
+	 * @throws IllegalArgumentException
+	 *             if a property has an unknown value
+	 */
+	public static LoadOptions fromProperties(Properties info) {
+		if (info == null) {
+			return DEFAULT;
+		}
+
+		String parserName = info.getProperty(PARSER, PARSER_OPENCSV);
+		CsvParser parser;
+		if (PARSER_OPENCSV.equalsIgnoreCase(parserName)) {
+			parser = new OpenCsvParser();
+		} else if (PARSER_FAST.equalsIgnoreCase(parserName)) {
+			parser = new FastCsvParser();
+		} else {
+			throw new IllegalArgumentException("Unknown parser: " + parserName);
+		}
+
+		String charsetName = info.getProperty(CHARSET);
+		Charset charset = charsetName == null ? Charset.defaultCharset() : Charset.forName(charsetName);
+
+		String storage = info.getProperty(STORAGE, STORAGE_HEAP);
+		if (!STORAGE_HEAP.equalsIgnoreCase(storage) && !STORAGE_MAPPED.equalsIgnoreCase(storage)) {
+			throw new IllegalArgumentException("Unknown storage: " + storage);
+		}
+
+		String parallelismValue = info.getProperty(PARALLELISM, "1");
+		int parallelism;
+		try {
+			parallelism = Integer.parseInt(parallelismValue.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelismValue, e);
+		}
+
+		return new LoadOptions(parser, charset, STORAGE_MAPPED.equalsIgnoreCase(storage), parallelism);
+	}
+
+	/**
+	 * @return the {@link CsvParser} to read the files with
+	 */
+	public CsvParser getParser() {
+		return parser;
+	}
+
+	/**
+	 * @return the encoding of the files
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @return <code>true</code> if the files are mapped into memory instead of being parsed onto the heap
+	 */
+	public boolean isMapped() {
+		return mapped;
+	}
+
+	/**
+	 * @return the number of chunks a large file is split into to parse it in parallel
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+}
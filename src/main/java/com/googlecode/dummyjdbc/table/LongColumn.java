@@ -0,0 +1,209 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * A {@link Column} backed by a <code>long[]</code>. Used for BIGINT columns and for DATE, TIME and TIMESTAMP columns,
+ * which store the milliseconds since the epoch. Empty values are null. The texts of values which are not written like
+ * {@link Long#toString(long)} or the format of the temporal type writes them are kept, see {@link ColumnBuilder}.
+ *
+ * @author Kai Winter
+ */
+final class LongColumn extends Column {
+
+	private final long[] values;
+	private final BitSet nulls;
+	private final String[] texts;
+	private final int size;
+
+	/** <code>true</code> if the values were computed, e.g. by an aggregate function, rather than read from a file. */
+	private final boolean computed;
+
+	LongColumn(int sqlType, long[] values, BitSet nulls, String[] texts, int size, boolean computed) {
+		super(sqlType);
+		this.values = values;
+		this.nulls = nulls;
+		this.texts = texts;
+		this.size = size;
+		this.computed = computed;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return nulls != null && nulls.get(row);
+	}
+
+	@Override
+	public String getString(int row) {
+		if (isNull(row)) {
+			return null;
+		}
+		if (texts != null && texts[row] != null) {
+			return texts[row];
+		}
+		return format(getSqlType(), values[row]);
+	}
+
+	@Override
+	public String getText(int row) {
+		return isNull(row) && !computed ? "" : getString(row);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		if (isNull(row)) {
+			return null;
+		}
+		switch (getSqlType()) {
+		case Types.BIGINT:
+			return Long.valueOf(values[row]);
+		case Types.TIME:
+			return new Time(values[row]);
+		case Types.TIMESTAMP:
+			return new Timestamp(values[row]);
+		default:
+			return new java.sql.Date(values[row]);
+		}
+	}
+
+	@Override
+	public long getLong(int row) {
+		return values[row];
+	}
+
+	@Override
+	public double getDouble(int row) {
+		return getSqlType() == Types.BIGINT ? values[row] : super.getDouble(row);
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int row) {
+		if (getSqlType() != Types.BIGINT) {
+			return super.getBigDecimal(row);
+		}
+		return isNull(row) ? null : BigDecimal.valueOf(values[row]);
+	}
+
+	@Override
+	public long getMillis(int row, int temporalType) throws ParseException {
+		return getSqlType() == Types.BIGINT ? super.getMillis(row, temporalType) : values[row];
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		return OBJECT_OVERHEAD * 2 + values.length * 8L + (nulls == null ? 0 : nulls.size() / 8)
+				+ getEstimatedSize(texts);
+	}
+
+	private static String format(int sqlType, long value) {
+		return sqlType == Types.BIGINT ? String.valueOf(value) : DateUtils.format(sqlType, value);
+	}
+
+	/**
+	 * Builds a {@link LongColumn}.
+	 */
+	static final class Builder extends ColumnBuilder {
+
+		private long[] values;
+		private BitSet nulls;
+		private String[] texts;
+		private int size;
+
+		Builder(int sqlType, int expectedSize) {
+			super(sqlType);
+			values = new long[Math.max(expectedSize, 16)];
+		}
+
+		@Override
+		boolean append(String value) {
+			long parsed = 0;
+			if (value.isEmpty()) {
+				if (nulls == null) {
+					nulls = new BitSet();
+				}
+				nulls.set(size);
+			} else {
+				try {
+					parsed = getSqlType() == Types.BIGINT ? Long.parseLong(value)
+							: DateUtils.parse(getSqlType(), value);
+				} catch (NumberFormatException | ParseException e) {
+					return false;
+				}
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			if (!value.isEmpty() && !(getSqlType() == Types.BIGINT ? isCanonicalInteger(value)
+					: format(getSqlType(), parsed).equals(value))) {
+				texts = keepText(texts, size, values.length, value);
+			}
+			values[size++] = parsed;
+			return true;
+		}
+
+		@Override
+		boolean append(long value) {
+			if (getSqlType() != Types.BIGINT) {
+				return super.append(value);
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+			return true;
+		}
+
+		@Override
+		boolean append(double value) {
+			if (getSqlType() != Types.BIGINT) {
+				return super.append(value);
+			}
+			return value == Math.rint(value) && (long) value == value && append((long) value);
+		}
+
+		@Override
+		boolean appendColumn(Column column) {
+			if (!(column instanceof LongColumn)) {
+				return false;
+			}
+			LongColumn other = (LongColumn) column;
+			if (size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			nulls = appendNulls(nulls, other.nulls, size);
+			texts = appendTexts(texts, other.texts, size, values.length);
+			size += other.size;
+			return true;
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+
+		@Override
+		Column build() {
+			return new LongColumn(getSqlType(), Arrays.copyOf(values, size), nulls, buildTexts(texts, size), size,
+					false);
+		}
+
+		@Override
+		ColumnBuilder toStringBuilder() {
+			return StringColumn.Builder.copyOf(build());
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.util.Arrays;
+
+/**
+ * Assigns each distinct long a dense code, starting at 0, in the order the values are added. Used to number the groups
+ * of an aggregate query, the distinct rows of a query and the join keys of a hash join. Open addressing keeps the
+ * lookup free of boxing.
+ *
+ * @author Kai Winter
+ */
+public final class LongDictionary {
+
+	private static final int NO_CODE = -1;
+
+	private long[] keys;
+	private int[] codes;
+	private int size;
+
+	/**
+	 * Constructs a new, empty {@link LongDictionary}.
+	 */
+	public LongDictionary() {
+		keys = new long[16];
+		codes = new int[16];
+		Arrays.fill(codes, NO_CODE);
+	}
+
+	/**
+	 * Returns the code of the given value, adding it to the dictionary if it is not contained yet.
+	 *
+	 * @param value
+	 *            the value.
+	 * @return the code of the value
+	 */
+	public int add(long value) {
+		int slot = findSlot(keys, codes, value);
+		if (codes[slot] != NO_CODE) {
+			return codes[slot];
+		}
+		keys[slot] = value;
+		codes[slot] = size++;
+		if (size * 2 > keys.length) {
+			rehash();
+		}
+		return size - 1;
+	}
+
+	/**
+	 * @param value
+	 *            the value.
+	 * @return the code of the value or -1 if the dictionary does not contain it
+	 */
+	public int indexOf(long value) {
+		return codes[findSlot(keys, codes, value)];
+	}
+
+	/**
+	 * @return the number of distinct values
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void rehash() {
+		long[] newKeys = new long[keys.length * 2];
+		int[] newCodes = new int[keys.length * 2];
+		Arrays.fill(newCodes, NO_CODE);
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (codes[slot] != NO_CODE) {
+				int newSlot = findSlot(newKeys, newCodes, keys[slot]);
+				newKeys[newSlot] = keys[slot];
+				newCodes[newSlot] = codes[slot];
+			}
+		}
+		keys = newKeys;
+		codes = newCodes;
+	}
+
+	private static int findSlot(long[] keys, int[] codes, long value) {
+		int mask = keys.length - 1;
+		long h = value * 0x9E3779B97F4A7C15L;
+		int slot = (int) (h ^ (h >>> 32)) & mask;
+		while (codes[slot] != NO_CODE && keys[slot] != value) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
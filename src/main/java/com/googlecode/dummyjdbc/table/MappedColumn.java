@@ -0,0 +1,93 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.ParseException;
+
+import com.googlecode.dummyjdbc.utils.DateUtils;
+
+/**
+ * A {@link Column} of a memory mapped CSV file. Nothing but the row offsets is kept on the heap, values are parsed
+ * from the mapped file on every access. Empty values of typed columns are null.
+ *
+ * @author Kai Winter
+ */
+final class MappedColumn extends Column {
+
+	private final MappedRows rows;
+	private final int field;
+
+	MappedColumn(int sqlType, MappedRows rows, int field) {
+		super(sqlType);
+		this.rows = rows;
+		this.field = field;
+	}
+
+	@Override
+	public int size() {
+		return rows.getRowCount();
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return getSqlType() != Types.VARCHAR && rows.getRecord(row).isEmpty(field);
+	}
+
+	@Override
+	public String getString(int row) {
+		return isNull(row) ? null : rows.getRecord(row).getField(field);
+	}
+
+	@Override
+	public String getText(int row) {
+		return rows.getRecord(row).getField(field);
+	}
+
+	@Override
+	public int getInt(int row) {
+		return rows.getRecord(row).getInt(field);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		if (isNull(row)) {
+			return null;
+		}
+		try {
+			switch (getSqlType()) {
+			case Types.INTEGER:
+				return Integer.valueOf(getInt(row));
+			case Types.BIGINT:
+				return Long.valueOf(getLong(row));
+			case Types.DOUBLE:
+				return Double.valueOf(getDouble(row));
+			case Types.DATE:
+				return new java.sql.Date(getMillis(row, Types.DATE));
+			case Types.TIME:
+				return new Time(getMillis(row, Types.TIME));
+			case Types.TIMESTAMP:
+				return new Timestamp(getMillis(row, Types.TIMESTAMP));
+			default:
+				return getString(row);
+			}
+		} catch (NumberFormatException e) {
+			return getString(row);
+		} catch (ParseException e) {
+			return getString(row);
+		}
+	}
+
+	@Override
+	public long getMillis(int row, int temporalType) throws ParseException {
+		int sqlType = getSqlType();
+		boolean temporalColumn = sqlType == Types.DATE || sqlType == Types.TIME || sqlType == Types.TIMESTAMP;
+		return DateUtils.parse(temporalColumn ? sqlType : temporalType, getString(row));
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		// The row offsets are shared by all columns and counted by the table
+		return OBJECT_OVERHEAD;
+	}
+}
@@ -0,0 +1,74 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.googlecode.dummyjdbc.csv.ByteBufferRecordReader;
+import com.googlecode.dummyjdbc.csv.CsvRecord;
+import com.googlecode.dummyjdbc.csv.RowOffsetIndex;
+
+/**
+ * The data rows of a memory mapped CSV file. Rows are parsed on access, each thread remembers the last row it parsed,
+ * so reading several columns of the same row parses it only once.
+ *
+ * @author Kai Winter
+ */
+final class MappedRows {
+
+	private final ByteBuffer buffer;
+	private final RowOffsetIndex rowOffsetIndex;
+	private final ThreadLocal<Cursor> cursors;
+
+	MappedRows(ByteBuffer buffer, RowOffsetIndex rowOffsetIndex, final Charset charset) {
+		this.buffer = buffer;
+		this.rowOffsetIndex = rowOffsetIndex;
+		this.cursors = new ThreadLocal<Cursor>() {
+			@Override
+			protected Cursor initialValue() {
+				return new Cursor(new ByteBufferRecordReader(MappedRows.this.buffer, charset));
+			}
+		};
+	}
+
+	/**
+	 * @return the number of data rows, the header is not counted
+	 */
+	int getRowCount() {
+		return rowOffsetIndex.getRecordCount() - 1;
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the parsed row, only valid until the current thread reads another row
+	 */
+	CsvRecord getRecord(int row) {
+		Cursor cursor = cursors.get();
+		if (cursor.row != row || cursor.record == null) {
+			cursor.reader.seek(rowOffsetIndex.getStart(row + 1));
+			try {
+				cursor.record = cursor.reader.next();
+			} catch (IOException e) {
+				// All records were scanned successfully while the index was built
+				throw new IllegalStateException("Mapped file changed while in use", e);
+			}
+			cursor.row = row;
+		}
+		return cursor.record;
+	}
+
+	long getEstimatedSize() {
+		return Column.OBJECT_OVERHEAD * 2 + rowOffsetIndex.getEstimatedSize();
+	}
+
+	private static final class Cursor {
+		private final ByteBufferRecordReader reader;
+		private int row = -1;
+		private CsvRecord record;
+
+		Cursor(ByteBufferRecordReader reader) {
+			this.reader = reader;
+		}
+	}
+}
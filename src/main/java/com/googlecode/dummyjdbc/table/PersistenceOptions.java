@@ -0,0 +1,96 @@
+package com.googlecode.dummyjdbc.table;
+
+/**
+ * Controls whether modified tables survive a restart of the JVM. Persistence is disabled by default, INSERT, UPDATE
+ * and DELETE only change the tables in memory.
+ *
+ * <p>
+ * If it is enabled, the changes of each statement are appended to a write-ahead log next to the CSV file of the table,
+ * named like the file with the suffix <code>.wal</code>, before the new version of the table is published. When the
+ * table is read again, e.g. after a restart, the logged changes are applied to the content of the CSV file. Once a log
+ * has grown beyond the compaction threshold, the current version of the table is written to the CSV file in the
+ * background and the log starts over.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class PersistenceOptions {
+
+	/**
+	 * When the write-ahead log is forced to the storage device.
+	 */
+	public enum SyncPolicy {
+		/** After each statement, a statement which returned is never lost. */
+		ALWAYS,
+		/** Periodically in the background, see {@link PersistenceOptions#getSyncInterval()}. */
+		INTERVAL,
+		/** Never, the operating system decides when the log is written. */
+		NEVER
+	}
+
+	/** The default interval between two syncs of {@link SyncPolicy#INTERVAL} in milliseconds. */
+	public static final long DEFAULT_SYNC_INTERVAL = 1000;
+
+	/** The default size in bytes a log grows to before it is compacted into the CSV file. */
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 16L * 1024 * 1024;
+
+	private final SyncPolicy syncPolicy;
+	private final long syncInterval;
+	private final long compactionThreshold;
+
+	/**
+	 * Constructs new {@link PersistenceOptions} with the default sync interval and compaction threshold.
+	 *
+	 * @param syncPolicy
+	 *            the {@link SyncPolicy}.
+	 */
+	public PersistenceOptions(SyncPolicy syncPolicy) {
+		this(syncPolicy, DEFAULT_SYNC_INTERVAL, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	/**
+	 * Constructs new {@link PersistenceOptions}.
+	 *
+	 * @param syncPolicy
+	 *            the {@link SyncPolicy}.
+	 * @param syncInterval
+	 *            the interval between two syncs of {@link SyncPolicy#INTERVAL} in milliseconds.
+	 * @param compactionThreshold
+	 *            the size in bytes a log grows to before it is compacted into the CSV file, 0 never compacts.
+	 */
+	public PersistenceOptions(SyncPolicy syncPolicy, long syncInterval, long compactionThreshold) {
+		if (syncPolicy == null) {
+			throw new IllegalArgumentException("Sync policy must not be null");
+		}
+		if (syncInterval < 1) {
+			throw new IllegalArgumentException("Sync interval must be positive: " + syncInterval);
+		}
+		if (compactionThreshold < 0) {
+			throw new IllegalArgumentException("Compaction threshold must not be negative: " + compactionThreshold);
+		}
+		this.syncPolicy = syncPolicy;
+		this.syncInterval = syncInterval;
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	/**
+	 * @return the {@link SyncPolicy}
+	 */
+	public SyncPolicy getSyncPolicy() {
+		return syncPolicy;
+	}
+
+	/**
+	 * @return the interval between two syncs of {@link SyncPolicy#INTERVAL} in milliseconds
+	 */
+	public long getSyncInterval() {
+		return syncInterval;
+	}
+
+	/**
+	 * @return the size in bytes a log grows to before it is compacted into the CSV file, 0 if it is never compacted
+	 */
+	public long getCompactionThreshold() {
+		return compactionThreshold;
+	}
+}
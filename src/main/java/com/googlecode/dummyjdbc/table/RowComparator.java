@@ -0,0 +1,19 @@
+package com.googlecode.dummyjdbc.table;
+
+/**
+ * Compares two rows of a {@link Table} by their indexes, so rows can be sorted without boxing.
+ *
+ * @author Kai Winter
+ */
+public interface RowComparator {
+
+	/**
+	 * @param row
+	 *            the index of the first row, starting at 0.
+	 * @param otherRow
+	 *            the index of the second row, starting at 0.
+	 * @return a negative number, zero or a positive number if the first row is ordered before, with or after the
+	 *         second row
+	 */
+	int compare(int row, int otherRow);
+}
@@ -0,0 +1,142 @@
+package com.googlecode.dummyjdbc.table;
+
+/**
+ * Sorts arrays of row indexes with a {@link RowComparator}. The sort is stable: rows which compare equal keep their
+ * order, so rows of equal values stay in the order of the file. If only the first rows of the order are needed,
+ * {@link #top(int[], int, RowComparator)} keeps them in a bounded heap instead of sorting all rows.
+ *
+ * @author Kai Winter
+ */
+public final class RowSorter {
+
+	/** Runs up to this length are sorted by insertion. */
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private RowSorter() {
+		// utility class
+	}
+
+	/**
+	 * Sorts the rows in place.
+	 *
+	 * @param rows
+	 *            the row indexes.
+	 * @param comparator
+	 *            the {@link RowComparator}.
+	 */
+	public static void sort(int[] rows, RowComparator comparator) {
+		int[] buffer = new int[rows.length];
+		mergeSort(rows, buffer, 0, rows.length, comparator);
+	}
+
+	/**
+	 * Returns the first rows in the order of the comparator, like sorting the rows with
+	 * {@link #sort(int[], RowComparator)} and keeping the first <code>count</code>. Takes
+	 * <code>O(n log count)</code> time and <code>O(count)</code> memory.
+	 *
+	 * @param rows
+	 *            the row indexes in ascending order, which is the order of rows which compare equal.
+	 * @param count
+	 *            the number of rows to return.
+	 * @param comparator
+	 *            the {@link RowComparator}.
+	 * @return the first rows in sorted order
+	 */
+	public static int[] top(int[] rows, int count, final RowComparator comparator) {
+		if (count >= rows.length) {
+			int[] result = rows.clone();
+			sort(result, comparator);
+			return result;
+		}
+
+		// Rows which compare equal are ordered by their index, so the heap has the order of the stable sort
+		RowComparator order = new RowComparator() {
+			@Override
+			public int compare(int row, int otherRow) {
+				int compareResult = comparator.compare(row, otherRow);
+				return compareResult != 0 ? compareResult : Integer.compare(row, otherRow);
+			}
+		};
+		// A max heap of the first rows, its root is the last of them
+		int[] heap = new int[count];
+		int size = 0;
+		for (int row : rows) {
+			if (size < count) {
+				heap[size] = row;
+				siftUp(heap, size++, order);
+			} else if (count > 0 && order.compare(row, heap[0]) < 0) {
+				heap[0] = row;
+				siftDown(heap, count, order);
+			}
+		}
+		sort(heap, order);
+		return heap;
+	}
+
+	private static void siftUp(int[] heap, int index, RowComparator order) {
+		int row = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (order.compare(heap[parent], row) >= 0) {
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = row;
+	}
+
+	private static void siftDown(int[] heap, int size, RowComparator order) {
+		int row = heap[0];
+		int index = 0;
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+				child++;
+			}
+			if (order.compare(row, heap[child]) >= 0) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = row;
+	}
+
+	private static void mergeSort(int[] rows, int[] buffer, int from, int to, RowComparator comparator) {
+		if (to - from <= INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				int row = rows[i];
+				int j = i;
+				while (j > from && comparator.compare(rows[j - 1], row) > 0) {
+					rows[j] = rows[j - 1];
+					j--;
+				}
+				rows[j] = row;
+			}
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		mergeSort(rows, buffer, from, middle, comparator);
+		mergeSort(rows, buffer, middle, to, comparator);
+		if (comparator.compare(rows[middle - 1], rows[middle]) <= 0) {
+			// Already in order
+			return;
+		}
+
+		System.arraycopy(rows, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right == to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+				rows[i] = buffer[left++];
+			} else {
+				rows[i] = buffer[right++];
+			}
+		}
+	}
+}
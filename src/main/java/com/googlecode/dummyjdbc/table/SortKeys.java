@@ -0,0 +1,155 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.sql.Types;
+import java.text.ParseException;
+
+/**
+ * The values of a {@link Column} converted to keys which sort in the order the query engine compares them: integral
+ * columns by their long value, DOUBLE columns numerically, DATE, TIME and TIMESTAMP columns by their milliseconds and
+ * all other columns as text. A typed column with a value which cannot be converted to its type is sorted as text. Null
+ * values are ordered before all other values.
+ *
+ * @author Kai Winter
+ */
+public final class SortKeys implements RowComparator {
+
+	private final boolean[] nulls;
+
+	/** The keys of long keyed columns, <code>null</code> for text keys. */
+	private final long[] longKeys;
+
+	/** The keys of text keyed columns, <code>null</code> for long keys. */
+	private final String[] textKeys;
+
+	private SortKeys(boolean[] nulls, long[] longKeys, String[] textKeys) {
+		this.nulls = nulls;
+		this.longKeys = longKeys;
+		this.textKeys = textKeys;
+	}
+
+	/**
+	 * Converts the values of a column.
+	 *
+	 * @param column
+	 *            the {@link Column}.
+	 * @return the {@link SortKeys} of all rows of the column
+	 */
+	public static SortKeys of(Column column) {
+		int size = column.size();
+		boolean[] nulls = new boolean[size];
+		for (int row = 0; row < size; row++) {
+			nulls[row] = column.isNull(row);
+		}
+
+		int sqlType = column.getSqlType();
+		if (isLongKeyed(sqlType)) {
+			long[] longKeys = new long[size];
+			try {
+				for (int row = 0; row < size; row++) {
+					if (!nulls[row]) {
+						longKeys[row] = longKey(column, row, sqlType);
+					}
+				}
+				return new SortKeys(nulls, longKeys, null);
+			} catch (NumberFormatException | ParseException e) {
+				// Sorted as text
+			}
+		}
+
+		String[] textKeys = new String[size];
+		for (int row = 0; row < size; row++) {
+			if (!nulls[row]) {
+				textKeys[row] = column.getString(row);
+			}
+		}
+		return new SortKeys(nulls, null, textKeys);
+	}
+
+	/**
+	 * @param sqlType
+	 *            the {@link Types} of a column.
+	 * @return <code>true</code> if the values of a column of the type are sorted by long keys
+	 */
+	public static boolean isLongKeyed(int sqlType) {
+		switch (sqlType) {
+		case Types.INTEGER:
+		case Types.BIGINT:
+		case Types.DOUBLE:
+		case Types.DATE:
+		case Types.TIME:
+		case Types.TIMESTAMP:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Maps a double to a long which sorts like {@link Double#compare(double, double)}.
+	 *
+	 * @param value
+	 *            the double.
+	 * @return the long key
+	 */
+	public static long toLongKey(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	/**
+	 * @return <code>true</code> if the keys are longs, <code>false</code> if they are text
+	 */
+	public boolean isLongKeyed() {
+		return longKeys != null;
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return <code>true</code> if the value of the row is null
+	 */
+	public boolean isNull(int row) {
+		return nulls[row];
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the long key of the row
+	 */
+	public long getLong(int row) {
+		return longKeys[row];
+	}
+
+	/**
+	 * @param row
+	 *            the row index, starting at 0.
+	 * @return the text key of the row
+	 */
+	public String getString(int row) {
+		return textKeys[row];
+	}
+
+	@Override
+	public int compare(int row, int otherRow) {
+		if (nulls[row] || nulls[otherRow]) {
+			return Boolean.compare(nulls[otherRow], nulls[row]);
+		}
+		if (longKeys != null) {
+			return Long.compare(longKeys[row], longKeys[otherRow]);
+		}
+		return textKeys[row].compareTo(textKeys[otherRow]);
+	}
+
+	private static long longKey(Column column, int row, int sqlType) throws ParseException {
+		switch (sqlType) {
+		case Types.INTEGER:
+		case Types.BIGINT:
+			return column.getLong(row);
+		case Types.DOUBLE:
+			return toLongKey(column.getDouble(row));
+		default:
+			return column.getMillis(row, sqlType);
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.util.Arrays;
+
+/**
+ * A sorted index of a {@link Column}: the keys of the rows in ascending order with the permutation of the row indexes.
+ * Used to find the rows of a range of values with a binary search and to iterate the rows in the order of the column
+ * without sorting them.
+ *
+ * <p>
+ * The keys are ordered like the query engine compares the values, see {@link SortKeys}. Null values are ordered before
+ * all other values in ascending order and after them in descending order, rows with equal values are kept in the
+ * order of the file in both directions.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class SortedIndex {
+
+	private final int sqlType;
+
+	/** The keys of the rows with a value, <code>null</code> for text keys. */
+	private final long[] longKeys;
+
+	/** The keys of the rows with a value, <code>null</code> for long keys. */
+	private final String[] textKeys;
+
+	private final int nullCount;
+
+	/** The null rows followed by the other rows in ascending order of their keys, aligned with the keys. */
+	private final int[] ascending;
+
+	/** The rows in descending order of their keys followed by the null rows. */
+	private final int[] descending;
+
+	private SortedIndex(int sqlType, long[] longKeys, String[] textKeys, int nullCount, int[] ascending,
+			int[] descending) {
+		this.sqlType = sqlType;
+		this.longKeys = longKeys;
+		this.textKeys = textKeys;
+		this.nullCount = nullCount;
+		this.ascending = ascending;
+		this.descending = descending;
+	}
+
+	/**
+	 * Builds the index of a column.
+	 *
+	 * @param column
+	 *            the indexed {@link Column}.
+	 * @return the {@link SortedIndex} or <code>null</code> if a value of a typed column cannot be converted to its type,
+	 *         in that case the query engine compares the values as text and the index could not be used
+	 */
+	public static SortedIndex build(Column column) {
+		SortKeys keys = SortKeys.of(column);
+		int sqlType = column.getSqlType();
+		if (keys.isLongKeyed() != SortKeys.isLongKeyed(sqlType)) {
+			return null;
+		}
+
+		int size = column.size();
+		int[] ascending = new int[size];
+		for (int row = 0; row < size; row++) {
+			ascending[row] = row;
+		}
+		RowSorter.sort(ascending, keys);
+
+		int nullCount = 0;
+		while (nullCount < size && keys.isNull(ascending[nullCount])) {
+			nullCount++;
+		}
+		long[] longKeys = null;
+		String[] textKeys = null;
+		if (keys.isLongKeyed()) {
+			longKeys = new long[size - nullCount];
+			for (int i = 0; i < longKeys.length; i++) {
+				longKeys[i] = keys.getLong(ascending[nullCount + i]);
+			}
+		} else {
+			textKeys = new String[size - nullCount];
+			for (int i = 0; i < textKeys.length; i++) {
+				textKeys[i] = keys.getString(ascending[nullCount + i]);
+			}
+		}
+
+		// Reverse the runs of equal keys, but not the rows within a run
+		int[] descending = new int[size];
+		int position = 0;
+		int end = size;
+		while (end > nullCount) {
+			int start = end - 1;
+			while (start > nullCount && keys.compare(ascending[start - 1], ascending[end - 1]) == 0) {
+				start--;
+			}
+			System.arraycopy(ascending, start, descending, position, end - start);
+			position += end - start;
+			end = start;
+		}
+		System.arraycopy(ascending, 0, descending, position, nullCount);
+
+		return new SortedIndex(sqlType, longKeys, textKeys, nullCount, ascending, descending);
+	}
+
+	/**
+	 * @return the {@link java.sql.Types} of the indexed column, which determines the kind of the keys
+	 */
+	public int getSqlType() {
+		return sqlType;
+	}
+
+	/**
+	 * @param descending
+	 *            <code>true</code> for the descending order.
+	 * @return all rows in the order of the index, the array must not be modified
+	 */
+	public int[] getRows(boolean descending) {
+		return descending ? this.descending : ascending;
+	}
+
+	/**
+	 * Finds the rows whose value is within a range. The bounds have the type of the keys: a {@link Long} for INTEGER
+	 * and BIGINT columns and the milliseconds of DATE, TIME and TIMESTAMP columns, a {@link Double} for DOUBLE columns
+	 * and a {@link String} for all other columns.
+	 *
+	 * @param low
+	 *            the lower bound, <code>null</code> if the range has none.
+	 * @param lowInclusive
+	 *            <code>true</code> if the lower bound is part of the range.
+	 * @param high
+	 *            the upper bound, <code>null</code> if the range has none.
+	 * @param highInclusive
+	 *            <code>true</code> if the upper bound is part of the range.
+	 * @return the rows in ascending order
+	 */
+	public int[] range(Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+		int from = low == null ? 0 : search(low, !lowInclusive);
+		int to = high == null ? keyCount() : search(high, highInclusive);
+		if (from >= to) {
+			return new int[0];
+		}
+
+		int count = to - from;
+		int size = ascending.length;
+		if (count * 16L < size) {
+			int[] rows = Arrays.copyOfRange(ascending, nullCount + from, nullCount + to);
+			Arrays.sort(rows);
+			return rows;
+		}
+		// Large ranges are put in order by marking the rows, which is linear
+		boolean[] selected = new boolean[size];
+		for (int i = nullCount + from; i < nullCount + to; i++) {
+			selected[ascending[i]] = true;
+		}
+		int[] rows = new int[count];
+		int position = 0;
+		for (int row = 0; row < size; row++) {
+			if (selected[row]) {
+				rows[position++] = row;
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * @return the approximate number of bytes this index occupies on the heap
+	 */
+	public long getEstimatedSize() {
+		long size = Column.OBJECT_OVERHEAD * 4 + ascending.length * 8L;
+		if (longKeys != null) {
+			size += longKeys.length * 8L;
+		} else {
+			// The key Strings are shared with the column or the mapped file is read into new ones
+			size += textKeys.length * 4L;
+		}
+		return size;
+	}
+
+	private int keyCount() {
+		return ascending.length - nullCount;
+	}
+
+	/**
+	 * @param after
+	 *            <code>true</code> to find the position after the keys equal to the bound.
+	 * @return the position of the first key which is greater than (or equal to, if not <code>after</code>) the bound
+	 */
+	private int search(Object bound, boolean after) {
+		int low = 0;
+		int high = keyCount();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int compareResult = compareKey(middle, bound);
+			if (compareResult < 0 || (after && compareResult == 0)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private int compareKey(int position, Object bound) {
+		if (longKeys == null) {
+			return textKeys[position].compareTo((String) bound);
+		}
+		long key = bound instanceof Double ? SortKeys.toLongKey((Double) bound) : (Long) bound;
+		return Long.compare(longKeys[position], key);
+	}
+}
@@ -0,0 +1,124 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.util.Arrays;
+
+/**
+ * A dictionary encoded {@link Column}. Each row stores the code of its value in the {@link StringDictionary} of the
+ * column. This is used for VARCHAR columns and for typed columns whose values could not be parsed.
+ *
+ * @author Kai Winter
+ */
+final class StringColumn extends Column {
+
+	private final StringDictionary dictionary;
+	private final int[] codes;
+	private final int size;
+
+	StringColumn(int sqlType, StringDictionary dictionary, int[] codes, int size) {
+		super(sqlType);
+		this.dictionary = dictionary;
+		this.codes = codes;
+		this.size = size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return false;
+	}
+
+	@Override
+	public String getString(int row) {
+		return dictionary.get(codes[row]);
+	}
+
+	@Override
+	public Object getObject(int row) {
+		return getString(row);
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		return OBJECT_OVERHEAD * 2 + codes.length * 4L + dictionary.getEstimatedSize();
+	}
+
+	/**
+	 * Builds a {@link StringColumn}.
+	 */
+	static final class Builder extends ColumnBuilder {
+
+		private final StringDictionary dictionary = new StringDictionary();
+		private int[] codes;
+		private int size;
+
+		Builder(int sqlType, int expectedSize) {
+			super(sqlType);
+			codes = new int[Math.max(expectedSize, 16)];
+		}
+
+		/**
+		 * Creates a builder which already contains the values of the given column as {@link String}s.
+		 *
+		 * @param column
+		 *            the {@link Column} to copy.
+		 * @return the {@link Builder}
+		 */
+		static Builder copyOf(Column column) {
+			Builder builder = new Builder(column.getSqlType(), column.size() * 2);
+			builder.appendColumn(column);
+			return builder;
+		}
+
+		@Override
+		boolean append(String value) {
+			if (size == codes.length) {
+				codes = Arrays.copyOf(codes, size * 2);
+			}
+			codes[size++] = dictionary.add(value);
+			return true;
+		}
+
+		@Override
+		boolean appendColumn(Column column) {
+			if (size + column.size() > codes.length) {
+				codes = Arrays.copyOf(codes, Math.max(size + column.size(), size * 2));
+			}
+			if (!(column instanceof StringColumn)) {
+				for (int row = 0; row < column.size(); row++) {
+					codes[size++] = dictionary.add(column.isNull(row) ? "" : column.getString(row));
+				}
+				return true;
+			}
+
+			// Translate the codes of the other dictionary once instead of looking up every row
+			StringColumn other = (StringColumn) column;
+			int[] codeMap = new int[other.dictionary.size()];
+			for (int code = 0; code < codeMap.length; code++) {
+				codeMap[code] = dictionary.add(other.dictionary.get(code));
+			}
+			for (int row = 0; row < other.size; row++) {
+				codes[size++] = codeMap[other.codes[row]];
+			}
+			return true;
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+
+		@Override
+		Column build() {
+			return new StringColumn(getSqlType(), dictionary, Arrays.copyOf(codes, size), size);
+		}
+
+		@Override
+		ColumnBuilder toStringBuilder() {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.util.Arrays;
+
+/**
+ * Assigns each distinct {@link String} a dense code, starting at 0. Used to dictionary encode the values of VARCHAR
+ * columns, so every distinct value is only kept once and rows only store an int. Open addressing keeps the lookup free
+ * of boxing.
+ *
+ * @author Kai Winter
+ */
+public final class StringDictionary {
+
+	private static final int NO_CODE = -1;
+
+	private String[] values;
+	private int[] slots;
+	private int size;
+
+	/**
+	 * Constructs a new, empty {@link StringDictionary}.
+	 */
+	public StringDictionary() {
+		values = new String[16];
+		slots = new int[32];
+		Arrays.fill(slots, NO_CODE);
+	}
+
+	/**
+	 * Returns the code of the given value, adding it to the dictionary if it is not contained yet.
+	 *
+	 * @param value
+	 *            the value, must not be <code>null</code>.
+	 * @return the code of the value
+	 */
+	public int add(String value) {
+		int slot = findSlot(value);
+		if (slots[slot] != NO_CODE) {
+			return slots[slot];
+		}
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		int code = size++;
+		values[code] = value;
+		slots[slot] = code;
+		if (size * 2 > slots.length) {
+			rehash();
+		}
+		return code;
+	}
+
+	/**
+	 * @param value
+	 *            the value.
+	 * @return the code of the value or -1 if the dictionary does not contain it
+	 */
+	public int indexOf(String value) {
+		if (value == null) {
+			return NO_CODE;
+		}
+		return slots[findSlot(value)];
+	}
+
+	/**
+	 * @param code
+	 *            a code returned by {@link #add(String)}.
+	 * @return the value of the code
+	 */
+	public String get(int code) {
+		return values[code];
+	}
+
+	/**
+	 * @return the number of distinct values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the approximate number of bytes this dictionary occupies on the heap
+	 */
+	public long getEstimatedSize() {
+		long estimatedSize = Column.OBJECT_OVERHEAD * 3 + values.length * 4L + slots.length * 4L;
+		for (int i = 0; i < size; i++) {
+			estimatedSize += Column.OBJECT_OVERHEAD * 2 + values[i].length() * 2L;
+		}
+		return estimatedSize;
+	}
+
+	private int findSlot(String value) {
+		int mask = slots.length - 1;
+		int slot = mix(value.hashCode()) & mask;
+		while (slots[slot] != NO_CODE && !values[slots[slot]].equals(value)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		int[] newSlots = new int[slots.length * 2];
+		Arrays.fill(newSlots, NO_CODE);
+		int mask = newSlots.length - 1;
+		for (int code = 0; code < size; code++) {
+			int slot = mix(values[code].hashCode()) & mask;
+			while (newSlots[slot] != NO_CODE) {
+				slot = (slot + 1) & mask;
+			}
+			newSlots[slot] = code;
+		}
+		slots = newSlots;
+	}
+
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
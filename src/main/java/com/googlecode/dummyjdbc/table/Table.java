@@ -0,0 +1,426 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+import com.googlecode.dummyjdbc.resultset.impl.ColumnarResultSet;
+
+/**
+ * The parsed content of a CSV table file, stored column by column in primitive arrays. A {@link Table} is immutable
+ * once it has been loaded, so a single instance can be shared by all statements of all connections. INSERT, UPDATE
+ * and DELETE create a new version of the table, see {@link #append(List)}, {@link #update(int[], int[], List)} and
+ * {@link #delete(int[])}, which shares the unchanged values with this one.
+ *
+ * @author Kai Winter
+ */
+public final class Table {
+
+	private final String name;
+	private final DummyResultSetMetaData metaData;
+	private final Column[] columns;
+	private final HashIndex[] hashIndexes;
+	private final SortedIndex[] sortedIndexes;
+	private final int rowCount;
+	private final long estimatedSize;
+
+	/**
+	 * Constructs a new {@link Table}.
+	 *
+	 * @param name
+	 *            the name of the table.
+	 * @param metaData
+	 *            the table schema.
+	 * @param columns
+	 *            the columns in the order of the schema, all of the same size.
+	 */
+	public Table(String name, DummyResultSetMetaData metaData, Column[] columns) {
+		this(name, metaData, columns, 0);
+	}
+
+	/**
+	 * Constructs a new {@link Table} whose columns share data, which is not part of their estimated size.
+	 *
+	 * @param sharedSize
+	 *            the approximate number of bytes the shared data occupies on the heap.
+	 */
+	Table(String name, DummyResultSetMetaData metaData, Column[] columns, long sharedSize) {
+		this.name = name;
+		this.metaData = metaData;
+		this.columns = columns;
+		this.hashIndexes = new HashIndex[columns.length];
+		this.sortedIndexes = new SortedIndex[columns.length];
+		this.rowCount = columns.length == 0 ? 0 : columns[0].size();
+
+		long size = Column.OBJECT_OVERHEAD * 2 + sharedSize;
+		for (Column column : columns) {
+			size += column.getEstimatedSize();
+		}
+		this.estimatedSize = size;
+	}
+
+	private Table(Table table, HashIndex[] hashIndexes, SortedIndex[] sortedIndexes, long estimatedSize) {
+		this.name = table.name;
+		this.metaData = table.metaData;
+		this.columns = table.columns;
+		this.hashIndexes = hashIndexes;
+		this.sortedIndexes = sortedIndexes;
+		this.rowCount = table.rowCount;
+		this.estimatedSize = estimatedSize;
+	}
+
+	/**
+	 * Builds the indexes of the columns whose spec declares one, see {@link DummyResultSetMetaData#hasHashIndex(int)}
+	 * and {@link DummyResultSetMetaData#hasSortedIndex(int)}. A column with values which cannot be converted to its
+	 * type is not indexed.
+	 *
+	 * @return a {@link Table} with the same columns and the indexes, or this table if no column is indexed
+	 */
+	Table withIndexes() {
+		HashIndex[] hashIndexes = new HashIndex[columns.length];
+		SortedIndex[] sortedIndexes = new SortedIndex[columns.length];
+		long size = estimatedSize;
+		boolean indexed = false;
+		for (int i = 0; i < columns.length; i++) {
+			if (metaData.hasHashIndex(i)) {
+				hashIndexes[i] = HashIndex.build(columns[i]);
+				if (hashIndexes[i] != null) {
+					size += hashIndexes[i].getEstimatedSize();
+					indexed = true;
+				}
+			}
+			if (metaData.hasSortedIndex(i)) {
+				sortedIndexes[i] = SortedIndex.build(columns[i]);
+				if (sortedIndexes[i] != null) {
+					size += sortedIndexes[i].getEstimatedSize();
+					indexed = true;
+				}
+			}
+		}
+		return indexed ? new Table(this, hashIndexes, sortedIndexes, size) : this;
+	}
+
+	/**
+	 * @return the name of the table
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the table schema
+	 */
+	public DummyResultSetMetaData getMetaData() {
+		return metaData;
+	}
+
+	/**
+	 * @return the number of columns of the table
+	 */
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @param index
+	 *            the column index, starting at 0.
+	 * @return the {@link Column}
+	 */
+	public Column getColumn(int index) {
+		return columns[index];
+	}
+
+	/**
+	 * @param index
+	 *            the column index, starting at 0.
+	 * @return the {@link HashIndex} of the column or <code>null</code> if the column is not indexed
+	 */
+	public HashIndex getHashIndex(int index) {
+		return hashIndexes[index];
+	}
+
+	/**
+	 * @param index
+	 *            the column index, starting at 0.
+	 * @return the {@link SortedIndex} of the column or <code>null</code> if the column has no sorted index
+	 */
+	public SortedIndex getSortedIndex(int index) {
+		return sortedIndexes[index];
+	}
+
+	/**
+	 * @return the number of rows of the table
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return the approximate number of bytes this table occupies on the heap
+	 */
+	public long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	/**
+	 * Creates a table containing a subset of the columns of this table. The columns are shared, not copied, the
+	 * indexes are not part of the projected table.
+	 *
+	 * @param projectedMetaData
+	 *            the schema of the selected columns.
+	 * @param columnIndexes
+	 *            the indexes of the selected columns, starting at 0.
+	 * @return the projected {@link Table}
+	 */
+	public Table project(DummyResultSetMetaData projectedMetaData, int[] columnIndexes) {
+		Column[] projectedColumns = new Column[columnIndexes.length];
+		for (int i = 0; i < columnIndexes.length; i++) {
+			projectedColumns[i] = columns[columnIndexes[i]];
+		}
+		return new Table(name, projectedMetaData, projectedColumns);
+	}
+
+	/**
+	 * Creates a table containing some rows of this table, see {@link Column#gather(int[])}. The values are shared, not
+	 * copied, the indexes are not part of the new table.
+	 *
+	 * @param rows
+	 *            the row indexes.
+	 * @return the {@link Table} of the rows
+	 */
+	public Table gather(int[] rows) {
+		Column[] gatheredColumns = new Column[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			gatheredColumns[i] = columns[i].gather(rows);
+		}
+		return new Table(name, metaData, gatheredColumns);
+	}
+
+	/**
+	 * Creates a table containing the rows of this table followed by the given rows. The values of this table are not
+	 * copied, so appending takes time proportional to the number of appended rows, amortized over many appends. The
+	 * indexes are not part of the new table.
+	 *
+	 * @param rows
+	 *            the values of the appended rows in the order of the schema, as text like in the CSV file, an empty
+	 *            value is a null value.
+	 * @return the new {@link Table}
+	 * @throws IllegalArgumentException
+	 *             if a row does not fit the schema or a value cannot be represented by the type of its column
+	 */
+	public Table append(List<String[]> rows) {
+		Appender appender = newAppender(rows.size());
+		for (String[] row : rows) {
+			if (row.length != columns.length) {
+				throw new IllegalArgumentException("Length of data does not fit header length.");
+			}
+			for (int i = 0; i < row.length; i++) {
+				appender.append(i, row[i]);
+			}
+		}
+		return appender.build();
+	}
+
+	/**
+	 * Creates an {@link Appender} which collects typed values for new rows of this table, without converting them to
+	 * text. The rows are appended like by {@link #append(List)}.
+	 *
+	 * @param expectedRows
+	 *            the expected number of appended rows, used for the initial capacity.
+	 * @return the {@link Appender}
+	 */
+	public Appender newAppender(int expectedRows) {
+		return new Appender(this, expectedRows);
+	}
+
+	/**
+	 * Creates a table in which some values of some columns are replaced. The updated columns are copied, the other
+	 * columns are shared with this table. The indexes are not part of the new table.
+	 *
+	 * @param rows
+	 *            the indexes of the updated rows.
+	 * @param columnIndexes
+	 *            the indexes of the updated columns, starting at 0.
+	 * @param values
+	 *            for each updated row: the new values of the updated columns, as text like in the CSV file, an empty
+	 *            value is a null value.
+	 * @return the new {@link Table}
+	 * @throws IllegalArgumentException
+	 *             if a value cannot be represented by the type of its column
+	 */
+	public Table update(int[] rows, int[] columnIndexes, List<String[]> values) {
+		int[] updates = new int[rowCount];
+		Arrays.fill(updates, -1);
+		for (int i = 0; i < rows.length; i++) {
+			updates[rows[i]] = i;
+		}
+		Column[] updatedColumns = columns.clone();
+		for (int i = 0; i < columnIndexes.length; i++) {
+			int index = columnIndexes[i];
+			Column column = columns[index];
+			ColumnBuilder builder = ColumnBuilder.create(column.getSqlType(), rowCount);
+			for (int row = 0; row < rowCount; row++) {
+				if (updates[row] >= 0) {
+					append(builder, values.get(updates[row])[i], index);
+				} else {
+					// A value which fell back to text keeps its text
+					String value = column.isNull(row) ? "" : column.getString(row);
+					if (!builder.append(value)) {
+						builder = builder.toStringBuilder();
+						builder.append(value);
+					}
+				}
+			}
+			updatedColumns[index] = builder.build();
+		}
+		return new Table(name, metaData, updatedColumns);
+	}
+
+	/**
+	 * Creates a table without some rows of this table. The values are shared, not copied, the indexes are not part of
+	 * the new table.
+	 *
+	 * @param rows
+	 *            the indexes of the deleted rows in ascending order.
+	 * @return the new {@link Table}
+	 */
+	public Table delete(int[] rows) {
+		int[] remaining = new int[rowCount - rows.length];
+		int count = 0;
+		int next = 0;
+		for (int row = 0; row < rowCount; row++) {
+			if (next < rows.length && rows[next] == row) {
+				next++;
+			} else {
+				remaining[count++] = row;
+			}
+		}
+		return gather(remaining);
+	}
+
+	private void append(ColumnBuilder builder, String value, int columnIndex) {
+		if (!builder.append(value == null ? "" : value)) {
+			throw typeMismatch(value, columnIndex);
+		}
+	}
+
+	private IllegalArgumentException typeMismatch(String value, int columnIndex) {
+		return new IllegalArgumentException(MessageFormat.format(
+				"Value ''{0}'' does not match the type of column ''{1}''", value,
+				metaData.getColumnNames()[columnIndex]));
+	}
+
+	/**
+	 * Creates a new cursor over the rows of this table. The rows are not copied, so this is cheap.
+	 *
+	 * @return a new {@link ColumnarResultSet} positioned before the first row
+	 */
+	public ColumnarResultSet newResultSet() {
+		return new ColumnarResultSet(this);
+	}
+
+	/**
+	 * Creates a new cursor over some rows of this table.
+	 *
+	 * @param rows
+	 *            the indexes of the rows to iterate, <code>null</code> for all rows.
+	 * @return a new {@link ColumnarResultSet} positioned before the first row
+	 */
+	public ColumnarResultSet newResultSet(int[] rows) {
+		return new ColumnarResultSet(this, rows);
+	}
+
+	/**
+	 * Collects the values of rows which are appended to a {@link Table}, see {@link Table#newAppender(int)}. The
+	 * values of each column are appended in row order, all columns must get the same number of values.
+	 *
+	 * @author Kai Winter
+	 */
+	public static final class Appender {
+
+		private final Table table;
+		private final ColumnBuilder[] builders;
+
+		private Appender(Table table, int expectedRows) {
+			this.table = table;
+			this.builders = new ColumnBuilder[table.columns.length];
+			int[] columnTypes = table.metaData.getColumnTypes();
+			for (int i = 0; i < builders.length; i++) {
+				builders[i] = ColumnBuilder.create(columnTypes[i], expectedRows);
+			}
+		}
+
+		/**
+		 * Appends a null value.
+		 *
+		 * @param column
+		 *            the index of the column, starting at 0.
+		 */
+		public void appendNull(int column) {
+			builders[column].append("");
+		}
+
+		/**
+		 * Appends an integral value.
+		 *
+		 * @param column
+		 *            the index of the column, starting at 0.
+		 * @param value
+		 *            the value.
+		 * @throws IllegalArgumentException
+		 *             if the value cannot be represented by the type of the column
+		 */
+		public void append(int column, long value) {
+			if (!builders[column].append(value)) {
+				throw table.typeMismatch(String.valueOf(value), column);
+			}
+		}
+
+		/**
+		 * Appends a floating point value.
+		 *
+		 * @param column
+		 *            the index of the column, starting at 0.
+		 * @param value
+		 *            the value.
+		 * @throws IllegalArgumentException
+		 *             if the value cannot be represented by the type of the column
+		 */
+		public void append(int column, double value) {
+			if (!builders[column].append(value)) {
+				throw table.typeMismatch(String.valueOf(value), column);
+			}
+		}
+
+		/**
+		 * Appends a value as text like in the CSV file.
+		 *
+		 * @param column
+		 *            the index of the column, starting at 0.
+		 * @param value
+		 *            the value, an empty value or <code>null</code> is a null value.
+		 * @throws IllegalArgumentException
+		 *             if the value cannot be represented by the type of the column
+		 */
+		public void append(int column, String value) {
+			table.append(builders[column], value, column);
+		}
+
+		/**
+		 * @return the new {@link Table} containing the rows of the table followed by the appended rows
+		 * @throws IllegalStateException
+		 *             if the columns got different numbers of values
+		 */
+		public Table build() {
+			Column[] appendedColumns = new Column[builders.length];
+			for (int i = 0; i < builders.length; i++) {
+				if (builders[i].size() != builders[0].size()) {
+					throw new IllegalStateException("The columns got different numbers of values.");
+				}
+				appendedColumns[i] = ConcatenatedColumn.append(table.columns[i], builders[i].build());
+			}
+			return new Table(table.name, table.metaData, appendedColumns);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.googlecode.dummyjdbc.table;
+
+import com.googlecode.dummyjdbc.csv.ArrayCsvRecord;
+import com.googlecode.dummyjdbc.csv.CsvRecord;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+
+/**
+ * Collects the rows of a CSV file column by column and builds the {@link Table}. The type of each column is taken from
+ * the header of the CSV file. If a value of a typed column cannot be parsed, the column falls back to
+ * {@link String} values.
+ *
+ * @author Kai Winter
+ */
+public final class TableBuilder {
+
+	private final String tableName;
+	private final DummyResultSetMetaData metaData;
+	private final ColumnBuilder[] builders;
+
+	/** The field of the CSV record each column is read from. */
+	private final int[] fields;
+	private final int fieldCount;
+
+	/**
+	 * Constructs a new {@link TableBuilder}.
+	 *
+	 * @param tableName
+	 *            the name of the table.
+	 * @param metaData
+	 *            the table schema.
+	 * @param expectedRows
+	 *            the expected number of rows, used for the initial capacity.
+	 */
+	public TableBuilder(String tableName, DummyResultSetMetaData metaData, int expectedRows) {
+		this(tableName, metaData, expectedRows, null, metaData.getColumnNames().length);
+	}
+
+	/**
+	 * Constructs a new {@link TableBuilder} which only reads some fields of the records. The other fields are never
+	 * converted.
+	 *
+	 * @param tableName
+	 *            the name of the table.
+	 * @param metaData
+	 *            the schema of the read columns.
+	 * @param expectedRows
+	 *            the expected number of rows, used for the initial capacity.
+	 * @param fields
+	 *            the index of the field each column is read from, <code>null</code> to read all fields in order.
+	 * @param fieldCount
+	 *            the number of fields of each record.
+	 */
+	public TableBuilder(String tableName, DummyResultSetMetaData metaData, int expectedRows, int[] fields,
+			int fieldCount) {
+		this.tableName = tableName;
+		this.metaData = metaData;
+		this.fields = fields;
+		this.fieldCount = fieldCount;
+		int[] columnTypes = metaData.getColumnTypes();
+		builders = new ColumnBuilder[columnTypes.length];
+		for (int i = 0; i < columnTypes.length; i++) {
+			builders[i] = ColumnBuilder.create(columnTypes[i], expectedRows);
+		}
+	}
+
+	/**
+	 * Appends a row.
+	 *
+	 * @param data
+	 *            the values of the row as read from the CSV file.
+	 */
+	public void addRow(String[] data) {
+		addRecord(new ArrayCsvRecord(data));
+	}
+
+	/**
+	 * Appends a row. Values are only converted to {@link String}s if the type of the column requires it.
+	 *
+	 * @param record
+	 *            the {@link CsvRecord} of the row.
+	 */
+	public void addRecord(CsvRecord record) {
+		if (fieldCount != record.getFieldCount()) {
+			throw new IllegalArgumentException("Length of data does not fit header length.");
+		}
+		for (int i = 0; i < builders.length; i++) {
+			int field = fields == null ? i : fields[i];
+			if (!builders[i].append(record, field)) {
+				builders[i] = builders[i].toStringBuilder();
+				builders[i].append(record, field);
+			}
+		}
+	}
+
+	/**
+	 * Appends all rows of a table with the same schema, e.g. a table parsed from another chunk of the file. If a column
+	 * fell back to {@link String} values in one of the tables, it falls back in the result as well.
+	 *
+	 * @param table
+	 *            the {@link Table} to append.
+	 */
+	public void addTable(Table table) {
+		if (builders.length != table.getColumnCount()) {
+			throw new IllegalArgumentException("Length of data does not fit header length.");
+		}
+		for (int i = 0; i < builders.length; i++) {
+			if (!builders[i].appendColumn(table.getColumn(i))) {
+				builders[i] = builders[i].toStringBuilder();
+				builders[i].appendColumn(table.getColumn(i));
+			}
+		}
+	}
+
+	/**
+	 * @return the number of rows added so far
+	 */
+	public int getRowCount() {
+		return builders.length == 0 ? 0 : builders[0].size();
+	}
+
+	/**
+	 * @return the {@link Table} containing all added rows
+	 */
+	public Table build() {
+		Column[] columns = new Column[builders.length];
+		for (int i = 0; i < builders.length; i++) {
+			columns[i] = builders[i].build();
+		}
+		return new Table(tableName, metaData, columns);
+	}
+}
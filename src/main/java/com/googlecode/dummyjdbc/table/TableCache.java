@@ -0,0 +1,214 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Driver wide cache of parsed {@link Table}s, shared by all connections. Entries are keyed by the CSV {@link File} and
+ * are reloaded if the modification time or the length of the file changed. The cache is bounded by the estimated heap
+ * size of the cached tables, the least recently used tables are evicted first.
+ *
+ * @author Kai Winter
+ */
+public final class TableCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TableCache.class);
+
+	/** Default maximum size of all cached tables: 64 MB. */
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	private static final TableCache INSTANCE = new TableCache(DEFAULT_MAX_SIZE);
+
+	/** Access ordered, so iteration starts with the least recently used entry. */
+	private final LinkedHashMap<File, Entry> entries = new LinkedHashMap<File, Entry>(16, 0.75f, true);
+
+	private long maxSize;
+	private long size;
+
+	/**
+	 * Constructs a new {@link TableCache}.
+	 *
+	 * @param maxSize
+	 *            the maximum estimated size of all cached tables in bytes.
+	 */
+	public TableCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return the {@link TableCache} which is shared by all connections of the driver
+	 */
+	public static TableCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the parsed content of the given CSV file. The file is only parsed if it is not cached yet or if it has
+	 * changed since it was cached.
+	 *
+	 * @param tableName
+	 *            the name of the table the file stands for.
+	 * @param file
+	 *            the CSV file.
+	 * @return the parsed {@link Table}
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public Table get(String tableName, File file) throws IOException {
+		return get(tableName, file, LoadOptions.DEFAULT);
+	}
+
+	/**
+	 * Returns the parsed content of the given CSV file. The file is only parsed if it is not cached yet, if it has
+	 * changed since it was cached or if it was cached with a different encoding or storage.
+	 *
+	 * @param tableName
+	 *            the name of the table the file stands for.
+	 * @param file
+	 *            the CSV file.
+	 * @param options
+	 *            the {@link LoadOptions} used to parse the file if it is not cached.
+	 * @return the parsed {@link Table}
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public Table get(String tableName, File file, LoadOptions options) throws IOException {
+		File key = file.getAbsoluteFile();
+		long lastModified = key.lastModified();
+		long length = key.length();
+
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null) {
+				if (entry.isValid(lastModified, length, options)) {
+					return entry.table;
+				}
+				remove(key);
+			}
+		}
+
+		// Parse outside of the lock, so other tables can be served in the meantime
+		Table table = CsvTableLoader.load(tableName, key, options);
+		put(key, new Entry(table, lastModified, length, options));
+		return table;
+	}
+
+	/**
+	 * Returns the parsed content of the given CSV file if it is cached and up to date, without loading it otherwise.
+	 *
+	 * @param file
+	 *            the CSV file.
+	 * @param options
+	 *            the {@link LoadOptions} the file would be loaded with.
+	 * @return the cached {@link Table} or <code>null</code>
+	 */
+	public synchronized Table getIfPresent(File file, LoadOptions options) {
+		File key = file.getAbsoluteFile();
+		Entry entry = entries.get(key);
+		if (entry != null && entry.isValid(key.lastModified(), key.length(), options)) {
+			return entry.table;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the given file from the cache, the next query will parse it again.
+	 *
+	 * @param file
+	 *            the CSV file.
+	 */
+	public synchronized void invalidate(File file) {
+		remove(file.getAbsoluteFile());
+	}
+
+	/**
+	 * Removes all tables from the cache.
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * Sets the maximum estimated size of all cached tables. Tables are evicted if the cache exceeds the new size.
+	 *
+	 * @param maxSize
+	 *            the maximum size in bytes, 0 disables caching.
+	 */
+	public synchronized void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * @return the maximum estimated size of all cached tables in bytes
+	 */
+	public synchronized long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the estimated size of all cached tables in bytes
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	private synchronized void put(File key, Entry entry) {
+		if (entry.table.getEstimatedSize() > maxSize) {
+			LOGGER.debug("Table file '{}' exceeds the cache size, not caching it", key);
+			return;
+		}
+		Entry previous = entries.put(key, entry);
+		if (previous != null) {
+			size -= previous.table.getEstimatedSize();
+		}
+		size += entry.table.getEstimatedSize();
+		evict();
+	}
+
+	private void remove(File key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			size -= entry.table.getEstimatedSize();
+		}
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<File, Entry>> iterator = entries.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Map.Entry<File, Entry> eldest = iterator.next();
+			LOGGER.debug("Evicting table file '{}' from the cache", eldest.getKey());
+			size -= eldest.getValue().table.getEstimatedSize();
+			iterator.remove();
+		}
+	}
+
+	private static final class Entry {
+		private final Table table;
+		private final long lastModified;
+		private final long length;
+		private final Charset charset;
+		private final boolean mapped;
+
+		Entry(Table table, long lastModified, long length, LoadOptions options) {
+			this.table = table;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.charset = options.getCharset();
+			this.mapped = options.isMapped();
+		}
+
+		boolean isValid(long fileLastModified, long fileLength, LoadOptions options) {
+			return lastModified == fileLastModified && length == fileLength && charset.equals(options.getCharset())
+					&& mapped == options.isMapped();
+		}
+	}
+}
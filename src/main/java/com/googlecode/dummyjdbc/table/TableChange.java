@@ -0,0 +1,90 @@
+package com.googlecode.dummyjdbc.table;
+
+/**
+ * Describes how a version of a {@link Table} was created from the previous version: which rows were inserted, updated
+ * or deleted. Together with the version itself it is all that is needed to apply the change again to the previous
+ * version, see {@link PersistenceOptions}.
+ *
+ * @author Kai Winter
+ */
+public final class TableChange {
+
+	enum Type {
+		INSERT, UPDATE, DELETE
+	}
+
+	private final Type type;
+	private final Table table;
+	private final int firstRow;
+	private final int[] rows;
+	private final int[] columns;
+
+	private TableChange(Type type, Table table, int firstRow, int[] rows, int[] columns) {
+		this.type = type;
+		this.table = table;
+		this.firstRow = firstRow;
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	/**
+	 * Describes rows appended by {@link Table#append(java.util.List)} or a {@link Table.Appender}.
+	 *
+	 * @param table
+	 *            the new version of the table.
+	 * @param firstRow
+	 *            the index of the first appended row in the new version.
+	 * @return the {@link TableChange}
+	 */
+	public static TableChange insert(Table table, int firstRow) {
+		return new TableChange(Type.INSERT, table, firstRow, null, null);
+	}
+
+	/**
+	 * Describes values replaced by {@link Table#update(int[], int[], java.util.List)}.
+	 *
+	 * @param table
+	 *            the new version of the table.
+	 * @param rows
+	 *            the indexes of the updated rows.
+	 * @param columns
+	 *            the indexes of the updated columns, starting at 0.
+	 * @return the {@link TableChange}
+	 */
+	public static TableChange update(Table table, int[] rows, int[] columns) {
+		return new TableChange(Type.UPDATE, table, 0, rows, columns);
+	}
+
+	/**
+	 * Describes rows removed by {@link Table#delete(int[])}.
+	 *
+	 * @param table
+	 *            the new version of the table.
+	 * @param rows
+	 *            the indexes of the deleted rows in the previous version, in ascending order.
+	 * @return the {@link TableChange}
+	 */
+	public static TableChange delete(Table table, int[] rows) {
+		return new TableChange(Type.DELETE, table, 0, rows, null);
+	}
+
+	Type getType() {
+		return type;
+	}
+
+	Table getTable() {
+		return table;
+	}
+
+	int getFirstRow() {
+		return firstRow;
+	}
+
+	int[] getRows() {
+		return rows;
+	}
+
+	int[] getColumns() {
+		return columns;
+	}
+}
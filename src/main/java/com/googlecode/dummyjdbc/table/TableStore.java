@@ -0,0 +1,586 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.googlecode.dummyjdbc.csv.RowOffsetIndex;
+import com.googlecode.dummyjdbc.table.PersistenceOptions.SyncPolicy;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * Driver wide store of the tables modified by INSERT, UPDATE and DELETE, shared by all connections. The current
+ * versions are kept in an immutable map from the CSV {@link File} of a table to the table, which is replaced
+ * atomically whenever a version is published. Unlike the {@link TableCache}, the store never evicts a table, its
+ * modifications would be lost.
+ *
+ * <p>
+ * Tables are copy-on-write: a modification creates a new version of the table and publishes it, see
+ * {@link #put(File, Table, List, Charset)}. Queries read the version which is current when they start, they are never
+ * blocked by a modification. Modifications of the same table are serialized by its write lock, see
+ * {@link #getWriteLock(File)}.
+ * </p>
+ *
+ * <p>
+ * A {@link Transaction} reads the map which was current when it began, see {@link #begin()}. On commit the write locks
+ * of the modified tables are taken in a fixed order. If another transaction published a new version of one of them in
+ * the meantime, the commit fails. Otherwise the versions of all modified tables are published at once, so other
+ * transactions see either all or none of them. If the log of a table cannot be written, the frames already logged for
+ * the other tables are removed.
+ * </p>
+ *
+ * <p>
+ * If persistence is enabled, see {@link #setPersistenceOptions(PersistenceOptions)}, the changes are appended to the
+ * write-ahead log of the table before a new version is published. A table which is read from its CSV file is
+ * recovered from its log, see {@link #recover(File, Table)}. Logs which have grown beyond the compaction threshold
+ * are compacted into the CSV file by a background thread, which also syncs the logs of
+ * {@link SyncPolicy#INTERVAL}.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class TableStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TableStore.class);
+
+	private static final TableStore INSTANCE = new TableStore();
+
+	private final ConcurrentMap<File, Entry> entries = new ConcurrentHashMap<File, Entry>();
+
+	private final AtomicReference<Map<File, Table>> versions = new AtomicReference<Map<File, Table>>(
+			Collections.<File, Table> emptyMap());
+
+	private volatile PersistenceOptions persistenceOptions;
+
+	private ScheduledExecutorService executor;
+
+	private ScheduledFuture<?> syncTask;
+
+	/**
+	 * @return the {@link TableStore} which is shared by all connections of the driver
+	 */
+	public static TableStore getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param file
+	 *            the CSV file of the table.
+	 * @return the current version of the table or <code>null</code> if it was not modified
+	 */
+	public Table get(File file) {
+		return versions.get().get(file.getAbsoluteFile());
+	}
+
+	/**
+	 * @param file
+	 *            the CSV file of the table.
+	 * @return <code>true</code> if the content of the CSV file is the current version of the table: it was neither
+	 *         modified nor has it a write-ahead log to recover
+	 */
+	public boolean isFileCurrent(File file) {
+		File key = file.getAbsoluteFile();
+		if (versions.get().containsKey(key)) {
+			return false;
+		}
+		Entry entry = entries.get(key);
+		return entry != null && entry.recovered || !WriteAheadLog.getFile(key).exists();
+	}
+
+	/**
+	 * Returns the lock which has to be held while a new version of the table is created from its current version and
+	 * published.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 * @return the write lock of the table
+	 */
+	public Object getWriteLock(File file) {
+		File key = file.getAbsoluteFile();
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			Entry newEntry = new Entry();
+			entry = entries.putIfAbsent(key, newEntry);
+			if (entry == null) {
+				entry = newEntry;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the current version of a table which was read from its CSV file. If the table has a write-ahead log,
+	 * the logged changes are applied once and the result becomes the current version of the table.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 * @param table
+	 *            the {@link Table} read from the CSV file.
+	 * @return the current version of the table
+	 * @throws IOException
+	 *             if the log cannot be read or its changes do not fit the table
+	 */
+	public Table recover(File file, Table table) throws IOException {
+		File key = file.getAbsoluteFile();
+		Entry entry = (Entry) getWriteLock(key);
+		if (!entry.recovered) {
+			synchronized (entry) {
+				if (!entry.recovered) {
+					Table replayed = WriteAheadLog.replay(table, key);
+					if (replayed != table) {
+						publish(Collections.singletonMap(key, replayed));
+						entry.persistent = true;
+						entry.replayed = replayed;
+					}
+					entry.recovered = true;
+				}
+			}
+		}
+		Table current = get(key);
+		return current == null ? table : current;
+	}
+
+	/**
+	 * Returns the version of a table which was read from its CSV file for a {@link Transaction} which began before the
+	 * table was modified: the CSV file with the changes of its write-ahead log applied, not a version published since.
+	 * Once the log was compacted, the CSV file may contain versions published after the transaction began.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 * @param table
+	 *            the {@link Table} read from the CSV file.
+	 * @return the recovered version of the table, the given table if the log has no changes
+	 * @throws IOException
+	 *             if the log cannot be read or its changes do not fit the table
+	 */
+	public Table recoverSnapshot(File file, Table table) throws IOException {
+		File key = file.getAbsoluteFile();
+		recover(key, table);
+		Table replayed = ((Entry) getWriteLock(key)).replayed;
+		return replayed == null ? table : replayed;
+	}
+
+	/**
+	 * Publishes a new version of a table. If persistence is enabled, the changes are appended to the write-ahead log
+	 * of the table first. The caller has to hold the write lock of the table.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 * @param table
+	 *            the new version of the table.
+	 * @param changes
+	 *            the {@link TableChange}s which create the new version from the current one.
+	 * @param charset
+	 *            the encoding of the CSV file, used to write the table when its log is compacted.
+	 * @throws IOException
+	 *             if the log cannot be written, in this case the new version is not published
+	 */
+	public void put(File file, Table table, List<TableChange> changes, Charset charset) throws IOException {
+		File key = file.getAbsoluteFile();
+		log(key, (Entry) getWriteLock(key), changes, charset);
+		publish(Collections.singletonMap(key, table));
+	}
+
+	/**
+	 * Begins a {@link Transaction} which reads the current versions of the tables.
+	 *
+	 * @return the new {@link Transaction}
+	 */
+	public Transaction begin() {
+		return new Transaction(versions.get());
+	}
+
+	/**
+	 * Publishes the tables modified by a transaction. If persistence is enabled, the changes are logged first, table
+	 * by table.
+	 *
+	 * @param transaction
+	 *            the {@link Transaction}.
+	 * @return <code>false</code> if another transaction published a new version of a modified table after the
+	 *         transaction read it, in this case nothing is published
+	 * @throws IOException
+	 *             if a log cannot be written, in this case the versions are not published
+	 */
+	public boolean commit(Transaction transaction) throws IOException {
+		Map<File, Transaction.Write> writes = transaction.getWrites();
+		return commit(writes, new ArrayList<File>(writes.keySet()), 0);
+	}
+
+	private boolean commit(Map<File, Transaction.Write> writes, List<File> files, int index) throws IOException {
+		if (index < files.size()) {
+			synchronized (getWriteLock(files.get(index))) {
+				return commit(writes, files, index + 1);
+			}
+		}
+		// All write locks are held
+		Map<File, Table> current = versions.get();
+		for (File file : files) {
+			if (current.get(file) != writes.get(file).expected) {
+				return false;
+			}
+		}
+		Map<File, Table> updates = new HashMap<File, Table>();
+		Map<File, Long> logged = new HashMap<File, Long>();
+		try {
+			for (File file : files) {
+				Transaction.Write write = writes.get(file);
+				long size = log(file, (Entry) getWriteLock(file), write.changes, write.charset);
+				if (size >= 0) {
+					logged.put(file, size);
+				}
+				updates.put(file, write.table);
+			}
+		} catch (IOException e) {
+			// The logged frames belong to versions which are not published, the next frames would not fit them
+			for (Map.Entry<File, Long> size : logged.entrySet()) {
+				try {
+					((Entry) getWriteLock(size.getKey())).log.truncate(size.getValue());
+				} catch (IOException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+			}
+			throw e;
+		}
+		publish(updates);
+		return true;
+	}
+
+	/**
+	 * Appends changes to the log of a table if persistence is enabled. The caller holds the write lock of the table.
+	 *
+	 * @return the size of the log before the changes were appended, -1 if persistence is disabled
+	 */
+	private long log(File key, Entry entry, List<TableChange> changes, Charset charset) throws IOException {
+		PersistenceOptions options = persistenceOptions;
+		if (options == null) {
+			entry.persistent = false;
+			return -1;
+		}
+		if (entry.log == null) {
+			Table table = get(key);
+			if (table != null && !entry.persistent) {
+				// The table was modified while persistence was disabled, its log would not fit
+				writeCsv(key, table, charset, false);
+				entry.replayed = null;
+				Files.deleteIfExists(WriteAheadLog.getFile(key).toPath());
+				TableCache.getInstance().invalidate(key);
+			}
+			entry.log = WriteAheadLog.open(key, options.getSyncPolicy());
+		}
+		long size = entry.log.size();
+		entry.log.append(changes);
+		entry.persistent = true;
+		entry.charset = charset;
+		long threshold = options.getCompactionThreshold();
+		if (threshold > 0 && !entry.compacting && entry.log.size() >= threshold) {
+			entry.compacting = true;
+			scheduleCompaction(key, entry);
+		}
+		return size;
+	}
+
+	/**
+	 * Replaces the versions of some tables, a <code>null</code> version removes a table.
+	 */
+	private void publish(Map<File, Table> updates) {
+		while (true) {
+			Map<File, Table> current = versions.get();
+			Map<File, Table> next = new HashMap<File, Table>(current);
+			for (Map.Entry<File, Table> update : updates.entrySet()) {
+				if (update.getValue() == null) {
+					next.remove(update.getKey());
+				} else {
+					next.put(update.getKey(), update.getValue());
+				}
+			}
+			if (versions.compareAndSet(current, Collections.unmodifiableMap(next))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Discards the modifications of a table, the next query reads its CSV file again. Persisted modifications are
+	 * recovered from the write-ahead log of the table.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 */
+	public void remove(File file) {
+		File key = file.getAbsoluteFile();
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			closeLog(entry);
+		}
+		publish(Collections.<File, Table> singletonMap(key, null));
+	}
+
+	/**
+	 * Discards the modifications of all tables.
+	 */
+	public void clear() {
+		for (File file : entries.keySet()) {
+			remove(file);
+		}
+	}
+
+	/**
+	 * Enables or disables the persistence of modified tables. The logs opened so far are synced and closed.
+	 *
+	 * @param options
+	 *            the {@link PersistenceOptions}, <code>null</code> disables persistence.
+	 */
+	public synchronized void setPersistenceOptions(PersistenceOptions options) {
+		persistenceOptions = options;
+		for (Entry entry : entries.values()) {
+			closeLog(entry);
+		}
+		if (syncTask != null) {
+			syncTask.cancel(false);
+			syncTask = null;
+		}
+		if (options != null && options.getSyncPolicy() == SyncPolicy.INTERVAL) {
+			syncTask = getExecutor().scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					syncLogs();
+				}
+			}, options.getSyncInterval(), options.getSyncInterval(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the {@link PersistenceOptions} or <code>null</code> if persistence is disabled
+	 */
+	public PersistenceOptions getPersistenceOptions() {
+		return persistenceOptions;
+	}
+
+	private void syncLogs() {
+		for (Entry entry : entries.values()) {
+			WriteAheadLog log = entry.log;
+			if (log != null) {
+				try {
+					log.sync();
+				} catch (IOException e) {
+					LOGGER.error("Error while syncing a write-ahead log", e);
+				}
+			}
+		}
+	}
+
+	private void scheduleCompaction(final File file, final Entry entry) {
+		getExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				compact(file, entry);
+			}
+		});
+	}
+
+	/**
+	 * Writes the current version of a table to its CSV file and starts its log over. Writers of the table wait, readers
+	 * keep reading the current version.
+	 */
+	private void compact(File file, Entry entry) {
+		synchronized (entry) {
+			try {
+				if (entry.log != null && entries.get(file) == entry) {
+					writeCsv(file, get(file), entry.charset, true);
+					entry.replayed = null;
+					entry.log.restart(file);
+					TableCache.getInstance().invalidate(file);
+				}
+			} catch (IOException e) {
+				LOGGER.error("Error while compacting the write-ahead log of " + file, e);
+			} finally {
+				entry.compacting = false;
+			}
+		}
+	}
+
+	private static void closeLog(Entry entry) {
+		synchronized (entry) {
+			if (entry.log != null) {
+				try {
+					entry.log.close();
+				} catch (IOException e) {
+					LOGGER.error("Error while closing a write-ahead log", e);
+				}
+				entry.log = null;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the content of a CSV file by a table. If the table is the CSV file with the changes of its log applied,
+	 * the header and the rows the log did not change are copied from the CSV file byte by byte. The other rows are
+	 * written with the text of their values, see {@link Column#getText(int)}. The file is written next to the CSV file
+	 * and moved over it, so the CSV file is either completely old or completely new.
+	 */
+	private static void writeCsv(File file, Table table, Charset charset, boolean logged) throws IOException {
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		RowOffsetIndex index = null;
+		int[] sourceRows = null;
+		try {
+			index = RowOffsetIndex.build(content, charset);
+		} catch (IllegalArgumentException e) {
+			// The file is read by another parser, its rows are written with the text of their values
+		}
+		if (logged && index != null && index.getRecordCount() > 0) {
+			sourceRows = WriteAheadLog.getSourceRows(file, index.getRecordCount() - 1);
+			if (sourceRows.length != table.getRowCount()) {
+				sourceRows = null;
+			}
+		}
+
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try {
+			RecordWriter writer = new RecordWriter(new BufferedOutputStream(out), charset);
+			if (sourceRows != null) {
+				writer.copy(content, index.getStart(0), index.getEnd(0));
+			} else {
+				writer.write(readHeader(file, charset));
+			}
+			String[] values = new String[table.getColumnCount()];
+			for (int row = 0; row < table.getRowCount(); row++) {
+				int sourceRow = sourceRows == null ? -1 : sourceRows[row];
+				if (sourceRow >= 0) {
+					writer.copy(content, index.getStart(sourceRow + 1), index.getEnd(sourceRow + 1));
+				} else {
+					for (int column = 0; column < values.length; column++) {
+						String value = table.getColumn(column).getText(row);
+						values[column] = value == null ? "" : value;
+					}
+					writer.write(values);
+				}
+			}
+			writer.flush();
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static String[] readHeader(File file, Charset charset) throws IOException {
+		CSVReader reader = new CSVReader(new InputStreamReader(new FileInputStream(file), charset));
+		try {
+			String[] header = reader.readNext();
+			return header == null ? new String[0] : header;
+		} catch (CsvValidationException e) {
+			throw new IOException(e.getMessage(), e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "dummyjdbc-persistence");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Writes the records of a CSV file: records copied from another CSV file and records written by a
+	 * {@link CSVWriter}. A line break is added to a copied record which has none, e.g. the last line of a file.
+	 */
+	private static final class RecordWriter {
+		private final OutputStream out;
+		private final Charset charset;
+		private final StringWriter line = new StringWriter();
+		private final CSVWriter csvWriter = new CSVWriter(line);
+		private boolean lineBreakMissing;
+
+		RecordWriter(OutputStream out, Charset charset) {
+			this.out = out;
+			this.charset = charset;
+		}
+
+		void copy(ByteBuffer content, int start, int end) throws IOException {
+			if (start == end) {
+				return;
+			}
+			endLine();
+			out.write(content.array(), start, end - start);
+			byte last = content.get(end - 1);
+			lineBreakMissing = last != '\n' && last != '\r';
+		}
+
+		void write(String[] values) throws IOException {
+			endLine();
+			line.getBuffer().setLength(0);
+			csvWriter.writeNext(values, false);
+			csvWriter.flush();
+			out.write(line.toString().getBytes(charset));
+		}
+
+		void flush() throws IOException {
+			out.flush();
+		}
+
+		private void endLine() throws IOException {
+			if (lineBreakMissing) {
+				out.write(CSVWriter.DEFAULT_LINE_END.getBytes(charset));
+				lineBreakMissing = false;
+			}
+		}
+	}
+
+	private static final class Entry {
+		/** <code>true</code> once the log was replayed, see {@link TableStore#recover(File, Table)}. */
+		private volatile boolean recovered;
+		/**
+		 * The version recovered from the log, as long as it is the version of the CSV file, see
+		 * {@link TableStore#recoverSnapshot(File, Table)}.
+		 */
+		private volatile Table replayed;
+		/** <code>true</code> if the current version is the CSV file with the changes of the log applied. */
+		private boolean persistent;
+		private volatile WriteAheadLog log;
+		private Charset charset;
+		private boolean compacting;
+	}
+}
@@ -0,0 +1,104 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.googlecode.dummyjdbc.csv.CsvRecord;
+import com.googlecode.dummyjdbc.csv.CsvRecordReader;
+import com.googlecode.dummyjdbc.resultset.DummyResultSetMetaData;
+
+/**
+ * Reads a CSV table file in chunks of rows instead of loading it as a whole. The file stays open until the last chunk
+ * was read or the stream is closed. Created by {@link CsvTableLoader#openStream(String, java.io.File, LoadOptions)}.
+ *
+ * @author Kai Winter
+ */
+public final class TableStream implements Closeable {
+
+	private final String tableName;
+	private final int fieldCount;
+	private DummyResultSetMetaData metaData;
+
+	/** The fields which are read, <code>null</code> for all. */
+	private int[] fields;
+
+	/** <code>null</code> once the stream is exhausted or closed. */
+	private CsvRecordReader reader;
+
+	TableStream(String tableName, DummyResultSetMetaData metaData, CsvRecordReader reader) {
+		this.tableName = tableName;
+		this.metaData = metaData;
+		this.fieldCount = metaData.getColumnNames().length;
+		this.reader = reader;
+	}
+
+	/**
+	 * Restricts the stream to some columns of the file, the values of the other columns are not converted. Has to be
+	 * called before the first chunk is read.
+	 *
+	 * @param columnIndexes
+	 *            the indexes of the columns to read, starting at 0, in ascending order.
+	 */
+	public void selectColumns(int[] columnIndexes) {
+		String[] labels = new String[columnIndexes.length];
+		metaData = metaData.project(columnIndexes, labels);
+		fields = columnIndexes;
+	}
+
+	/**
+	 * @return the name of the table
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @return the schema of the read columns
+	 */
+	public DummyResultSetMetaData getMetaData() {
+		return metaData;
+	}
+
+	/**
+	 * Parses the next rows of the file. If the end of the file is reached, the file is closed.
+	 *
+	 * @param maxRows
+	 *            the maximum number of rows to read, at least 1.
+	 * @return a {@link Table} containing the next rows or <code>null</code> if there are no more rows
+	 * @throws IOException
+	 *             if the file cannot be read or contains invalid CSV
+	 */
+	public Table nextChunk(int maxRows) throws IOException {
+		if (reader == null) {
+			return null;
+		}
+
+		TableBuilder tableBuilder = new TableBuilder(tableName, metaData, maxRows, fields, fieldCount);
+		CsvRecord record;
+		while (tableBuilder.getRowCount() < maxRows && (record = reader.next()) != null) {
+			tableBuilder.addRecord(record);
+		}
+		if (tableBuilder.getRowCount() < maxRows) {
+			close();
+		}
+		return tableBuilder.getRowCount() == 0 ? null : tableBuilder.build();
+	}
+
+	/**
+	 * @return <code>true</code> if the file was closed
+	 */
+	public boolean isClosed() {
+		return reader == null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null) {
+			try {
+				reader.close();
+			} finally {
+				reader = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A transaction of a connection which is not in auto-commit mode, see {@link TableStore#begin()}. It reads the
+ * versions of the tables which were current when it began, its own modifications are kept in the transaction until it
+ * is committed, see {@link TableStore#commit(Transaction)}. Neither reading nor modifying a table takes a lock.
+ *
+ * <p>
+ * A table which was never modified when the transaction began is read from its CSV file when the transaction first
+ * accesses it, the transaction keeps reading that version afterwards. If persistence is enabled, that file may already
+ * have been compacted with modifications committed after the transaction began.
+ * </p>
+ *
+ * @author Kai Winter
+ */
+public final class Transaction {
+
+	/** The versions of the modified tables when the transaction began. */
+	private final Map<File, Table> snapshot;
+	/** The tables read from their CSV files and the version of the store they were read at. */
+	private final Map<File, Table[]> pinned = new HashMap<File, Table[]>();
+	/** The tables modified by the transaction, sorted to lock them in the same order on commit. */
+	private final Map<File, Write> writes = new TreeMap<File, Write>();
+
+	Transaction(Map<File, Table> snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @param file
+	 *            the CSV file of the table.
+	 * @return the version of the table visible to the transaction or <code>null</code> if the transaction has not
+	 *         read the table from its CSV file yet, see {@link #pin(File, Table)}
+	 */
+	public synchronized Table get(File file) {
+		File key = file.getAbsoluteFile();
+		Write write = writes.get(key);
+		if (write != null) {
+			return write.table;
+		}
+		Table table = snapshot.get(key);
+		if (table != null) {
+			return table;
+		}
+		Table[] versions = pinned.get(key);
+		return versions == null ? null : versions[0];
+	}
+
+	/**
+	 * Makes a table read from its CSV file, see {@link TableStore#recoverSnapshot(File, Table)}, part of the
+	 * transaction.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 * @param table
+	 *            the table.
+	 * @return the version of the table visible to the transaction, the given table unless another statement of the
+	 *         transaction read it before
+	 */
+	public synchronized Table pin(File file, Table table) {
+		File key = file.getAbsoluteFile();
+		Table[] versions = pinned.get(key);
+		if (versions == null) {
+			// If the store published a version after the table was read, the commit must fail
+			Table stored = TableStore.getInstance().get(key);
+			versions = new Table[] { table, stored == table ? stored : null };
+			pinned.put(key, versions);
+		}
+		return versions[0];
+	}
+
+	/**
+	 * Replaces the version of a table visible to the transaction by a modified version.
+	 *
+	 * @param file
+	 *            the CSV file of the table.
+	 * @param table
+	 *            the new version of the table.
+	 * @param changes
+	 *            the {@link TableChange}s which create the new version from the current one.
+	 * @param charset
+	 *            the encoding of the CSV file.
+	 */
+	public synchronized void put(File file, Table table, List<TableChange> changes, Charset charset) {
+		File key = file.getAbsoluteFile();
+		Write write = writes.get(key);
+		if (write == null) {
+			write = new Write(getExpected(key));
+			writes.put(key, write);
+		}
+		write.table = table;
+		write.changes.addAll(changes);
+		write.charset = charset;
+	}
+
+	/**
+	 * @return <code>true</code> if the transaction did not modify a table
+	 */
+	public synchronized boolean isReadOnly() {
+		return writes.isEmpty();
+	}
+
+	synchronized Map<File, Write> getWrites() {
+		return writes;
+	}
+
+	/**
+	 * @return the version of the store the transaction read a table at, <code>null</code> if the table was not
+	 *         modified at that time
+	 */
+	private Table getExpected(File key) {
+		if (snapshot.containsKey(key)) {
+			return snapshot.get(key);
+		}
+		Table[] versions = pinned.get(key);
+		return versions == null ? null : versions[1];
+	}
+
+	/**
+	 * A table modified by the transaction.
+	 */
+	static final class Write {
+		/** The version of the store the modifications are based on. */
+		final Table expected;
+		Table table;
+		final List<TableChange> changes = new ArrayList<TableChange>();
+		Charset charset;
+
+		Write(Table expected) {
+			this.expected = expected;
+		}
+	}
+}
@@ -0,0 +1,492 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.googlecode.dummyjdbc.table.PersistenceOptions.SyncPolicy;
+
+/**
+ * The write-ahead log of a table, see {@link PersistenceOptions}. The log starts with the length and the CRC-32 of the
+ * content of the CSV file it applies to. Each statement appends one frame: the length and the CRC-32 of the frame
+ * content, followed by the {@link TableChange}s of the statement with the values as text like in the CSV file. A
+ * frame which was not written completely, e.g. because the JVM was killed, is ignored and cut off when the log is
+ * replayed. A frame which cannot be written is cut off right away, so the following frames are not lost on replay.
+ *
+ * @author Kai Winter
+ */
+final class WriteAheadLog {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteAheadLog.class);
+
+	/** The first bytes of a log file: "DWL1". */
+	private static final int MAGIC = 0x44574C31;
+
+	/** The magic number, the length and the CRC-32 of the CSV file. */
+	private static final int HEADER_SIZE = 4 + 8 + 8;
+
+	/** The length and the CRC-32 of a frame. */
+	private static final int FRAME_HEADER_SIZE = 4 + 4;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final byte INSERT = 1;
+	private static final byte UPDATE = 2;
+	private static final byte DELETE = 3;
+
+	private final RandomAccessFile file;
+	private final SyncPolicy syncPolicy;
+	private boolean unsynced;
+
+	private WriteAheadLog(RandomAccessFile file, SyncPolicy syncPolicy) {
+		this.file = file;
+		this.syncPolicy = syncPolicy;
+	}
+
+	/**
+	 * @param csvFile
+	 *            the CSV file of the table.
+	 * @return the log file of the table
+	 */
+	static File getFile(File csvFile) {
+		return new File(csvFile.getPath() + ".wal");
+	}
+
+	/**
+	 * Opens the log of a table for appending. The log is created if it does not exist. An existing log must have been
+	 * replayed before, see {@link #replay(Table, File)}.
+	 *
+	 * @param csvFile
+	 *            the CSV file of the table.
+	 * @param syncPolicy
+	 *            the {@link SyncPolicy}.
+	 * @return the {@link WriteAheadLog}
+	 * @throws IOException
+	 *             if the log cannot be opened or the CSV file cannot be read
+	 */
+	static WriteAheadLog open(File csvFile, SyncPolicy syncPolicy) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(getFile(csvFile), "rw");
+		try {
+			if (file.length() < HEADER_SIZE) {
+				writeHeader(file, csvFile);
+			}
+			file.seek(file.length());
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		return new WriteAheadLog(file, syncPolicy);
+	}
+
+	/**
+	 * Applies the logged changes to a table which was read from its CSV file. A log which was started for another
+	 * content of the CSV file is deleted: either the file was compacted and the log was not started over, or the file
+	 * was edited.
+	 *
+	 * @param table
+	 *            the {@link Table} read from the CSV file.
+	 * @param csvFile
+	 *            the CSV file of the table.
+	 * @return the table with the logged changes, the given table if there are none
+	 * @throws IOException
+	 *             if the log cannot be read or its changes do not fit the table
+	 */
+	static Table replay(Table table, File csvFile) throws IOException {
+		File logFile = getFile(csvFile);
+		if (logFile.length() <= HEADER_SIZE) {
+			// A log without changes may belong to another content of the CSV file, it is started over when needed
+			if (logFile.exists() && !logFile.delete()) {
+				throw new IOException("Cannot delete " + logFile);
+			}
+			return table;
+		}
+		Table result = table;
+		boolean discard = false;
+		RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file
+					.getChannel())));
+			long[] fingerprint = fingerprint(csvFile);
+			if (in.readInt() != MAGIC || in.readLong() != fingerprint[0] || in.readLong() != fingerprint[1]) {
+				discard = true;
+			} else {
+				long length = file.length();
+				long position = HEADER_SIZE;
+				byte[] frame;
+				while ((frame = readFrame(in, length - position)) != null) {
+					result = apply(result, frame, logFile);
+					position += FRAME_HEADER_SIZE + frame.length;
+				}
+				if (position < length) {
+					LOGGER.warn("Cutting off an incomplete frame at the end of {}", logFile);
+					file.setLength(position);
+				}
+			}
+		} finally {
+			file.close();
+		}
+		if (discard) {
+			LOGGER.warn("{} does not belong to the current content of {}, it is discarded.", logFile, csvFile);
+			if (!logFile.delete()) {
+				throw new IOException("Cannot delete " + logFile);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Follows the rows of the CSV file through the logged changes, e.g. to copy the unchanged rows when the log is
+	 * compacted.
+	 *
+	 * @param csvFile
+	 *            the CSV file of the table.
+	 * @param rowCount
+	 *            the number of rows in the CSV file.
+	 * @return for each row of the table with the logged changes applied: the index of the row in the CSV file, -1 if
+	 *         the row was inserted or updated
+	 * @throws IOException
+	 *             if the log cannot be read or its changes do not fit the rows
+	 */
+	static int[] getSourceRows(File csvFile, int rowCount) throws IOException {
+		int[] rows = new int[rowCount];
+		for (int row = 0; row < rowCount; row++) {
+			rows[row] = row;
+		}
+		File logFile = getFile(csvFile);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+		try {
+			in.readFully(new byte[HEADER_SIZE]);
+			long remaining = logFile.length() - HEADER_SIZE;
+			byte[] frame;
+			while ((frame = readFrame(in, remaining)) != null) {
+				rows = track(rows, frame, logFile);
+				remaining -= FRAME_HEADER_SIZE + frame.length;
+			}
+		} finally {
+			in.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * Appends the changes of a statement as one frame.
+	 *
+	 * @param changes
+	 *            the {@link TableChange}s.
+	 * @throws IOException
+	 *             if the log cannot be written, in this case the log is truncated to its previous size
+	 */
+	synchronized void append(List<TableChange> changes) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		// Room for the length and the CRC-32
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeInt(changes.size());
+		for (TableChange change : changes) {
+			write(out, change);
+		}
+		out.flush();
+		byte[] frame = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(frame, FRAME_HEADER_SIZE, frame.length - FRAME_HEADER_SIZE);
+		ByteBuffer.wrap(frame).putInt(frame.length - FRAME_HEADER_SIZE).putInt((int) crc.getValue());
+
+		long size = file.length();
+		try {
+			file.write(frame);
+			if (syncPolicy == SyncPolicy.ALWAYS) {
+				file.getChannel().force(false);
+			} else {
+				unsynced = true;
+			}
+		} catch (IOException e) {
+			try {
+				truncate(size);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Removes the frames appended after the log had the given size.
+	 *
+	 * @param size
+	 *            the size of the log in bytes, see {@link #size()}.
+	 * @throws IOException
+	 *             if the log cannot be written
+	 */
+	synchronized void truncate(long size) throws IOException {
+		file.setLength(size);
+		file.seek(size);
+		file.getChannel().force(false);
+	}
+
+	/**
+	 * Forces the appended frames to the storage device.
+	 *
+	 * @throws IOException
+	 *             if the log cannot be written
+	 */
+	synchronized void sync() throws IOException {
+		if (unsynced) {
+			file.getChannel().force(false);
+			unsynced = false;
+		}
+	}
+
+	/**
+	 * @return the size of the log in bytes
+	 * @throws IOException
+	 *             if the size cannot be determined
+	 */
+	synchronized long size() throws IOException {
+		return file.length();
+	}
+
+	/**
+	 * Starts the log over after the current version of the table was written to the CSV file.
+	 *
+	 * @param csvFile
+	 *            the CSV file of the table.
+	 * @throws IOException
+	 *             if the log cannot be written or the CSV file cannot be read
+	 */
+	synchronized void restart(File csvFile) throws IOException {
+		// The header is overwritten in place, the log is never shorter than its header
+		file.setLength(HEADER_SIZE);
+		writeHeader(file, csvFile);
+		file.getChannel().force(false);
+		unsynced = false;
+	}
+
+	/**
+	 * Forces the log to the storage device and closes it.
+	 *
+	 * @throws IOException
+	 *             if the log cannot be written
+	 */
+	synchronized void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			file.close();
+		}
+	}
+
+	private static void writeHeader(RandomAccessFile file, File csvFile) throws IOException {
+		long[] fingerprint = fingerprint(csvFile);
+		file.seek(0);
+		file.writeInt(MAGIC);
+		file.writeLong(fingerprint[0]);
+		file.writeLong(fingerprint[1]);
+	}
+
+	/**
+	 * @return the length and the CRC-32 of a file
+	 */
+	private static long[] fingerprint(File file) throws IOException {
+		CheckedInputStream in = new CheckedInputStream(new FileInputStream(file), new CRC32());
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			long length = 0;
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				length += read;
+			}
+			return new long[] { length, in.getChecksum().getValue() };
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return the content of the next frame or <code>null</code> if there is no complete and intact frame
+	 */
+	private static byte[] readFrame(DataInputStream in, long remaining) throws IOException {
+		if (remaining < FRAME_HEADER_SIZE) {
+			return null;
+		}
+		int length = in.readInt();
+		int checksum = in.readInt();
+		if (length < 0 || length > remaining - FRAME_HEADER_SIZE) {
+			return null;
+		}
+		byte[] frame = new byte[length];
+		try {
+			in.readFully(frame);
+		} catch (EOFException e) {
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(frame);
+		return (int) crc.getValue() == checksum ? frame : null;
+	}
+
+	private static void write(DataOutputStream out, TableChange change) throws IOException {
+		Table table = change.getTable();
+		switch (change.getType()) {
+		case INSERT:
+			out.writeByte(INSERT);
+			out.writeInt(table.getRowCount() - change.getFirstRow());
+			out.writeInt(table.getColumnCount());
+			for (int row = change.getFirstRow(); row < table.getRowCount(); row++) {
+				for (int column = 0; column < table.getColumnCount(); column++) {
+					writeValue(out, table.getColumn(column), row);
+				}
+			}
+			break;
+		case UPDATE:
+			out.writeByte(UPDATE);
+			writeInts(out, change.getRows());
+			writeInts(out, change.getColumns());
+			for (int row : change.getRows()) {
+				for (int column : change.getColumns()) {
+					writeValue(out, table.getColumn(column), row);
+				}
+			}
+			break;
+		default:
+			out.writeByte(DELETE);
+			writeInts(out, change.getRows());
+		}
+	}
+
+	private static Table apply(Table table, byte[] frame, File logFile) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+		Table result = table;
+		try {
+			int changeCount = in.readInt();
+			for (int i = 0; i < changeCount; i++) {
+				byte type = in.readByte();
+				if (type == INSERT) {
+					int rowCount = in.readInt();
+					List<String[]> rows = readValues(in, rowCount, in.readInt());
+					result = result.append(rows);
+				} else if (type == UPDATE) {
+					int[] rows = readInts(in);
+					int[] columns = readInts(in);
+					result = result.update(rows, columns, readValues(in, rows.length, columns.length));
+				} else if (type == DELETE) {
+					result = result.delete(readInts(in));
+				} else {
+					throw new IllegalArgumentException("Unknown change: " + type);
+				}
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IOException(MessageFormat.format("The changes in {0} do not fit the table ''{1}''", logFile,
+					table.getName()), e);
+		}
+		return result;
+	}
+
+	/**
+	 * Applies the changes of a frame to the source rows, see {@link #getSourceRows(File, int)}.
+	 */
+	private static int[] track(int[] rows, byte[] frame, File logFile) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+		int[] result = rows;
+		try {
+			int changeCount = in.readInt();
+			for (int i = 0; i < changeCount; i++) {
+				byte type = in.readByte();
+				if (type == INSERT) {
+					int rowCount = in.readInt();
+					readValues(in, rowCount, in.readInt());
+					int size = result.length;
+					result = Arrays.copyOf(result, size + rowCount);
+					Arrays.fill(result, size, result.length, -1);
+				} else if (type == UPDATE) {
+					int[] updated = readInts(in);
+					int[] columns = readInts(in);
+					readValues(in, updated.length, columns.length);
+					for (int row : updated) {
+						result[row] = -1;
+					}
+				} else if (type == DELETE) {
+					int[] deleted = readInts(in);
+					int[] remaining = new int[result.length - deleted.length];
+					int next = 0;
+					int d = 0;
+					for (int row = 0; row < result.length; row++) {
+						if (d < deleted.length && deleted[d] == row) {
+							d++;
+						} else {
+							remaining[next++] = result[row];
+						}
+					}
+					result = remaining;
+				} else {
+					throw new IllegalArgumentException("Unknown change: " + type);
+				}
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException(MessageFormat.format("The changes in {0} do not fit the rows of the CSV file",
+					logFile), e);
+		}
+		return result;
+	}
+
+	private static void writeValue(DataOutputStream out, Column column, int row) throws IOException {
+		if (column.isNull(row)) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = column.getString(row).getBytes(UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static List<String[]> readValues(DataInputStream in, int rowCount, int columnCount) throws IOException {
+		List<String[]> rows = new ArrayList<String[]>(rowCount);
+		for (int row = 0; row < rowCount; row++) {
+			String[] values = new String[columnCount];
+			for (int column = 0; column < columnCount; column++) {
+				int length = in.readInt();
+				if (length >= 0) {
+					byte[] bytes = new byte[length];
+					in.readFully(bytes);
+					values[column] = new String(bytes, UTF_8);
+				}
+			}
+			rows.add(values);
+		}
+		return rows;
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static int[] readInts(DataInputStream in) throws IOException {
+		int[] values = new int[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+}
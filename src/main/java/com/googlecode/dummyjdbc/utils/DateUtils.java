@@ -0,0 +1,133 @@
+package com.googlecode.dummyjdbc.utils;
+
+import java.sql.Types;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+/**
+ * Parses and formats the values of DATE, TIME and TIMESTAMP columns of CSV files.
+ *
+ * @author Kai Winter
+ */
+public final class DateUtils {
+
+	/** The date format for parsing a date from a CSV file. */
+	public static final String DATE_FORMAT = "dd-MMM-yy";
+
+	/** The time format for parsing a time from a CSV file. */
+	public static final String TIME_FORMAT = "HH:mm:ss";
+
+	/** The timestamp format for parsing a timestamp from a CSV file. */
+	public static final String TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	private static final ThreadLocal<DateFormat> THREAD_LOCAL_DATEFORMAT = new ThreadLocal<DateFormat>() {
+		@Override
+		protected DateFormat initialValue() {
+			return new SimpleDateFormat(DATE_FORMAT);
+		}
+	};
+
+	private static final ThreadLocal<DateFormat> THREAD_LOCAL_TIMEFORMAT = new ThreadLocal<DateFormat>() {
+		@Override
+		protected DateFormat initialValue() {
+			return new SimpleDateFormat(TIME_FORMAT);
+		}
+	};
+
+	private static final ThreadLocal<DateFormat> THREAD_LOCAL_TIMESTAMPFORMAT = new ThreadLocal<DateFormat>() {
+		@Override
+		protected DateFormat initialValue() {
+			return new SimpleDateFormat(TIMESTAMP_FORMAT);
+		}
+	};
+
+	/**
+	 * Parses a value of a CSV file.
+	 *
+	 * @param sqlType
+	 *            one of {@link Types#DATE}, {@link Types#TIME} or {@link Types#TIMESTAMP}.
+	 * @param value
+	 *            the value from the CSV file.
+	 * @return the milliseconds since the epoch
+	 * @throws ParseException
+	 *             if the value does not match the format of the type
+	 */
+	public static long parse(int sqlType, String value) throws ParseException {
+		return getFormat(sqlType).parse(value).getTime();
+	}
+
+	/**
+	 * Parses a literal of a query compared to a column. Besides the format of the column's type, the JDBC escape
+	 * formats {@code yyyy-mm-dd}, {@code hh:mm:ss} and {@code yyyy-mm-dd hh:mm:ss[.f...]} are accepted, so a date-only
+	 * literal can be compared to a TIMESTAMP column.
+	 *
+	 * @param sqlType
+	 *            one of {@link Types#DATE}, {@link Types#TIME} or {@link Types#TIMESTAMP}.
+	 * @param value
+	 *            the literal of the query.
+	 * @return the milliseconds since the epoch
+	 * @throws ParseException
+	 *             if the value matches neither the format of the type nor a JDBC escape format
+	 */
+	public static long parseLiteral(int sqlType, String value) throws ParseException {
+		try {
+			return parse(sqlType, value);
+		} catch (ParseException e) {
+			String trimmed = value.trim();
+			try {
+				if (trimmed.indexOf(' ') > 0) {
+					return java.sql.Timestamp.valueOf(trimmed).getTime();
+				} else if (trimmed.indexOf(':') > 0) {
+					return java.sql.Time.valueOf(trimmed).getTime();
+				}
+				return java.sql.Date.valueOf(trimmed).getTime();
+			} catch (IllegalArgumentException notJdbcFormat) {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Formats a value the same way it is expected in a CSV file.
+	 *
+	 * @param sqlType
+	 *            one of {@link Types#DATE}, {@link Types#TIME} or {@link Types#TIMESTAMP}.
+	 * @param millis
+	 *            the milliseconds since the epoch.
+	 * @return the formatted value
+	 */
+	public static String format(int sqlType, long millis) {
+		return getFormat(sqlType).format(new java.util.Date(millis));
+	}
+
+	/**
+	 * @param sqlType
+	 *            one of {@link Types#DATE}, {@link Types#TIME} or {@link Types#TIMESTAMP}.
+	 * @return the pattern used for the type
+	 */
+	public static String getPattern(int sqlType) {
+		switch (sqlType) {
+		case Types.TIME:
+			return TIME_FORMAT;
+		case Types.TIMESTAMP:
+			return TIMESTAMP_FORMAT;
+		default:
+			return DATE_FORMAT;
+		}
+	}
+
+	private static DateFormat getFormat(int sqlType) {
+		switch (sqlType) {
+		case Types.TIME:
+			return THREAD_LOCAL_TIMEFORMAT.get();
+		case Types.TIMESTAMP:
+			return THREAD_LOCAL_TIMESTAMPFORMAT.get();
+		default:
+			return THREAD_LOCAL_DATEFORMAT.get();
+		}
+	}
+
+	private DateUtils() {
+	}
+}
@@ -1,8 +1,15 @@
 package com.googlecode.dummyjdbc;
 
+import java.io.File;
+import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -29,4 +36,43 @@ public final class DummyJdbcDriverTest {
 		Assert.assertTrue(connection instanceof DummyConnection);
 	}
 
+	@Test
+	public void testConcurrentRegistration() throws Exception {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+		final Connection connection = DriverManager.getConnection("any");
+		final File csvFile = new File("src/test/resources/invoices/invoices.csv");
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			final String tablename = "Registry" + t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						DummyJdbcDriver.addTableResource(tablename, csvFile);
+						DriverManager.getConnection("any").close();
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertNull(failure.get());
+
+		// The connection was opened before the tables were registered
+		Statement statement = connection.createStatement();
+		Field field = statement.getClass().getDeclaredField("tableResources");
+		field.setAccessible(true);
+		@SuppressWarnings("unchecked")
+		Map<String, File> tableResources = (Map<String, File>) field.get(statement);
+		for (int t = 0; t < 8; t++) {
+			Assert.assertEquals(csvFile, tableResources.get("registry" + t));
+		}
+	}
 }
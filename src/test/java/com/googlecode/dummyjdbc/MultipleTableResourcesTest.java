@@ -12,6 +12,8 @@ import java.sql.ResultSet;
 import java.sql.Statement;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class MultipleTableResourcesTest {
@@ -65,6 +67,23 @@ public class MultipleTableResourcesTest {
 		assertTrue(rsTwo.next());
 	}
 
+	@Test
+	public void testJoinOfTwoTableResources() throws Exception {
+		givenDummyDriverWithTables();
+
+		Connection connection = DriverManager.getConnection("any");
+		Statement stmt = connection.createStatement();
+		ResultSet rs = stmt.executeQuery("SELECT i.NAME, p.POSITION FROM BOO.[dbo].[invoices] i "
+				+ "JOIN BOO.[dbo].[invoice_positions] p ON i.ID = p.ID ORDER BY p.POSITION");
+
+		assertTrue(rs.next());
+		assertEquals("Peter Muster", rs.getString(1));
+		assertEquals("1", rs.getString(2));
+		assertTrue(rs.next());
+		assertEquals("2", rs.getString(2));
+		assertFalse(rs.next());
+	}
+
 	private void givenDummyDriverWithTables() throws ClassNotFoundException {
 		Class.forName(DummyJdbcDriver.class.getCanonicalName());
 		DummyJdbcDriver.addTableResource(INVOICE_TABLE_NAME, testFileInvoices);
@@ -0,0 +1,97 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class FastCsvParserTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private File csvFile;
+
+	@Before
+	public void setup() throws IOException {
+		csvFile = File.createTempFile("parser", ".csv");
+	}
+
+	@After
+	public void tearDown() {
+		csvFile.delete();
+	}
+
+	@Test
+	public void testSameRecordsAsOpenCsv() throws IOException {
+		write("a, b ,\"c\"\"d\"\n\nx,\"y\\\"z\",w\\q\n \"q1\" , \"multi\r\nline\"\r\nlast,ab\"c\"d,äöü");
+
+		List<List<String>> expected = readAll(new OpenCsvParser());
+		List<List<String>> actual = readAll(new FastCsvParser());
+
+		Assert.assertEquals(5, actual.size());
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testGetInt() throws IOException {
+		write("17, -4711 ,+3,2147483647,\"12\"");
+
+		CsvRecordReader reader = new FastCsvParser().open(csvFile, UTF8);
+		CsvRecord record = reader.next();
+
+		Assert.assertEquals(17, record.getInt(0));
+		Assert.assertEquals(-4711, record.getInt(1));
+		Assert.assertEquals(3, record.getInt(2));
+		Assert.assertEquals(Integer.MAX_VALUE, record.getInt(3));
+		Assert.assertEquals(12, record.getInt(4));
+		Assert.assertNull(reader.next());
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testGetIntOfText() throws IOException {
+		write("abc\n");
+
+		new FastCsvParser().open(csvFile, UTF8).next().getInt(0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnterminatedQuote() throws IOException {
+		write("a,\"b\n");
+
+		new FastCsvParser().open(csvFile, UTF8).next();
+	}
+
+	private List<List<String>> readAll(CsvParser parser) throws IOException {
+		List<List<String>> records = new ArrayList<List<String>>();
+		CsvRecordReader reader = parser.open(csvFile, UTF8);
+		try {
+			CsvRecord record;
+			while ((record = reader.next()) != null) {
+				List<String> fields = new ArrayList<String>();
+				for (int i = 0; i < record.getFieldCount(); i++) {
+					fields.add(record.getField(i));
+				}
+				records.add(fields);
+			}
+		} finally {
+			reader.close();
+		}
+		return records;
+	}
+
+	private void write(String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(csvFile);
+		try {
+			out.write(content.getBytes(UTF8));
+		} finally {
+			out.close();
+		}
+	}
+}
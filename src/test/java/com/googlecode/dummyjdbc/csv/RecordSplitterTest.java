@@ -0,0 +1,41 @@
+package com.googlecode.dummyjdbc.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class RecordSplitterTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testSplitsAtLineBreaks() {
+		ByteBuffer buffer = ByteBuffer.wrap("a,1\nb,2\r\nc,3\nd,4\n".getBytes(UTF8));
+
+		int[] boundaries = RecordSplitter.split(buffer, 0, buffer.limit(), 2);
+
+		Assert.assertArrayEquals(new int[] { 0, 9, 17 }, boundaries);
+	}
+
+	@Test
+	public void testIgnoresLineBreaksInQuotes() {
+		ByteBuffer buffer = ByteBuffer.wrap("\"a\nb\nc\nd\",1\n\"e\\\"\nf\",2\ng,3\n".getBytes(UTF8));
+
+		int[] boundaries = RecordSplitter.split(buffer, 0, buffer.limit(), 3);
+
+		Assert.assertArrayEquals(new int[] { 0, 12, 22, 26 }, boundaries);
+	}
+
+	@Test
+	public void testFewerRecordsThanChunks() {
+		ByteBuffer buffer = ByteBuffer.wrap("a,1\nb,2".getBytes(UTF8));
+
+		int[] boundaries = RecordSplitter.split(buffer, 0, buffer.limit(), 8);
+
+		Assert.assertEquals(0, boundaries[0]);
+		Assert.assertEquals(buffer.limit(), boundaries[boundaries.length - 1]);
+		Assert.assertTrue(boundaries.length <= 3);
+	}
+}
@@ -0,0 +1,37 @@
+package com.googlecode.dummyjdbc.query;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class LikePatternTest {
+
+	@Test
+	public void testSimplePatterns() {
+		Assert.assertTrue(new LikePattern("abc", null).matches("abc"));
+		Assert.assertFalse(new LikePattern("abc", null).matches("abcd"));
+		Assert.assertTrue(new LikePattern("ab%", null).matches("abcd"));
+		Assert.assertTrue(new LikePattern("%cd", null).matches("abcd"));
+		Assert.assertTrue(new LikePattern("%bc%", null).matches("abcd"));
+		Assert.assertFalse(new LikePattern("%x%", null).matches("abcd"));
+		Assert.assertTrue(new LikePattern("%", null).matches(""));
+	}
+
+	@Test
+	public void testGenericPatterns() {
+		Assert.assertTrue(new LikePattern("a_c", null).matches("abc"));
+		Assert.assertFalse(new LikePattern("a_c", null).matches("abbc"));
+		Assert.assertTrue(new LikePattern("a%b%c", null).matches("axxbyyc"));
+		Assert.assertTrue(new LikePattern("%a%a", null).matches("banana"));
+		Assert.assertFalse(new LikePattern("%a%b", null).matches("banana"));
+		Assert.assertTrue(new LikePattern("_%_", null).matches("ab"));
+		Assert.assertFalse(new LikePattern("_%_", null).matches("a"));
+	}
+
+	@Test
+	public void testEscape() {
+		Assert.assertTrue(new LikePattern("100!%", '!').matches("100%"));
+		Assert.assertFalse(new LikePattern("100!%", '!').matches("1000"));
+		Assert.assertTrue(new LikePattern("a!_%", '!').matches("a_b"));
+		Assert.assertFalse(new LikePattern("a!_%", '!').matches("ab"));
+	}
+}
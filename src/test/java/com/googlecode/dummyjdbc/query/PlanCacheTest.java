@@ -0,0 +1,65 @@
+package com.googlecode.dummyjdbc.query;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class PlanCacheTest {
+
+	@Test
+	public void testPlanIsReused() throws SQLException {
+		PlanCache cache = new PlanCache(10);
+		QueryPlan plan = cache.get("SELECT * FROM orders WHERE id = 1");
+
+		Assert.assertSame(plan, cache.get("SELECT * FROM orders WHERE id = 1"));
+		Assert.assertNotSame(plan, cache.get("SELECT * FROM orders WHERE id = 2"));
+		Assert.assertEquals(QueryPlan.Kind.TABLE, plan.getKind());
+		Assert.assertEquals("orders", plan.getTableKey());
+	}
+
+	@Test
+	public void testCacheIsBounded() throws SQLException {
+		PlanCache cache = new PlanCache(3);
+		for (int i = 0; i < 10; i++) {
+			cache.get("SELECT * FROM orders WHERE id = " + i);
+		}
+		Assert.assertEquals(3, cache.size());
+
+		cache.setMaxSize(1);
+		Assert.assertEquals(1, cache.size());
+
+		cache.setMaxSize(0);
+		cache.get("SELECT 1");
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testKinds() throws SQLException {
+		PlanCache cache = new PlanCache(10);
+
+		Assert.assertEquals(QueryPlan.Kind.PURE_SELECT, cache.get("SELECT 1").getKind());
+		Assert.assertEquals(QueryPlan.Kind.TABLE, cache.get("SELECT * FROM a JOIN b ON a.id = b.id").getKind());
+		QueryPlan crossJoin = cache.get("SELECT * FROM a CROSS JOIN b");
+		Assert.assertEquals(QueryPlan.Kind.TABLE, crossJoin.getKind());
+		Assert.assertEquals("a", crossJoin.getTableKey());
+		Assert.assertTrue(crossJoin.getJoinedTableNames().isEmpty());
+		Assert.assertEquals(QueryPlan.Kind.EMPTY, cache.get("SELECT * FROM (SELECT * FROM a) x").getKind());
+		Assert.assertEquals(QueryPlan.Kind.MODIFICATION, cache.get("DELETE FROM orders").getKind());
+		QueryPlan procedure = cache.get("EXECUTE Get_Orders 1, 2");
+		Assert.assertEquals(QueryPlan.Kind.TABLE, procedure.getKind());
+		Assert.assertEquals("get_orders", procedure.getTableKey());
+	}
+
+	@Test
+	public void testInvalidStatementIsNotCached() throws SQLException {
+		PlanCache cache = new PlanCache(10);
+		try {
+			cache.get("SELECT * FROM orders WHERE");
+			Assert.fail("Expected exception not thrown");
+		} catch (SQLSyntaxErrorException e) {
+			Assert.assertEquals(0, cache.size());
+		}
+	}
+}
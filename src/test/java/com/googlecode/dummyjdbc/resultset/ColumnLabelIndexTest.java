@@ -0,0 +1,32 @@
+package com.googlecode.dummyjdbc.resultset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class ColumnLabelIndexTest {
+
+	private final ColumnLabelIndex columnLabelIndex = new ColumnLabelIndex(new String[] { "ID", "COUNTRY_NAME",
+			"COUNTRY_ISO" });
+
+	@Test
+	public void testIndexOfIsCaseInsensitive() {
+		Assert.assertEquals(1, columnLabelIndex.indexOf("ID"));
+		Assert.assertEquals(2, columnLabelIndex.indexOf("country_name"));
+		Assert.assertEquals(3, columnLabelIndex.indexOf("Country_Iso"));
+	}
+
+	@Test
+	public void testRepeatedLookupOfSameInstance() {
+		String label = new String("country_iso");
+
+		Assert.assertEquals(3, columnLabelIndex.indexOf(label));
+		Assert.assertEquals(3, columnLabelIndex.indexOf(label));
+	}
+
+	@Test
+	public void testUnknownLabel() {
+		Assert.assertEquals(ColumnLabelIndex.NOT_FOUND, columnLabelIndex.indexOf("undefined"));
+		Assert.assertEquals(ColumnLabelIndex.NOT_FOUND, columnLabelIndex.indexOf("undefined"));
+		Assert.assertEquals(ColumnLabelIndex.NOT_FOUND, columnLabelIndex.indexOf(null));
+	}
+}
@@ -0,0 +1,51 @@
+package com.googlecode.dummyjdbc.resultset.impl;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class CSVResultSetTest {
+
+	@Test
+	public void testRowsByIndexAndLabel() throws SQLException {
+		Collection<String[]> rows = new ArrayList<String[]>();
+		rows.add(new String[] { "1", "Germany" });
+		rows.add(new String[] { "2", "Spain" });
+		CSVResultSet resultSet = new CSVResultSet("countries", null, new String[] { "ID", "COUNTRY_NAME" }, rows);
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(1, resultSet.getInt(1));
+		Assert.assertEquals("Germany", resultSet.getString("country_name"));
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("Spain", resultSet.getString(2));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testMapEntriesKeepColumnOrder() throws SQLException {
+		LinkedHashMap<String, String> entry = new LinkedHashMap<String, String>();
+		entry.put("ID", "1");
+		entry.put("COUNTRY_NAME", "Germany");
+		Collection<LinkedHashMap<String, String>> entries = new ArrayList<LinkedHashMap<String, String>>();
+		entries.add(entry);
+		CSVResultSet resultSet = new CSVResultSet("countries", null, entries);
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("1", resultSet.getString(1));
+		Assert.assertEquals("Germany", resultSet.getString(2));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testColumnIndexZero() throws SQLException {
+		Collection<String[]> rows = new ArrayList<String[]>();
+		rows.add(new String[] { "1" });
+		CSVResultSet resultSet = new CSVResultSet("countries", null, new String[] { "ID" }, rows);
+
+		Assert.assertTrue(resultSet.next());
+		resultSet.getString(0);
+	}
+}
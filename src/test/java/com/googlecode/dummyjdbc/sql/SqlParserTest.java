@@ -0,0 +1,217 @@
+package com.googlecode.dummyjdbc.sql;
+
+import java.sql.SQLSyntaxErrorException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class SqlParserTest {
+
+	@Test
+	public void testPrecedence() throws SQLSyntaxErrorException {
+		Expression where = parseWhere("SELECT * FROM t WHERE a = 1 OR b = 2 AND NOT c = 3");
+
+		Assert.assertEquals("(a = 1 OR (b = 2 AND NOT c = 3))", where.toString());
+	}
+
+	@Test
+	public void testPredicates() throws SQLSyntaxErrorException {
+		Expression where = parseWhere(
+				"select * from t where t.a not between -1 and 2.5 and b in ('x', 'it''s') and c is not null");
+
+		Assert.assertEquals("((t.a NOT BETWEEN -1 AND 2.5 AND b IN ['x', 'it's']) AND c IS NOT NULL)",
+				where.toString());
+	}
+
+	@Test
+	public void testWhereInSubqueryIsSkipped() throws SQLSyntaxErrorException {
+		Assert.assertNull(parseWhere("SELECT * FROM (SELECT * FROM t WHERE a = 1) x"));
+		Assert.assertEquals("b = 2", parseWhere("SELECT (SELECT 1 WHERE c = 3) FROM t WHERE b = 2 ORDER BY b")
+				.toString());
+	}
+
+	@Test
+	public void testTableOfSubqueryIsNotTheQueriedTable() throws SQLSyntaxErrorException {
+		Select select = (Select) SqlParser
+				.parse("SELECT id FROM orders o WHERE id IN (SELECT order_id FROM positions) ORDER BY id");
+
+		Assert.assertEquals("orders", select.getFrom().getName());
+		Assert.assertEquals("o", select.getFrom().getAlias());
+		Assert.assertEquals("id IN [(SELECT order_id FROM positions)]", select.getWhere().toString());
+	}
+
+	@Test
+	public void testSelect() throws SQLSyntaxErrorException {
+		SqlStatement statement = SqlParser.parse("SELECT DISTINCT i.*, COUNT(*) AS c, price * 2 + 1 total "
+				+ "FROM BOO.[dbo].[invoices] i LEFT OUTER JOIN positions p ON p.invoice = i.id, other;");
+
+		Assert.assertEquals("SELECT DISTINCT i.*, COUNT(*) AS c, ((price * 2) + 1) AS total "
+				+ "FROM BOO.[dbo].[invoices] i LEFT JOIN positions p ON p.invoice = i.id CROSS JOIN other",
+				statement.toString());
+	}
+
+	@Test
+	public void testUnion() throws SQLSyntaxErrorException {
+		Union union = (Union) SqlParser.parse("SELECT a FROM t WHERE a > ? UNION ALL SELECT b FROM u "
+				+ "UNION DISTINCT SELECT c FROM v ORDER BY 1 DESC LIMIT 5");
+
+		Assert.assertEquals(3, union.getSelects().size());
+		Assert.assertTrue(union.isAll(1));
+		Assert.assertFalse(union.isAll(2));
+		Assert.assertEquals("SELECT a FROM t WHERE a > ?1 UNION ALL SELECT b FROM u UNION SELECT c FROM v "
+				+ "ORDER BY 1 DESC LIMIT 5", union.toString());
+
+		union = (Union) SqlParser.parse("SELECT a FROM t EXCEPT SELECT b FROM u INTERSECT ALL SELECT c FROM v");
+		Assert.assertEquals(Union.Operator.EXCEPT, union.getOperator(1));
+		Assert.assertEquals(Union.Operator.INTERSECT, union.getOperator(2));
+		Assert.assertTrue(union.isAll(2));
+
+		// A UNION in a subquery is skipped
+		Assert.assertEquals("SELECT * FROM t WHERE a IN [(SELECT a FROM u)]",
+				SqlParser.parse("SELECT * FROM t WHERE a IN (SELECT a FROM u UNION SELECT b FROM v)").toString());
+	}
+
+	@Test
+	public void testOrderByAndLimit() throws SQLSyntaxErrorException {
+		Assert.assertEquals("SELECT * FROM t WHERE a = 1 ORDER BY b, c DESC LIMIT ?1 OFFSET 20",
+				SqlParser.parse("SELECT * FROM t WHERE a = 1 ORDER BY b ASC, c DESC LIMIT ? OFFSET 20").toString());
+		Assert.assertEquals("SELECT * FROM t LIMIT 10 OFFSET 5", SqlParser.parse("SELECT * FROM t LIMIT 5, 10")
+				.toString());
+		Assert.assertEquals("SELECT * FROM t ORDER BY 2 OFFSET 3",
+				SqlParser.parse("SELECT * FROM t ORDER BY 2 OFFSET 3 ROWS").toString());
+		Assert.assertEquals("SELECT * FROM t ORDER BY a DESC LIMIT 5 OFFSET 10",
+				SqlParser.parse("SELECT * FROM t ORDER BY a DESC OFFSET 10 ROWS FETCH FIRST 5 ROWS ONLY").toString());
+		Assert.assertEquals("SELECT * FROM t LIMIT 1", SqlParser.parse("SELECT * FROM t FETCH NEXT ROW ONLY")
+				.toString());
+		Assert.assertEquals("SELECT a, COUNT(*) FROM t GROUP BY a, b HAVING COUNT(*) > 1 ORDER BY a LIMIT 1",
+				SqlParser.parse("SELECT a, COUNT(*) FROM t GROUP BY a, b HAVING COUNT(*) > 1 ORDER BY a LIMIT 1")
+						.toString());
+	}
+
+	@Test
+	public void testOtherStatements() throws SQLSyntaxErrorException {
+		Assert.assertEquals("INSERT INTO t [a, b] VALUES [[1, 'x'], [2, NULL]]",
+				SqlParser.parse("INSERT INTO t (a, b) VALUES (1, 'x'), (2, NULL)").toString());
+		Assert.assertEquals("UPDATE t SET [a = (a + 1), b = 'y'] WHERE c = 3",
+				SqlParser.parse("UPDATE t SET a = a + 1, t.b = 'y' WHERE c = 3").toString());
+		Assert.assertEquals("DELETE FROM t WHERE a < 0", SqlParser.parse("DELETE FROM t WHERE a < 0").toString());
+		Assert.assertEquals("EXEC dbo.get_invoices", SqlParser.parse("EXEC dbo.get_invoices @id = 4711").toString());
+		Assert.assertNull(SqlParser.parse("CREATE TABLE t (a INT)"));
+	}
+
+	@Test
+	public void testLongStatement() throws SQLSyntaxErrorException {
+		StringBuilder sql = new StringBuilder("SELECT c0");
+		for (int i = 1; i < 500; i++) {
+			sql.append(", c").append(i);
+		}
+		sql.append(" FROM t WHERE c0 IN (0");
+		for (int i = 1; i < 500; i++) {
+			sql.append(", ").append(i);
+		}
+		sql.append(')');
+
+		Select select = (Select) SqlParser.parse(sql.toString());
+		Assert.assertEquals(500, select.getItems().size());
+		Assert.assertEquals(500, ((InList) select.getWhere()).getValues().size());
+	}
+
+	@Test
+	public void testSkippedExpressions() throws SQLSyntaxErrorException {
+		Assert.assertEquals("SELECT CAST(id AS VARCHAR(10)) AS c FROM inv",
+				SqlParser.parse("SELECT CAST(id AS VARCHAR(10)) AS c FROM inv").toString());
+		Assert.assertEquals("SELECT CASE WHEN id = 1 THEN CASE a WHEN 2 THEN 3 END END FROM inv WHERE b = 1",
+				SqlParser.parse("SELECT CASE WHEN id = 1 THEN CASE a WHEN 2 THEN 3 END END FROM inv WHERE b = 1")
+						.toString());
+		// The parameter markers of skipped expressions are counted
+		Assert.assertEquals("(NOT EXISTS (SELECT 1 FROM pos WHERE pos.inv = ?) AND a = ?2)",
+				parseWhere("SELECT * FROM inv WHERE NOT EXISTS (SELECT 1 FROM pos WHERE pos.inv = ?) AND a = ?")
+						.toString());
+		Assert.assertEquals("SELECT ROW_NUMBER() OVER (ORDER BY id) FROM inv",
+				SqlParser.parse("SELECT ROW_NUMBER() OVER (ORDER BY id) FROM inv").toString());
+		Assert.assertEquals("SELECT EXTRACT(YEAR FROM d) FROM inv",
+				SqlParser.parse("SELECT EXTRACT(YEAR FROM d) FROM inv").toString());
+		Assert.assertTrue(((Select) SqlParser.parse("SELECT CAST(a AS INT) FROM inv")).getItems().get(0)
+				.getExpression() instanceof Unparsed);
+	}
+
+	@Test
+	public void testTop() throws SQLSyntaxErrorException {
+		Assert.assertEquals("SELECT * FROM inv LIMIT 10", SqlParser.parse("SELECT TOP 10 * FROM inv").toString());
+		Assert.assertEquals("SELECT DISTINCT a FROM inv LIMIT ?1",
+				SqlParser.parse("SELECT DISTINCT TOP (?) a FROM inv").toString());
+		Assert.assertEquals("SELECT * FROM inv", SqlParser.parse("SELECT TOP 10 PERCENT * FROM inv").toString());
+		Assert.assertEquals("SELECT top FROM inv", SqlParser.parse("SELECT top FROM inv").toString());
+	}
+
+	@Test
+	public void testJdbcEscapes() throws SQLSyntaxErrorException {
+		Assert.assertEquals("(a = '2021-01-01' AND b < '2021-01-01 10:00:00')",
+				parseWhere("SELECT * FROM t WHERE a = {d '2021-01-01'} AND b < {ts '2021-01-01 10:00:00'}").toString());
+		Assert.assertEquals("UCASE(a) = 'X'", parseWhere("SELECT * FROM t WHERE {fn UCASE(a)} = 'X'").toString());
+		Assert.assertEquals(Character.valueOf('!'),
+				((Like) parseWhere("SELECT * FROM t WHERE a LIKE 'x!%' {escape '!'}")).getEscape());
+		Assert.assertEquals("SELECT * FROM t LEFT JOIN u ON t.a = u.a",
+				SqlParser.parse("SELECT * FROM {oj t LEFT OUTER JOIN u ON t.a = u.a}").toString());
+	}
+
+	@Test
+	public void testVendorSyntax() throws SQLSyntaxErrorException {
+		Assert.assertEquals("a = '2021-01-01'", parseWhere("SELECT * FROM t WHERE a = DATE '2021-01-01'").toString());
+		Assert.assertEquals("SELECT * FROM t ORDER BY a NULLS LAST, b DESC NULLS FIRST",
+				SqlParser.parse("SELECT * FROM t ORDER BY a NULLS LAST, b DESC NULLS FIRST").toString());
+		Assert.assertEquals("SELECT * FROM t WHERE a = 1",
+				SqlParser.parse("SELECT SQL_CALC_FOUND_ROWS * FROM t WITH (NOLOCK) WHERE a = 1 LOCK IN SHARE MODE")
+						.toString());
+		Assert.assertTrue(parseWhere("SELECT * FROM t WHERE a ILIKE 'x'") instanceof Unparsed);
+		Assert.assertTrue(parseWhere("SELECT * FROM t WHERE a::text = 'x'") instanceof Comparison);
+		Assert.assertEquals("a::text", ((Comparison) parseWhere("SELECT * FROM t WHERE a::text = 'x'")).getLeft()
+				.toString());
+		Assert.assertEquals("a COLLATE \"C\" = 'x'",
+				parseWhere("SELECT * FROM t WHERE a COLLATE \"C\" = 'x'").toString());
+		Select select = (Select) SqlParser.parse("SELECT * FROM t JOIN u USING (a, b)");
+		Assert.assertTrue(select.getJoins().get(0).getCondition() instanceof Unparsed);
+	}
+
+	@Test
+	public void testRecoverTableName() throws SQLSyntaxErrorException {
+		SqlParser parser = parseInvalid("SELECT * FROM s.t x WHERE a = ? QUALIFY ROW_NUMBER() OVER (ORDER BY a) = ?");
+		Assert.assertTrue(parser.isRecoverable());
+		Assert.assertEquals("s.t", parser.recoverTableName());
+		Assert.assertEquals(2, parser.getParameterCount());
+
+		Assert.assertEquals("t", parseInvalid("SELECT (SELECT 1 FROM u) FROM t WHERE a = 1 b").recoverTableName());
+		Assert.assertFalse(parseInvalid("SELECT * FROM t WHERE a = ").isRecoverable());
+		Assert.assertFalse(parseInvalid("UPDATE t SET a = 1 WHERE a = 1 b").isRecoverable());
+	}
+
+	@Test(expected = SQLSyntaxErrorException.class)
+	public void testUnbalancedSkippedExpression() throws SQLSyntaxErrorException {
+		SqlParser.parse("SELECT CAST(id AS VARCHAR(10) FROM inv");
+	}
+
+	@Test(expected = SQLSyntaxErrorException.class)
+	public void testTrailingTokens() throws SQLSyntaxErrorException {
+		parseWhere("SELECT * FROM t WHERE a = 1 b");
+	}
+
+	@Test(expected = SQLSyntaxErrorException.class)
+	public void testUnterminatedString() throws SQLSyntaxErrorException {
+		parseWhere("SELECT * FROM t WHERE a = 'x");
+	}
+
+	private static SqlParser parseInvalid(String sql) throws SQLSyntaxErrorException {
+		SqlParser parser = new SqlParser(sql);
+		try {
+			parser.parseStatement();
+			Assert.fail("Parsed " + sql);
+		} catch (SQLSyntaxErrorException e) {
+			// expected
+		}
+		return parser;
+	}
+
+	private static Expression parseWhere(String sql) throws SQLSyntaxErrorException {
+		return ((Select) SqlParser.parse(sql)).getWhere();
+	}
+}
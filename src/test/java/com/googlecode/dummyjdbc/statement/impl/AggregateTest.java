@@ -0,0 +1,129 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class AggregateTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(AggregateTest.class.getResource("orders.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testCount() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM orders");
+
+		Assert.assertEquals(1, resultSet.getMetaData().getColumnCount());
+		Assert.assertEquals(Types.BIGINT, resultSet.getMetaData().getColumnType(1));
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(6, resultSet.getLong(1));
+		Assert.assertEquals(Long.valueOf(6), resultSet.getObject("COUNT(*)"));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testAggregates() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT COUNT(*), COUNT(quantity), SUM(quantity) AS total, AVG(quantity), MIN(amount), MAX(created) "
+						+ "FROM orders WHERE status = 'open' OR id = 4");
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(4, resultSet.getInt(1));
+		Assert.assertEquals(3, resultSet.getInt(2));
+		Assert.assertEquals(19, resultSet.getLong("total"));
+		Assert.assertEquals(19 / 3.0, resultSet.getDouble(4), 0.0001);
+		Assert.assertEquals(0.99, resultSet.getDouble(5), 0.0001);
+		Assert.assertEquals(Timestamp.valueOf("2021-03-01 09:00:00"), resultSet.getTimestamp(6));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testNoMatchingRows() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT COUNT(*), SUM(amount), MIN(customer) FROM orders WHERE id > 100");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(0, resultSet.getLong(1));
+		Assert.assertEquals(0, resultSet.getDouble(2), 0);
+		Assert.assertTrue(resultSet.wasNull());
+		Assert.assertNull(resultSet.getString(3));
+		Assert.assertFalse(resultSet.next());
+
+		resultSet = connection.createStatement().executeQuery(
+				"SELECT status, COUNT(*) FROM orders WHERE id > 100 GROUP BY status");
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testGroupBy() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT customer, COUNT(*) AS orders, SUM(amount) AS total FROM orders GROUP BY customer");
+
+		// The groups are returned in the order of their first row
+		String[] customers = { "alice", "bob", "carol", "dave" };
+		long[] counts = { 2, 2, 1, 1 };
+		double[] totals = { 260.5, 100.98, 5.0, 42.0 };
+		for (int i = 0; i < customers.length; i++) {
+			Assert.assertTrue(resultSet.next());
+			Assert.assertEquals(customers[i], resultSet.getString("customer"));
+			Assert.assertEquals(counts[i], resultSet.getLong("orders"));
+			Assert.assertEquals(totals[i], resultSet.getDouble("total"), 0.0001);
+		}
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testGroupByMultipleColumns() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT status, quantity, COUNT(*) FROM orders GROUP BY status, quantity ORDER BY status, quantity");
+
+		Object[][] expected = { { "cancelled", null, 1L }, { "open", 2, 1L }, { "open", 7, 1L },
+				{ "open", 10, 1L }, { "shipped", 1, 1L }, { "shipped", 3, 1L } };
+		for (Object[] row : expected) {
+			Assert.assertTrue(resultSet.next());
+			Assert.assertEquals(row[0], resultSet.getString(1));
+			Assert.assertEquals(row[1], resultSet.getObject(2));
+			Assert.assertEquals(row[2], resultSet.getObject(3));
+		}
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testOrderByAggregate() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT status, COUNT(*) FROM orders "
+				+ "WHERE amount > ? GROUP BY status ORDER BY COUNT(*) DESC, status LIMIT 2");
+		statement.setDouble(1, 1.0);
+
+		ResultSet resultSet = statement.executeQuery();
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("open", resultSet.getString(1));
+		Assert.assertEquals(2, resultSet.getInt(2));
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("shipped", resultSet.getString(1));
+		Assert.assertEquals(2, resultSet.getInt(2));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test(expected = SQLException.class)
+	public void testColumnNotGrouped() throws SQLException {
+		connection.createStatement().executeQuery("SELECT customer, COUNT(*) FROM orders");
+	}
+}
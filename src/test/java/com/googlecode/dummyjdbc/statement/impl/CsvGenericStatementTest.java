@@ -7,12 +7,14 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Properties;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.googlecode.dummyjdbc.DummyJdbcDriver;
+import com.googlecode.dummyjdbc.resultset.impl.StreamingResultSet;
 
 public final class CsvGenericStatementTest {
 
@@ -51,6 +53,60 @@ public final class CsvGenericStatementTest {
 		Assert.assertEquals("DE", resultSet.getString(3));
 	}
 
+	@Test
+	public void testFastParser() throws SQLException {
+		Properties info = new Properties();
+		info.setProperty("parser", "fast");
+		DummyJdbcDriver.invalidateTableResource("test_table");
+		ResultSet fastResultSet = DriverManager.getConnection("any", info).createStatement()
+				.executeQuery("SELECT * FROM test_table");
+
+		Assert.assertTrue(fastResultSet.next());
+		Assert.assertEquals(1, fastResultSet.getInt("id"));
+		Assert.assertEquals("Germany", fastResultSet.getString(2));
+		Assert.assertTrue(fastResultSet.next());
+		Assert.assertTrue(fastResultSet.next());
+		Assert.assertEquals("FR", fastResultSet.getString("country_iso"));
+		Assert.assertFalse(fastResultSet.next());
+	}
+
+	@Test
+	public void testStreaming() throws SQLException {
+		DummyJdbcDriver.invalidateTableResource("test_table");
+		Statement statement = DriverManager.getConnection("any").createStatement();
+		statement.setFetchSize(2);
+		ResultSet streamingResultSet = statement.executeQuery("SELECT * FROM test_table");
+
+		Assert.assertTrue(streamingResultSet instanceof StreamingResultSet);
+		Assert.assertEquals(2, streamingResultSet.getFetchSize());
+		Assert.assertTrue(streamingResultSet.next());
+		Assert.assertEquals(1, streamingResultSet.getInt("id"));
+		Assert.assertTrue(streamingResultSet.next());
+		Assert.assertTrue(streamingResultSet.next());
+		Assert.assertEquals("FR", streamingResultSet.getString("country_iso"));
+		Assert.assertFalse(streamingResultSet.next());
+		streamingResultSet.close();
+		Assert.assertTrue(streamingResultSet.isClosed());
+	}
+
+	@Test(expected = SQLException.class)
+	public void testUnknownParser() throws SQLException {
+		Properties info = new Properties();
+		info.setProperty("parser", "unknown");
+		DriverManager.getConnection("any", info);
+	}
+
+	@Test
+	public void testFindColumn() throws SQLException {
+		Assert.assertEquals(1, resultSet.findColumn("id"));
+		Assert.assertEquals(3, resultSet.findColumn("COUNTRY_ISO"));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testFindInvalidColumn() throws SQLException {
+		resultSet.findColumn("undefined");
+	}
+
 	@Test(expected = SQLException.class)
 	public void testGetInvalidColumnName() throws SQLException {
 
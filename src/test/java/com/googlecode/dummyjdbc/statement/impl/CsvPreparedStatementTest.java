@@ -7,6 +7,9 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.Collections;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -69,4 +72,42 @@ public final class CsvPreparedStatementTest {
 
 		Assert.fail("Expected exception not thrown");
 	}
+
+	@Test
+	public void testExecuteTwice() throws SQLException {
+		PreparedStatement statement = DriverManager.getConnection("any").prepareStatement(
+				"SELECT country_iso FROM test_table WHERE id = 2");
+
+		for (int i = 0; i < 2; i++) {
+			ResultSet result = statement.executeQuery();
+			Assert.assertTrue(result.next());
+			Assert.assertEquals("ES", result.getString(1));
+			Assert.assertFalse(result.next());
+		}
+	}
+
+	@Test(expected = SQLSyntaxErrorException.class)
+	public void testInvalidStatementFailsOnPrepare() throws SQLException {
+		DriverManager.getConnection("any").prepareStatement("SELECT * FROM test_table WHERE");
+	}
+
+	@Test
+	public void testConstructedStatementIsParsedOnFirstUse() throws SQLException, URISyntaxException {
+		Map<String, File> tableResources = Collections.singletonMap("test_table",
+				new File(CsvGenericStatementTest.class.getResource("test_table.csv").toURI()));
+		CsvPreparedStatement statement = new CsvPreparedStatement(tableResources, "SELECT * FROM test_table WHERE");
+		try {
+			statement.executeQuery();
+			Assert.fail("Executed an invalid statement");
+		} catch (SQLSyntaxErrorException e) {
+			// expected
+		}
+
+		statement = new CsvPreparedStatement(tableResources, "SELECT * FROM test_table WHERE id = ?");
+		statement.setInt(1, 1);
+		ResultSet result = statement.executeQuery();
+		Assert.assertTrue(result.next());
+		Assert.assertEquals(1, result.getInt("id"));
+		Assert.assertFalse(result.next());
+	}
 }
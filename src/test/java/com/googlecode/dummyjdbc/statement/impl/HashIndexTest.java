@@ -0,0 +1,81 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class HashIndexTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("indexed_orders",
+				new File(HashIndexTest.class.getResource("indexed_orders.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testLookups() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4), selectIds("id = 4"));
+		Assert.assertEquals(Arrays.asList(2), selectIds("2 = id"));
+		Assert.assertEquals(new ArrayList<Integer>(), selectIds("id = 7"));
+		Assert.assertEquals(Arrays.asList(1, 4), selectIds("customer = 'alice'"));
+		Assert.assertEquals(Arrays.asList(1, 5), selectIds("amount = 10.5"));
+		Assert.assertEquals(Arrays.asList(2), selectIds("created = '2021-02-10 12:30:00'"));
+		Assert.assertEquals(new ArrayList<Integer>(), selectIds("id = NULL"));
+	}
+
+	@Test
+	public void testLookupsCombinedWithOtherConditions() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4), selectIds("customer = 'alice' AND amount > 100"));
+		Assert.assertEquals(Arrays.asList(2, 3, 6), selectIds("id = 3 OR customer = 'bob'"));
+		Assert.assertEquals(Arrays.asList(2, 3, 6), selectIds("customer IN ('carol', 'bob')"));
+		Assert.assertEquals(Arrays.asList(1, 3), selectIds("id IN (1, 3)"));
+		Assert.assertEquals(Arrays.asList(1, 3, 6), selectIds("id = 1 OR status = 'open'"));
+		Assert.assertEquals(Arrays.asList(2, 3, 5, 6), selectIds("NOT customer = 'alice'"));
+	}
+
+	@Test
+	public void testLookupWithParameters() throws SQLException {
+		PreparedStatement statement = connection
+				.prepareStatement("SELECT id FROM indexed_orders WHERE id = ? OR created = ?");
+
+		statement.setInt(1, 6);
+		statement.setTimestamp(2, Timestamp.valueOf("2021-03-15 17:45:00"));
+		Assert.assertEquals(Arrays.asList(5, 6), ids(statement.executeQuery()));
+		statement.setString(1, "1");
+		statement.setNull(2, java.sql.Types.TIMESTAMP);
+		Assert.assertEquals(Arrays.asList(1), ids(statement.executeQuery()));
+	}
+
+	private List<Integer> selectIds(String condition) throws SQLException {
+		Statement statement = connection.createStatement();
+		return ids(statement.executeQuery("SELECT id FROM indexed_orders WHERE " + condition));
+	}
+
+	private static List<Integer> ids(ResultSet resultSet) throws SQLException {
+		List<Integer> ids = new ArrayList<>();
+		while (resultSet.next()) {
+			ids.add(resultSet.getInt("id"));
+		}
+		return ids;
+	}
+}
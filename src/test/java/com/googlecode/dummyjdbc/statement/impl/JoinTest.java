@@ -0,0 +1,163 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class JoinTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(JoinTest.class.getResource("orders.csv").toURI()));
+		DummyJdbcDriver.addTableResource("customers", new File(JoinTest.class.getResource("customers.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testInnerJoin() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT o.id, c.city FROM orders o JOIN customers c ON o.customer = c.name");
+
+		Assert.assertEquals(2, resultSet.getMetaData().getColumnCount());
+		Assert.assertEquals(Arrays.asList("1 Berlin", "2 Hamburg", "4 Berlin", "6 Hamburg"), rows(resultSet));
+	}
+
+	@Test
+	public void testLeftJoin() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT orders.id, city, rank FROM orders LEFT JOIN customers ON customer = name");
+
+		Assert.assertEquals(Arrays.asList("1 Berlin 1", "2 Hamburg 2", "3 null null", "4 Berlin 1", "5 null null",
+				"6 Hamburg 2"), rows(resultSet));
+	}
+
+	@Test
+	public void testSmallerLeftTable() throws SQLException {
+		// The customers are put into the hash table, the result is still in the order of the customers
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT c.name, o.id FROM customers c LEFT OUTER JOIN orders o ON c.name = o.customer");
+
+		Assert.assertEquals(Arrays.asList("alice 1", "alice 4", "bob 2", "bob 6", "erin null"), rows(resultSet));
+	}
+
+	@Test
+	public void testQualifiedStar() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT c.* FROM orders o INNER JOIN customers c ON o.customer = c.name WHERE o.id = 2");
+
+		Assert.assertEquals(3, resultSet.getMetaData().getColumnCount());
+		Assert.assertEquals("NAME", resultSet.getMetaData().getColumnName(1));
+		Assert.assertEquals(Arrays.asList("bob Hamburg 2"), rows(resultSet));
+
+		resultSet = connection.createStatement().executeQuery(
+				"SELECT * FROM orders o JOIN customers c ON o.customer = c.name WHERE o.id = 2");
+		Assert.assertEquals(9, resultSet.getMetaData().getColumnCount());
+	}
+
+	@Test
+	public void testMultipleKeyColumns() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT o.id FROM orders o JOIN customers c ON o.customer = c.name AND c.rank = o.id");
+
+		Assert.assertEquals(Arrays.asList("1", "2"), rows(resultSet));
+	}
+
+	@Test
+	public void testWhereAndOrderBy() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT o.id FROM orders o "
+				+ "JOIN customers c ON o.customer = c.name WHERE c.city = ? ORDER BY o.amount DESC");
+		statement.setString(1, "Berlin");
+
+		Assert.assertEquals(Arrays.asList("4", "1"), rows(statement.executeQuery()));
+	}
+
+	@Test
+	public void testAggregate() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT c.city, COUNT(*), SUM(o.amount) "
+				+ "FROM orders o JOIN customers c ON o.customer = c.name GROUP BY c.city ORDER BY c.city DESC");
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("Hamburg", resultSet.getString(1));
+		Assert.assertEquals(2, resultSet.getInt(2));
+		Assert.assertEquals(100.98, resultSet.getDouble(3), 0.0001);
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("Berlin", resultSet.getString(1));
+		Assert.assertEquals(260.5, resultSet.getDouble(3), 0.0001);
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testOtherConditionsOfOnClause() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT o.id, c.name FROM orders o JOIN customers c ON o.customer = c.name AND c.rank > 1");
+		Assert.assertEquals(Arrays.asList("2 bob", "6 bob"), rows(resultSet));
+
+		// Rows without a pair passing the conditions are joined with nulls
+		resultSet = connection.createStatement().executeQuery(
+				"SELECT o.id, c.name FROM orders o LEFT JOIN customers c ON o.customer = c.name AND c.rank > 1");
+		Assert.assertEquals(Arrays.asList("1 null", "2 bob", "3 null", "4 null", "5 null", "6 bob"),
+				rows(resultSet));
+		resultSet = connection.createStatement().executeQuery(
+				"SELECT c.name, o.id FROM customers c LEFT JOIN orders o ON c.name = o.customer AND o.amount > 50");
+		Assert.assertEquals(Arrays.asList("alice 4", "bob 2", "erin null"), rows(resultSet));
+	}
+
+	@Test
+	public void testParameterInOnClause() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"SELECT o.id FROM orders o JOIN customers c ON o.customer = c.name AND c.rank = ? ORDER BY o.id");
+		statement.setInt(1, 1);
+		Assert.assertEquals(Arrays.asList("1", "4"), rows(statement.executeQuery()));
+		statement.setInt(1, 2);
+		Assert.assertEquals(Arrays.asList("2", "6"), rows(statement.executeQuery()));
+	}
+
+	@Test
+	public void testUnsupportedJoinReturnsRowsOfFirstTable() throws SQLException {
+		for (String sql : Arrays.asList("SELECT * FROM orders o JOIN customers c ON o.amount > c.rank",
+				"SELECT * FROM orders o RIGHT JOIN customers c ON o.customer = c.name",
+				"SELECT * FROM orders o FULL OUTER JOIN customers c ON o.customer = c.name",
+				"SELECT * FROM orders o CROSS JOIN customers c", "SELECT * FROM orders o, customers c",
+				"SELECT * FROM orders JOIN customers USING (name)")) {
+			ResultSet resultSet = connection.createStatement().executeQuery(sql);
+
+			Assert.assertEquals(sql, 6, resultSet.getMetaData().getColumnCount());
+			Assert.assertEquals(sql, 6, rows(resultSet).size());
+		}
+	}
+
+	@Test(expected = SQLException.class)
+	public void testConditionOnOneTable() throws SQLException {
+		connection.createStatement().executeQuery("SELECT * FROM orders o JOIN customers c ON o.id = o.quantity");
+	}
+
+	private static List<String> rows(ResultSet resultSet) throws SQLException {
+		List<String> rows = new ArrayList<>();
+		int columnCount = resultSet.getMetaData().getColumnCount();
+		while (resultSet.next()) {
+			StringBuilder row = new StringBuilder();
+			for (int column = 1; column <= columnCount; column++) {
+				row.append(column > 1 ? " " : "").append(resultSet.getString(column));
+			}
+			rows.add(row.toString());
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,264 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class ModificationTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("accounts",
+				new File(ModificationTest.class.getResource("accounts.csv").toURI()));
+		DummyJdbcDriver.addTableResource("customers",
+				new File(ModificationTest.class.getResource("customers.csv").toURI()));
+		DummyJdbcDriver.invalidateTableResource("accounts");
+		connection = DriverManager.getConnection("any");
+	}
+
+	@After
+	public void tearDown() {
+		DummyJdbcDriver.invalidateTableResource("accounts");
+	}
+
+	@Test
+	public void testInsert() throws SQLException {
+		Statement statement = connection.createStatement();
+		Assert.assertEquals(2, statement.executeUpdate(
+				"INSERT INTO accounts VALUES (4, 'dave', 12.5, NULL), (5, 'erin', 1 + 2, NULL)"));
+
+		ResultSet resultSet = statement.executeQuery("SELECT owner, balance, opened FROM accounts WHERE id >= 4");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("dave", resultSet.getString(1));
+		Assert.assertEquals(12.5, resultSet.getDouble(2), 0);
+		Assert.assertNull(resultSet.getTimestamp(3));
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("erin", resultSet.getString(1));
+		Assert.assertEquals(3.0, resultSet.getDouble(2), 0);
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testInsertColumnsWithParameters() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO accounts (OWNER, id, opened) VALUES (?, ?, ?)");
+		Timestamp opened = Timestamp.valueOf("2022-05-01 12:00:00");
+		for (int id = 10; id < 40; id++) {
+			statement.setString(1, "owner" + id);
+			statement.setInt(2, id);
+			statement.setTimestamp(3, opened);
+			Assert.assertEquals(1, statement.executeUpdate());
+		}
+
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT COUNT(*), MIN(id), MAX(id), COUNT(balance) FROM accounts");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(33, resultSet.getInt(1));
+		Assert.assertEquals(1, resultSet.getInt(2));
+		Assert.assertEquals(39, resultSet.getInt(3));
+		Assert.assertEquals(3, resultSet.getInt(4));
+
+		resultSet = connection.createStatement().executeQuery("SELECT owner, opened FROM accounts WHERE id = 25");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("owner25", resultSet.getString(1));
+		Assert.assertEquals(opened, resultSet.getTimestamp(2));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testInsertSelect() throws SQLException {
+		int count = connection.createStatement().executeUpdate(
+				"INSERT INTO accounts (id, owner) SELECT rank, name FROM customers WHERE rank > 1");
+		Assert.assertEquals(2, count);
+
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT id, owner FROM accounts WHERE balance IS NULL ORDER BY id");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(2, resultSet.getInt(1));
+		Assert.assertEquals("bob", resultSet.getString(2));
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(3, resultSet.getInt(1));
+		Assert.assertEquals("erin", resultSet.getString(2));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testUpdate() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"UPDATE accounts SET balance = balance * 2 + ?, owner = owner || '!' WHERE balance > ?");
+		statement.setDouble(1, 1);
+		statement.setInt(2, 10);
+		Assert.assertEquals(2, statement.executeUpdate());
+
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT owner, balance FROM accounts");
+		Object[][] expected = { { "alice!", 201.0 }, { "bob!", 102.0 }, { "carol", 0.0 } };
+		for (Object[] row : expected) {
+			Assert.assertTrue(resultSet.next());
+			Assert.assertEquals(row[0], resultSet.getString(1));
+			Assert.assertEquals((Double) row[1], resultSet.getDouble(2), 0.0001);
+		}
+		Assert.assertFalse(resultSet.next());
+
+		Assert.assertEquals(0, connection.createStatement().executeUpdate(
+				"UPDATE accounts SET balance = 0 WHERE id = 99"));
+	}
+
+	@Test
+	public void testDelete() throws SQLException {
+		Statement statement = connection.createStatement();
+		Assert.assertFalse(statement.execute("DELETE FROM accounts WHERE owner <> 'bob'"));
+		Assert.assertEquals(2, statement.getUpdateCount());
+		Assert.assertNull(statement.getResultSet());
+
+		Assert.assertTrue(statement.execute("SELECT id FROM accounts"));
+		ResultSet resultSet = statement.getResultSet();
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(2, resultSet.getInt(1));
+		Assert.assertFalse(resultSet.next());
+		Assert.assertEquals(-1, statement.getUpdateCount());
+
+		Assert.assertEquals(1, statement.executeUpdate("DELETE FROM accounts"));
+		Assert.assertFalse(statement.executeQuery("SELECT * FROM accounts").next());
+	}
+
+	@Test
+	public void testInvalidateDiscardsModifications() throws SQLException {
+		connection.createStatement().executeUpdate("DELETE FROM accounts");
+		DummyJdbcDriver.invalidateTableResource("accounts");
+
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM accounts");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(3, resultSet.getInt(1));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testTypeMismatch() throws SQLException {
+		connection.createStatement().executeUpdate("INSERT INTO accounts (id) VALUES ('four')");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testUnknownColumn() throws SQLException {
+		connection.createStatement().executeUpdate("UPDATE accounts SET name = 'x'");
+	}
+
+	@Test
+	public void testUnsupportedInsertSelect() throws SQLException {
+		String[] statements = { "INSERT INTO accounts (id, owner) SELECT rank, 'x' FROM customers",
+				"INSERT INTO accounts (id) SELECT rank FROM customers WHERE lower(name) = 'bob'",
+				"INSERT INTO accounts (id) SELECT 4",
+				"INSERT INTO accounts (id) SELECT rank FROM customers EXCEPT SELECT id FROM accounts" };
+		for (String sql : statements) {
+			try {
+				connection.createStatement().executeUpdate(sql);
+				Assert.fail("Expected SQLFeatureNotSupportedException: " + sql);
+			} catch (SQLFeatureNotSupportedException e) {
+				Assert.assertTrue(e.getMessage().contains("INSERT ... SELECT"));
+			}
+		}
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM accounts");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(3, resultSet.getInt(1));
+	}
+
+	@Test
+	public void testInsertBatch() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO accounts (id, owner, balance) VALUES (?, 'batch', ?)");
+		for (int id = 100; id < 400; id++) {
+			statement.setInt(1, id);
+			if (id % 2 == 0) {
+				statement.setDouble(2, id / 4.0);
+			} else {
+				statement.setNull(2, Types.DOUBLE);
+			}
+			statement.addBatch();
+		}
+		int[] counts = statement.executeBatch();
+		Assert.assertEquals(300, counts.length);
+		for (int count : counts) {
+			Assert.assertEquals(1, count);
+		}
+		Assert.assertEquals(0, statement.executeBatch().length);
+
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT COUNT(*), COUNT(balance), SUM(balance) FROM accounts WHERE owner = 'batch'");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(300, resultSet.getInt(1));
+		Assert.assertEquals(150, resultSet.getInt(2));
+		double sum = 0;
+		for (int id = 100; id < 400; id += 2) {
+			sum += id / 4.0;
+		}
+		Assert.assertEquals(sum, resultSet.getDouble(3), 0.0001);
+	}
+
+	@Test
+	public void testUpdateBatch() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("UPDATE accounts SET balance = ? WHERE id >= ?");
+		statement.setDouble(1, 1.5);
+		statement.setInt(2, 2);
+		statement.addBatch();
+		statement.setDouble(1, 7);
+		statement.setInt(2, 3);
+		statement.addBatch();
+		statement.setDouble(1, 0);
+		statement.setInt(2, 99);
+		statement.addBatch();
+		Assert.assertArrayEquals(new int[] { 2, 1, 0 }, statement.executeBatch());
+
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT balance FROM accounts");
+		for (double balance : new double[] { 100.0, 1.5, 7.0 }) {
+			Assert.assertTrue(resultSet.next());
+			Assert.assertEquals(balance, resultSet.getDouble(1), 0);
+		}
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testFailedBatchHasNoEffect() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("INSERT INTO accounts (id, owner) VALUES (?, ?)");
+		statement.setInt(1, 4);
+		statement.setString(2, "dave");
+		statement.addBatch();
+		statement.setString(1, "five");
+		statement.addBatch();
+		try {
+			statement.executeBatch();
+			Assert.fail("The batch contains a value which does not match the column type");
+		} catch (BatchUpdateException e) {
+			Assert.assertEquals(0, e.getUpdateCounts().length);
+		}
+
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM accounts");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(3, resultSet.getInt(1));
+	}
+
+	@Test(expected = BatchUpdateException.class)
+	public void testQueryInBatch() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT * FROM accounts WHERE id = ?");
+		statement.setInt(1, 1);
+		statement.addBatch();
+		statement.executeBatch();
+	}
+}
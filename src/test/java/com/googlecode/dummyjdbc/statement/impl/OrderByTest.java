@@ -0,0 +1,111 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class OrderByTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(OrderByTest.class.getResource("orders.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testMultipleColumns() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 1, 2, 6, 3, 5), selectIds("SELECT * FROM orders ORDER BY customer, "
+				+ "amount DESC"));
+		Assert.assertEquals(Arrays.asList(4, 2, 1, 5, 6, 3), selectIds("SELECT * FROM orders ORDER BY quantity"));
+		Assert.assertEquals(Arrays.asList(5, 3, 6, 2, 1, 4), selectIds("SELECT * FROM orders ORDER BY customer DESC, "
+				+ "created ASC"));
+	}
+
+	@Test
+	public void testTopN() throws SQLException {
+		String[] orders = { "customer, amount DESC", "quantity", "quantity DESC", "created DESC", "status, id DESC" };
+		for (String order : orders) {
+			List<Integer> all = selectIds("SELECT * FROM orders ORDER BY " + order);
+			for (int offset = 0; offset <= 6; offset++) {
+				for (int limit = 0; limit <= 6; limit++) {
+					String sql = "SELECT * FROM orders ORDER BY " + order + " LIMIT " + limit + " OFFSET " + offset;
+					List<Integer> expected = all.subList(Math.min(offset, 6), Math.min(offset + limit, 6));
+					Assert.assertEquals(sql, expected, selectIds(sql));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFetchFirst() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 2), selectIds("SELECT * FROM orders ORDER BY amount DESC "
+				+ "FETCH FIRST 2 ROWS ONLY"));
+		Assert.assertEquals(Arrays.asList(5), selectIds("SELECT * FROM orders ORDER BY amount DESC "
+				+ "OFFSET 2 ROWS FETCH NEXT ROW ONLY"));
+	}
+
+	@Test
+	public void testMaxRows() throws SQLException {
+		Statement statement = connection.createStatement();
+		statement.setMaxRows(2);
+		Assert.assertEquals(2, statement.getMaxRows());
+		Assert.assertEquals(Arrays.asList(6, 3), ids(statement.executeQuery("SELECT * FROM orders ORDER BY amount")));
+		Assert.assertEquals(Arrays.asList(6), ids(statement.executeQuery("SELECT * FROM orders ORDER BY amount "
+				+ "LIMIT 1")));
+
+		PreparedStatement prepared = connection.prepareStatement("SELECT id FROM orders WHERE status = ?");
+		prepared.setMaxRows(1);
+		prepared.setString(1, "open");
+		Assert.assertEquals(Arrays.asList(1), ids(prepared.executeQuery()));
+		prepared.setMaxRows(0);
+		Assert.assertEquals(Arrays.asList(1, 3, 6), ids(prepared.executeQuery()));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testNegativeMaxRows() throws SQLException {
+		connection.createStatement().setMaxRows(-1);
+	}
+
+	@Test
+	public void testStreamedLimit() throws SQLException {
+		DummyJdbcDriver.invalidateTableResource("orders");
+		Statement statement = connection.createStatement();
+		statement.setFetchSize(2);
+
+		Assert.assertEquals(Arrays.asList(3, 5), ids(statement
+				.executeQuery("SELECT id FROM orders WHERE quantity > 1 LIMIT 2 OFFSET 1")));
+		statement.setMaxRows(3);
+		Assert.assertEquals(Arrays.asList(1, 2, 3), ids(statement.executeQuery("SELECT id FROM orders")));
+		Assert.assertEquals(Arrays.asList(6), ids(statement.executeQuery("SELECT id FROM orders OFFSET 5")));
+	}
+
+	private List<Integer> selectIds(String sql) throws SQLException {
+		return ids(connection.createStatement().executeQuery(sql));
+	}
+
+	private static List<Integer> ids(ResultSet resultSet) throws SQLException {
+		List<Integer> ids = new ArrayList<>();
+		while (resultSet.next()) {
+			ids.add(resultSet.getInt("id"));
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,106 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class ParameterTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(ParameterTest.class.getResource("orders.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testPointLookup() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT * FROM orders WHERE id = ?");
+
+		statement.setInt(1, 3);
+		Assert.assertEquals(Arrays.asList(3), selectIds(statement));
+		statement.setLong(1, 5L);
+		Assert.assertEquals(Arrays.asList(5), selectIds(statement));
+	}
+
+	@Test
+	public void testTypedParameters() throws SQLException {
+		PreparedStatement statement = connection
+				.prepareStatement("SELECT id FROM orders WHERE customer = ? AND amount > ? OR created >= ?");
+
+		statement.setString(1, "bob");
+		statement.setBigDecimal(2, new BigDecimal("1.5"));
+		statement.setTimestamp(3, Timestamp.valueOf("2021-03-15 00:00:00"));
+		Assert.assertEquals(Arrays.asList(2, 5), selectIds(statement));
+	}
+
+	@Test
+	public void testInList() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT * FROM orders WHERE status IN (?, ?)");
+
+		statement.setObject(1, "cancelled");
+		statement.setObject(2, "shipped", Types.VARCHAR);
+		Assert.assertEquals(Arrays.asList(2, 4, 5), selectIds(statement));
+	}
+
+	@Test
+	public void testNullParameter() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT * FROM orders WHERE quantity = ?");
+
+		statement.setNull(1, Types.INTEGER);
+		Assert.assertEquals(new ArrayList<Integer>(), selectIds(statement));
+	}
+
+	@Test
+	public void testStreamedWithParameter() throws SQLException {
+		DummyJdbcDriver.invalidateTableResource("orders");
+		PreparedStatement statement = connection.prepareStatement("SELECT id FROM orders WHERE quantity > ?");
+		statement.setFetchSize(2);
+
+		statement.setInt(1, 2);
+		Assert.assertEquals(Arrays.asList(3, 5, 6), selectIds(statement));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testMissingParameter() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT * FROM orders WHERE id = ? OR id = ?");
+		statement.setInt(1, 1);
+		statement.clearParameters();
+		statement.setInt(2, 2);
+
+		statement.executeQuery();
+	}
+
+	@Test(expected = SQLException.class)
+	public void testIndexOutOfRange() throws SQLException {
+		connection.prepareStatement("SELECT * FROM orders WHERE id = ?").setInt(2, 1);
+	}
+
+	private static List<Integer> selectIds(PreparedStatement statement) throws SQLException {
+		ResultSet resultSet = statement.executeQuery();
+		List<Integer> ids = new ArrayList<>();
+		while (resultSet.next()) {
+			ids.add(resultSet.getInt("id"));
+		}
+		return ids;
+	}
+}
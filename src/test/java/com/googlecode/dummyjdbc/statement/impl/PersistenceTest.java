@@ -0,0 +1,199 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+import com.googlecode.dummyjdbc.table.PersistenceOptions;
+import com.googlecode.dummyjdbc.table.PersistenceOptions.SyncPolicy;
+
+public final class PersistenceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File csvFile;
+	private File logFile;
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException, IOException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		csvFile = new File(folder.getRoot(), "ledger.csv");
+		Files.copy(new File(PersistenceTest.class.getResource("accounts.csv").toURI()).toPath(), csvFile.toPath());
+		logFile = new File(csvFile.getPath() + ".wal");
+		DummyJdbcDriver.addTableResource("ledger", csvFile);
+		DummyJdbcDriver.setPersistence(new PersistenceOptions(SyncPolicy.ALWAYS, 1000, 0));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@After
+	public void tearDown() {
+		DummyJdbcDriver.setPersistence(null);
+		DummyJdbcDriver.invalidateTableResource("ledger");
+	}
+
+	@Test
+	public void testIsolationLevel() throws SQLException {
+		Assert.assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+		DummyJdbcDriver.setPersistence(null);
+		Assert.assertEquals(Connection.TRANSACTION_REPEATABLE_READ, connection.getTransactionIsolation());
+	}
+
+	@Test
+	public void testRecoverAfterRestart() throws SQLException, IOException {
+		List<String> content = readCsv();
+		modify();
+		Assert.assertTrue(logFile.length() > 0);
+		Assert.assertEquals(content, readCsv());
+
+		restart();
+		assertModified();
+	}
+
+	@Test
+	public void testIncompleteFrameIsCutOff() throws SQLException, IOException {
+		modify();
+		long length = logFile.length();
+		FileOutputStream out = new FileOutputStream(logFile, true);
+		try {
+			out.write(new byte[] { 0, 0, 0, 42, 1, 2 });
+		} finally {
+			out.close();
+		}
+
+		restart();
+		assertModified();
+		Assert.assertEquals(length, logFile.length());
+	}
+
+	@Test
+	public void testCompaction() throws SQLException, IOException, InterruptedException {
+		DummyJdbcDriver.setPersistence(new PersistenceOptions(SyncPolicy.INTERVAL, 10, 1));
+		modify();
+
+		// The log is compacted in the background, afterwards it contains only its header
+		long timeout = System.currentTimeMillis() + 10000;
+		while (logFile.length() > 20 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(20, logFile.length());
+		Assert.assertTrue(readCsv().contains("4,dave,12.5,"));
+		assertModified();
+
+		restart();
+		assertModified();
+	}
+
+	@Test
+	public void testFailedCommitIsRemovedFromTheLogs() throws SQLException, IOException, URISyntaxException {
+		File otherFile = new File(folder.getRoot(), "other.csv");
+		Files.copy(csvFile.toPath(), otherFile.toPath());
+		DummyJdbcDriver.addTableResource("other", otherFile);
+		try {
+			connection.setAutoCommit(false);
+			connection.createStatement().executeUpdate("DELETE FROM ledger WHERE id = 1");
+			connection.createStatement().executeUpdate("DELETE FROM other WHERE id = 1");
+			// The log of the second table cannot be opened
+			Assert.assertTrue(new File(otherFile.getPath() + ".wal").mkdir());
+			try {
+				connection.commit();
+				Assert.fail("Expected SQLException");
+			} catch (SQLException e) {
+				Assert.assertTrue(e.getCause() instanceof IOException);
+			}
+			Assert.assertEquals(20, logFile.length());
+
+			connection.setAutoCommit(true);
+			modify();
+			restart();
+			assertModified();
+		} finally {
+			DummyJdbcDriver.invalidateTableResource("other");
+		}
+	}
+
+	@Test
+	public void testCompactionKeepsUntouchedRows() throws SQLException, IOException, InterruptedException {
+		String header = "id|integer, owner, balance|double\r\n";
+		String first = "1,  alice , 20.00\r\n";
+		String second = "2,\"bob, jr.\",0.10\r\n";
+		String last = "4, dave, 007";
+		Files.write(csvFile.toPath(), (header + first + second + "3, carol, 5\r\n" + last).getBytes("UTF-8"));
+		DummyJdbcDriver.invalidateTableResource("ledger");
+		DummyJdbcDriver.setPersistence(new PersistenceOptions(SyncPolicy.INTERVAL, 10, 1));
+		connection.createStatement().executeUpdate("UPDATE ledger SET balance = 6 WHERE id = 3");
+		connection.createStatement().executeUpdate("INSERT INTO ledger (id, owner) VALUES (5, 'erin')");
+
+		long timeout = System.currentTimeMillis() + 10000;
+		while (logFile.length() > 20 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(20, logFile.length());
+		String content = new String(Files.readAllBytes(csvFile.toPath()), "UTF-8");
+		Assert.assertEquals(header + first + second + "3,carol,6\n" + last + "\n5,erin,\n", content);
+	}
+
+	@Test
+	public void testLogOfEditedFileIsDiscarded() throws SQLException, IOException {
+		modify();
+		restart();
+		Files.write(csvFile.toPath(), "id|integer, owner\n7, zoe\n".getBytes(Charset.forName("UTF-8")));
+		DummyJdbcDriver.invalidateTableResource("ledger");
+
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT id, owner FROM ledger");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(7, resultSet.getInt(1));
+		Assert.assertFalse(resultSet.next());
+		Assert.assertFalse(logFile.exists());
+	}
+
+	private void modify() throws SQLException {
+		connection.createStatement().executeUpdate("INSERT INTO ledger (id, owner, balance) VALUES (4, 'dave', 12.5)");
+		connection.createStatement().executeUpdate("UPDATE ledger SET balance = balance + 1 WHERE id = 2");
+		connection.createStatement().executeUpdate("DELETE FROM ledger WHERE id = 1");
+	}
+
+	private void assertModified() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT id, owner, balance FROM ledger");
+		Object[][] expected = { { 2, "bob", 51.5 }, { 3, "carol", 0.0 }, { 4, "dave", 12.5 } };
+		for (Object[] row : expected) {
+			Assert.assertTrue(resultSet.next());
+			Assert.assertEquals(row[0], resultSet.getInt(1));
+			Assert.assertEquals(row[1], resultSet.getString(2));
+			Assert.assertEquals((Double) row[2], resultSet.getDouble(3), 0);
+		}
+		Assert.assertFalse(resultSet.next());
+	}
+
+	/**
+	 * Closes the logs and discards the tables in memory, like a restart of the JVM.
+	 */
+	private void restart() {
+		PersistenceOptions options = new PersistenceOptions(SyncPolicy.ALWAYS, 1000, 0);
+		DummyJdbcDriver.setPersistence(null);
+		DummyJdbcDriver.invalidateTableResource("ledger");
+		DummyJdbcDriver.setPersistence(options);
+	}
+
+	private List<String> readCsv() throws IOException {
+		return Files.readAllLines(csvFile.toPath(), Charset.forName("UTF-8"));
+	}
+}
@@ -0,0 +1,83 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class ProjectionTest {
+
+	private Statement statement;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(ProjectionTest.class.getResource("orders.csv").toURI()));
+		statement = DriverManager.getConnection("any").createStatement();
+	}
+
+	@Test
+	public void testSelectedColumns() throws SQLException {
+		ResultSet resultSet = statement.executeQuery("SELECT customer, id FROM orders WHERE id = 2");
+
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		Assert.assertEquals(2, metaData.getColumnCount());
+		Assert.assertEquals("CUSTOMER", metaData.getColumnName(1));
+		Assert.assertEquals(Types.INTEGER, metaData.getColumnType(2));
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("bob", resultSet.getString(1));
+		Assert.assertEquals(2, resultSet.getInt(2));
+		Assert.assertEquals(2, resultSet.getInt("id"));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testAlias() throws SQLException {
+		ResultSet resultSet = statement.executeQuery("SELECT o.amount AS total FROM orders o WHERE id = 1");
+
+		Assert.assertEquals("TOTAL", resultSet.getMetaData().getColumnLabel(1));
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(10.5, resultSet.getDouble("total"), 0.0);
+	}
+
+	@Test
+	public void testAllColumns() throws SQLException {
+		ResultSet resultSet = statement.executeQuery("SELECT status, * FROM orders");
+
+		Assert.assertEquals(7, resultSet.getMetaData().getColumnCount());
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("open", resultSet.getString(1));
+		Assert.assertEquals(1, resultSet.getInt(2));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testUnknownColumn() throws SQLException {
+		statement.executeQuery("SELECT id, price FROM orders");
+	}
+
+	@Test
+	public void testStreamedProjection() throws SQLException {
+		DummyJdbcDriver.invalidateTableResource("orders");
+		statement.setFetchSize(2);
+		ResultSet resultSet = statement.executeQuery("SELECT amount, id FROM orders WHERE status = 'open'");
+
+		Assert.assertEquals(2, resultSet.getMetaData().getColumnCount());
+		StringBuilder ids = new StringBuilder();
+		while (resultSet.next()) {
+			ids.append(resultSet.getInt("id")).append(':').append(resultSet.getDouble(1)).append(' ');
+		}
+		Assert.assertEquals("1:10.5 3:5.0 6:0.99 ", ids.toString());
+	}
+}
@@ -0,0 +1,122 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class SortedIndexTest {
+
+	private Connection connection;
+	private File plainFile;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException, IOException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		// The same table without indexes, its results are computed by scanning and sorting
+		File indexedFile = new File(SortedIndexTest.class.getResource("events.csv").toURI());
+		Charset charset = Charset.forName("UTF-8");
+		List<String> lines = new ArrayList<>(Files.readAllLines(indexedFile.toPath(), charset));
+		lines.set(0, lines.get(0).replaceAll("\\|(pk|sorted)", ""));
+		plainFile = File.createTempFile("plain_events", ".csv");
+		Files.write(plainFile.toPath(), lines, charset);
+
+		DummyJdbcDriver.addTableResource("events", indexedFile);
+		DummyJdbcDriver.addTableResource("plain_events", plainFile);
+		connection = DriverManager.getConnection("any");
+	}
+
+	@After
+	public void tearDown() {
+		DummyJdbcDriver.invalidateTableResource("plain_events");
+		plainFile.delete();
+	}
+
+	@Test
+	public void testRangeScans() throws SQLException {
+		Assert.assertEquals(Arrays.asList(1, 3, 4, 6, 8, 9), selectIds("score > 2", ""));
+		Assert.assertEquals(Arrays.asList(2, 5, 10), selectIds("score <= 0", ""));
+		Assert.assertEquals(Arrays.asList(1, 3, 6, 8), selectIds("rank BETWEEN 2 AND 4 AND name > 'bravo'", ""));
+		Assert.assertEquals(Arrays.asList(2, 5, 9), selectIds("name = 'alpha'", ""));
+
+		String[] conditions = { "score < 2.5", "2.5 <= score", "score BETWEEN -1 AND 7.25", "rank > 2 AND rank < 6",
+				"rank >= 2 AND rank <= 2", "created < '2021-02-01 00:00:00'", "name >= 'charlie' OR id = 2",
+				"created BETWEEN '2021-01-05 10:00:00' AND '2021-02-10 12:30:00'", "score > 100", "rank < NULL" };
+		for (String condition : conditions) {
+			Assert.assertEquals(condition, selectIds(condition, "", "plain_events"), selectIds(condition, ""));
+		}
+	}
+
+	@Test
+	public void testOrderBy() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 9, 2, 8, 6, 3, 1, 7, 5, 10), selectIds(null, "ORDER BY rank, name DESC"));
+		Assert.assertEquals(Arrays.asList(7, 10, 2, 5, 1, 4, 9, 3, 8, 6), selectIds(null, "ORDER BY score"));
+		Assert.assertEquals(Arrays.asList(6, 3, 8, 9, 1, 4, 5, 2, 10, 7), ids(connection.createStatement()
+				.executeQuery("SELECT * FROM events ORDER BY 3 DESC")));
+
+		String[] orders = { "ORDER BY score", "ORDER BY score DESC", "ORDER BY name", "ORDER BY name DESC",
+				"ORDER BY created", "ORDER BY created DESC", "ORDER BY rank DESC", "ORDER BY rank DESC, id DESC" };
+		for (String order : orders) {
+			Assert.assertEquals(order, selectIds(null, order, "plain_events"), selectIds(null, order));
+			Assert.assertEquals(order, selectIds("id > 3", order, "plain_events"), selectIds("id > 3", order));
+			Assert.assertEquals(order, selectIds("id = 5 OR id = 8", order, "plain_events"),
+					selectIds("id = 5 OR id = 8", order));
+		}
+	}
+
+	@Test
+	public void testPagination() throws SQLException {
+		PreparedStatement statement = connection
+				.prepareStatement("SELECT id FROM events WHERE score IS NOT NULL ORDER BY created LIMIT ? OFFSET ?");
+		List<Integer> pages = new ArrayList<>();
+		for (int offset = 0; offset < 12; offset += 4) {
+			statement.setInt(1, 4);
+			statement.setInt(2, offset);
+			pages.addAll(ids(statement.executeQuery()));
+		}
+		Assert.assertEquals(selectIds("score IS NOT NULL", "ORDER BY created", "plain_events"), pages);
+
+		Assert.assertEquals(Arrays.asList(7, 10, 9), selectIds(null, "ORDER BY created DESC LIMIT 3, 3"));
+		Assert.assertEquals(Arrays.asList(1, 2), selectIds(null, "LIMIT 2"));
+		Assert.assertEquals(Arrays.asList(9, 10), selectIds(null, "OFFSET 8 ROWS"));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testNegativeLimit() throws SQLException {
+		connection.createStatement().executeQuery("SELECT * FROM events LIMIT -1");
+	}
+
+	private List<Integer> selectIds(String condition, String clauses) throws SQLException {
+		return selectIds(condition, clauses, "events");
+	}
+
+	private List<Integer> selectIds(String condition, String clauses, String table) throws SQLException {
+		String sql = "SELECT id FROM " + table + (condition == null ? "" : " WHERE " + condition) + " " + clauses;
+		return ids(connection.createStatement().executeQuery(sql));
+	}
+
+	private static List<Integer> ids(ResultSet resultSet) throws SQLException {
+		List<Integer> ids = new ArrayList<>();
+		while (resultSet.next()) {
+			ids.add(resultSet.getInt("id"));
+		}
+		return ids;
+	}
+}
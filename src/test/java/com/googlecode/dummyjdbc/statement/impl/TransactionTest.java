@@ -0,0 +1,215 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class TransactionTest {
+
+	private Connection first;
+	private Connection second;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("accounts",
+				new File(TransactionTest.class.getResource("accounts.csv").toURI()));
+		DummyJdbcDriver.addTableResource("customers",
+				new File(TransactionTest.class.getResource("customers.csv").toURI()));
+		tearDown();
+		first = DriverManager.getConnection("any");
+		second = DriverManager.getConnection("any");
+	}
+
+	@After
+	public void tearDown() {
+		DummyJdbcDriver.invalidateTableResource("accounts");
+		DummyJdbcDriver.invalidateTableResource("customers");
+	}
+
+	@Test
+	public void testAutoCommitByDefault() throws SQLException {
+		Assert.assertTrue(first.getAutoCommit());
+		Assert.assertEquals(Connection.TRANSACTION_REPEATABLE_READ, first.getTransactionIsolation());
+
+		first.createStatement().executeUpdate("DELETE FROM accounts WHERE id = 3");
+		first.rollback();
+		Assert.assertEquals(2, count(second, "accounts"));
+	}
+
+	@Test
+	public void testSnapshotRead() throws SQLException {
+		first.setAutoCommit(false);
+		Assert.assertEquals(150.5, balance(first), 0);
+
+		second.createStatement().executeUpdate("UPDATE accounts SET balance = balance + 10");
+		Assert.assertEquals(180.5, balance(second), 0);
+		Assert.assertEquals(150.5, balance(first), 0);
+
+		first.commit();
+		Assert.assertEquals(180.5, balance(first), 0);
+	}
+
+	@Test
+	public void testSnapshotOfTableReadAfterConcurrentCommit() throws SQLException {
+		first.setAutoCommit(false);
+		Assert.assertEquals(150.5, balance(first), 0);
+		int customers = count(second, "customers");
+
+		second.setAutoCommit(false);
+		Statement statement = second.createStatement();
+		statement.executeUpdate("UPDATE accounts SET balance = balance + 10");
+		statement.executeUpdate("DELETE FROM customers WHERE rank = 3");
+		second.commit();
+
+		// The first transaction reads the customers for the first time, but sees none of the concurrent commit
+		Assert.assertEquals(150.5, balance(first), 0);
+		Assert.assertEquals(customers, count(first, "customers"));
+
+		first.createStatement().executeUpdate("DELETE FROM customers WHERE rank = 1");
+		try {
+			first.commit();
+			Assert.fail("Expected SQLException");
+		} catch (SQLException e) {
+			Assert.assertEquals("40001", e.getSQLState());
+		}
+		Assert.assertEquals(180.5, balance(first), 0);
+		Assert.assertEquals(customers - 1, count(first, "customers"));
+	}
+
+	@Test
+	public void testRollback() throws SQLException {
+		first.setAutoCommit(false);
+		first.createStatement().executeUpdate("INSERT INTO accounts (id, owner) VALUES (4, 'dave')");
+		Assert.assertEquals(4, count(first, "accounts"));
+		Assert.assertEquals(3, count(second, "accounts"));
+
+		first.rollback();
+		Assert.assertEquals(3, count(first, "accounts"));
+		Assert.assertEquals(3, count(second, "accounts"));
+	}
+
+	@Test
+	public void testCommitPublishesAllTables() throws SQLException {
+		first.setAutoCommit(false);
+		Statement statement = first.createStatement();
+		statement.executeUpdate("DELETE FROM accounts WHERE id = 3");
+		statement.executeUpdate("DELETE FROM customers WHERE rank = 3");
+		int customers = count(second, "customers");
+		Assert.assertEquals(3, count(second, "accounts"));
+
+		first.setAutoCommit(true);
+		Assert.assertEquals(2, count(second, "accounts"));
+		Assert.assertEquals(customers - 1, count(second, "customers"));
+	}
+
+	@Test
+	public void testWriteConflict() throws SQLException {
+		first.setAutoCommit(false);
+		second.setAutoCommit(false);
+		first.createStatement().executeUpdate("UPDATE accounts SET balance = 1 WHERE id = 1");
+		second.createStatement().executeUpdate("UPDATE accounts SET balance = 2 WHERE id = 2");
+
+		first.commit();
+		try {
+			second.commit();
+			Assert.fail("Expected SQLException");
+		} catch (SQLException e) {
+			Assert.assertEquals("40001", e.getSQLState());
+		}
+		Assert.assertEquals(51.5, balance(second), 0);
+	}
+
+	@Test
+	public void testSavepointsNotSupported() throws SQLException {
+		first.setAutoCommit(false);
+		try {
+			first.setSavepoint();
+			Assert.fail("Expected SQLFeatureNotSupportedException");
+		} catch (SQLFeatureNotSupportedException e) {
+			// expected
+		}
+		try {
+			first.rollback(null);
+			Assert.fail("Expected SQLFeatureNotSupportedException");
+		} catch (SQLFeatureNotSupportedException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConcurrentTransfers() throws Exception {
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						Connection connection = DriverManager.getConnection("any");
+						connection.setAutoCommit(false);
+						int transfers = 0;
+						while (transfers < 5) {
+							Statement statement = connection.createStatement();
+							statement.executeUpdate("UPDATE accounts SET balance = balance - 1 WHERE id = 1");
+							Assert.assertEquals(149.5, balance(connection), 0);
+							statement.executeUpdate("UPDATE accounts SET balance = balance + 1 WHERE id = 2");
+							Assert.assertEquals(150.5, balance(connection), 0);
+							try {
+								connection.commit();
+								transfers++;
+							} catch (SQLException e) {
+								Assert.assertEquals("40001", e.getSQLState());
+							}
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+
+		ResultSet resultSet = first.createStatement().executeQuery("SELECT balance FROM accounts WHERE id <= 2");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(80.0, resultSet.getDouble(1), 0);
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(70.5, resultSet.getDouble(1), 0);
+	}
+
+	private static double balance(Connection connection) throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT SUM(balance) FROM accounts");
+		Assert.assertTrue(resultSet.next());
+		return resultSet.getDouble(1);
+	}
+
+	private static int count(Connection connection, String table) throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM " + table);
+		Assert.assertTrue(resultSet.next());
+		return resultSet.getInt(1);
+	}
+}
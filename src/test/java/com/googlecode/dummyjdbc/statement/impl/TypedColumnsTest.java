@@ -0,0 +1,104 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class TypedColumnsTest {
+
+	private ResultSet resultSet;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("typed_columns",
+				new File(TypedColumnsTest.class.getResource("typed_columns.csv").toURI()));
+		Connection connection = DriverManager.getConnection("any");
+		Statement statement = connection.createStatement();
+		resultSet = statement.executeQuery("SELECT * FROM typed_columns");
+	}
+
+	@Test
+	public void testTypedValues() throws SQLException {
+		Assert.assertTrue(resultSet.next());
+
+		Assert.assertEquals("Peter", resultSet.getString("name"));
+		Assert.assertEquals(17, resultSet.getInt("amount"));
+		Assert.assertEquals(19.95, resultSet.getDouble("price"), 0.0);
+		Assert.assertEquals(Integer.valueOf(17), resultSet.getObject(2));
+
+		Timestamp created = resultSet.getTimestamp("created");
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(created);
+		Assert.assertEquals(2012, calendar.get(Calendar.YEAR));
+		Assert.assertEquals(10, calendar.get(Calendar.HOUR_OF_DAY));
+	}
+
+	@Test
+	public void testEmptyTypedValuesAreNull() throws SQLException {
+		Assert.assertTrue(resultSet.next());
+		Assert.assertTrue(resultSet.next());
+
+		Assert.assertEquals(0, resultSet.getInt("amount"));
+		Assert.assertTrue(resultSet.wasNull());
+		Assert.assertNull(resultSet.getTimestamp("created"));
+		Assert.assertTrue(resultSet.wasNull());
+		Assert.assertEquals(20.0, resultSet.getDouble("price"), 0.0);
+		Assert.assertFalse(resultSet.wasNull());
+	}
+
+	@Test
+	public void testGetStringReturnsTextOfCsvFile() throws SQLException {
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("17", resultSet.getString("amount"));
+		Assert.assertEquals("19.95", resultSet.getString("price"));
+		Assert.assertEquals("2012-05-17 10:11:12", resultSet.getString("created"));
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("", resultSet.getString("amount"));
+		Assert.assertEquals("20.00", resultSet.getString("price"));
+		Assert.assertEquals("", resultSet.getString("created"));
+	}
+
+	@Test
+	public void testNumbersOfUntypedColumns() throws SQLException {
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(2.5, resultSet.getDouble("note"), 0.0);
+		Assert.assertFalse(resultSet.wasNull());
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(0.0, resultSet.getDouble("note"), 0.0);
+		Assert.assertTrue(resultSet.wasNull());
+		Assert.assertEquals(0, resultSet.getInt(6));
+		Assert.assertTrue(resultSet.wasNull());
+		try {
+			resultSet.getDouble("fallback");
+			Assert.fail("Expected SQLException");
+		} catch (SQLException e) {
+			Assert.assertTrue(e.getCause() instanceof NumberFormatException);
+		}
+	}
+
+	@Test
+	public void testUnparsableValuesFallBackToString() throws SQLException {
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals(1, resultSet.getInt("fallback"));
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("not a number", resultSet.getString("fallback"));
+		Assert.assertFalse(resultSet.next());
+	}
+}
@@ -0,0 +1,149 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class UnionTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(UnionTest.class.getResource("orders.csv").toURI()));
+		DummyJdbcDriver.addTableResource("customers", new File(UnionTest.class.getResource("customers.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testDistinct() throws SQLException {
+		// The first row of each distinct value is returned
+		Assert.assertEquals(Arrays.asList("open", "shipped", "cancelled"),
+				select("SELECT DISTINCT status FROM orders"));
+		Assert.assertEquals(Arrays.asList("alice cancelled", "alice open", "bob open", "bob shipped", "carol open",
+				"dave shipped"), select("SELECT DISTINCT customer, status FROM orders ORDER BY customer, status"));
+		Assert.assertEquals(Arrays.asList("alice", "bob"),
+				select("SELECT DISTINCT customer FROM orders WHERE amount > 5 LIMIT 2"));
+		Assert.assertEquals(Arrays.asList("2", "1", "10", "", "3", "7"),
+				select("SELECT DISTINCT quantity FROM orders"));
+	}
+
+	@Test
+	public void testUnion() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT customer FROM orders UNION SELECT name FROM customers");
+
+		Assert.assertEquals("CUSTOMER", resultSet.getMetaData().getColumnName(1));
+		Assert.assertEquals(Arrays.asList("alice", "bob", "carol", "dave", "erin"), rows(resultSet));
+		Assert.assertEquals(Arrays.asList("erin", "dave"), select("SELECT customer FROM orders UNION "
+				+ "SELECT name FROM customers ORDER BY customer DESC LIMIT 2"));
+	}
+
+	@Test
+	public void testUnionAll() throws SQLException {
+		Assert.assertEquals(Arrays.asList("alice", "bob", "erin", "alice", "carol", "bob"), select("SELECT name "
+				+ "FROM customers UNION ALL SELECT customer FROM orders WHERE status = 'open'"));
+
+		// UNION removes the duplicates of all SELECTs before it
+		Assert.assertEquals(Arrays.asList("alice", "bob", "erin", "carol", "dave"), select("SELECT name "
+				+ "FROM customers UNION ALL SELECT name FROM customers UNION SELECT customer FROM orders"));
+		Assert.assertEquals(Arrays.asList("alice", "bob", "erin", "alice", "bob", "erin"), select("SELECT name "
+				+ "FROM customers UNION SELECT name FROM customers UNION ALL SELECT name FROM customers"));
+	}
+
+	@Test
+	public void testColumnTypes() throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(
+				"SELECT quantity FROM orders UNION SELECT rank FROM customers");
+		Assert.assertEquals(Types.INTEGER, resultSet.getMetaData().getColumnType(1));
+		Assert.assertEquals(Arrays.asList("2", "1", "10", "", "3", "7"), rows(resultSet));
+
+		resultSet = connection.createStatement().executeQuery(
+				"SELECT amount FROM orders WHERE amount < 6 UNION SELECT rank FROM customers");
+		Assert.assertEquals(Types.DOUBLE, resultSet.getMetaData().getColumnType(1));
+		List<Object> values = new ArrayList<>();
+		while (resultSet.next()) {
+			values.add(resultSet.getObject(1));
+		}
+		Assert.assertEquals(Arrays.<Object> asList(5.0, 0.99, 1.0, 2.0, 3.0), values);
+	}
+
+	@Test
+	public void testParameters() throws SQLException {
+		PreparedStatement statement = connection.prepareStatement("SELECT customer FROM orders WHERE id = ? "
+				+ "UNION ALL SELECT name FROM customers WHERE rank = ?");
+		statement.setInt(1, 1);
+		statement.setInt(2, 3);
+
+		Assert.assertEquals(Arrays.asList("alice", "erin"), rows(statement.executeQuery()));
+	}
+
+	@Test
+	public void testIntersect() throws SQLException {
+		Assert.assertEquals(Arrays.asList(),
+				select("SELECT id FROM orders WHERE id = 1 INTERSECT SELECT id FROM orders WHERE id = 2"));
+		Assert.assertEquals(Arrays.asList("alice", "bob"),
+				select("SELECT customer FROM orders INTERSECT SELECT name FROM customers"));
+		// Each row of the second SELECT keeps one equal row of the first
+		Assert.assertEquals(Arrays.asList("alice", "bob", "carol"), select("SELECT customer FROM orders "
+				+ "INTERSECT ALL SELECT customer FROM orders WHERE status = 'open'"));
+	}
+
+	@Test
+	public void testExcept() throws SQLException {
+		Assert.assertEquals(Arrays.asList("1", "3", "4", "5", "6"),
+				select("SELECT id FROM orders EXCEPT SELECT id FROM orders WHERE id = 2"));
+		Assert.assertEquals(Arrays.asList("carol", "dave"),
+				select("SELECT customer FROM orders EXCEPT SELECT name FROM customers"));
+		// Each row of the second SELECT removes one equal row of the first
+		Assert.assertEquals(Arrays.asList("carol", "alice", "dave", "bob"),
+				select("SELECT customer FROM orders EXCEPT ALL SELECT name FROM customers"));
+		// The operators are evaluated from left to right
+		Assert.assertEquals(Arrays.asList("erin", "carol"), select("SELECT name FROM customers "
+				+ "EXCEPT SELECT customer FROM orders UNION SELECT customer FROM orders WHERE id = 3"));
+	}
+
+	@Test(expected = SQLFeatureNotSupportedException.class)
+	public void testIntersectFollowingUnion() throws SQLException {
+		select("SELECT name FROM customers UNION SELECT customer FROM orders INTERSECT SELECT name FROM customers");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testDifferentColumnCounts() throws SQLException {
+		connection.createStatement().executeQuery("SELECT id, customer FROM orders UNION SELECT name FROM customers");
+	}
+
+	private List<String> select(String sql) throws SQLException {
+		return rows(connection.createStatement().executeQuery(sql));
+	}
+
+	private static List<String> rows(ResultSet resultSet) throws SQLException {
+		List<String> rows = new ArrayList<>();
+		int columnCount = resultSet.getMetaData().getColumnCount();
+		while (resultSet.next()) {
+			StringBuilder row = new StringBuilder();
+			for (int column = 1; column <= columnCount; column++) {
+				row.append(column > 1 ? " " : "").append(resultSet.getString(column));
+			}
+			rows.add(row.toString());
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,109 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class VendorSyntaxTest {
+
+	private Connection connection;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(VendorSyntaxTest.class.getResource("orders.csv").toURI()));
+		connection = DriverManager.getConnection("any");
+	}
+
+	@Test
+	public void testJdbcEscapes() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 5),
+				selectIds("SELECT * FROM orders WHERE created >= {ts '2021-03-01 00:00:00'}"));
+		Assert.assertEquals(Arrays.asList(3, 4, 5), selectIds("SELECT * FROM orders WHERE created > {d '2021-02-11'}"));
+		Assert.assertEquals(Arrays.asList(2, 6),
+				selectIds("SELECT * FROM orders WHERE customer LIKE 'b!_%' {escape '!'} OR customer LIKE 'bo%'"));
+		// Functions are not evaluated, the rows are not filtered
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6),
+				selectIds("SELECT * FROM orders WHERE {fn UCASE(customer)} = 'BOB'"));
+	}
+
+	@Test
+	public void testTypedLiterals() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 5),
+				selectIds("SELECT * FROM orders WHERE created >= TIMESTAMP '2021-03-01 00:00:00'"));
+		Assert.assertEquals(Arrays.asList(1), selectIds("SELECT * FROM orders WHERE created < DATE '2021-01-06'"));
+	}
+
+	@Test
+	public void testNullsFirstAndLast() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 2, 1, 5, 6, 3),
+				selectIds("SELECT * FROM orders ORDER BY quantity NULLS FIRST"));
+		Assert.assertEquals(Arrays.asList(3, 6, 5, 1, 2, 4),
+				selectIds("SELECT * FROM orders ORDER BY quantity DESC NULLS LAST"));
+		// Other positions of null values are not supported, the rows are returned in file order
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6),
+				selectIds("SELECT * FROM orders ORDER BY quantity NULLS LAST"));
+	}
+
+	@Test
+	public void testSkippedVendorSyntax() throws SQLException {
+		Assert.assertEquals(Arrays.asList(1, 2),
+				selectIds("SELECT SQL_CALC_FOUND_ROWS * FROM orders WHERE id < 3"));
+		Assert.assertEquals(Arrays.asList(1), selectIds("SELECT * FROM orders WITH (NOLOCK) WHERE id = 1"));
+		Assert.assertEquals(Arrays.asList(1), selectIds("SELECT * FROM orders o WITH (NOLOCK) WHERE o.id = 1"));
+		Assert.assertEquals(Arrays.asList(1), selectIds("SELECT * FROM orders WHERE id = 1 LOCK IN SHARE MODE"));
+		Assert.assertEquals(Arrays.asList(1), selectIds("SELECT * FROM orders WHERE id = 1 FOR UPDATE"));
+	}
+
+	@Test
+	public void testUnsupportedConditionsReturnAllRows() throws SQLException {
+		List<Integer> all = Arrays.asList(1, 2, 3, 4, 5, 6);
+		Assert.assertEquals(all, selectIds("SELECT * FROM orders WHERE customer ILIKE 'BOB'"));
+		Assert.assertEquals(all, selectIds("SELECT * FROM orders WHERE id::varchar(10) = '1'"));
+		Assert.assertEquals(all, selectIds("SELECT * FROM orders WHERE customer COLLATE Latin1_General_CI_AS = 'BOB'"));
+	}
+
+	@Test
+	public void testUnknownSyntaxReturnsTableRows() throws SQLException {
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6),
+				selectIds("SELECT * FROM orders WHERE id = 1 QUALIFY ROW_NUMBER() OVER (ORDER BY id) = 1"));
+
+		// All parameter markers are counted
+		PreparedStatement statement = connection
+				.prepareStatement("SELECT * FROM orders WHERE id = ? QUALIFY ROW_NUMBER() OVER (ORDER BY id) = ?");
+		statement.setInt(1, 1);
+		statement.setInt(2, 1);
+		Assert.assertEquals(6, count(statement.executeQuery()));
+	}
+
+	private List<Integer> selectIds(String sql) throws SQLException {
+		ResultSet resultSet = connection.createStatement().executeQuery(sql);
+		List<Integer> ids = new ArrayList<>();
+		while (resultSet.next()) {
+			ids.add(resultSet.getInt("id"));
+		}
+		return ids;
+	}
+
+	private static int count(ResultSet resultSet) throws SQLException {
+		int count = 0;
+		while (resultSet.next()) {
+			count++;
+		}
+		return count;
+	}
+}
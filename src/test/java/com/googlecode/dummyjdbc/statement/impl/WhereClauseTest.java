@@ -0,0 +1,137 @@
+package com.googlecode.dummyjdbc.statement.impl;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.DummyJdbcDriver;
+
+public final class WhereClauseTest {
+
+	private Statement statement;
+
+	@Before
+	public void setup() throws ClassNotFoundException, SQLException, URISyntaxException {
+		Class.forName(DummyJdbcDriver.class.getCanonicalName());
+
+		DummyJdbcDriver.addTableResource("orders", new File(WhereClauseTest.class.getResource("orders.csv").toURI()));
+		statement = DriverManager.getConnection("any").createStatement();
+	}
+
+	@Test
+	public void testComparisons() throws SQLException {
+		Assert.assertEquals(Arrays.asList(3), selectIds("SELECT * FROM orders WHERE id = 3"));
+		Assert.assertEquals(Arrays.asList(1, 3, 4, 5, 6), selectIds("SELECT * FROM orders WHERE id <> 2"));
+		Assert.assertEquals(Arrays.asList(2, 4), selectIds("SELECT * FROM orders WHERE amount > 50"));
+		Assert.assertEquals(Arrays.asList(3, 6), selectIds("SELECT * FROM orders WHERE amount <= 5"));
+		Assert.assertEquals(Arrays.asList(2, 6), selectIds("SELECT * FROM orders WHERE customer = 'bob'"));
+	}
+
+	@Test
+	public void testBetweenInAndLike() throws SQLException {
+		Assert.assertEquals(Arrays.asList(2, 3, 4), selectIds("SELECT * FROM orders WHERE id BETWEEN 2 AND 4"));
+		Assert.assertEquals(Arrays.asList(1, 3, 4),
+				selectIds("SELECT * FROM orders WHERE customer IN ('alice', 'carol')"));
+		Assert.assertEquals(Arrays.asList(2, 4, 6), selectIds("SELECT * FROM orders WHERE id NOT IN (1, 3, 5)"));
+		Assert.assertEquals(Arrays.asList(2, 5), selectIds("SELECT * FROM orders WHERE status LIKE 'sh%'"));
+		Assert.assertEquals(Arrays.asList(2, 6), selectIds("SELECT * FROM orders WHERE customer LIKE '_o%'"));
+	}
+
+	@Test
+	public void testNulls() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4), selectIds("SELECT * FROM orders WHERE quantity IS NULL"));
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5),
+				selectIds("SELECT * FROM orders WHERE created IS NOT NULL"));
+		// Comparisons with null are unknown, so neither the condition nor its negation matches
+		Assert.assertEquals(Arrays.asList(1, 2, 5), selectIds("SELECT * FROM orders WHERE quantity < 5"));
+		Assert.assertEquals(Arrays.asList(3, 6), selectIds("SELECT * FROM orders WHERE NOT quantity < 5"));
+	}
+
+	@Test
+	public void testTimestamps() throws SQLException {
+		Assert.assertEquals(Arrays.asList(4, 5),
+				selectIds("SELECT * FROM orders WHERE created >= '2021-03-01 00:00:00'"));
+	}
+
+	@Test
+	public void testDateOnlyLiteralOnTimestamp() throws SQLException {
+		Assert.assertEquals(Arrays.asList(2, 3, 4, 5), selectIds("SELECT * FROM orders WHERE created > '2021-02-01'"));
+		Assert.assertEquals(Arrays.asList(2, 3),
+				selectIds("SELECT * FROM orders WHERE created BETWEEN '2021-02-01' AND '2021-02-28 23:59:59.999'"));
+	}
+
+	@Test
+	public void testAndOr() throws SQLException {
+		Assert.assertEquals(Arrays.asList(1, 3, 5), selectIds(
+				"SELECT * FROM orders WHERE (status = 'open' AND quantity > 1 AND id < 6) OR customer = 'dave'"));
+	}
+
+	@Test
+	public void testUntypedColumnComparedToNumber() throws SQLException, URISyntaxException {
+		DummyJdbcDriver.addTableResource("test_table",
+				new File(WhereClauseTest.class.getResource("test_table.csv").toURI()));
+		ResultSet resultSet = statement.executeQuery("SELECT * FROM test_table WHERE id = 2");
+
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("2", resultSet.getString("id"));
+		Assert.assertFalse(resultSet.next());
+	}
+
+	@Test
+	public void testStreamingWithWhere() throws SQLException {
+		DummyJdbcDriver.invalidateTableResource("orders");
+		statement.setFetchSize(2);
+
+		Assert.assertEquals(Arrays.asList(4, 5), selectIds("SELECT * FROM orders WHERE id IN (4, 5)"));
+	}
+
+	@Test
+	public void testUnsupportedConditionReturnsAllRows() throws SQLException {
+		List<Integer> all = Arrays.asList(1, 2, 3, 4, 5, 6);
+		Assert.assertEquals(all, selectIds("SELECT * FROM orders WHERE lower(customer) = 'bob'"));
+		Assert.assertEquals(all, selectIds("SELECT * FROM orders WHERE id IN (SELECT id FROM orders WHERE id > 3)"));
+		Assert.assertEquals(all, selectIds("SELECT * FROM orders WHERE id = 1 OR amount * 2 > 10"));
+	}
+
+	@Test
+	public void testSkippedExpressions() throws SQLException {
+		List<Integer> all = Arrays.asList(1, 2, 3, 4, 5, 6);
+		Assert.assertEquals(all, selectIds("SELECT CAST(id AS VARCHAR(10)) FROM orders"));
+		Assert.assertEquals(all, selectIds("SELECT CASE WHEN id = 1 THEN 1 END FROM orders"));
+		Assert.assertEquals(all,
+				selectIds("SELECT * FROM orders o WHERE EXISTS (SELECT 1 FROM orders p WHERE p.id = o.id)"));
+		Assert.assertEquals(Arrays.asList(1, 2), selectIds("SELECT TOP 2 * FROM orders"));
+		Assert.assertEquals(Arrays.asList(2, 6),
+				selectIds("SELECT * FROM orders WHERE customer = 'bob' ORDER BY CASE WHEN id > 2 THEN 0 END"));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testUnknownColumn() throws SQLException {
+		statement.executeQuery("SELECT * FROM orders WHERE unknown = 1");
+	}
+
+	@Test(expected = SQLSyntaxErrorException.class)
+	public void testSyntaxError() throws SQLException {
+		statement.executeQuery("SELECT * FROM orders WHERE id = ");
+	}
+
+	private List<Integer> selectIds(String sql) throws SQLException {
+		ResultSet resultSet = statement.executeQuery(sql);
+		List<Integer> ids = new ArrayList<>();
+		while (resultSet.next()) {
+			ids.add(resultSet.getInt("id"));
+		}
+		return ids;
+	}
+}
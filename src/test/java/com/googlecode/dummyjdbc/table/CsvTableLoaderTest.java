@@ -0,0 +1,176 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.googlecode.dummyjdbc.csv.FastCsvParser;
+
+public final class CsvTableLoaderTest {
+
+	private static final LoadOptions MAPPED = new LoadOptions(new FastCsvParser(), Charset.forName("UTF-8"), true);
+
+	private File csvFile;
+
+	@Before
+	public void setup() throws IOException {
+		csvFile = File.createTempFile("loader", ".csv");
+		FileWriter writer = new FileWriter(csvFile);
+		try {
+			writer.write("name, amount|integer, price|double\r\nPeter, 17, 19.95\r\n\"Paul, Jr.\", , 20.00\r\n");
+		} finally {
+			writer.close();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		csvFile.delete();
+	}
+
+	@Test
+	public void testMappedTableEqualsHeapTable() throws IOException {
+		Table heapTable = CsvTableLoader.load("loader", csvFile, LoadOptions.DEFAULT);
+		Table mappedTable = CsvTableLoader.load("loader", csvFile, MAPPED);
+
+		Assert.assertEquals(heapTable.getRowCount(), mappedTable.getRowCount());
+		Assert.assertEquals(heapTable.getColumnCount(), mappedTable.getColumnCount());
+		for (int column = 0; column < heapTable.getColumnCount(); column++) {
+			for (int row = 0; row < heapTable.getRowCount(); row++) {
+				Assert.assertEquals(heapTable.getColumn(column).isNull(row), mappedTable.getColumn(column).isNull(row));
+				Assert.assertEquals(heapTable.getColumn(column).getObject(row),
+						mappedTable.getColumn(column).getObject(row));
+			}
+		}
+	}
+
+	@Test
+	public void testTypedColumnsKeepTheirText() throws IOException {
+		FileWriter writer = new FileWriter(csvFile);
+		try {
+			writer.write("id|integer, code|bigint, price|double, created|timestamp\r\n"
+					+ "007, +5, 20.00, 2012-05-17 10:11:12\r\n-0, 12, 0.10, \r\n42, -3, 1.5, 2012-5-17 10:11:12\r\n");
+		} finally {
+			writer.close();
+		}
+		LoadOptions fast = new LoadOptions(new FastCsvParser(), Charset.forName("UTF-8"), false);
+		for (LoadOptions options : Arrays.asList(LoadOptions.DEFAULT, fast, MAPPED)) {
+			Table table = CsvTableLoader.load("loader", csvFile, options);
+
+			Assert.assertEquals("007", table.getColumn(0).getText(0));
+			Assert.assertEquals(7, table.getColumn(0).getInt(0));
+			Assert.assertEquals("-0", table.getColumn(0).getText(1));
+			Assert.assertEquals("42", table.getColumn(0).getText(2));
+			Assert.assertEquals("+5", table.getColumn(1).getText(0));
+			Assert.assertEquals("-3", table.getColumn(1).getText(2));
+			Assert.assertEquals("20.00", table.getColumn(2).getText(0));
+			Assert.assertEquals("0.10", table.getColumn(2).getText(1));
+			Assert.assertEquals(0.1, table.getColumn(2).getDouble(1), 0);
+			Assert.assertEquals("1.5", table.getColumn(2).getText(2));
+			Assert.assertEquals("2012-05-17 10:11:12", table.getColumn(3).getText(0));
+			Assert.assertEquals("", table.getColumn(3).getText(1));
+			Assert.assertNull(table.getColumn(3).getString(1));
+			Assert.assertEquals("2012-5-17 10:11:12", table.getColumn(3).getText(2));
+		}
+	}
+
+	@Test
+	public void testMappedTableKeepsOnlyOffsetsOnHeap() throws IOException {
+		Table mappedTable = CsvTableLoader.load("loader", csvFile, MAPPED);
+
+		Assert.assertEquals("Paul, Jr.", mappedTable.getColumn(0).getString(1));
+		Assert.assertEquals(17, mappedTable.getColumn(1).getInt(0));
+		Assert.assertTrue(mappedTable.getEstimatedSize() < CsvTableLoader.load("loader", csvFile,
+				LoadOptions.DEFAULT).getEstimatedSize());
+	}
+
+	@Test
+	public void testStreamReadsChunksAndClosesFile() throws IOException {
+		TableStream stream = CsvTableLoader.openStream("loader", csvFile, LoadOptions.DEFAULT);
+
+		Table firstChunk = stream.nextChunk(1);
+		Assert.assertEquals(1, firstChunk.getRowCount());
+		Assert.assertEquals("Peter", firstChunk.getColumn(0).getString(0));
+		Assert.assertFalse(stream.isClosed());
+
+		Table secondChunk = stream.nextChunk(5);
+		Assert.assertEquals(1, secondChunk.getRowCount());
+		Assert.assertEquals("Paul, Jr.", secondChunk.getColumn(0).getString(0));
+		Assert.assertTrue(stream.isClosed());
+		Assert.assertNull(stream.nextChunk(5));
+	}
+
+	@Test
+	public void testIndexesAreBuilt() throws IOException {
+		File indexedFile = File.createTempFile("loader_indexed", ".csv");
+		try {
+			Writer writer = new FileWriter(indexedFile);
+			try {
+				writer.write("id|integer|pk|sorted, name|varchar|index, amount|integer|index|sorted, note\n");
+				writer.write("1, Peter, 5, a\n2, , n/a, b\n1, Paul, 7, c\n");
+			} finally {
+				writer.close();
+			}
+
+			for (LoadOptions options : Arrays.asList(LoadOptions.DEFAULT, MAPPED)) {
+				Table table = CsvTableLoader.load("loader_indexed", indexedFile, options);
+
+				Assert.assertArrayEquals(new int[] { 0, 2 }, table.getHashIndex(0).lookup(1L));
+				Assert.assertArrayEquals(new int[0], table.getHashIndex(0).lookup(3L));
+				Assert.assertArrayEquals(new int[] { 2 }, table.getHashIndex(1).lookup("Paul"));
+				// The amount column falls back to text, the note column is not indexed
+				Assert.assertNull(table.getHashIndex(2));
+				Assert.assertNull(table.getHashIndex(3));
+				Assert.assertArrayEquals(new int[] { 1, 0, 2 }, table.getSortedIndex(0).getRows(true));
+				Assert.assertArrayEquals(new int[] { 0, 2 }, table.getSortedIndex(0).range(1L, true, 2L, false));
+				Assert.assertNull(table.getSortedIndex(2));
+			}
+		} finally {
+			indexedFile.delete();
+		}
+	}
+
+	@Test
+	public void testParallelTableEqualsSequentialTable() throws IOException {
+		File largeFile = File.createTempFile("loader_large", ".csv");
+		try {
+			Writer writer = new FileWriter(largeFile);
+			try {
+				writer.write("id|integer, name, amount|integer\n");
+				// Long values keep the row count low while the file is large enough to be split
+				char[] filler = new char[600];
+				Arrays.fill(filler, 'x');
+				for (int i = 0; i < 5000; i++) {
+					// A non-numeric amount in the last rows makes that column fall back to strings
+					String amount = i == 4990 ? "n/a" : String.valueOf(i % 7);
+					writer.write(i + ",\"name\n" + (i % 100) + new String(filler) + "\"," + amount + "\n");
+				}
+			} finally {
+				writer.close();
+			}
+
+			LoadOptions parallel = new LoadOptions(new FastCsvParser(), Charset.forName("UTF-8"), false, 4);
+			Table sequentialTable = CsvTableLoader.load("loader_large", largeFile, LoadOptions.DEFAULT);
+			Table parallelTable = CsvTableLoader.load("loader_large", largeFile, parallel);
+
+			Assert.assertEquals(5000, parallelTable.getRowCount());
+			for (int column = 0; column < sequentialTable.getColumnCount(); column++) {
+				for (int row = 0; row < sequentialTable.getRowCount(); row++) {
+					Assert.assertEquals(sequentialTable.getColumn(column).getObject(row),
+							parallelTable.getColumn(column).getObject(row));
+				}
+			}
+			Assert.assertEquals("n/a", parallelTable.getColumn(2).getString(4990));
+		} finally {
+			largeFile.delete();
+		}
+	}
+}
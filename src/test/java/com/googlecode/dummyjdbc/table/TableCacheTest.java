@@ -0,0 +1,82 @@
+package com.googlecode.dummyjdbc.table;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TableCacheTest {
+
+	private File csvFile;
+	private TableCache tableCache;
+
+	@Before
+	public void setup() throws IOException {
+		csvFile = File.createTempFile("cached_table", ".csv");
+		write(csvFile, "ID, NAME\n1, Peter\n");
+		tableCache = new TableCache(TableCache.DEFAULT_MAX_SIZE);
+	}
+
+	@After
+	public void tearDown() {
+		csvFile.delete();
+	}
+
+	@Test
+	public void testRepeatedGetReturnsCachedTable() throws IOException {
+		Table table = tableCache.get("cached_table", csvFile);
+
+		Assert.assertSame(table, tableCache.get("cached_table", csvFile));
+		Assert.assertEquals(table.getEstimatedSize(), tableCache.getSize());
+	}
+
+	@Test
+	public void testInvalidate() throws IOException {
+		Table table = tableCache.get("cached_table", csvFile);
+		tableCache.invalidate(csvFile);
+
+		Assert.assertEquals(0, tableCache.getSize());
+		Assert.assertNotSame(table, tableCache.get("cached_table", csvFile));
+	}
+
+	@Test
+	public void testModifiedFileIsReloaded() throws IOException {
+		Table table = tableCache.get("cached_table", csvFile);
+		Assert.assertEquals(1, table.getRowCount());
+
+		write(csvFile, "ID, NAME\n1, Peter\n2, Paul\n");
+
+		Assert.assertEquals(2, tableCache.get("cached_table", csvFile).getRowCount());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedTableIsEvicted() throws IOException {
+		File otherFile = File.createTempFile("other_table", ".csv");
+		try {
+			write(otherFile, "ID, NAME\n2, Paul\n");
+			Table table = tableCache.get("cached_table", csvFile);
+			Table otherTable = tableCache.get("other_table", otherFile);
+
+			tableCache.setMaxSize(otherTable.getEstimatedSize());
+
+			Assert.assertEquals(otherTable.getEstimatedSize(), tableCache.getSize());
+			Assert.assertSame(otherTable, tableCache.get("other_table", otherFile));
+			Assert.assertNotSame(table, tableCache.get("cached_table", csvFile));
+		} finally {
+			otherFile.delete();
+		}
+	}
+
+	private static void write(File file, String content) throws IOException {
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+}